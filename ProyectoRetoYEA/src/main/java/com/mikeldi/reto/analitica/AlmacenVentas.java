@@ -0,0 +1,308 @@
+package com.mikeldi.reto.analitica;
+
+import com.mikeldi.reto.entity.EstadoFactura;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+// Almacén columnar en memoria con una fila por línea facturada
+// Cada columna es un array primitivo dividido en bloques de tamaño fijo que nunca se recolocan,
+// así los lectores recorren los datos sin bloqueos mientras el escritor añade filas al final
+// Un almacén solo crece: una recarga completa construye otro aparte y lo sustituye entero
+class AlmacenVentas {
+
+    // Cada bloque guarda 65.536 filas; la fila global r está en el bloque r >>> 16
+    private static final int BITS_BLOQUE = 16;
+    private static final int TAM_BLOQUE = 1 << BITS_BLOQUE;
+    private static final int MASCARA_BLOQUE = TAM_BLOQUE - 1;
+
+    // Límite de celdas de agregación parciales para no disparar la memoria en dimensiones grandes
+    private static final long MAX_CELDAS_PARCIALES = 16_000_000L;
+
+    // Código de estado excluido de los análisis (facturas anuladas)
+    private static final byte ESTADO_CANCELADA = (byte) EstadoFactura.CANCELADA.ordinal();
+
+    // Columnas de un bloque: fecha como número de día, importes en céntimos y dimensiones codificadas
+    private static class Bloque {
+        final int[] dia = new int[TAM_BLOQUE];
+        final long[] importeCentimos = new long[TAM_BLOQUE];
+        final int[] cantidad = new int[TAM_BLOQUE];
+        final int[] producto = new int[TAM_BLOQUE];
+        final int[] cliente = new int[TAM_BLOQUE];
+        final int[] usuario = new int[TAM_BLOQUE];
+        final int[] factura = new int[TAM_BLOQUE];
+        final byte[] estado = new byte[TAM_BLOQUE];
+    }
+
+    // Diccionarios de las dimensiones
+    final Diccionario productos = new Diccionario();
+    final Diccionario categorias = new Diccionario();
+    final Diccionario clientes = new Diccionario();
+    final Diccionario provincias = new Diccionario();
+    final Diccionario usuarios = new Diccionario();
+
+    // Bloques de columnas; el array se sustituye (nunca se modifica) al crecer
+    private volatile Bloque[] bloques = new Bloque[0];
+
+    // Número de filas visibles para los lectores; se publica tras escribir la fila completa
+    private volatile int filas;
+
+    // Categoría actual de cada producto y provincia actual de cada cliente (por código)
+    // Permiten filtrar y agrupar por atributos derivados sin columnas adicionales
+    private volatile int[] categoriaPorProducto = new int[0];
+    private volatile int[] provinciaPorCliente = new int[0];
+
+    // Rango de filas de cada factura (indexado por id de factura): primera fila + 1 (0 = sin líneas) y número de filas
+    // Las líneas de una factura se añaden siempre juntas, así que ocupan filas consecutivas
+    private int[] primeraFilaFactura = new int[0];
+    private int[] filasFactura = new int[0];
+
+    // Rango de días presentes en el almacén, usado para la dimensión MES
+    private volatile int diaMinimo = Integer.MAX_VALUE;
+    private volatile int diaMaximo = Integer.MIN_VALUE;
+
+    // Añade una línea facturada al final de las columnas
+    synchronized void agregar(int facturaId, LocalDate fecha, EstadoFactura estado, int cantidad, long importeCentimos,
+                              int producto, int cliente, int usuario) {
+        int fila = filas;
+        Bloque[] actuales = bloques;
+        if ((fila >>> BITS_BLOQUE) == actuales.length) {
+            Bloque[] ampliados = Arrays.copyOf(actuales, actuales.length + 1);
+            ampliados[actuales.length] = new Bloque();
+            bloques = actuales = ampliados;
+        }
+        Bloque bloque = actuales[fila >>> BITS_BLOQUE];
+        int i = fila & MASCARA_BLOQUE;
+        int dia = (int) fecha.toEpochDay();
+        bloque.dia[i] = dia;
+        bloque.importeCentimos[i] = importeCentimos;
+        bloque.cantidad[i] = cantidad;
+        bloque.producto[i] = producto;
+        bloque.cliente[i] = cliente;
+        bloque.usuario[i] = usuario;
+        bloque.factura[i] = facturaId;
+        bloque.estado[i] = (byte) estado.ordinal();
+        registrarFila(facturaId, fila);
+        if (dia < diaMinimo) {
+            diaMinimo = dia;
+        }
+        if (dia > diaMaximo) {
+            diaMaximo = dia;
+        }
+        // La escritura volátil publica la fila completa a los lectores
+        filas = fila + 1;
+    }
+
+    // Registra la categoría actual de un producto (ya codificados)
+    synchronized void asignarCategoria(int producto, int categoria) {
+        categoriaPorProducto = asignar(categoriaPorProducto, producto, categoria);
+    }
+
+    // Registra la provincia actual de un cliente (ya codificados)
+    synchronized void asignarProvincia(int cliente, int provincia) {
+        provinciaPorCliente = asignar(provinciaPorCliente, cliente, provincia);
+    }
+
+    // Actualiza el estado de las filas de una factura recorriendo solo su rango
+    synchronized void actualizarEstado(int facturaId, EstadoFactura estado) {
+        if (!contieneFactura(facturaId)) {
+            return;
+        }
+        byte codigo = (byte) estado.ordinal();
+        int primera = primeraFilaFactura[facturaId] - 1;
+        int fin = primera + filasFactura[facturaId];
+        for (int r = primera; r < fin; r++) {
+            bloques[r >>> BITS_BLOQUE].estado[r & MASCARA_BLOQUE] = codigo;
+        }
+    }
+
+    // Indica si las líneas de la factura ya se han añadido
+    synchronized boolean contieneFactura(int facturaId) {
+        return facturaId < primeraFilaFactura.length && primeraFilaFactura[facturaId] != 0;
+    }
+
+    // Amplía el rango de filas de la factura con la fila recién escrita
+    private void registrarFila(int facturaId, int fila) {
+        if (facturaId >= primeraFilaFactura.length) {
+            int longitud = Math.max(facturaId + 1, primeraFilaFactura.length * 2);
+            primeraFilaFactura = Arrays.copyOf(primeraFilaFactura, longitud);
+            filasFactura = Arrays.copyOf(filasFactura, longitud);
+        }
+        if (primeraFilaFactura[facturaId] == 0) {
+            primeraFilaFactura[facturaId] = fila + 1;
+        } else if (primeraFilaFactura[facturaId] - 1 + filasFactura[facturaId] != fila) {
+            throw new IllegalStateException("Las líneas de la factura " + facturaId + " no son consecutivas en el almacén");
+        }
+        filasFactura[facturaId]++;
+    }
+
+    int filas() {
+        return filas;
+    }
+
+    // Agrupa las filas por la dimensión indicada aplicando el filtro, en paralelo
+    // Cada tarea recorre un rango contiguo de filas acumulando en arrays indexados por código
+    // y al final se suman los parciales; no se crea ningún objeto por fila
+    Agregado agrupar(DimensionVentas dimension, FiltroVentas filtro) {
+        // Se lee primero el número de filas: los códigos de esas filas ya existen en los diccionarios
+        int total = filas;
+        Bloque[] actuales = bloques;
+        int[] categoriaProducto = categoriaPorProducto;
+        int[] provinciaCliente = provinciaPorCliente;
+
+        int desde = Math.max(filtro.diaDesde, diaMinimo);
+        int hasta = Math.min(filtro.diaHasta, diaMaximo);
+        int[] mesPorDia = dimension == DimensionVentas.MES && desde <= hasta ? tablaMeses(desde, hasta) : null;
+        int mesBase = mesPorDia != null ? indiceMes(desde) : 0;
+        int grupos = numeroGrupos(dimension, desde, hasta);
+        if (total == 0 || grupos == 0 || desde > hasta) {
+            return new Agregado(dimension, mesBase, 0);
+        }
+
+        int nucleos = Runtime.getRuntime().availableProcessors();
+        int tareas = (int) Math.max(1, Math.min(nucleos * 4L, MAX_CELDAS_PARCIALES / grupos));
+        tareas = Math.min(tareas, Math.max(1, total / 4096));
+        int porTarea = (total + tareas - 1) / tareas;
+        final int diaDesde = desde;
+        final int diaHasta = hasta;
+
+        return IntStream.range(0, tareas).parallel().mapToObj(t -> {
+            Agregado parcial = new Agregado(dimension, mesBase, grupos);
+            int inicio = t * porTarea;
+            int fin = Math.min(total, inicio + porTarea);
+            for (int r = inicio; r < fin; r++) {
+                Bloque b = actuales[r >>> BITS_BLOQUE];
+                int i = r & MASCARA_BLOQUE;
+                int dia = b.dia[i];
+                if (dia < diaDesde || dia > diaHasta || b.estado[i] == ESTADO_CANCELADA) {
+                    continue;
+                }
+                int producto = b.producto[i];
+                int cliente = b.cliente[i];
+                if ((filtro.producto >= 0 && producto != filtro.producto)
+                        || (filtro.cliente >= 0 && cliente != filtro.cliente)
+                        || (filtro.usuario >= 0 && b.usuario[i] != filtro.usuario)
+                        || (filtro.categoria >= 0 && valor(categoriaProducto, producto) != filtro.categoria)
+                        || (filtro.provincia >= 0 && valor(provinciaCliente, cliente) != filtro.provincia)) {
+                    continue;
+                }
+                int grupo = switch (dimension) {
+                    case PRODUCTO -> producto;
+                    case CATEGORIA -> valor(categoriaProducto, producto);
+                    case CLIENTE -> cliente;
+                    case PROVINCIA -> valor(provinciaCliente, cliente);
+                    case USUARIO -> b.usuario[i];
+                    case MES -> mesPorDia[dia - diaDesde];
+                };
+                if (grupo < 0 || grupo >= grupos) {
+                    continue;
+                }
+                parcial.lineas[grupo]++;
+                parcial.unidades[grupo] += b.cantidad[i];
+                parcial.importeCentimos[grupo] += b.importeCentimos[i];
+            }
+            return parcial;
+        }).reduce(Agregado::sumar).orElseGet(() -> new Agregado(dimension, mesBase, 0));
+    }
+
+    // Número de grupos posibles para la dimensión
+    private int numeroGrupos(DimensionVentas dimension, int desde, int hasta) {
+        return switch (dimension) {
+            case PRODUCTO -> productos.tamano();
+            case CATEGORIA -> categorias.tamano();
+            case CLIENTE -> clientes.tamano();
+            case PROVINCIA -> provincias.tamano();
+            case USUARIO -> usuarios.tamano();
+            case MES -> desde <= hasta ? indiceMes(hasta) - indiceMes(desde) + 1 : 0;
+        };
+    }
+
+    // Tabla día → índice de mes relativo al primer mes del rango
+    private static int[] tablaMeses(int desde, int hasta) {
+        int base = indiceMes(desde);
+        int[] tabla = new int[hasta - desde + 1];
+        for (int d = desde; d <= hasta; d++) {
+            tabla[d - desde] = indiceMes(d) - base;
+        }
+        return tabla;
+    }
+
+    // Índice absoluto de mes (año * 12 + mes) para un número de día
+    static int indiceMes(int dia) {
+        LocalDate fecha = LocalDate.ofEpochDay(dia);
+        return fecha.getYear() * 12 + fecha.getMonthValue() - 1;
+    }
+
+    // Convierte un índice absoluto de mes en YearMonth
+    static YearMonth mesDeIndice(int indice) {
+        return YearMonth.of(indice / 12, indice % 12 + 1);
+    }
+
+    private static int valor(int[] tabla, int codigo) {
+        return codigo < tabla.length ? tabla[codigo] : -1;
+    }
+
+    private static int[] asignar(int[] tabla, int posicion, int valor) {
+        int[] copia = tabla;
+        if (posicion >= tabla.length) {
+            int longitud = Math.max(posicion + 1, tabla.length * 2);
+            copia = Arrays.copyOf(tabla, longitud);
+            Arrays.fill(copia, tabla.length, longitud, -1);
+        }
+        copia[posicion] = valor;
+        return copia;
+    }
+
+    // Filtro de consulta ya traducido a códigos (-1 = sin filtro) y rango de días inclusivo
+    static class FiltroVentas {
+        int diaDesde = Integer.MIN_VALUE;
+        int diaHasta = Integer.MAX_VALUE;
+        int producto = -1;
+        int categoria = -1;
+        int cliente = -1;
+        int provincia = -1;
+        int usuario = -1;
+    }
+
+    // Resultado de una agregación: métricas por código de grupo
+    static class Agregado {
+        final DimensionVentas dimension;
+        final int mesBase;
+        final long[] lineas;
+        final long[] unidades;
+        final long[] importeCentimos;
+
+        Agregado(DimensionVentas dimension, int mesBase, int grupos) {
+            this.dimension = dimension;
+            this.mesBase = mesBase;
+            this.lineas = new long[grupos];
+            this.unidades = new long[grupos];
+            this.importeCentimos = new long[grupos];
+        }
+
+        // Suma otro parcial sobre este (mismo número de grupos)
+        Agregado sumar(Agregado otro) {
+            for (int g = 0; g < lineas.length; g++) {
+                lineas[g] += otro.lineas[g];
+                unidades[g] += otro.unidades[g];
+                importeCentimos[g] += otro.importeCentimos[g];
+            }
+            return this;
+        }
+
+        // Códigos de grupo con al menos una línea
+        List<Integer> gruposConDatos() {
+            List<Integer> resultado = new ArrayList<>();
+            for (int g = 0; g < lineas.length; g++) {
+                if (lineas[g] > 0) {
+                    resultado.add(g);
+                }
+            }
+            return resultado;
+        }
+    }
+}
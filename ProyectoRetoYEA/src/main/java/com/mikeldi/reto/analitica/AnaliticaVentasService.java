@@ -0,0 +1,335 @@
+package com.mikeldi.reto.analitica;
+
+import com.mikeldi.reto.dto.ResultadoAnaliticaDTO;
+import com.mikeldi.reto.dto.TrabajoDTO;
+import com.mikeldi.reto.entity.Cliente;
+import com.mikeldi.reto.entity.Factura;
+import com.mikeldi.reto.entity.Producto;
+import com.mikeldi.reto.event.EntidadModificadaEvent;
+import com.mikeldi.reto.exception.BadRequestException;
+import com.mikeldi.reto.repository.FacturaRepository;
+import com.mikeldi.reto.repository.LineaPedidoRepository;
+import com.mikeldi.reto.repository.projection.LineaVentaView;
+import com.mikeldi.reto.trabajo.ContextoTrabajo;
+import com.mikeldi.reto.trabajo.GestorTrabajos;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+// Servicio de análisis de ventas sobre el almacén columnar en memoria
+// Se carga al arrancar desde facturas, pedidos y líneas, y se mantiene al día
+// añadiendo las líneas de cada factura nueva cuando su transacción confirma. Los cambios se aplican
+// en un único hilo propio, no en el de la petición que confirma: las consultas a la base de datos
+// se hacen fuera del monitor y las transacciones no esperan unas a otras
+// Las recargas se ejecutan como trabajos en segundo plano: el almacén nuevo se construye aparte
+// y se publica de una vez, así las consultas ven siempre un almacén completo
+@Service
+public class AnaliticaVentasService {
+
+    // Logger para registrar cargas del almacén
+    private static final Logger logger = LoggerFactory.getLogger(AnaliticaVentasService.class);
+
+    // Tipo de trabajo en el gestor; solo hay una carga en cola o en curso a la vez
+    static final String TIPO_TRABAJO = "RECARGA_ANALITICA";
+
+    // Etiqueta usada cuando un producto no tiene categoría o un cliente no tiene provincia
+    private static final String SIN_VALOR = "(sin asignar)";
+
+    // Inyecta repositorio de líneas para recorrer las ventas con un cursor
+    @Autowired
+    private LineaPedidoRepository lineaPedidoRepository;
+
+    // Inyecta repositorio de facturas para fijar el punto de corte de la carga
+    @Autowired
+    private FacturaRepository facturaRepository;
+
+    // Gestor de transacciones para abrir el cursor fuera de un método @Transactional
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Gestor del pool de trabajos que ejecuta las recargas
+    @Autowired
+    private GestorTrabajos gestorTrabajos;
+
+    // Almacén columnar publicado a las consultas; una recarga lo sustituye con una escritura volátil
+    private volatile AlmacenVentas almacen = new AlmacenVentas();
+
+    // Cambios confirmados mientras se construía un almacén nuevo; se aplican sobre él antes de publicarlo
+    // Llevan ya los datos leídos de la base de datos, así reaplicarlos no consulta nada
+    private final List<Consumer<AlmacenVentas>> cambiosPendientes = new ArrayList<>();
+
+    // Hilo único que aplica los cambios en el orden en que llegan
+    private final ExecutorService aplicador = Executors.newSingleThreadExecutor(tarea -> {
+        Thread hilo = new Thread(tarea, "analitica-cambios");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    // Indica si hay una carga completa en curso
+    private boolean cargando;
+
+    // Carga el almacén en segundo plano al arrancar para no retrasar el inicio
+    // Sin solicitante: un administrador que pida una recarga mientras tanto recibe este trabajo y puede seguirlo
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarAlArrancar() {
+        recargar(null);
+    }
+
+    // Envía la recarga completa al gestor de trabajos; si ya hay una en cola o en curso devuelve esa
+    public TrabajoDTO recargar(String solicitante) {
+        return gestorTrabajos.enviar(TIPO_TRABAJO, "completa", solicitante, this::cargar);
+    }
+
+    // Detiene el hilo de cambios al cerrar la aplicación
+    @PreDestroy
+    void detener() {
+        aplicador.shutdownNow();
+    }
+
+    // Construye un almacén nuevo desde la base de datos usando un cursor y lo publica al terminar
+    // Mientras tanto las consultas y los eventos siguen usando el almacén anterior
+    private void cargar(ContextoTrabajo contexto) {
+        synchronized (this) {
+            cargando = true;
+            cambiosPendientes.clear();
+        }
+        // El máximo se lee después de empezar a guardar cambios: una factura posterior llega como cambio pendiente
+        Long maxId = facturaRepository.findMaxId();
+        long ultimaFactura = maxId != null ? maxId : 0L;
+        long inicio = System.currentTimeMillis();
+        AlmacenVentas nuevo = new AlmacenVentas();
+        try {
+            TransactionTemplate plantilla = new TransactionTemplate(transactionManager);
+            plantilla.setReadOnly(true);
+            plantilla.executeWithoutResult(estado -> {
+                // Solo se cargan facturas existentes al empezar; las posteriores llegan por eventos
+                // Las líneas llegan ordenadas por factura, así el progreso es el id sobre el máximo
+                try (Stream<LineaVentaView> lineas = lineaPedidoRepository.streamLineasFacturadas(ultimaFactura)) {
+                    lineas.forEach(linea -> {
+                        agregarLinea(nuevo, linea);
+                        contexto.progreso(linea.getFacturaId(), ultimaFactura);
+                    });
+                }
+            });
+            // Los cambios pendientes se aplican sobre el almacén nuevo y se publica sin soltar el monitor:
+            // un cambio posterior ya encuentra el almacén nuevo
+            synchronized (this) {
+                cambiosPendientes.forEach(cambio -> cambio.accept(nuevo));
+                almacen = nuevo;
+            }
+            logger.info("Almacén de ventas cargado: {} líneas en {} ms", nuevo.filas(), System.currentTimeMillis() - inicio);
+        } finally {
+            synchronized (this) {
+                cargando = false;
+                cambiosPendientes.clear();
+            }
+        }
+    }
+
+    // Mantiene el almacén al día cuando confirman cambios en facturas, productos o clientes
+    // En el hilo que confirma solo se copian los datos del evento y se encola el cambio
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alModificarEntidad(EntidadModificadaEvent evento) {
+        if (evento.esDeTipo(Factura.class)) {
+            Long facturaId = ((Factura) evento.getEntidad()).getId();
+            encolar(() -> cambioFactura(facturaId));
+        } else if (evento.esDeTipo(Producto.class)) {
+            Producto producto = (Producto) evento.getEntidad();
+            Long id = producto.getId();
+            String nombre = producto.getNombre();
+            String categoria = producto.getCategoria();
+            encolar(() -> destino -> {
+                int codigo = destino.productos.buscar(id);
+                if (codigo >= 0) {
+                    destino.productos.codificar(id, nombre);
+                    destino.asignarCategoria(codigo, destino.categorias.codificar(clave(categoria), etiqueta(categoria)));
+                }
+            });
+        } else if (evento.esDeTipo(Cliente.class)) {
+            Cliente cliente = (Cliente) evento.getEntidad();
+            Long id = cliente.getId();
+            String nombre = cliente.getNombre();
+            String provincia = cliente.getProvincia();
+            encolar(() -> destino -> {
+                int codigo = destino.clientes.buscar(id);
+                if (codigo >= 0) {
+                    destino.clientes.codificar(id, nombre);
+                    destino.asignarProvincia(codigo, destino.provincias.codificar(clave(provincia), etiqueta(provincia)));
+                }
+            });
+        }
+    }
+
+    // Prepara el cambio en el hilo de cambios (con las consultas que necesite, sin el monitor)
+    // y lo aplica al almacén publicado; durante una carga se guarda también para el almacén nuevo
+    private void encolar(Supplier<Consumer<AlmacenVentas>> preparacion) {
+        aplicador.execute(() -> {
+            try {
+                Consumer<AlmacenVentas> cambio = preparacion.get();
+                synchronized (this) {
+                    if (cargando) {
+                        cambiosPendientes.add(cambio);
+                    }
+                    cambio.accept(almacen);
+                }
+            } catch (RuntimeException e) {
+                // El almacén queda sin este cambio hasta la próxima recarga
+                logger.error("No se pudo aplicar un cambio al almacén de ventas", e);
+            }
+        });
+    }
+
+    // Agrupa las ventas por una dimensión con filtros opcionales sobre el resto
+    // Las facturas CANCELADAS se excluyen; el importe es la base sin IVA de las líneas
+    public List<ResultadoAnaliticaDTO> consultar(DimensionVentas agruparPor, LocalDate inicio, LocalDate fin,
+                                                 Map<DimensionVentas, String> filtros) {
+        // Toda la consulta usa el mismo almacén aunque entretanto se publique otro
+        AlmacenVentas almacen = this.almacen;
+        AlmacenVentas.FiltroVentas filtro = new AlmacenVentas.FiltroVentas();
+        if (inicio != null) {
+            filtro.diaDesde = (int) inicio.toEpochDay();
+        }
+        if (fin != null) {
+            filtro.diaHasta = (int) fin.toEpochDay();
+        }
+
+        // Traduce los filtros a códigos de diccionario; un valor desconocido no puede tener ventas
+        for (Map.Entry<DimensionVentas, String> entrada : filtros.entrySet()) {
+            String valor = entrada.getValue();
+            switch (entrada.getKey()) {
+                case PRODUCTO -> filtro.producto = codigoOVacio(almacen.productos.buscar(parsearId(valor)));
+                case CATEGORIA -> filtro.categoria = codigoOVacio(almacen.categorias.buscar(valor));
+                case CLIENTE -> filtro.cliente = codigoOVacio(almacen.clientes.buscar(parsearId(valor)));
+                case PROVINCIA -> filtro.provincia = codigoOVacio(almacen.provincias.buscar(valor));
+                case USUARIO -> filtro.usuario = codigoOVacio(almacen.usuarios.buscar(parsearId(valor)));
+                case MES -> {
+                    YearMonth mes = YearMonth.parse(valor);
+                    filtro.diaDesde = Math.max(filtro.diaDesde, (int) mes.atDay(1).toEpochDay());
+                    filtro.diaHasta = Math.min(filtro.diaHasta, (int) mes.atEndOfMonth().toEpochDay());
+                }
+            }
+        }
+
+        AlmacenVentas.Agregado agregado = almacen.agrupar(agruparPor, filtro);
+
+        List<ResultadoAnaliticaDTO> resultado = new ArrayList<>();
+        for (int grupo : agregado.gruposConDatos()) {
+            String clave;
+            String etiqueta;
+            if (agruparPor == DimensionVentas.MES) {
+                clave = AlmacenVentas.mesDeIndice(agregado.mesBase + grupo).toString();
+                etiqueta = clave;
+            } else {
+                Diccionario diccionario = diccionario(almacen, agruparPor);
+                clave = String.valueOf(diccionario.clave(grupo));
+                etiqueta = diccionario.etiqueta(grupo);
+            }
+            resultado.add(new ResultadoAnaliticaDTO(
+                clave,
+                etiqueta,
+                agregado.lineas[grupo],
+                agregado.unidades[grupo],
+                BigDecimal.valueOf(agregado.importeCentimos[grupo], 2)
+            ));
+        }
+
+        // Los meses se devuelven en orden cronológico, el resto por importe descendente
+        if (agruparPor == DimensionVentas.MES) {
+            resultado.sort(Comparator.comparing(ResultadoAnaliticaDTO::getClave));
+        } else {
+            resultado.sort(Comparator.comparing(ResultadoAnaliticaDTO::getImporte).reversed());
+        }
+        return resultado;
+    }
+
+    // Lee las líneas de una factura y devuelve el cambio que las añade (factura nueva) o actualiza su estado
+    // La comprobación se hace al aplicarlo, con el monitor tomado: las líneas no se añaden dos veces
+    private Consumer<AlmacenVentas> cambioFactura(Long facturaId) {
+        List<LineaVentaView> lineas = lineaPedidoRepository.findLineasFacturadas(facturaId);
+        return destino -> {
+            if (lineas.isEmpty()) {
+                return;
+            }
+            if (!destino.contieneFactura(Math.toIntExact(facturaId))) {
+                // Factura nueva: se añaden sus líneas
+                lineas.forEach(linea -> agregarLinea(destino, linea));
+                return;
+            }
+            // Factura ya presente: solo puede haber cambiado su estado
+            destino.actualizarEstado(Math.toIntExact(facturaId), lineas.get(0).getEstado());
+        };
+    }
+
+    // Codifica las dimensiones de una línea y la añade a las columnas
+    private static void agregarLinea(AlmacenVentas almacen, LineaVentaView linea) {
+        int producto = almacen.productos.codificar(linea.getProductoId(), linea.getProductoNombre());
+        int cliente = almacen.clientes.codificar(linea.getClienteId(), linea.getClienteNombre());
+        int usuario = almacen.usuarios.codificar(linea.getUsuarioId(), linea.getUsuarioNombre());
+        almacen.asignarCategoria(producto, almacen.categorias.codificar(clave(linea.getCategoria()), etiqueta(linea.getCategoria())));
+        almacen.asignarProvincia(cliente, almacen.provincias.codificar(clave(linea.getProvincia()), etiqueta(linea.getProvincia())));
+        almacen.agregar(
+            Math.toIntExact(linea.getFacturaId()),
+            linea.getFechaEmision(),
+            linea.getEstado(),
+            linea.getCantidad(),
+            linea.getSubtotal().setScale(2).unscaledValue().longValueExact(),
+            producto,
+            cliente,
+            usuario
+        );
+    }
+
+    // Diccionario asociado a una dimensión codificada
+    private static Diccionario diccionario(AlmacenVentas almacen, DimensionVentas dimension) {
+        return switch (dimension) {
+            case PRODUCTO -> almacen.productos;
+            case CATEGORIA -> almacen.categorias;
+            case CLIENTE -> almacen.clientes;
+            case PROVINCIA -> almacen.provincias;
+            case USUARIO -> almacen.usuarios;
+            case MES -> throw new IllegalArgumentException("MES no usa diccionario");
+        };
+    }
+
+    // Un filtro sobre un valor inexistente se traduce a un código que ninguna fila tiene
+    private static int codigoOVacio(int codigo) {
+        return codigo >= 0 ? codigo : Integer.MAX_VALUE;
+    }
+
+    private static Long parsearId(String valor) {
+        try {
+            return Long.valueOf(valor);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Identificador no válido: " + valor);
+        }
+    }
+
+    private static String clave(String valor) {
+        return valor != null ? valor : "";
+    }
+
+    private static String etiqueta(String valor) {
+        return valor != null ? valor : SIN_VALOR;
+    }
+}
@@ -0,0 +1,53 @@
+package com.mikeldi.reto.analitica;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Diccionario que codifica valores de una dimensión (ids o textos) como enteros consecutivos
+// Las columnas del almacén guardan solo el código int; la etiqueta se resuelve aquí al consultar
+class Diccionario {
+    
+    // Código asignado a cada clave (id de entidad o texto de categoría/provincia)
+    private final Map<Object, Integer> codigos = new HashMap<>();
+    
+    // Clave original por código, en orden de asignación
+    private final List<Object> claves = new ArrayList<>();
+    
+    // Etiqueta legible por código (nombre del producto, cliente...)
+    private final List<String> etiquetas = new ArrayList<>();
+    
+    // Retorna el código de la clave, creándolo si no existe; actualiza la etiqueta
+    synchronized int codificar(Object clave, String etiqueta) {
+        Integer codigo = codigos.get(clave);
+        if (codigo == null) {
+            codigo = claves.size();
+            codigos.put(clave, codigo);
+            claves.add(clave);
+            etiquetas.add(etiqueta);
+        } else if (etiqueta != null) {
+            etiquetas.set(codigo, etiqueta);
+        }
+        return codigo;
+    }
+    
+    // Retorna el código de una clave existente o -1 si nunca se ha visto
+    synchronized int buscar(Object clave) {
+        Integer codigo = codigos.get(clave);
+        return codigo != null ? codigo : -1;
+    }
+    
+    // Número de valores distintos codificados
+    synchronized int tamano() {
+        return claves.size();
+    }
+    
+    synchronized Object clave(int codigo) {
+        return claves.get(codigo);
+    }
+    
+    synchronized String etiqueta(int codigo) {
+        return etiquetas.get(codigo);
+    }
+}
@@ -0,0 +1,17 @@
+package com.mikeldi.reto.analitica;
+
+// Dimensiones por las que se puede agrupar o filtrar el análisis de ventas
+public enum DimensionVentas {
+    // Producto vendido (clave: id del producto)
+    PRODUCTO,
+    // Categoría del producto (clave: nombre de la categoría)
+    CATEGORIA,
+    // Cliente facturado (clave: id del cliente)
+    CLIENTE,
+    // Provincia del cliente (clave: nombre de la provincia)
+    PROVINCIA,
+    // Comercial que creó el pedido (clave: id del usuario)
+    USUARIO,
+    // Mes de emisión de la factura (clave: AAAA-MM)
+    MES
+}
@@ -0,0 +1,554 @@
+package com.mikeldi.reto.busqueda;
+
+import com.mikeldi.reto.dto.SugerenciaDTO;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Árbol de prefijos en memoria para autocompletar, con las entradas más populares precalculadas
+// Es un burst trie: un nodo con pocas claves las guarda en un cubo (lista plana que se recorre entera)
+// y solo se desglosa en un hijo por carácter al superar CAPACIDAD_CUBO, así hay muchos menos nodos
+// que claves. Las claves no se copian: cada una es una posición dentro del nombre o del detalle
+// de su entrada, que se leen plegando cada carácter (minúscula sin tilde). Los nodos con más de MAX_SUGERENCIAS claves guardan sus mejores
+// entradas ordenadas, por lo que una consulta solo baja por los caracteres del prefijo
+// El detalle siempre se devuelve en las sugerencias, pero solo es clave si el árbol lo indica (NIF sí, categoría no)
+class ArbolPrefijos {
+    
+    // Sugerencias que se precalculan en cada nodo: máximo que admite una consulta
+    static final int MAX_SUGERENCIAS = 20;
+    
+    // Claves de un cubo antes de desglosarlo en hijos
+    private static final int CAPACIDAD_CUBO = 64;
+    
+    // Palabras del nombre, además de la primera, por las que se puede empezar a escribir
+    private static final int MAX_PALABRAS = 4;
+    
+    // Origen de la clave formada por el detalle (NIF) en lugar del nombre
+    private static final int DETALLE = -1;
+    
+    // Indica si el detalle también es clave de búsqueda
+    private final boolean detalleBuscable;
+    
+    // Carácter plegado de cada carácter UTF-16: minúscula sin tilde, y espacio para los separadores
+    // Plegar carácter a carácter conserva las posiciones, por eso las claves se leen del texto original
+    private static final char[] PLEGADO = new char[Character.MAX_VALUE + 1];
+    
+    static {
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            char letra = (char) c;
+            if (Character.isWhitespace(letra)) {
+                PLEGADO[c] = ' ';
+            } else {
+                String descompuesta = Normalizer.normalize(String.valueOf(letra), Normalizer.Form.NFD);
+                PLEGADO[c] = Character.toLowerCase(descompuesta.charAt(0));
+            }
+        }
+    }
+    
+    // Más popular primero; a igualdad, orden alfabético
+    private static final Comparator<Entrada> POR_POPULARIDAD = Comparator
+            .comparingLong((Entrada e) -> -e.popularidad)
+            .thenComparing(e -> e.nombre)
+            .thenComparingLong(e -> e.id);
+    
+    // Lecturas concurrentes; las altas, bajas y cambios de popularidad son exclusivos
+    private final ReentrantReadWriteLock cerrojo = new ReentrantReadWriteLock();
+    
+    // Entradas por id, también las inactivas (sin claves) para conservar su popularidad
+    private final Map<Long, Entrada> entradas = new HashMap<>();
+    
+    private final Nodo raiz = new Nodo();
+    
+    ArbolPrefijos(boolean detalleBuscable) {
+        this.detalleBuscable = detalleBuscable;
+    }
+    
+    // Añade una entrada durante una carga completa sin mantener las sugerencias precalculadas
+    // Tras la carga hay que llamar a terminarCarga
+    void cargar(long id, String nombre, String detalle, boolean activa, long popularidad) {
+        cerrojo.writeLock().lock();
+        try {
+            Entrada entrada = new Entrada(id);
+            entrada.popularidad = popularidad;
+            entradas.put(id, entrada);
+            asignar(entrada, nombre, detalle, activa, false);
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+    
+    // Calcula las sugerencias de todos los nodos tras una carga completa
+    void terminarCarga() {
+        cerrojo.writeLock().lock();
+        try {
+            recalcular(raiz);
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+    
+    // Añade o modifica una entrada; las inactivas no se sugieren
+    // Con popularidad nula se conserva la que tuviera la entrada (cero si es nueva)
+    void indexar(long id, String nombre, String detalle, boolean activa, Long popularidad) {
+        cerrojo.writeLock().lock();
+        try {
+            Entrada entrada = entradas.computeIfAbsent(id, Entrada::new);
+            quitarClaves(entrada);
+            if (popularidad != null) {
+                entrada.popularidad = popularidad;
+            }
+            asignar(entrada, nombre, detalle, activa, true);
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+    
+    // Quita una entrada del árbol
+    void eliminar(long id) {
+        cerrojo.writeLock().lock();
+        try {
+            Entrada entrada = entradas.remove(id);
+            if (entrada != null) {
+                quitarClaves(entrada);
+            }
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+    
+    // Suma (o resta, si es negativo) a la popularidad de una entrada y reordena sus sugerencias
+    void sumarPopularidad(long id, long incremento) {
+        if (incremento == 0) {
+            return;
+        }
+        cerrojo.writeLock().lock();
+        try {
+            Entrada entrada = entradas.get(id);
+            if (entrada == null) {
+                return;
+            }
+            entrada.popularidad += incremento;
+            for (int origen : entrada.origenes) {
+                reordenar(raiz, entrada, origen, 0, incremento > 0);
+            }
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+    
+    // Número de entradas que se pueden sugerir
+    int tamano() {
+        cerrojo.readLock().lock();
+        try {
+            return (int) entradas.values().stream().filter(e -> e.origenes.length > 0).count();
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+    
+    // Entradas activas con alguna clave que empieza por el texto, de más a menos popular
+    List<SugerenciaDTO> sugerir(String texto, int limite) {
+        String prefijo = normalizar(texto);
+        if (prefijo.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+        limite = Math.min(limite, MAX_SUGERENCIAS);
+        
+        cerrojo.readLock().lock();
+        try {
+            // Baja por los caracteres del prefijo hasta agotarlo o llegar a un cubo
+            Nodo nodo = raiz;
+            int profundidad = 0;
+            while (profundidad < prefijo.length() && !nodo.esCubo()) {
+                nodo = nodo.hijo(prefijo.charAt(profundidad), false);
+                if (nodo == null) {
+                    return List.of();
+                }
+                profundidad++;
+            }
+            
+            List<Entrada> encontradas;
+            if (profundidad == prefijo.length() && nodo.mejores != null) {
+                encontradas = Arrays.asList(nodo.mejores).subList(0, Math.min(limite, nodo.mejores.length));
+            } else {
+                // Subárbol pequeño o cubo: se recorre filtrando por el resto del prefijo
+                List<Entrada> candidatas = new ArrayList<>();
+                recolectar(nodo, prefijo, profundidad, candidatas);
+                encontradas = mejores(candidatas, limite);
+            }
+            
+            List<SugerenciaDTO> sugerencias = new ArrayList<>(encontradas.size());
+            for (Entrada entrada : encontradas) {
+                sugerencias.add(new SugerenciaDTO(entrada.id, entrada.nombre, entrada.detalle, entrada.popularidad));
+            }
+            return sugerencias;
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+    
+    // Texto de una consulta plegado como las claves, sin espacios al principio ni repetidos
+    static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        StringBuilder normalizado = new StringBuilder(texto.length());
+        for (int i = 0; i < texto.length(); i++) {
+            char letra = PLEGADO[texto.charAt(i)];
+            if (letra != ' ' || (normalizado.length() > 0 && normalizado.charAt(normalizado.length() - 1) != ' ')) {
+                normalizado.append(letra);
+            }
+        }
+        return normalizado.toString().stripTrailing();
+    }
+    
+    // Rellena los datos de la entrada y, si está activa, inserta sus claves:
+    // el nombre completo, el nombre desde cada una de sus siguientes palabras y, si es buscable, el detalle
+    private void asignar(Entrada entrada, String nombre, String detalle, boolean activa, boolean mantener) {
+        entrada.nombre = nombre != null ? nombre : "";
+        entrada.detalle = detalle;
+        if (!activa) {
+            entrada.origenes = Entrada.SIN_CLAVES;
+            return;
+        }
+        
+        // Cada palabra empieza en un carácter que no es separador precedido de un separador
+        List<Integer> origenes = new ArrayList<>();
+        String base = entrada.nombre;
+        for (int i = 0; i < base.length() && origenes.size() <= MAX_PALABRAS; i++) {
+            if (PLEGADO[base.charAt(i)] != ' ' && (i == 0 || PLEGADO[base.charAt(i - 1)] == ' ')) {
+                origenes.add(i);
+            }
+        }
+        if (detalleBuscable && detalle != null && !detalle.isBlank()) {
+            origenes.add(DETALLE);
+        }
+        entrada.origenes = origenes.stream().mapToInt(Integer::intValue).toArray();
+        for (int origen : entrada.origenes) {
+            insertar(raiz, entrada, origen, 0, mantener);
+        }
+    }
+    
+    // Quita del árbol todas las claves de la entrada
+    private void quitarClaves(Entrada entrada) {
+        for (int origen : entrada.origenes) {
+            quitar(raiz, entrada, origen, 0);
+        }
+        entrada.origenes = Entrada.SIN_CLAVES;
+    }
+    
+    // Inserta la clave en el subárbol del nodo, que está a la profundidad indicada
+    private void insertar(Nodo nodo, Entrada entrada, int origen, int profundidad, boolean mantener) {
+        nodo.tamano++;
+        if (nodo.esCubo()) {
+            nodo.anadirAlCubo(entrada, origen);
+            if (nodo.enCubo > CAPACIDAD_CUBO) {
+                desglosar(nodo, profundidad, mantener);
+                return;
+            }
+        } else if (profundidad == longitud(entrada, origen)) {
+            nodo.terminales.add(entrada);
+        } else {
+            Nodo hijo = nodo.hijo(caracter(entrada, origen, profundidad), true);
+            insertar(hijo, entrada, origen, profundidad + 1, mantener);
+        }
+        if (mantener) {
+            incorporar(nodo, entrada);
+        }
+    }
+    
+    // Convierte un cubo lleno en un nodo con un hijo por carácter siguiente
+    private void desglosar(Nodo nodo, int profundidad, boolean mantener) {
+        Entrada[] cubo = nodo.entradasCubo;
+        int[] origenes = nodo.origenesCubo;
+        int total = nodo.enCubo;
+        nodo.entradasCubo = null;
+        nodo.origenesCubo = null;
+        nodo.enCubo = 0;
+        nodo.letras = new char[0];
+        nodo.hijos = new Nodo[0];
+        nodo.terminales = new ArrayList<>();
+        nodo.tamano = 0;
+        for (int i = 0; i < total; i++) {
+            insertar(nodo, cubo[i], origenes[i], profundidad, false);
+        }
+        if (mantener) {
+            recalcular(nodo);
+        }
+    }
+    
+    // Quita la clave del subárbol del nodo; los hijos que quedan vacíos se eliminan
+    private void quitar(Nodo nodo, Entrada entrada, int origen, int profundidad) {
+        nodo.tamano--;
+        if (nodo.esCubo()) {
+            nodo.quitarDelCubo(entrada, origen);
+        } else if (profundidad == longitud(entrada, origen)) {
+            nodo.terminales.remove(entrada);
+        } else {
+            char letra = caracter(entrada, origen, profundidad);
+            Nodo hijo = nodo.hijo(letra, false);
+            quitar(hijo, entrada, origen, profundidad + 1);
+            if (hijo.tamano == 0) {
+                nodo.quitarHijo(letra);
+            }
+        }
+        // Solo hay que recalcular si la entrada estaba entre las sugerencias del nodo
+        if (nodo.tamano <= MAX_SUGERENCIAS) {
+            nodo.mejores = null;
+        } else if (nodo.contieneMejor(entrada)) {
+            calcularMejores(nodo);
+        }
+    }
+    
+    // Recoloca la entrada en las sugerencias del camino de una de sus claves tras cambiar su popularidad
+    private void reordenar(Nodo nodo, Entrada entrada, int origen, int profundidad, boolean aumento) {
+        if (!nodo.esCubo() && profundidad < longitud(entrada, origen)) {
+            reordenar(nodo.hijo(caracter(entrada, origen, profundidad), false), entrada, origen, profundidad + 1, aumento);
+        }
+        // Al aumentar solo puede entrar o subir; al disminuir puede salir y hay que recalcular
+        if (aumento) {
+            incorporar(nodo, entrada);
+        } else if (nodo.contieneMejor(entrada)) {
+            calcularMejores(nodo);
+        }
+    }
+    
+    // Actualiza las sugerencias del nodo sabiendo que la entrada acaba de entrar o mejorar en su subárbol
+    private void incorporar(Nodo nodo, Entrada entrada) {
+        if (nodo.tamano <= MAX_SUGERENCIAS) {
+            nodo.mejores = null;
+            return;
+        }
+        if (nodo.mejores == null) {
+            calcularMejores(nodo);
+            return;
+        }
+        Entrada[] mejores = nodo.mejores;
+        int total = mejores.length;
+        int actual = nodo.posicionMejor(entrada);
+        if (actual < 0 && total == MAX_SUGERENCIAS && POR_POPULARIDAD.compare(entrada, mejores[total - 1]) > 0) {
+            return;
+        }
+        // Saca la entrada si ya estaba y la inserta en su posición
+        List<Entrada> lista = new ArrayList<>(Arrays.asList(mejores));
+        if (actual >= 0) {
+            lista.remove(actual);
+        }
+        int posicion = 0;
+        while (posicion < lista.size() && POR_POPULARIDAD.compare(lista.get(posicion), entrada) < 0) {
+            posicion++;
+        }
+        lista.add(posicion, entrada);
+        nodo.mejores = lista.subList(0, Math.min(lista.size(), MAX_SUGERENCIAS)).toArray(new Entrada[0]);
+    }
+    
+    // Recalcula en orden ascendente las sugerencias de todo el subárbol
+    private void recalcular(Nodo nodo) {
+        if (!nodo.esCubo()) {
+            for (Nodo hijo : nodo.hijos) {
+                recalcular(hijo);
+            }
+        }
+        calcularMejores(nodo);
+    }
+    
+    // Sugerencias del nodo a partir de las de sus hijos: las mejores del subárbol están
+    // entre las mejores de cada hijo y las claves que terminan en el propio nodo
+    private void calcularMejores(Nodo nodo) {
+        if (nodo.tamano <= MAX_SUGERENCIAS) {
+            nodo.mejores = null;
+            return;
+        }
+        List<Entrada> candidatas = new ArrayList<>();
+        if (nodo.esCubo()) {
+            candidatas.addAll(Arrays.asList(nodo.entradasCubo).subList(0, nodo.enCubo));
+        } else {
+            candidatas.addAll(nodo.terminales);
+            for (Nodo hijo : nodo.hijos) {
+                if (hijo.mejores != null) {
+                    candidatas.addAll(Arrays.asList(hijo.mejores));
+                } else {
+                    recolectar(hijo, "", 0, candidatas);
+                }
+            }
+        }
+        nodo.mejores = mejores(candidatas, MAX_SUGERENCIAS).toArray(new Entrada[0]);
+    }
+    
+    // Añade las entradas del subárbol cuyas claves empiezan por el prefijo; la profundidad del
+    // nodo indica cuántos caracteres del prefijo ya se han comprobado al bajar
+    private void recolectar(Nodo nodo, String prefijo, int profundidad, List<Entrada> destino) {
+        if (nodo.esCubo()) {
+            for (int i = 0; i < nodo.enCubo; i++) {
+                if (empiezaPor(nodo.entradasCubo[i], nodo.origenesCubo[i], prefijo, profundidad)) {
+                    destino.add(nodo.entradasCubo[i]);
+                }
+            }
+            return;
+        }
+        destino.addAll(nodo.terminales);
+        for (Nodo hijo : nodo.hijos) {
+            recolectar(hijo, prefijo, profundidad, destino);
+        }
+    }
+    
+    // Las mejores entradas distintas de la lista, ordenadas
+    // El orden es total, así que las repetidas (varias claves de una entrada) quedan juntas
+    private static List<Entrada> mejores(List<Entrada> candidatas, int limite) {
+        candidatas.sort(POR_POPULARIDAD);
+        List<Entrada> mejores = new ArrayList<>(limite);
+        for (int i = 0; i < candidatas.size() && mejores.size() < limite; i++) {
+            if (i == 0 || candidatas.get(i) != candidatas.get(i - 1)) {
+                mejores.add(candidatas.get(i));
+            }
+        }
+        return mejores;
+    }
+    
+    // Texto del que sale la clave: el nombre desde el origen o el detalle
+    private static String base(Entrada entrada, int origen) {
+        return origen == DETALLE ? entrada.detalle : entrada.nombre;
+    }
+    
+    private static int longitud(Entrada entrada, int origen) {
+        return base(entrada, origen).length() - Math.max(origen, 0);
+    }
+    
+    private static char caracter(Entrada entrada, int origen, int profundidad) {
+        return PLEGADO[base(entrada, origen).charAt(Math.max(origen, 0) + profundidad)];
+    }
+    
+    // Compara la clave plegada con el prefijo a partir de la posición indicada
+    private static boolean empiezaPor(Entrada entrada, int origen, String prefijo, int desde) {
+        if (longitud(entrada, origen) < prefijo.length()) {
+            return false;
+        }
+        for (int i = desde; i < prefijo.length(); i++) {
+            if (caracter(entrada, origen, i) != prefijo.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    // Entidad sugerible con sus datos de presentación y el origen de cada una de sus claves
+    private static final class Entrada {
+        
+        private static final int[] SIN_CLAVES = new int[0];
+        
+        private final long id;
+        private String nombre = "";
+        private String detalle;
+        private long popularidad;
+        private int[] origenes = SIN_CLAVES;
+        
+        private Entrada(long id) {
+            this.id = id;
+        }
+    }
+    
+    // Nodo del árbol: un cubo de claves sin desglosar o un nodo con hijos por carácter
+    private static final class Nodo {
+        
+        // Hijos ordenados por carácter (nulos mientras el nodo sea un cubo)
+        private char[] letras;
+        private Nodo[] hijos;
+        
+        // Entradas cuyas claves terminan exactamente en este nodo
+        private List<Entrada> terminales;
+        
+        // Claves del cubo: entrada y origen de la clave dentro de ella
+        private Entrada[] entradasCubo = new Entrada[4];
+        private int[] origenesCubo = new int[4];
+        private int enCubo;
+        
+        // Número de claves del subárbol
+        private int tamano;
+        
+        // Mejores entradas del subárbol, solo si tiene más claves que MAX_SUGERENCIAS
+        private Entrada[] mejores;
+        
+        private boolean esCubo() {
+            return hijos == null;
+        }
+        
+        // Hijo del carácter indicado; si no existe se crea como cubo vacío o se devuelve null
+        private Nodo hijo(char letra, boolean crear) {
+            int posicion = Arrays.binarySearch(letras, letra);
+            if (posicion >= 0) {
+                return hijos[posicion];
+            }
+            if (!crear) {
+                return null;
+            }
+            posicion = -posicion - 1;
+            Nodo hijo = new Nodo();
+            char[] nuevasLetras = new char[letras.length + 1];
+            Nodo[] nuevosHijos = new Nodo[hijos.length + 1];
+            System.arraycopy(letras, 0, nuevasLetras, 0, posicion);
+            System.arraycopy(hijos, 0, nuevosHijos, 0, posicion);
+            nuevasLetras[posicion] = letra;
+            nuevosHijos[posicion] = hijo;
+            System.arraycopy(letras, posicion, nuevasLetras, posicion + 1, letras.length - posicion);
+            System.arraycopy(hijos, posicion, nuevosHijos, posicion + 1, hijos.length - posicion);
+            letras = nuevasLetras;
+            hijos = nuevosHijos;
+            return hijo;
+        }
+        
+        private void quitarHijo(char letra) {
+            int posicion = Arrays.binarySearch(letras, letra);
+            char[] nuevasLetras = new char[letras.length - 1];
+            Nodo[] nuevosHijos = new Nodo[hijos.length - 1];
+            System.arraycopy(letras, 0, nuevasLetras, 0, posicion);
+            System.arraycopy(hijos, 0, nuevosHijos, 0, posicion);
+            System.arraycopy(letras, posicion + 1, nuevasLetras, posicion, letras.length - posicion - 1);
+            System.arraycopy(hijos, posicion + 1, nuevosHijos, posicion, hijos.length - posicion - 1);
+            letras = nuevasLetras;
+            hijos = nuevosHijos;
+        }
+        
+        private void anadirAlCubo(Entrada entrada, int origen) {
+            if (enCubo == entradasCubo.length) {
+                entradasCubo = Arrays.copyOf(entradasCubo, enCubo * 2);
+                origenesCubo = Arrays.copyOf(origenesCubo, enCubo * 2);
+            }
+            entradasCubo[enCubo] = entrada;
+            origenesCubo[enCubo++] = origen;
+        }
+        
+        // Quita la clave del cubo moviendo la última a su lugar
+        private void quitarDelCubo(Entrada entrada, int origen) {
+            for (int i = 0; i < enCubo; i++) {
+                if (entradasCubo[i] == entrada && origenesCubo[i] == origen) {
+                    enCubo--;
+                    entradasCubo[i] = entradasCubo[enCubo];
+                    origenesCubo[i] = origenesCubo[enCubo];
+                    entradasCubo[enCubo] = null;
+                    return;
+                }
+            }
+        }
+        
+        private int posicionMejor(Entrada entrada) {
+            if (mejores != null) {
+                for (int i = 0; i < mejores.length; i++) {
+                    if (mejores[i] == entrada) {
+                        return i;
+                    }
+                }
+            }
+            return -1;
+        }
+        
+        private boolean contieneMejor(Entrada entrada) {
+            return posicionMejor(entrada) >= 0;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.mikeldi.reto.busqueda;
+
+import com.mikeldi.reto.dto.SugerenciaDTO;
+import com.mikeldi.reto.entity.Cliente;
+import com.mikeldi.reto.entity.LineaPedido;
+import com.mikeldi.reto.entity.Pedido;
+import com.mikeldi.reto.entity.Producto;
+import com.mikeldi.reto.event.EntidadModificadaEvent;
+import com.mikeldi.reto.exception.BadRequestException;
+import com.mikeldi.reto.repository.ClienteRepository;
+import com.mikeldi.reto.repository.ProductoRepository;
+import com.mikeldi.reto.repository.projection.SugerenciaView;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+// Servicio de autocompletado de clientes y productos con árboles de prefijos en memoria
+// Evita que los formularios carguen listas completas: cada pulsación consulta las entidades activas
+// cuyo nombre (o alguna de sus palabras) o NIF empieza por lo escrito, ordenadas por popularidad.
+// Los árboles se cargan al arrancar y se mantienen al día con los eventos de clientes, productos
+// y pedidos, que cambian la popularidad. Cada noche se reconstruyen aparte y se sustituyen enteros,
+// lo que corrige la popularidad que los eventos no pueden seguir (líneas modificadas fuera de los servicios)
+@Service
+public class AutocompletarService {
+    
+    // Logger para registrar cargas de los árboles
+    private static final Logger logger = LoggerFactory.getLogger(AutocompletarService.class);
+    
+    // Inyecta repositorios para recorrer las entidades con un cursor
+    @Autowired
+    private ClienteRepository clienteRepository;
+    
+    @Autowired
+    private ProductoRepository productoRepository;
+    
+    // Gestor de transacciones para abrir los cursores fuera de un método @Transactional
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    // Árboles publicados de cada entidad; una carga completa los sustituye
+    // Los clientes también se buscan por NIF; la categoría de los productos solo se muestra
+    private volatile ArbolPrefijos clientes = new ArbolPrefijos(true);
+    private volatile ArbolPrefijos productos = new ArbolPrefijos(false);
+    
+    // Entidades modificadas mientras se realizaba la carga, se releen en los árboles nuevos antes de publicarlos
+    private final Set<Long> clientesPendientes = new LinkedHashSet<>();
+    private final Set<Long> productosPendientes = new LinkedHashSet<>();
+    
+    // Indica si hay una carga completa en curso
+    private boolean cargando;
+    
+    // Indica si los árboles ya se pueden consultar
+    private volatile boolean disponible;
+    
+    // Carga los árboles en segundo plano al arrancar para no retrasar el inicio
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarAlArrancar() {
+        Thread hilo = new Thread(this::cargar, "carga-autocompletar");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+    
+    // Reconstrucción nocturna completa de los árboles
+    @Scheduled(cron = "${app.busqueda.autocompletar-cron:0 15 4 * * *}")
+    public void reconstruir() {
+        cargar();
+    }
+    
+    // Carga completa de unos árboles nuevos desde la base de datos usando cursores
+    // Mientras tanto se siguen consultando y actualizando los publicados; al terminar se sustituyen
+    void cargar() {
+        synchronized (this) {
+            if (cargando) {
+                return;
+            }
+            cargando = true;
+        }
+        long inicio = System.currentTimeMillis();
+        ArbolPrefijos nuevosClientes = new ArbolPrefijos(true);
+        ArbolPrefijos nuevosProductos = new ArbolPrefijos(false);
+        try {
+            TransactionTemplate plantilla = new TransactionTemplate(transactionManager);
+            plantilla.setReadOnly(true);
+            plantilla.executeWithoutResult(estado -> {
+                try (Stream<SugerenciaView> filas = clienteRepository.streamParaAutocompletar()) {
+                    filas.forEach(c -> nuevosClientes.cargar(c.getId(), c.getNombre(), c.getDetalle(),
+                                                             Boolean.TRUE.equals(c.getActivo()), c.getPopularidad()));
+                }
+                try (Stream<SugerenciaView> filas = productoRepository.streamParaAutocompletar()) {
+                    filas.forEach(p -> nuevosProductos.cargar(p.getId(), p.getNombre(), p.getDetalle(),
+                                                              Boolean.TRUE.equals(p.getActivo()), p.getPopularidad()));
+                }
+            });
+            nuevosClientes.terminarCarga();
+            nuevosProductos.terminarCarga();
+            
+            // Relee en los árboles nuevos las entidades modificadas durante la carga hasta que no queda
+            // ninguna pendiente; entonces se publican sin soltar el monitor
+            while (true) {
+                List<Long> clientesModificados;
+                List<Long> productosModificados;
+                synchronized (this) {
+                    if (clientesPendientes.isEmpty() && productosPendientes.isEmpty()) {
+                        clientes = nuevosClientes;
+                        productos = nuevosProductos;
+                        cargando = false;
+                        disponible = true;
+                        break;
+                    }
+                    clientesModificados = new ArrayList<>(clientesPendientes);
+                    productosModificados = new ArrayList<>(productosPendientes);
+                    clientesPendientes.clear();
+                    productosPendientes.clear();
+                }
+                if (!clientesModificados.isEmpty()) {
+                    releer(nuevosClientes, clientesModificados, clienteRepository.findSugerencias(clientesModificados));
+                }
+                if (!productosModificados.isEmpty()) {
+                    releer(nuevosProductos, productosModificados, productoRepository.findSugerencias(productosModificados));
+                }
+            }
+            logger.info("Autocompletado cargado: {} clientes y {} productos en {} ms",
+                        nuevosClientes.tamano(), nuevosProductos.tamano(), System.currentTimeMillis() - inicio);
+        } finally {
+            synchronized (this) {
+                cargando = false;
+                clientesPendientes.clear();
+                productosPendientes.clear();
+            }
+        }
+    }
+    
+    // Mantiene los árboles publicados al día cuando confirman cambios en clientes, productos o pedidos
+    // Durante una carga completa además anota los ids para releerlos en los árboles nuevos
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alModificarEntidad(EntidadModificadaEvent evento) {
+        boolean eliminada = evento.getOperacion() == EntidadModificadaEvent.Operacion.ELIMINADA;
+        if (evento.esDeTipo(Cliente.class)) {
+            Cliente cliente = (Cliente) evento.getEntidad();
+            synchronized (this) {
+                anotar(clientesPendientes, List.of(cliente.getId()));
+                if (eliminada) {
+                    clientes.eliminar(cliente.getId());
+                } else {
+                    clientes.indexar(cliente.getId(), cliente.getNombre(), cliente.getNif(),
+                                     Boolean.TRUE.equals(cliente.getActivo()), null);
+                }
+            }
+        } else if (evento.esDeTipo(Producto.class)) {
+            Producto producto = (Producto) evento.getEntidad();
+            synchronized (this) {
+                anotar(productosPendientes, List.of(producto.getId()));
+                if (eliminada) {
+                    productos.eliminar(producto.getId());
+                } else {
+                    productos.indexar(producto.getId(), producto.getNombre(), producto.getCategoria(),
+                                      Boolean.TRUE.equals(producto.getActivo()), null);
+                }
+            }
+        } else if (evento.esDeTipo(Pedido.class)
+                && evento.getOperacion() != EntidadModificadaEvent.Operacion.ACTUALIZADA) {
+            // Una actualización de pedido solo cambia su estado, no sus líneas: la popularidad no varía
+            // y no se consulta nada en el hilo que confirma. Las líneas modificadas por otras vías
+            // las corrige la reconstrucción nocturna
+            alCrearOEliminarPedido((Pedido) evento.getEntidad(), eliminada);
+        }
+    }
+    
+    // Un pedido nuevo suma uno a su cliente y sus cantidades a sus productos; uno eliminado los resta
+    private void alCrearOEliminarPedido(Pedido pedido, boolean eliminado) {
+        // Al eliminar, las líneas están cargadas porque el borrado en cascada las recorre
+        List<LineaPedido> lineas = Hibernate.isInitialized(pedido.getLineas()) ? pedido.getLineas() : List.of();
+        long signo = eliminado ? -1 : 1;
+        synchronized (this) {
+            anotar(clientesPendientes, List.of(pedido.getCliente().getId()));
+            anotar(productosPendientes, lineas.stream().map(l -> l.getProducto().getId()).toList());
+            clientes.sumarPopularidad(pedido.getCliente().getId(), signo);
+            for (LineaPedido linea : lineas) {
+                productos.sumarPopularidad(linea.getProducto().getId(), signo * linea.getCantidad());
+            }
+        }
+    }
+    
+    // Durante una carga completa anota los ids para releerlos en los árboles nuevos
+    // Se llama con el monitor del servicio tomado
+    private void anotar(Set<Long> pendientes, List<Long> ids) {
+        if (cargando) {
+            pendientes.addAll(ids);
+        }
+    }
+    
+    // Vuelve a indexar las entidades releídas con su popularidad actual y quita las que ya no existen
+    private static void releer(ArbolPrefijos arbol, List<Long> ids, List<SugerenciaView> filas) {
+        Set<Long> restantes = new LinkedHashSet<>(ids);
+        for (SugerenciaView fila : filas) {
+            arbol.indexar(fila.getId(), fila.getNombre(), fila.getDetalle(),
+                          Boolean.TRUE.equals(fila.getActivo()), fila.getPopularidad());
+            restantes.remove(fila.getId());
+        }
+        restantes.forEach(arbol::eliminar);
+    }
+    
+    // Clientes activos cuyo nombre, alguna de sus palabras o NIF empieza por el texto
+    public List<SugerenciaDTO> autocompletarClientes(String texto, int limite) {
+        validarLimite(limite);
+        if (texto == null || texto.isBlank()) {
+            return List.of();
+        }
+        if (disponible) {
+            return clientes.sugerir(texto, limite);
+        }
+        // Mientras se carga el árbol se busca por el inicio del nombre, sin popularidad
+        return clienteRepository.findByActivoTrueAndNombreStartingWithIgnoreCaseOrderByNombre(texto.trim(), Limit.of(limite))
+                .stream()
+                .map(c -> new SugerenciaDTO(c.getId(), c.getNombre(), c.getNif(), null))
+                .toList();
+    }
+    
+    // Productos activos cuyo nombre o alguna de sus palabras empieza por el texto
+    public List<SugerenciaDTO> autocompletarProductos(String texto, int limite) {
+        validarLimite(limite);
+        if (texto == null || texto.isBlank()) {
+            return List.of();
+        }
+        if (disponible) {
+            return productos.sugerir(texto, limite);
+        }
+        return productoRepository.findByActivoTrueAndNombreStartingWithIgnoreCaseOrderByNombre(texto.trim(), Limit.of(limite))
+                .stream()
+                .map(p -> new SugerenciaDTO(p.getId(), p.getNombre(), p.getCategoria(), null))
+                .toList();
+    }
+    
+    private static void validarLimite(int limite) {
+        if (limite < 1 || limite > ArbolPrefijos.MAX_SUGERENCIAS) {
+            throw new BadRequestException("El límite debe estar entre 1 y " + ArbolPrefijos.MAX_SUGERENCIAS);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.mikeldi.reto.busqueda;
+
+import com.mikeldi.reto.entity.Cliente;
+import com.mikeldi.reto.entity.Producto;
+import com.mikeldi.reto.event.EntidadModificadaEvent;
+import com.mikeldi.reto.repository.ClienteRepository;
+import com.mikeldi.reto.repository.ProductoRepository;
+import com.mikeldi.reto.repository.projection.ClienteExportView;
+import com.mikeldi.reto.repository.projection.ProductoBusquedaView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+// Servicio de búsqueda aproximada de clientes y productos con índices de trigramas en memoria
+// Sirve los endpoints /busqueda sin recorrer la tabla entera con LIKE '%texto%': el índice se carga al
+// arrancar y se mantiene al día con los eventos de alta, modificación y baja de cada entidad.
+// Clientes: nombre, NIF, email y ciudad. Productos: nombre, descripción y categoría
+@Service
+public class BusquedaService {
+    
+    // Logger para registrar cargas del índice
+    private static final Logger logger = LoggerFactory.getLogger(BusquedaService.class);
+    
+    // Inyecta repositorios para recorrer las entidades con un cursor
+    @Autowired
+    private ClienteRepository clienteRepository;
+    
+    @Autowired
+    private ProductoRepository productoRepository;
+    
+    // Gestor de transacciones para abrir los cursores fuera de un método @Transactional
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    // Fracción mínima de los trigramas de la búsqueda que debe contener un resultado
+    // Con 0.5 una palabra de 6 letras admite una letra equivocada
+    @Value("${app.busqueda.similitud-minima:0.5}")
+    private double similitudMinima;
+    
+    // Número máximo de resultados de una búsqueda
+    @Value("${app.busqueda.max-resultados:50}")
+    private int maxResultados;
+    
+    // Índices de cada entidad
+    private final IndiceTrigramas clientes = new IndiceTrigramas();
+    private final IndiceTrigramas productos = new IndiceTrigramas();
+    
+    // Entidades modificadas mientras se realizaba la carga, se releen al terminar
+    private final Set<Long> clientesPendientes = new LinkedHashSet<>();
+    private final Set<Long> productosPendientes = new LinkedHashSet<>();
+    
+    // Indica si hay una carga completa en curso
+    private boolean cargando;
+    
+    // Indica si los índices ya se pueden consultar
+    private volatile boolean disponible;
+    
+    // Carga los índices en segundo plano al arrancar para no retrasar el inicio
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarAlArrancar() {
+        Thread hilo = new Thread(this::cargar, "carga-indice-busqueda");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+    
+    // Carga completa de los índices desde la base de datos usando cursores
+    void cargar() {
+        synchronized (this) {
+            cargando = true;
+            clientes.vaciar();
+            productos.vaciar();
+        }
+        long inicio = System.currentTimeMillis();
+        try {
+            TransactionTemplate plantilla = new TransactionTemplate(transactionManager);
+            plantilla.setReadOnly(true);
+            plantilla.executeWithoutResult(estado -> {
+                try (Stream<ClienteExportView> filas = clienteRepository.streamParaExportar()) {
+                    filas.forEach(c -> clientes.indexar(c.getId(), texto(c.getNombre(), c.getNif(), c.getEmail(), c.getCiudad())));
+                }
+                try (Stream<ProductoBusquedaView> filas = productoRepository.streamParaIndexar()) {
+                    filas.forEach(p -> productos.indexar(p.getId(), texto(p.getNombre(), p.getDescripcion(), p.getCategoria())));
+                }
+            });
+            logger.info("Índice de búsqueda cargado: {} clientes y {} productos en {} ms",
+                        clientes.tamano(), productos.tamano(), System.currentTimeMillis() - inicio);
+            disponible = true;
+        } finally {
+            // Relee las entidades modificadas durante la carga
+            List<Long> clientesModificados;
+            List<Long> productosModificados;
+            synchronized (this) {
+                cargando = false;
+                clientesModificados = new ArrayList<>(clientesPendientes);
+                productosModificados = new ArrayList<>(productosPendientes);
+                clientesPendientes.clear();
+                productosPendientes.clear();
+            }
+            clientesModificados.forEach(id -> clienteRepository.findById(id).ifPresentOrElse(
+                this::indexarCliente, () -> clientes.eliminar(id)));
+            productosModificados.forEach(id -> productoRepository.findById(id).ifPresentOrElse(
+                this::indexarProducto, () -> productos.eliminar(id)));
+        }
+    }
+    
+    // Mantiene los índices al día cuando confirman cambios en clientes o productos
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alModificarEntidad(EntidadModificadaEvent evento) {
+        boolean eliminada = evento.getOperacion() == EntidadModificadaEvent.Operacion.ELIMINADA;
+        if (evento.esDeTipo(Cliente.class)) {
+            Cliente cliente = (Cliente) evento.getEntidad();
+            synchronized (this) {
+                if (cargando) {
+                    clientesPendientes.add(cliente.getId());
+                    return;
+                }
+            }
+            if (eliminada) {
+                clientes.eliminar(cliente.getId());
+            } else {
+                indexarCliente(cliente);
+            }
+        } else if (evento.esDeTipo(Producto.class)) {
+            Producto producto = (Producto) evento.getEntidad();
+            synchronized (this) {
+                if (cargando) {
+                    productosPendientes.add(producto.getId());
+                    return;
+                }
+            }
+            if (eliminada) {
+                productos.eliminar(producto.getId());
+            } else {
+                indexarProducto(producto);
+            }
+        }
+    }
+    
+    // Indica si los índices están cargados; mientras no lo estén se usa la búsqueda en base de datos
+    public boolean isDisponible() {
+        return disponible;
+    }
+    
+    // Ids de los clientes más parecidos al texto, del más al menos parecido
+    public List<Long> buscarClientes(String texto) {
+        return clientes.buscar(texto, similitudMinima, maxResultados);
+    }
+    
+    // Ids de los productos más parecidos al texto, del más al menos parecido
+    public List<Long> buscarProductos(String texto) {
+        return productos.buscar(texto, similitudMinima, maxResultados);
+    }
+    
+    private void indexarCliente(Cliente cliente) {
+        clientes.indexar(cliente.getId(), texto(cliente.getNombre(), cliente.getNif(), cliente.getEmail(), cliente.getCiudad()));
+    }
+    
+    private void indexarProducto(Producto producto) {
+        productos.indexar(producto.getId(), texto(producto.getNombre(), producto.getDescripcion(), producto.getCategoria()));
+    }
+    
+    // Une los campos indexados de una entidad ignorando los nulos
+    private static String texto(String... campos) {
+        StringBuilder texto = new StringBuilder();
+        for (String campo : campos) {
+            if (campo != null) {
+                texto.append(campo).append(' ');
+            }
+        }
+        return texto.toString();
+    }
+}
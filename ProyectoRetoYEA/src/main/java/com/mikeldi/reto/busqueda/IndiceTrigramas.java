@@ -0,0 +1,428 @@
+package com.mikeldi.reto.busqueda;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Índice invertido de trigramas en memoria para búsqueda aproximada de texto
+// Cada registro indexado ocupa un hueco (número consecutivo); por cada trigrama se guarda la lista
+// ordenada de huecos que lo contienen. Una búsqueda cuenta cuántos trigramas de la consulta tiene
+// cada registro y devuelve los que superan la similitud mínima, así tolera errores de escritura.
+// Las bajas y modificaciones marcan el hueco anterior como libre; las listas se compactan
+// cuando los huecos libres superan a los ocupados
+class IndiceTrigramas {
+    
+    // Alfabeto de los trigramas: separador, a-z, 0-9 y un símbolo común para el resto de letras
+    private static final int SEPARADOR = 0;
+    private static final int OTRO = 37;
+    private static final int SIMBOLOS = 38;
+    
+    // Número de trigramas distintos posibles: cada trigrama es directamente un índice de array
+    private static final int TRIGRAMAS = SIMBOLOS * SIMBOLOS * SIMBOLOS;
+    
+    // Huecos libres mínimos antes de compactar, para no compactar índices pequeños a cada cambio
+    private static final int MINIMO_COMPACTAR = 10_000;
+    
+    // Lecturas concurrentes; las altas, bajas y compactaciones son exclusivas
+    private final ReentrantReadWriteLock cerrojo = new ReentrantReadWriteLock();
+    
+    // Lista de huecos de cada trigrama, en orden creciente, y su longitud ocupada
+    private final int[][] listas = new int[TRIGRAMAS][];
+    private final int[] longitudes = new int[TRIGRAMAS];
+    
+    // Id de entidad y número de trigramas distintos de cada hueco
+    private long[] ids = new long[1024];
+    private int[] tamanos = new int[1024];
+    private int huecos;
+    
+    // Candidatos de cada hilo, reutilizados entre búsquedas para no reservar memoria en cada una
+    private static final ThreadLocal<Candidatos> CANDIDATOS = ThreadLocal.withInitial(Candidatos::new);
+    
+    // Huecos con un registro vigente y hueco de cada id
+    private final BitSet ocupados = new BitSet();
+    private final Map<Long, Integer> huecoPorId = new HashMap<>();
+    
+    // Añade o reemplaza el texto indexado de un registro
+    void indexar(long id, String texto) {
+        int[] trigramas = trigramas(texto);
+        cerrojo.writeLock().lock();
+        try {
+            liberar(id);
+            if (huecos == ids.length) {
+                ids = Arrays.copyOf(ids, huecos * 2);
+                tamanos = Arrays.copyOf(tamanos, huecos * 2);
+            }
+            int hueco = huecos++;
+            ids[hueco] = id;
+            tamanos[hueco] = trigramas.length;
+            ocupados.set(hueco);
+            huecoPorId.put(id, hueco);
+            // El hueco es el mayor asignado: añadirlo al final mantiene las listas ordenadas
+            for (int trigrama : trigramas) {
+                int[] lista = listas[trigrama];
+                if (lista == null) {
+                    lista = listas[trigrama] = new int[4];
+                } else if (longitudes[trigrama] == lista.length) {
+                    lista = listas[trigrama] = Arrays.copyOf(lista, lista.length * 2);
+                }
+                lista[longitudes[trigrama]++] = hueco;
+            }
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+    
+    // Quita un registro del índice
+    void eliminar(long id) {
+        cerrojo.writeLock().lock();
+        try {
+            liberar(id);
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+    
+    // Vacía el índice antes de una carga completa
+    void vaciar() {
+        cerrojo.writeLock().lock();
+        try {
+            Arrays.fill(listas, null);
+            Arrays.fill(longitudes, 0);
+            ids = new long[1024];
+            tamanos = new int[1024];
+            huecos = 0;
+            ocupados.clear();
+            huecoPorId.clear();
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+    
+    // Número de registros indexados
+    int tamano() {
+        cerrojo.readLock().lock();
+        try {
+            return huecoPorId.size();
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+    
+    // Ids de los registros más parecidos al texto, de mayor a menor similitud
+    // La similitud es la fracción de trigramas de la consulta que contiene el registro; a igualdad
+    // se prefieren los registros con menos trigramas (textos más cortos, coincidencia más exacta).
+    // Se busca primero exigiendo todos los trigramas y se relaja la exigencia de uno en uno solo
+    // mientras no haya resultados suficientes: cuanto más exigente, menos listas generan candidatos
+    // y la búsqueda es más rápida. El orden es exacto porque cualquier registro no encontrado con
+    // una exigencia tiene menos coincidencias que todos los encontrados
+    List<Long> buscar(String texto, double similitudMinima, int limite) {
+        int[] consulta = trigramas(texto);
+        if (consulta.length == 0 || limite <= 0) {
+            return List.of();
+        }
+        int minimo = Math.max(1, (int) Math.ceil(similitudMinima * consulta.length));
+        
+        cerrojo.readLock().lock();
+        try {
+            // Ordena los trigramas de la consulta de menos a más frecuente
+            long[] porFrecuencia = new long[consulta.length];
+            for (int i = 0; i < consulta.length; i++) {
+                porFrecuencia[i] = ((long) longitudes[consulta[i]] << 32) | consulta[i];
+            }
+            Arrays.sort(porFrecuencia);
+            
+            PriorityQueue<int[]> mejores = null;
+            for (int exigencia = consulta.length; exigencia >= minimo; exigencia--) {
+                mejores = mejores(porFrecuencia, exigencia, limite);
+                if (mejores.size() >= limite) {
+                    break;
+                }
+            }
+            
+            List<Long> resultado = new ArrayList<>(mejores.size());
+            while (!mejores.isEmpty()) {
+                resultado.add(ids[mejores.poll()[0]]);
+            }
+            Collections.reverse(resultado);
+            return resultado;
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+    
+    // Los `limite` mejores registros con al menos `minimo` trigramas de la consulta, con el peor en la cabeza
+    // Llamado con el cerrojo de lectura; porFrecuencia son los trigramas de menos a más frecuente.
+    // Los candidatos se mantienen ordenados por hueco, igual que las listas: uniones e intersecciones
+    // se hacen recorriendo los arrays en orden, sin accesos aleatorios a memoria
+    private PriorityQueue<int[]> mejores(long[] porFrecuencia, int minimo, int limite) {
+        int total = porFrecuencia.length;
+        Candidatos candidatos = CANDIDATOS.get();
+        
+        // Un registro con al menos `minimo` trigramas tiene que estar en alguna de las
+        // total - minimo + 1 listas más cortas: solo esas generan candidatos
+        int prefijo = total - minimo + 1;
+        candidatos.vaciar();
+        for (int i = 0; i < prefijo; i++) {
+            int trigrama = (int) porFrecuencia[i];
+            candidatos.unir(listas[trigrama], longitudes[trigrama]);
+        }
+        
+        // El resto de listas solo suma coincidencias a los candidatos que aún pueden llegar al mínimo
+        for (int j = prefijo; j < total && candidatos.total > 0; j++) {
+            candidatos.descartar(minimo - (total - j));
+            int trigrama = (int) porFrecuencia[j];
+            candidatos.intersecar(listas[trigrama], longitudes[trigrama]);
+        }
+        
+        PriorityQueue<int[]> mejores = new PriorityQueue<>(limite + 1, (a, b) -> compararResultados(a, b, total));
+        for (int c = 0; c < candidatos.total; c++) {
+            int hueco = candidatos.huecos[c];
+            int coincidencias = candidatos.cuentas[c];
+            if (coincidencias < minimo || !ocupados.get(hueco)) {
+                continue;
+            }
+            int[] resultado = {hueco, coincidencias};
+            if (mejores.size() < limite) {
+                mejores.add(resultado);
+            } else if (compararResultados(resultado, mejores.peek(), total) > 0) {
+                mejores.poll();
+                mejores.add(resultado);
+            }
+        }
+        return mejores;
+    }
+    
+    // Orden ascendente de calidad: menos coincidencias, luego menor similitud de Jaccard, luego id mayor
+    private int compararResultados(int[] a, int[] b, int tamanoConsulta) {
+        if (a[1] != b[1]) {
+            return Integer.compare(a[1], b[1]);
+        }
+        // Misma intersección: la unión menor (registro más corto) es más parecida
+        int unionA = tamanoConsulta + tamanos[a[0]] - a[1];
+        int unionB = tamanoConsulta + tamanos[b[0]] - b[1];
+        if (unionA != unionB) {
+            return Integer.compare(unionB, unionA);
+        }
+        return Long.compare(ids[b[0]], ids[a[0]]);
+    }
+    
+    // Marca como libre el hueco actual del id; llamado con el cerrojo de escritura
+    private void liberar(long id) {
+        Integer hueco = huecoPorId.remove(id);
+        if (hueco == null) {
+            return;
+        }
+        ocupados.clear(hueco);
+        int libres = huecos - huecoPorId.size();
+        if (libres >= MINIMO_COMPACTAR && libres > huecoPorId.size()) {
+            compactar();
+        }
+    }
+    
+    // Renumera los huecos ocupados de forma consecutiva y quita los libres de todas las listas
+    // La renumeración conserva el orden, por lo que las listas siguen ordenadas
+    private void compactar() {
+        int[] nuevo = new int[huecos];
+        int ocupadosTotal = 0;
+        for (int hueco = 0; hueco < huecos; hueco++) {
+            if (ocupados.get(hueco)) {
+                nuevo[hueco] = ocupadosTotal;
+                ids[ocupadosTotal] = ids[hueco];
+                tamanos[ocupadosTotal] = tamanos[hueco];
+                ocupadosTotal++;
+            } else {
+                nuevo[hueco] = -1;
+            }
+        }
+        for (int trigrama = 0; trigrama < TRIGRAMAS; trigrama++) {
+            int[] lista = listas[trigrama];
+            if (lista == null) {
+                continue;
+            }
+            int escritos = 0;
+            for (int k = 0; k < longitudes[trigrama]; k++) {
+                int destino = nuevo[lista[k]];
+                if (destino >= 0) {
+                    lista[escritos++] = destino;
+                }
+            }
+            longitudes[trigrama] = escritos;
+            if (escritos == 0) {
+                listas[trigrama] = null;
+            }
+        }
+        huecos = ocupadosTotal;
+        ocupados.clear();
+        ocupados.set(0, ocupadosTotal);
+        for (Map.Entry<Long, Integer> entrada : huecoPorId.entrySet()) {
+            entrada.setValue(nuevo[entrada.getValue()]);
+        }
+    }
+    
+    // Trigramas distintos del texto, ordenados
+    // Se eliminan acentos y mayúsculas y cada palabra se rellena con dos separadores delante
+    // y uno detrás, como en pg_trgm, para que el principio de palabra pese más
+    static int[] trigramas(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return new int[0];
+        }
+        String normalizado = Normalizer.normalize(texto, Normalizer.Form.NFD);
+        int[] resultado = new int[normalizado.length() * 2 + 2];
+        int n = 0;
+        int anterior2 = SEPARADOR;
+        int anterior1 = SEPARADOR;
+        boolean enPalabra = false;
+        for (int i = 0; i < normalizado.length(); i++) {
+            char c = normalizado.charAt(i);
+            // Las marcas diacríticas separadas por NFD se ignoran (á -> a, ñ -> n)
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            int simbolo = simbolo(c);
+            if (simbolo == SEPARADOR) {
+                if (enPalabra) {
+                    resultado[n++] = codigo(anterior2, anterior1, SEPARADOR);
+                    anterior2 = SEPARADOR;
+                    anterior1 = SEPARADOR;
+                    enPalabra = false;
+                }
+                continue;
+            }
+            resultado[n++] = codigo(anterior2, anterior1, simbolo);
+            anterior2 = anterior1;
+            anterior1 = simbolo;
+            enPalabra = true;
+        }
+        if (enPalabra) {
+            resultado[n++] = codigo(anterior2, anterior1, SEPARADOR);
+        }
+        Arrays.sort(resultado, 0, n);
+        int distintos = 0;
+        for (int i = 0; i < n; i++) {
+            if (distintos == 0 || resultado[distintos - 1] != resultado[i]) {
+                resultado[distintos++] = resultado[i];
+            }
+        }
+        return Arrays.copyOf(resultado, distintos);
+    }
+    
+    private static int simbolo(char c) {
+        char minuscula = Character.toLowerCase(c);
+        if (minuscula >= 'a' && minuscula <= 'z') {
+            return 1 + (minuscula - 'a');
+        }
+        if (minuscula >= '0' && minuscula <= '9') {
+            return 27 + (minuscula - '0');
+        }
+        return Character.isLetterOrDigit(minuscula) ? OTRO : SEPARADOR;
+    }
+    
+    private static int codigo(int a, int b, int c) {
+        return (a * SIMBOLOS + b) * SIMBOLOS + c;
+    }
+    
+    // Candidatos de una búsqueda: huecos en orden creciente con su número de coincidencias
+    private static class Candidatos {
+        
+        private int[] huecos = new int[1024];
+        private int[] cuentas = new int[1024];
+        private int total;
+        
+        // Arrays auxiliares para la unión, que se intercambian con los principales
+        private int[] huecosAux = new int[1024];
+        private int[] cuentasAux = new int[1024];
+        
+        void vaciar() {
+            total = 0;
+        }
+        
+        // Une una lista ordenada a los candidatos sumando una coincidencia a los que ya estaban
+        void unir(int[] lista, int longitud) {
+            if (longitud == 0) {
+                return;
+            }
+            int capacidad = total + longitud;
+            if (huecosAux.length < capacidad) {
+                huecosAux = new int[Math.max(capacidad, huecosAux.length * 2)];
+                cuentasAux = new int[huecosAux.length];
+            }
+            int a = 0;
+            int b = 0;
+            int n = 0;
+            while (a < total && b < longitud) {
+                int ha = huecos[a];
+                int hb = lista[b];
+                if (ha < hb) {
+                    huecosAux[n] = ha;
+                    cuentasAux[n++] = cuentas[a++];
+                } else if (hb < ha) {
+                    huecosAux[n] = hb;
+                    cuentasAux[n++] = 1;
+                    b++;
+                } else {
+                    huecosAux[n] = ha;
+                    cuentasAux[n++] = cuentas[a++] + 1;
+                    b++;
+                }
+            }
+            while (a < total) {
+                huecosAux[n] = huecos[a];
+                cuentasAux[n++] = cuentas[a++];
+            }
+            while (b < longitud) {
+                huecosAux[n] = lista[b++];
+                cuentasAux[n++] = 1;
+            }
+            int[] huecosPrevios = huecos;
+            int[] cuentasPrevias = cuentas;
+            huecos = huecosAux;
+            cuentas = cuentasAux;
+            huecosAux = huecosPrevios;
+            cuentasAux = cuentasPrevias;
+            total = n;
+        }
+        
+        // Suma una coincidencia a los candidatos presentes en la lista ordenada
+        // Busca cada candidato por saltos exponenciales desde la posición del anterior: el coste
+        // depende del número de candidatos, no de la longitud de la lista
+        void intersecar(int[] lista, int longitud) {
+            int desde = 0;
+            for (int c = 0; c < total && desde < longitud; c++) {
+                int hueco = huecos[c];
+                int salto = 1;
+                int hasta = desde;
+                while (hasta < longitud && lista[hasta] < hueco) {
+                    desde = hasta + 1;
+                    hasta += salto;
+                    salto <<= 1;
+                }
+                int posicion = Arrays.binarySearch(lista, desde, Math.min(hasta + 1, longitud), hueco);
+                if (posicion >= 0) {
+                    cuentas[c]++;
+                    desde = posicion + 1;
+                } else {
+                    desde = -posicion - 1;
+                }
+            }
+        }
+        
+        // Quita los candidatos con menos coincidencias que el mínimo indicado, conservando el orden
+        void descartar(int minimo) {
+            int quedan = 0;
+            for (int c = 0; c < total; c++) {
+                if (cuentas[c] >= minimo) {
+                    huecos[quedan] = huecos[c];
+                    cuentas[quedan++] = cuentas[c];
+                }
+            }
+            total = quedan;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.mikeldi.reto.config;
 import com.mikeldi.reto.entity.Role;
 import com.mikeldi.reto.entity.Usuario;
 import com.mikeldi.reto.repository.UsuarioRepository;
+import com.mikeldi.reto.service.IdentificadoresCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -22,11 +23,15 @@ public class DataInitializer implements CommandLineRunner {
     @Autowired
     private PasswordEncoder passwordEncoder;
     
+    // Comprueba si los usuarios iniciales ya existen
+    @Autowired
+    private IdentificadoresCache identificadoresCache;
+    
     // Método que se ejecuta automáticamente al iniciar la aplicación
     @Override
     public void run(String... args) throws Exception {
         // Verifica si existe el usuario administrador
-        if (!usuarioRepository.existsByEmail("admin@mikeldi.com")) {
+        if (!identificadoresCache.existeEmail("admin@mikeldi.com")) {
             // Crea un nuevo objeto Usuario con rol de administrador
             Usuario admin = new Usuario();
             admin.setNombre("Administrador");
@@ -44,7 +49,7 @@ public class DataInitializer implements CommandLineRunner {
         }
         
         // Verifica si existe el usuario comercial
-        if (!usuarioRepository.existsByEmail("comercial@mikeldi.com")) {
+        if (!identificadoresCache.existeEmail("comercial@mikeldi.com")) {
             // Crea un nuevo objeto Usuario con rol comercial
             Usuario comercial = new Usuario();
             comercial.setNombre("Usuario Comercial");
@@ -60,7 +65,7 @@ public class DataInitializer implements CommandLineRunner {
         }
         
         // Verifica si existe el usuario de almacén
-        if (!usuarioRepository.existsByEmail("almacen@mikeldi.com")) {
+        if (!identificadoresCache.existeEmail("almacen@mikeldi.com")) {
             // Crea un nuevo objeto Usuario con rol de almacén
             Usuario almacen = new Usuario();
             almacen.setNombre("Usuario Almacén");
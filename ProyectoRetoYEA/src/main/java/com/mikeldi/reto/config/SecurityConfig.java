@@ -2,6 +2,7 @@ package com.mikeldi.reto.config;
 
 import com.mikeldi.reto.service.CustomUserDetailsService;
 import com.mikeldi.reto.security.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -67,6 +68,8 @@ public class SecurityConfig {
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             // Define las reglas de autorización para cada ruta
             .authorizeHttpRequests(auth -> auth
+                // Los despachos ASYNC (fin de exportaciones en streaming) ya se autorizaron en la petición original
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 // Rutas públicas sin autenticación requerida
                 .requestMatchers(
                     "/api/auth/**",          // Endpoints de autenticación y registro
@@ -1,20 +1,36 @@
 package com.mikeldi.reto.controller;
 
-import com.itextpdf.text.DocumentException;
+import com.mikeldi.reto.busqueda.AutocompletarService;
+import com.mikeldi.reto.duplicados.DuplicadosService;
 import com.mikeldi.reto.dto.ClienteDTO;
+import com.mikeldi.reto.dto.ImportacionResultadoDTO;
+import com.mikeldi.reto.dto.ResumenClienteDTO;
+import com.mikeldi.reto.dto.ResumenGeograficoDTO;
+import com.mikeldi.reto.dto.SugerenciaDTO;
+import com.mikeldi.reto.dto.TrabajoDTO;
 import com.mikeldi.reto.service.ClienteService;
+import com.mikeldi.reto.service.Compresion;
 import com.mikeldi.reto.service.ExportService;
+import com.mikeldi.reto.service.ImportacionClientesService;
+import com.mikeldi.reto.service.ResumenGeograficoService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 
 // Define este controlador como REST para retornar datos en formato JSON
@@ -31,6 +47,22 @@ public class ClienteController {
     @Autowired
     private ClienteService clienteService;
     
+    // Servicio para la importación masiva de clientes
+    @Autowired
+    private ImportacionClientesService importacionClientesService;
+    
+    // Servicio de autocompletado con árboles de prefijos en memoria
+    @Autowired
+    private AutocompletarService autocompletarService;
+    
+    // Servicio del resumen de clientes y facturación por provincia y ciudad
+    @Autowired
+    private ResumenGeograficoService resumenGeograficoService;
+    
+    // Servicio de detección de clientes duplicados en segundo plano
+    @Autowired
+    private DuplicadosService duplicadosService;
+    
     // Servicio para exportar datos a diferentes formatos
     @Autowired
     private ExportService exportService;
@@ -70,6 +102,49 @@ public class ClienteController {
         return ResponseEntity.ok(clientes);
     }
     
+    // Endpoint GET para autocompletar clientes mientras se escribe
+    @GetMapping("/autocompletar")
+    @PreAuthorize("hasAnyRole('ADMIN', 'COMERCIAL')")
+    @Operation(
+        summary = "Autocompletar clientes",
+        description = "Retorna los clientes activos cuyo nombre, alguna de sus palabras o NIF empieza por el texto, " +
+                      "de más a menos pedidos"
+    )
+    public ResponseEntity<List<SugerenciaDTO>> autocompletarClientes(
+            @RequestParam String texto,
+            // Número de sugerencias, entre 1 y 20
+            @RequestParam(defaultValue = "10") int limite) {
+        return ResponseEntity.ok(autocompletarService.autocompletarClientes(texto, limite));
+    }
+    
+    // Endpoint GET para buscar clientes tolerando errores de escritura
+    @GetMapping("/busqueda")
+    @PreAuthorize("hasAnyRole('ADMIN', 'COMERCIAL')")
+    @Operation(
+        summary = "Búsqueda aproximada de clientes",
+        description = "Busca el texto en nombre, NIF, email y ciudad tolerando erratas y acentos. Retorna los " +
+                      "clientes de más a menos parecidos, como máximo app.busqueda.max-resultados (50 por defecto)"
+    )
+    public ResponseEntity<List<ClienteDTO>> buscarClientes(@RequestParam String texto) {
+        return ResponseEntity.ok(clienteService.buscarAproximado(texto));
+    }
+    
+    // Endpoint GET con los clientes y la facturación por provincia, o por ciudad al indicar la provincia
+    @GetMapping("/geografia")
+    @PreAuthorize("hasAnyRole('ADMIN', 'COMERCIAL')")
+    @Operation(
+        summary = "Clientes y facturación por zona",
+        description = "Sin provincia retorna los totales de cada provincia; con provincia, el desglose por sus ciudades. " +
+                      "Una provincia vacía desglosa los clientes que no la tienen indicada"
+    )
+    public ResponseEntity<List<ResumenGeograficoDTO>> resumirPorZona(
+            @RequestParam(required = false) String provincia) {
+        if (provincia == null) {
+            return ResponseEntity.ok(resumenGeograficoService.listarProvincias());
+        }
+        return ResponseEntity.ok(resumenGeograficoService.listarCiudades(provincia));
+    }
+    
     // Endpoint GET para obtener un cliente específico por ID
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN', 'COMERCIAL')")
@@ -82,6 +157,17 @@ public class ClienteController {
         return ResponseEntity.ok(cliente);
     }
     
+    // Endpoint GET con el resumen de la ficha de un cliente en una sola llamada
+    @GetMapping("/{id}/resumen")
+    @PreAuthorize("hasAnyRole('ADMIN', 'COMERCIAL')")
+    @Operation(
+        summary = "Resumen del cliente",
+        description = "Número de pedidos, último pedido, total facturado, saldo pendiente y últimas facturas del cliente"
+    )
+    public ResponseEntity<ResumenClienteDTO> obtenerResumenCliente(@PathVariable Long id) {
+        return ResponseEntity.ok(clienteService.obtenerResumen(id));
+    }
+    
     // Endpoint GET para obtener un cliente por su NIF/CIF
     @GetMapping("/nif/{nif}")
     @PreAuthorize("hasAnyRole('ADMIN', 'COMERCIAL')")
@@ -108,6 +194,39 @@ public class ClienteController {
         return ResponseEntity.status(HttpStatus.CREATED).body(nuevoCliente);
     }
     
+    // Endpoint POST para dar de alta o actualizar clientes en bloque desde un CSV
+    @PostMapping(value = "/import/csv", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'COMERCIAL')")
+    @Operation(
+        summary = "Importar clientes desde CSV",
+        description = "Crea o actualiza (por NIF) los clientes de un CSV separado por punto y coma con las mismas " +
+                      "columnas que la exportación. Retorna los contadores y el error de cada fila rechazada"
+    )
+    public ResponseEntity<ImportacionResultadoDTO> importarClientesCSV(
+            @RequestParam("archivo") MultipartFile archivo) throws IOException {
+        try (InputStream entrada = archivo.getInputStream()) {
+            return ResponseEntity.ok(importacionClientesService.importarCSV(entrada));
+        }
+    }
+    
+    // Endpoint POST para buscar clientes duplicados como trabajo en segundo plano
+    // El estado y el informe se consultan con los endpoints de trabajos de /api/reportes
+    @PostMapping("/duplicados")
+    @PreAuthorize("hasAnyRole('ADMIN', 'COMERCIAL')")
+    @Operation(
+        summary = "Detectar clientes duplicados",
+        description = "Encola la búsqueda de pares de clientes parecidos por nombre, dirección, email y teléfono " +
+                      "y retorna el trabajo. El informe (json o csv) se descarga en /api/reportes/trabajos/{id}/resultado; " +
+                      "si se omitieron pares por los límites de la búsqueda, el estado del trabajo lo indica en aviso"
+    )
+    public ResponseEntity<TrabajoDTO> detectarDuplicados(
+            // Similitud mínima (0-1] de los pares incluidos en el informe
+            @RequestParam(defaultValue = "0.7") double similitudMinima) {
+        TrabajoDTO trabajo = duplicadosService.enviar(similitudMinima, emailUsuario());
+        // 202 Accepted: el informe estará disponible más adelante
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(trabajo);
+    }
+    
     // Endpoint PUT para actualizar todos los datos de un cliente
     @PutMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN', 'COMERCIAL')")
@@ -155,33 +274,64 @@ public class ClienteController {
     @GetMapping("/export/pdf")
     @PreAuthorize("hasAnyRole('ADMIN', 'COMERCIAL')")
     @Operation(summary = "Exportar clientes a PDF")
-    public ResponseEntity<byte[]> exportarClientesPDF() throws DocumentException {
-        // Obtiene todos los clientes
-        List<ClienteDTO> clientes = clienteService.listarTodos();
-        // Genera el PDF como array de bytes
-        byte[] pdfBytes = exportService.exportarClientesPDF(clientes);
+    public ResponseEntity<StreamingResponseBody> exportarClientesPDF(
+            @RequestParam(defaultValue = "false") boolean paralelo) {
+        // El PDF se genera por bloques mientras se lee de la base de datos
+        // Con paralelo=true se renderiza por partes en varios hilos (listados muy grandes)
+        StreamingResponseBody cuerpo = salida -> exportService.escribirClientesPDF(salida, paralelo);
         
         // Configura headers para descarga de archivo PDF
         return ResponseEntity.ok()
                 .header("Content-Type", "application/pdf")
                 .header("Content-Disposition", "attachment; filename=clientes.pdf")
-                .body(pdfBytes);
+                .body(cuerpo);
+    }
+    
+    // Endpoint GET para exportar la lista de clientes a formato Excel (XLSX)
+    // Importes y fechas se escriben como celdas tipadas, sin perder el formato como en el CSV
+    @GetMapping("/export/xlsx")
+    @PreAuthorize("hasAnyRole('ADMIN', 'COMERCIAL')")
+    @Operation(summary = "Exportar clientes a XLSX")
+    public ResponseEntity<StreamingResponseBody> exportarClientesXLSX() {
+        StreamingResponseBody cuerpo = salida -> exportService.escribirClientesXLSX(salida);
+        
+        return ResponseEntity.ok()
+                .header("Content-Type", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
+                .header("Content-Disposition", "attachment; filename=clientes.xlsx")
+                .body(cuerpo);
     }
     
     // Endpoint GET para exportar la lista de clientes a formato CSV
+    // El CSV se escribe en la respuesta a medida que se lee de la base de datos
     @GetMapping("/export/csv")
     @PreAuthorize("hasAnyRole('ADMIN', 'COMERCIAL')")
     @Operation(summary = "Exportar clientes a CSV")
-    public ResponseEntity<String> exportarClientesCSV() throws IOException {
-        // Obtiene todos los clientes
-        List<ClienteDTO> clientes = clienteService.listarTodos();
-        // Genera el CSV como String
-        String csv = exportService.exportarClientesCSV(clientes);
+    public ResponseEntity<StreamingResponseBody> exportarClientesCSV(
+            @RequestHeader(value = "Accept-Encoding", required = false) String aceptadas) {
+        // Comprime al vuelo con zstd o gzip si el cliente lo acepta
+        Compresion compresion = Compresion.negociar(aceptadas);
+        
+        // StreamingResponseBody escribe desde un hilo asíncrono sin bloquear el hilo de la petición
+        StreamingResponseBody cuerpo = salida -> {
+            try (OutputStream comprimida = compresion.comprimir(salida)) {
+                exportService.escribirClientesCSV(comprimida);
+            }
+        };
         
         // Configura headers para descarga de archivo CSV con UTF-8
-        return ResponseEntity.ok()
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok()
                 .header("Content-Type", "text/csv; charset=utf-8")
                 .header("Content-Disposition", "attachment; filename=clientes.csv")
-                .body(csv);
+                .header("Vary", "Accept-Encoding");
+        if (compresion != Compresion.NINGUNA) {
+            respuesta.header("Content-Encoding", compresion.getCodificacion());
+        }
+        return respuesta.body(cuerpo);
+    }
+    
+    // Email del usuario autenticado que hace la petición
+    private static String emailUsuario() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth.getName();
     }
 }
@@ -0,0 +1,196 @@
+package com.mikeldi.reto.controller;
+
+import com.mikeldi.reto.dto.ConjuntoAnalitico;
+import com.mikeldi.reto.dto.EntidadExportacion;
+import com.mikeldi.reto.dto.TrabajoDTO;
+import com.mikeldi.reto.service.Compresion;
+import com.mikeldi.reto.service.ExportacionParquetService;
+import com.mikeldi.reto.service.ExportacionesTrabajosService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+// Define este controlador como REST para las exportaciones en segundo plano
+@RestController
+// Establece la ruta base /api/exportaciones para todos los endpoints
+@RequestMapping("/api/exportaciones")
+// Agrupa estos endpoints en Swagger bajo la categoría "Exportaciones"
+@Tag(name = "Exportaciones", description = "Exportación de listados grandes en segundo plano")
+// Indica en Swagger que todos los endpoints requieren autenticación JWT
+@SecurityRequirement(name = "bearerAuth")
+public class ExportacionesController {
+    
+    // Atributos con los que Tomcat envía un archivo con sendfile (sin copiarlo por la JVM)
+    private static final String SENDFILE_SOPORTADO = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_ARCHIVO = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_INICIO = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_FIN = "org.apache.tomcat.sendfile.end";
+    
+    // Servicio que lanza las exportaciones como trabajos
+    @Autowired
+    private ExportacionesTrabajosService exportacionesTrabajosService;
+    
+    // Servicio que exporta tablas en formato Parquet
+    @Autowired
+    private ExportacionParquetService exportacionParquetService;
+    
+    // Endpoint POST para lanzar una exportación en segundo plano
+    @PostMapping
+    @PreAuthorize("hasAnyRole('ADMIN', 'COMERCIAL')")
+    @Operation(
+        summary = "Enviar exportación en segundo plano",
+        description = "Encola la exportación (csv, pdf o xlsx, opcionalmente comprimida con gzip o zstd) y retorna " +
+                      "el trabajo. Si los datos no han cambiado desde una exportación idéntica, retorna ese trabajo ya completado"
+    )
+    public ResponseEntity<TrabajoDTO> enviarExportacion(
+            @RequestParam EntidadExportacion entidad,
+            @RequestParam(defaultValue = "csv") String formato,
+            @RequestParam(required = false) String compresion) {
+        // Registra quién envía la exportación: solo los solicitantes pueden consultarla y descargarla
+        TrabajoDTO trabajo = exportacionesTrabajosService.enviar(entidad, formato, Compresion.desdeNombre(compresion), emailUsuario());
+        // 202 Accepted: el archivo estará disponible más adelante
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(trabajo);
+    }
+    
+    // Endpoint GET para exportar una tabla en formato Parquet para análisis (BI)
+    // El archivo se genera y envía a medida que se lee de la base de datos
+    @GetMapping("/parquet/{conjunto}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'COMERCIAL')")
+    @Operation(
+        summary = "Exportar a Parquet",
+        description = "Exporta pedidos, líneas de pedido, facturas o movimientos de stock en formato columnar Parquet, " +
+                      "opcionalmente limitados a un periodo (fechas inclusivas)"
+    )
+    public ResponseEntity<StreamingResponseBody> exportarParquet(
+            @PathVariable ConjuntoAnalitico conjunto,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin) {
+        // Un periodo no válido responde 400 antes de empezar a enviar el archivo
+        exportacionParquetService.validarPeriodo(inicio, fin);
+        StreamingResponseBody cuerpo = salida -> exportacionParquetService.escribir(conjunto, inicio, fin, salida);
+        return ResponseEntity.ok()
+                .header("Content-Type", "application/vnd.apache.parquet")
+                .header("Content-Disposition", "attachment; filename=" + conjunto.name().toLowerCase() + ".parquet")
+                .body(cuerpo);
+    }
+    
+    // Endpoint GET para consultar el estado y progreso de una exportación
+    @GetMapping("/{id}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'COMERCIAL')")
+    @Operation(summary = "Estado de una exportación", description = "Retorna estado y fecha de expiración del archivo. Solo quien la envió")
+    public ResponseEntity<TrabajoDTO> estadoExportacion(@PathVariable String id) {
+        return ResponseEntity.ok(exportacionesTrabajosService.obtenerEstado(id, emailUsuario()));
+    }
+    
+    // Endpoint GET para descargar el archivo de una exportación completada
+    // Admite una cabecera Range de un solo tramo para reanudar descargas interrumpidas;
+    // el id del trabajo sirve de ETag porque su archivo no cambia nunca
+    @GetMapping("/{id}/descarga")
+    @PreAuthorize("hasAnyRole('ADMIN', 'COMERCIAL')")
+    @Operation(summary = "Descargar exportación", description = "Descarga el archivo; admite Range para reanudar. Solo quien la envió")
+    public void descargarExportacion(
+            @PathVariable String id,
+            @RequestHeader(value = "Range", required = false) String rango,
+            @RequestHeader(value = "If-Range", required = false) String siRango,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        Path archivo = exportacionesTrabajosService.obtenerArchivo(id, emailUsuario());
+        long tamano = Files.size(archivo);
+        String etag = "\"" + id + "\"";
+        String nombre = archivo.getFileName().toString();
+    
+        response.setHeader("Content-Type", tipoContenido(nombre));
+        response.setHeader("Content-Disposition", "attachment; filename=exportacion-" + nombre);
+        response.setHeader("Accept-Ranges", "bytes");
+        response.setHeader("ETag", etag);
+    
+        long inicio = 0;
+        long fin = tamano - 1;
+        // Si If-Range no coincide, el cliente tiene otra versión y se envía el archivo completo
+        if (rango != null && (siRango == null || siRango.equals(etag))) {
+            List<HttpRange> rangos;
+            try {
+                rangos = HttpRange.parseRanges(rango);
+            } catch (IllegalArgumentException e) {
+                rangos = List.of();
+            }
+            // Varios tramos no se usan para reanudar: se ignoran y se envía el archivo completo
+            if (rangos.size() == 1) {
+                HttpRange tramo = rangos.get(0);
+                inicio = tramo.getRangeStart(tamano);
+                fin = tramo.getRangeEnd(tamano);
+                if (inicio >= tamano || inicio > fin) {
+                    // 416: el tramo pedido empieza después del final del archivo
+                    response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                    response.setHeader("Content-Range", "bytes */" + tamano);
+                    return;
+                }
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader("Content-Range", "bytes " + inicio + "-" + fin + "/" + tamano);
+            }
+        }
+    
+        long longitud = fin - inicio + 1;
+        response.setContentLengthLong(longitud);
+        if (longitud <= 0) {
+            return;
+        }
+    
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SOPORTADO))) {
+            // Tomcat envía el tramo directamente desde el archivo al socket al terminar la petición
+            request.setAttribute(SENDFILE_ARCHIVO, archivo.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_INICIO, inicio);
+            request.setAttribute(SENDFILE_FIN, fin + 1);
+        } else {
+            // Sin sendfile se transfiere por canales, sin cargar el archivo en memoria
+            try (FileChannel canal = FileChannel.open(archivo)) {
+                WritableByteChannel destino = Channels.newChannel(response.getOutputStream());
+                long enviados = 0;
+                while (enviados < longitud) {
+                    enviados += canal.transferTo(inicio + enviados, longitud - enviados, destino);
+                }
+            }
+        }
+    }
+    
+    // Email del usuario autenticado que hace la petición
+    private static String emailUsuario() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth.getName();
+    }
+    
+    // Tipo de contenido según la extensión; los artefactos comprimidos se descargan tal cual
+    private static String tipoContenido(String nombre) {
+        if (nombre.endsWith(Compresion.GZIP.getExtension())) {
+            return "application/gzip";
+        }
+        if (nombre.endsWith(Compresion.ZSTD.getExtension())) {
+            return "application/zstd";
+        }
+        if (nombre.endsWith(".xlsx")) {
+            return "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+        }
+        return nombre.endsWith(".pdf") ? "application/pdf" : "text/csv; charset=utf-8";
+    }
+}
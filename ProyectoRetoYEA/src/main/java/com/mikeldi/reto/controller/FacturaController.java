@@ -1,8 +1,8 @@
 package com.mikeldi.reto.controller;
 
-import com.itextpdf.text.DocumentException;
 import com.mikeldi.reto.dto.FacturaDTO;
 import com.mikeldi.reto.entity.EstadoFactura;
+import com.mikeldi.reto.service.Compresion;
 import com.mikeldi.reto.service.ExportService;
 import com.mikeldi.reto.service.FacturaService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -16,8 +16,9 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 // Define este controlador como REST para retornar datos en formato JSON
@@ -124,33 +125,58 @@ public class FacturaController {
     @GetMapping("/export/pdf")
     @PreAuthorize("hasAnyRole('ADMIN', 'COMERCIAL')")
     @Operation(summary = "Exportar facturas a PDF")
-    public ResponseEntity<byte[]> exportarFacturasPDF() throws DocumentException {
-        // Obtiene todas las facturas
-        List<FacturaDTO> facturas = facturaService.listarTodas();
-        // Genera el PDF como array de bytes usando iText
-        byte[] pdfBytes = exportService.exportarFacturasPDF(facturas);
+    public ResponseEntity<StreamingResponseBody> exportarFacturasPDF(
+            @RequestParam(defaultValue = "false") boolean paralelo) {
+        // El PDF se genera por bloques mientras se lee de la base de datos
+        // Con paralelo=true se renderiza por partes en varios hilos (listados muy grandes)
+        StreamingResponseBody cuerpo = salida -> exportService.escribirFacturasPDF(salida, paralelo);
         
         // Configura headers para descarga de archivo PDF
         return ResponseEntity.ok()
                 .header("Content-Type", "application/pdf")
                 .header("Content-Disposition", "attachment; filename=facturas.pdf")
-                .body(pdfBytes);
+                .body(cuerpo);
+    }
+    
+    // Endpoint GET para exportar la lista de facturas a formato Excel (XLSX)
+    // Importes y fechas se escriben como celdas tipadas, sin perder el formato como en el CSV
+    @GetMapping("/export/xlsx")
+    @PreAuthorize("hasAnyRole('ADMIN', 'COMERCIAL')")
+    @Operation(summary = "Exportar facturas a XLSX")
+    public ResponseEntity<StreamingResponseBody> exportarFacturasXLSX() {
+        StreamingResponseBody cuerpo = salida -> exportService.escribirFacturasXLSX(salida);
+        
+        return ResponseEntity.ok()
+                .header("Content-Type", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
+                .header("Content-Disposition", "attachment; filename=facturas.xlsx")
+                .body(cuerpo);
     }
     
     // Endpoint GET para exportar la lista de facturas a formato CSV
+    // El CSV se escribe en la respuesta a medida que se lee de la base de datos
     @GetMapping("/export/csv")
     @PreAuthorize("hasAnyRole('ADMIN', 'COMERCIAL')")
     @Operation(summary = "Exportar facturas a CSV")
-    public ResponseEntity<String> exportarFacturasCSV() throws IOException {
-        // Obtiene todas las facturas
-        List<FacturaDTO> facturas = facturaService.listarTodas();
-        // Genera el CSV como String
-        String csv = exportService.exportarFacturasCSV(facturas);
+    public ResponseEntity<StreamingResponseBody> exportarFacturasCSV(
+            @RequestHeader(value = "Accept-Encoding", required = false) String aceptadas) {
+        // Comprime al vuelo con zstd o gzip si el cliente lo acepta
+        Compresion compresion = Compresion.negociar(aceptadas);
+        
+        // StreamingResponseBody escribe desde un hilo asíncrono sin bloquear el hilo de la petición
+        StreamingResponseBody cuerpo = salida -> {
+            try (OutputStream comprimida = compresion.comprimir(salida)) {
+                exportService.escribirFacturasCSV(comprimida);
+            }
+        };
         
         // Configura headers para descarga de archivo CSV con UTF-8
-        return ResponseEntity.ok()
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok()
                 .header("Content-Type", "text/csv; charset=utf-8")
                 .header("Content-Disposition", "attachment; filename=facturas.csv")
-                .body(csv);
+                .header("Vary", "Accept-Encoding");
+        if (compresion != Compresion.NINGUNA) {
+            respuesta.header("Content-Encoding", compresion.getCodificacion());
+        }
+        return respuesta.body(cuerpo);
     }
 }
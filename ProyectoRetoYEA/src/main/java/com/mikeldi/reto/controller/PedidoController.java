@@ -1,8 +1,8 @@
 package com.mikeldi.reto.controller;
 
-import com.itextpdf.text.DocumentException;
 import com.mikeldi.reto.dto.PedidoDTO;
 import com.mikeldi.reto.entity.EstadoPedido;
+import com.mikeldi.reto.service.Compresion;
 import com.mikeldi.reto.service.ExportService;
 import com.mikeldi.reto.service.PedidoService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -16,8 +16,9 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 // Define este controlador como REST para retornar datos en formato JSON
@@ -139,33 +140,58 @@ public class PedidoController {
     @GetMapping("/export/pdf")
     @PreAuthorize("hasAnyRole('ADMIN', 'COMERCIAL')")
     @Operation(summary = "Exportar pedidos a PDF")
-    public ResponseEntity<byte[]> exportarPedidosPDF() throws DocumentException {
-        // Obtiene todos los pedidos del sistema
-        List<PedidoDTO> pedidos = pedidoService.listarTodos();
-        // Genera el PDF como array de bytes usando iText
-        byte[] pdfBytes = exportService.exportarPedidosPDF(pedidos);
+    public ResponseEntity<StreamingResponseBody> exportarPedidosPDF(
+            @RequestParam(defaultValue = "false") boolean paralelo) {
+        // El PDF se genera por bloques mientras se lee de la base de datos
+        // Con paralelo=true se renderiza por partes en varios hilos (listados muy grandes)
+        StreamingResponseBody cuerpo = salida -> exportService.escribirPedidosPDF(salida, paralelo);
         
         // Configura headers para descarga de archivo PDF
         return ResponseEntity.ok()
                 .header("Content-Type", "application/pdf")
                 .header("Content-Disposition", "attachment; filename=pedidos.pdf")
-                .body(pdfBytes);
+                .body(cuerpo);
+    }
+    
+    // Endpoint GET para exportar la lista de pedidos a formato Excel (XLSX)
+    // Importes y fechas se escriben como celdas tipadas, sin perder el formato como en el CSV
+    @GetMapping("/export/xlsx")
+    @PreAuthorize("hasAnyRole('ADMIN', 'COMERCIAL')")
+    @Operation(summary = "Exportar pedidos a XLSX")
+    public ResponseEntity<StreamingResponseBody> exportarPedidosXLSX() {
+        StreamingResponseBody cuerpo = salida -> exportService.escribirPedidosXLSX(salida);
+        
+        return ResponseEntity.ok()
+                .header("Content-Type", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
+                .header("Content-Disposition", "attachment; filename=pedidos.xlsx")
+                .body(cuerpo);
     }
     
     // Endpoint GET para exportar la lista de pedidos a formato CSV
+    // El CSV se escribe en la respuesta a medida que se lee de la base de datos
     @GetMapping("/export/csv")
     @PreAuthorize("hasAnyRole('ADMIN', 'COMERCIAL')")
     @Operation(summary = "Exportar pedidos a CSV")
-    public ResponseEntity<String> exportarPedidosCSV() throws IOException {
-        // Obtiene todos los pedidos del sistema
-        List<PedidoDTO> pedidos = pedidoService.listarTodos();
-        // Genera el CSV como String
-        String csv = exportService.exportarPedidosCSV(pedidos);
+    public ResponseEntity<StreamingResponseBody> exportarPedidosCSV(
+            @RequestHeader(value = "Accept-Encoding", required = false) String aceptadas) {
+        // Comprime al vuelo con zstd o gzip si el cliente lo acepta
+        Compresion compresion = Compresion.negociar(aceptadas);
+        
+        // StreamingResponseBody escribe desde un hilo asíncrono sin bloquear el hilo de la petición
+        StreamingResponseBody cuerpo = salida -> {
+            try (OutputStream comprimida = compresion.comprimir(salida)) {
+                exportService.escribirPedidosCSV(comprimida);
+            }
+        };
         
         // Configura headers para descarga de archivo CSV con UTF-8
-        return ResponseEntity.ok()
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok()
                 .header("Content-Type", "text/csv; charset=utf-8")
                 .header("Content-Disposition", "attachment; filename=pedidos.csv")
-                .body(csv);
+                .header("Vary", "Accept-Encoding");
+        if (compresion != Compresion.NINGUNA) {
+            respuesta.header("Content-Encoding", compresion.getCodificacion());
+        }
+        return respuesta.body(cuerpo);
     }
 }
@@ -1,6 +1,8 @@
 package com.mikeldi.reto.controller;
 
+import com.mikeldi.reto.busqueda.AutocompletarService;
 import com.mikeldi.reto.dto.ProductoDTO;
+import com.mikeldi.reto.dto.SugerenciaDTO;
 import com.mikeldi.reto.service.ProductoService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -28,6 +30,10 @@ public class ProductoController {
     @Autowired
     private ProductoService productoService;
     
+    // Servicio de autocompletado con árboles de prefijos en memoria
+    @Autowired
+    private AutocompletarService autocompletarService;
+    
     // Endpoint GET para listar productos con filtros opcionales
     @GetMapping
     // Tres roles tienen acceso: ADMIN, COMERCIAL y ALMACEN
@@ -71,6 +77,33 @@ public class ProductoController {
         return ResponseEntity.ok(productos);
     }
     
+    // Endpoint GET para autocompletar productos mientras se escribe
+    @GetMapping("/autocompletar")
+    @PreAuthorize("hasAnyRole('ADMIN', 'COMERCIAL', 'ALMACEN')")
+    @Operation(
+        summary = "Autocompletar productos",
+        description = "Retorna los productos activos cuyo nombre o alguna de sus palabras empieza por el texto, " +
+                      "de más a menos unidades pedidas"
+    )
+    public ResponseEntity<List<SugerenciaDTO>> autocompletarProductos(
+            @RequestParam String texto,
+            // Número de sugerencias, entre 1 y 20
+            @RequestParam(defaultValue = "10") int limite) {
+        return ResponseEntity.ok(autocompletarService.autocompletarProductos(texto, limite));
+    }
+    
+    // Endpoint GET para buscar productos tolerando errores de escritura
+    @GetMapping("/busqueda")
+    @PreAuthorize("hasAnyRole('ADMIN', 'COMERCIAL', 'ALMACEN')")
+    @Operation(
+        summary = "Búsqueda aproximada de productos",
+        description = "Busca el texto en nombre, descripción y categoría tolerando erratas y acentos. Retorna los " +
+                      "productos de más a menos parecidos, como máximo app.busqueda.max-resultados (50 por defecto)"
+    )
+    public ResponseEntity<List<ProductoDTO>> buscarProductos(@RequestParam String texto) {
+        return ResponseEntity.ok(productoService.buscarAproximado(texto));
+    }
+    
     // Endpoint GET para alertas de stock bajo
     @GetMapping("/stock-bajo")
     // Solo ADMIN y ALMACEN pueden ver alertas de stock
@@ -1,19 +1,39 @@
 package com.mikeldi.reto.controller;
 
+import com.mikeldi.reto.analitica.AnaliticaVentasService;
+import com.mikeldi.reto.analitica.DimensionVentas;
+import com.mikeldi.reto.dto.AntiguedadDeudaDTO;
 import com.mikeldi.reto.dto.EstadisticasDTO;
+import com.mikeldi.reto.dto.RankingDTO;
+import com.mikeldi.reto.dto.ReporteIvaDTO;
 import com.mikeldi.reto.dto.ReporteVentasDTO;
+import com.mikeldi.reto.dto.ResultadoAnaliticaDTO;
+import com.mikeldi.reto.dto.SolicitudReporteDTO;
+import com.mikeldi.reto.dto.TrabajoDTO;
+import com.mikeldi.reto.service.RankingService;
 import com.mikeldi.reto.service.ReportesService;
+import com.mikeldi.reto.service.ReportesTrabajosService;
+import com.mikeldi.reto.trabajo.GestorTrabajos;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 
 // Define este controlador como REST para retornar datos en formato JSON
 @RestController
@@ -29,6 +49,22 @@ public class ReportesController {
     @Autowired
     private ReportesService reportesService;
     
+    // Servicio que calcula rankings de productos y clientes
+    @Autowired
+    private RankingService rankingService;
+    
+    // Servicio de análisis de ventas sobre el almacén columnar en memoria
+    @Autowired
+    private AnaliticaVentasService analiticaVentasService;
+    
+    // Servicio que lanza reportes como trabajos en segundo plano
+    @Autowired
+    private ReportesTrabajosService reportesTrabajosService;
+    
+    // Gestor de trabajos para consultar su estado y descargar resultados
+    @Autowired
+    private GestorTrabajos gestorTrabajos;
+    
     // Endpoint GET para obtener un resumen general del sistema
     @GetMapping("/estadisticas")
     // Solo ADMIN y COMERCIAL pueden ver estadísticas
@@ -59,4 +95,153 @@ public class ReportesController {
         List<ReporteVentasDTO> reporte = reportesService.reporteVentasPorPeriodo(inicio, fin);
         return ResponseEntity.ok(reporte);
     }
+    
+    // Endpoint GET para el informe de IVA por tipo impositivo (liquidaciones trimestrales)
+    @GetMapping("/iva")
+    @PreAuthorize("hasAnyRole('ADMIN', 'COMERCIAL')")
+    @Operation(
+        summary = "Reporte de IVA por tipo",
+        description = "Base imponible y cuota por tipo de IVA y mes de emisión, con el total de cada tipo. " +
+                      "Excluye facturas canceladas"
+    )
+    public ResponseEntity<List<ReporteIvaDTO>> reporteIva(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin) {
+        List<ReporteIvaDTO> reporte = reportesService.reporteIva(inicio, fin);
+        return ResponseEntity.ok(reporte);
+    }
+    
+    // Endpoint GET para el informe de antigüedad de la deuda pendiente de cobro
+    @GetMapping("/antiguedad-deuda")
+    @PreAuthorize("hasAnyRole('ADMIN', 'COMERCIAL')")
+    @Operation(
+        summary = "Antigüedad de la deuda",
+        description = "Importe pendiente por cliente y en total en tramos de 0-30, 31-60, 61-90 y más de 90 días desde el vencimiento"
+    )
+    public ResponseEntity<AntiguedadDeudaDTO> antiguedadDeuda(
+            // Fecha de corte, por defecto hoy
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha) {
+        AntiguedadDeudaDTO informe = reportesService.antiguedadDeuda(fecha != null ? fecha : LocalDate.now());
+        return ResponseEntity.ok(informe);
+    }
+    
+    // Endpoint GET para obtener los productos más vendidos de un periodo
+    @GetMapping("/top-productos")
+    @PreAuthorize("hasAnyRole('ADMIN', 'COMERCIAL')")
+    @Operation(
+        summary = "Productos más vendidos",
+        description = "Top N productos por unidades y por facturación sin IVA, con desglose opcional por categoría"
+    )
+    public ResponseEntity<List<RankingDTO>> topProductos(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin,
+            // Número de posiciones de cada ranking
+            @RequestParam(defaultValue = "10") int n,
+            // Añade un ranking por cada categoría
+            @RequestParam(defaultValue = "false") boolean porCategoria) {
+        List<RankingDTO> rankings = rankingService.topProductos(inicio, fin, n, porCategoria);
+        return ResponseEntity.ok(rankings);
+    }
+    
+    // Endpoint GET para obtener los mejores clientes de un periodo
+    @GetMapping("/top-clientes")
+    @PreAuthorize("hasAnyRole('ADMIN', 'COMERCIAL')")
+    @Operation(
+        summary = "Mejores clientes",
+        description = "Top N clientes por facturación sin IVA y por número de facturas, con desglose opcional por provincia"
+    )
+    public ResponseEntity<List<RankingDTO>> topClientes(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin,
+            @RequestParam(defaultValue = "10") int n,
+            // Añade un ranking por cada provincia
+            @RequestParam(defaultValue = "false") boolean porProvincia) {
+        List<RankingDTO> rankings = rankingService.topClientes(inicio, fin, n, porProvincia);
+        return ResponseEntity.ok(rankings);
+    }
+    
+    // Endpoint GET para análisis ad-hoc de ventas agrupadas por una dimensión
+    @GetMapping("/analitica")
+    @PreAuthorize("hasAnyRole('ADMIN', 'COMERCIAL')")
+    @Operation(
+        summary = "Análisis de ventas por dimensión",
+        description = "Agrupa las líneas facturadas por PRODUCTO, CATEGORIA, CLIENTE, PROVINCIA, USUARIO o MES " +
+                      "con filtros opcionales. Se calcula en memoria sin consultar la base de datos"
+    )
+    public ResponseEntity<List<ResultadoAnaliticaDTO>> analiticaVentas(
+            // Dimensión por la que se agrupan los resultados
+            @RequestParam DimensionVentas agruparPor,
+            // Rango de fechas de emisión opcional
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin,
+            // Filtros opcionales por el resto de dimensiones
+            @RequestParam(required = false) Long productoId,
+            @RequestParam(required = false) String categoria,
+            @RequestParam(required = false) Long clienteId,
+            @RequestParam(required = false) String provincia,
+            @RequestParam(required = false) Long usuarioId) {
+        // Reúne solo los filtros informados
+        Map<DimensionVentas, String> filtros = new EnumMap<>(DimensionVentas.class);
+        if (productoId != null) filtros.put(DimensionVentas.PRODUCTO, productoId.toString());
+        if (categoria != null) filtros.put(DimensionVentas.CATEGORIA, categoria);
+        if (clienteId != null) filtros.put(DimensionVentas.CLIENTE, clienteId.toString());
+        if (provincia != null) filtros.put(DimensionVentas.PROVINCIA, provincia);
+        if (usuarioId != null) filtros.put(DimensionVentas.USUARIO, usuarioId.toString());
+        
+        List<ResultadoAnaliticaDTO> resultado = analiticaVentasService.consultar(agruparPor, inicio, fin, filtros);
+        return ResponseEntity.ok(resultado);
+    }
+    
+    // Endpoint POST para recargar el almacén analítico desde la base de datos
+    @PostMapping("/analitica/recargar")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Recargar almacén analítico", description = "Encola una recarga de todas las líneas facturadas; las consultas usan el almacén anterior hasta que termina. Solo ADMIN")
+    public ResponseEntity<TrabajoDTO> recargarAnalitica() {
+        TrabajoDTO trabajo = analiticaVentasService.recargar(emailUsuario());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(trabajo);
+    }
+    
+    // Endpoint POST para generar un reporte en segundo plano
+    // Evita que los periodos largos superen el tiempo máximo de la petición HTTP
+    @PostMapping("/trabajos")
+    @PreAuthorize("hasAnyRole('ADMIN', 'COMERCIAL')")
+    @Operation(
+        summary = "Enviar reporte en segundo plano",
+        description = "Encola el reporte y retorna el trabajo. Una solicitud idéntica en curso retorna el mismo trabajo"
+    )
+    public ResponseEntity<TrabajoDTO> enviarTrabajo(@Valid @RequestBody SolicitudReporteDTO solicitud) {
+        TrabajoDTO trabajo = reportesTrabajosService.enviar(solicitud, emailUsuario());
+        // 202 Accepted: el resultado estará disponible más adelante
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(trabajo);
+    }
+    
+    // Endpoint GET para consultar el estado y progreso de un trabajo
+    @GetMapping("/trabajos/{id}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'COMERCIAL')")
+    @Operation(summary = "Estado de un trabajo", description = "Retorna estado, progreso y formatos disponibles. Solo para quien envió el trabajo")
+    public ResponseEntity<TrabajoDTO> estadoTrabajo(@PathVariable String id) {
+        return ResponseEntity.ok(gestorTrabajos.obtenerEstado(id, emailUsuario()));
+    }
+    
+    // Endpoint GET para descargar el resultado de un trabajo completado
+    @GetMapping("/trabajos/{id}/resultado")
+    @PreAuthorize("hasAnyRole('ADMIN', 'COMERCIAL')")
+    @Operation(summary = "Descargar resultado", description = "Descarga el resultado en formato json o csv. Solo para quien envió el trabajo")
+    public ResponseEntity<Resource> descargarResultado(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "json") String formato) {
+        Path archivo = gestorTrabajos.obtenerResultado(id, formato, emailUsuario());
+        String tipo = "csv".equalsIgnoreCase(formato) ? "text/csv; charset=utf-8" : "application/json";
+        // El archivo se sirve directamente desde disco sin cargarlo en memoria
+        return ResponseEntity.ok()
+                .header("Content-Type", tipo)
+                .header("Content-Disposition", "attachment; filename=reporte-" + archivo.getFileName())
+                .body(new FileSystemResource(archivo));
+    }
+    
+    // Email del usuario autenticado que hace la petición
+    private static String emailUsuario() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth.getName();
+    }
 }
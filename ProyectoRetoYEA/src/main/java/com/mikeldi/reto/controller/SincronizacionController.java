@@ -0,0 +1,44 @@
+package com.mikeldi.reto.controller;
+
+import com.mikeldi.reto.dto.CambiosDTO;
+import com.mikeldi.reto.dto.EntidadSincronizable;
+import com.mikeldi.reto.service.SincronizacionService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+// Define este controlador como REST para la sincronización incremental
+@RestController
+// Establece la ruta base /api/sincronizacion para todos los endpoints
+@RequestMapping("/api/sincronizacion")
+// Agrupa estos endpoints en Swagger bajo la categoría "Sincronización"
+@Tag(name = "Sincronización", description = "Descarga incremental de cambios para la app móvil y el almacén de datos")
+// Indica en Swagger que todos los endpoints requieren autenticación JWT
+@SecurityRequirement(name = "bearerAuth")
+public class SincronizacionController {
+    
+    // Servicio que calcula los cambios desde un cursor
+    @Autowired
+    private SincronizacionService sincronizacionService;
+    
+    // Endpoint GET para obtener los cambios de una entidad desde el último cursor recibido
+    // Sin cursor devuelve todos los registros; mientras hayMas sea true se repite con siguienteCursor
+    // y al terminar se guarda el último cursor para la próxima sincronización
+    @GetMapping("/{entidad}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'COMERCIAL')")
+    @Operation(
+        summary = "Cambios desde un cursor",
+        description = "Retorna los clientes, productos, pedidos o facturas creados o modificados y los ids eliminados " +
+                      "desde el cursor, en páginas ordenadas, junto con el cursor de la siguiente página"
+    )
+    public ResponseEntity<CambiosDTO<?>> cambiosDesde(
+            @PathVariable EntidadSincronizable entidad,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "500") int limite) {
+        return ResponseEntity.ok(sincronizacionService.cambiosDesde(entidad, cursor, limite));
+    }
+}
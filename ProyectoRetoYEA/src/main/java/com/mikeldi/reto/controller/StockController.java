@@ -1,5 +1,7 @@
 package com.mikeldi.reto.controller;
 
+import com.mikeldi.reto.dto.AgrupacionTemporal;
+import com.mikeldi.reto.dto.FlujoInventarioDTO;
 import com.mikeldi.reto.dto.MovimientoStockDTO;
 import com.mikeldi.reto.service.StockService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -7,6 +9,7 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -14,6 +17,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 
 // Define este controlador como REST para retornar datos en formato JSON
@@ -59,6 +63,27 @@ public class StockController {
         return ResponseEntity.ok(movimientos);
     }
     
+    // Endpoint GET para el informe de flujo de inventario por periodo
+    @GetMapping("/flujo")
+    @PreAuthorize("hasAnyRole('ADMIN', 'ALMACEN')")
+    @Operation(
+        summary = "Flujo de inventario",
+        description = "Unidades de entrada, salida, venta y ajuste por producto o categoría agrupadas por DIA, SEMANA o MES"
+    )
+    public ResponseEntity<List<FlujoInventarioDTO>> flujoInventario(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin,
+            // Granularidad del periodo
+            @RequestParam(defaultValue = "MES") AgrupacionTemporal agrupacion,
+            // Agrupa por categoría en lugar de por producto
+            @RequestParam(defaultValue = "false") boolean porCategoria,
+            // Filtros opcionales
+            @RequestParam(required = false) Long productoId,
+            @RequestParam(required = false) String categoria) {
+        List<FlujoInventarioDTO> flujo = stockService.flujoInventario(inicio, fin, agrupacion, porCategoria, productoId, categoria);
+        return ResponseEntity.ok(flujo);
+    }
+    
     // Endpoint POST para registrar movimientos manuales de stock
     @PostMapping("/movimientos")
     @PreAuthorize("hasAnyRole('ADMIN', 'ALMACEN')")
@@ -0,0 +1,11 @@
+package com.mikeldi.reto.dto;
+
+// Granularidad temporal de los informes agregados por periodo
+public enum AgrupacionTemporal {
+    // Un periodo por día
+    DIA,
+    // Semanas de lunes a domingo
+    SEMANA,
+    // Meses naturales
+    MES
+}
@@ -0,0 +1,112 @@
+package com.mikeldi.reto.dto;
+
+import java.math.BigDecimal;
+
+// DTO con la deuda pendiente de un cliente (o el total general) repartida por días de retraso
+public class AntiguedadClienteDTO {
+    
+    // Cliente deudor, null en la fila de totales
+    private Long clienteId;
+    
+    private String nombre;
+    
+    // Número de facturas pendientes de cobro
+    private Long facturas;
+    
+    // Importe con vencimiento hace 30 días o menos (incluye las aún no vencidas)
+    private BigDecimal tramo0a30;
+    
+    // Importe vencido hace entre 31 y 60 días
+    private BigDecimal tramo31a60;
+    
+    // Importe vencido hace entre 61 y 90 días
+    private BigDecimal tramo61a90;
+    
+    // Importe vencido hace más de 90 días
+    private BigDecimal tramoMas90;
+    
+    // Suma de todos los tramos
+    private BigDecimal total;
+    
+    // Constructor vacío para deserialización JSON
+    public AntiguedadClienteDTO() {
+    }
+    
+    // Constructor completo; el total se calcula a partir de los tramos
+    public AntiguedadClienteDTO(Long clienteId, String nombre, Long facturas, BigDecimal tramo0a30,
+                                BigDecimal tramo31a60, BigDecimal tramo61a90, BigDecimal tramoMas90) {
+        this.clienteId = clienteId;
+        this.nombre = nombre;
+        this.facturas = facturas;
+        this.tramo0a30 = tramo0a30;
+        this.tramo31a60 = tramo31a60;
+        this.tramo61a90 = tramo61a90;
+        this.tramoMas90 = tramoMas90;
+        this.total = tramo0a30.add(tramo31a60).add(tramo61a90).add(tramoMas90);
+    }
+    
+    // Getters y Setters
+    public Long getClienteId() {
+        return clienteId;
+    }
+    
+    public void setClienteId(Long clienteId) {
+        this.clienteId = clienteId;
+    }
+    
+    public String getNombre() {
+        return nombre;
+    }
+    
+    public void setNombre(String nombre) {
+        this.nombre = nombre;
+    }
+    
+    public Long getFacturas() {
+        return facturas;
+    }
+    
+    public void setFacturas(Long facturas) {
+        this.facturas = facturas;
+    }
+    
+    public BigDecimal getTramo0a30() {
+        return tramo0a30;
+    }
+    
+    public void setTramo0a30(BigDecimal tramo0a30) {
+        this.tramo0a30 = tramo0a30;
+    }
+    
+    public BigDecimal getTramo31a60() {
+        return tramo31a60;
+    }
+    
+    public void setTramo31a60(BigDecimal tramo31a60) {
+        this.tramo31a60 = tramo31a60;
+    }
+    
+    public BigDecimal getTramo61a90() {
+        return tramo61a90;
+    }
+    
+    public void setTramo61a90(BigDecimal tramo61a90) {
+        this.tramo61a90 = tramo61a90;
+    }
+    
+    public BigDecimal getTramoMas90() {
+        return tramoMas90;
+    }
+    
+    public void setTramoMas90(BigDecimal tramoMas90) {
+        this.tramoMas90 = tramoMas90;
+    }
+    
+    public BigDecimal getTotal() {
+        return total;
+    }
+    
+    public void setTotal(BigDecimal total) {
+        this.total = total;
+    }
+}
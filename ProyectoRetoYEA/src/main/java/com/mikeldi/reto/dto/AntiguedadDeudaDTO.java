@@ -0,0 +1,53 @@
+package com.mikeldi.reto.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// DTO del informe de antigüedad de deuda: totales generales y desglose por cliente
+public class AntiguedadDeudaDTO {
+    
+    // Fecha de referencia desde la que se cuentan los días de retraso
+    private LocalDate fechaCorte;
+    
+    // Suma de todos los clientes
+    private AntiguedadClienteDTO total;
+    
+    // Deuda de cada cliente con facturas pendientes, de mayor a menor importe
+    private List<AntiguedadClienteDTO> clientes;
+    
+    // Constructor vacío para deserialización JSON
+    public AntiguedadDeudaDTO() {
+    }
+    
+    // Constructor completo
+    public AntiguedadDeudaDTO(LocalDate fechaCorte, AntiguedadClienteDTO total, List<AntiguedadClienteDTO> clientes) {
+        this.fechaCorte = fechaCorte;
+        this.total = total;
+        this.clientes = clientes;
+    }
+    
+    // Getters y Setters
+    public LocalDate getFechaCorte() {
+        return fechaCorte;
+    }
+    
+    public void setFechaCorte(LocalDate fechaCorte) {
+        this.fechaCorte = fechaCorte;
+    }
+    
+    public AntiguedadClienteDTO getTotal() {
+        return total;
+    }
+    
+    public void setTotal(AntiguedadClienteDTO total) {
+        this.total = total;
+    }
+    
+    public List<AntiguedadClienteDTO> getClientes() {
+        return clientes;
+    }
+    
+    public void setClientes(List<AntiguedadClienteDTO> clientes) {
+        this.clientes = clientes;
+    }
+}
@@ -0,0 +1,79 @@
+package com.mikeldi.reto.dto;
+
+import java.util.List;
+
+// DTO con una página de la sincronización incremental de una entidad
+// Contiene los registros creados o modificados y los ids eliminados desde el cursor recibido,
+// junto con el cursor desde el que pedir la siguiente página
+public class CambiosDTO<T> {
+    
+    // Entidad sincronizada
+    private EntidadSincronizable entidad;
+    
+    // Registros creados o modificados, ordenados por fecha de actualización
+    private List<T> cambios;
+    
+    // Ids de los registros eliminados, ordenados por fecha de eliminación
+    private List<Long> eliminados;
+    
+    // Cursor opaco para la siguiente petición; si no hay cambios es el mismo que se recibió
+    private String siguienteCursor;
+    
+    // Indica si quedan más cambios pendientes y conviene pedir la siguiente página ya
+    private boolean hayMas;
+    
+    // Constructor vacío para deserialización JSON
+    public CambiosDTO() {
+    }
+    
+    // Constructor completo
+    public CambiosDTO(EntidadSincronizable entidad, List<T> cambios, List<Long> eliminados,
+                      String siguienteCursor, boolean hayMas) {
+        this.entidad = entidad;
+        this.cambios = cambios;
+        this.eliminados = eliminados;
+        this.siguienteCursor = siguienteCursor;
+        this.hayMas = hayMas;
+    }
+    
+    // Getters y Setters
+    public EntidadSincronizable getEntidad() {
+        return entidad;
+    }
+    
+    public void setEntidad(EntidadSincronizable entidad) {
+        this.entidad = entidad;
+    }
+    
+    public List<T> getCambios() {
+        return cambios;
+    }
+    
+    public void setCambios(List<T> cambios) {
+        this.cambios = cambios;
+    }
+    
+    public List<Long> getEliminados() {
+        return eliminados;
+    }
+    
+    public void setEliminados(List<Long> eliminados) {
+        this.eliminados = eliminados;
+    }
+    
+    public String getSiguienteCursor() {
+        return siguienteCursor;
+    }
+    
+    public void setSiguienteCursor(String siguienteCursor) {
+        this.siguienteCursor = siguienteCursor;
+    }
+    
+    public boolean isHayMas() {
+        return hayMas;
+    }
+    
+    public void setHayMas(boolean hayMas) {
+        this.hayMas = hayMas;
+    }
+}
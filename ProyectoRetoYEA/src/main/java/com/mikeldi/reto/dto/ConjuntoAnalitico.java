@@ -0,0 +1,13 @@
+package com.mikeldi.reto.dto;
+
+// Tablas que se pueden exportar en formato columnar (Parquet) para análisis
+public enum ConjuntoAnalitico {
+    // Pedidos filtrados por fecha de pedido
+    PEDIDOS,
+    // Líneas de los pedidos filtradas por fecha de pedido
+    LINEAS_PEDIDO,
+    // Facturas filtradas por fecha de emisión
+    FACTURAS,
+    // Movimientos de stock filtrados por fecha de movimiento
+    MOVIMIENTOS_STOCK
+}
@@ -0,0 +1,129 @@
+package com.mikeldi.reto.dto;
+
+// DTO con un par de clientes que probablemente son el mismo, candidato a fusionarse
+// Las similitudes van de 0 a 1; la de un campo es null si falta en alguno de los dos clientes
+public class DuplicadoClienteDTO {
+    
+    // Clientes enlazados directa o indirectamente por pares se agrupan bajo el menor de sus ids
+    private Long grupo;
+    
+    // Media ponderada de las similitudes de los campos presentes
+    private Double similitud;
+    
+    // Primer cliente del par (el de menor id)
+    private Long clienteId1;
+    private String nombre1;
+    private String nif1;
+    
+    // Segundo cliente del par
+    private Long clienteId2;
+    private String nombre2;
+    private String nif2;
+    
+    // Similitud de cada campo comparado
+    private Double similitudNombre;
+    private Double similitudDireccion;
+    private Double similitudEmail;
+    private Double similitudTelefono;
+    
+    // Constructor vacío para deserialización JSON
+    public DuplicadoClienteDTO() {
+    }
+    
+    // Getters y Setters
+    public Long getGrupo() {
+        return grupo;
+    }
+    
+    public void setGrupo(Long grupo) {
+        this.grupo = grupo;
+    }
+    
+    public Double getSimilitud() {
+        return similitud;
+    }
+    
+    public void setSimilitud(Double similitud) {
+        this.similitud = similitud;
+    }
+    
+    public Long getClienteId1() {
+        return clienteId1;
+    }
+    
+    public void setClienteId1(Long clienteId1) {
+        this.clienteId1 = clienteId1;
+    }
+    
+    public String getNombre1() {
+        return nombre1;
+    }
+    
+    public void setNombre1(String nombre1) {
+        this.nombre1 = nombre1;
+    }
+    
+    public String getNif1() {
+        return nif1;
+    }
+    
+    public void setNif1(String nif1) {
+        this.nif1 = nif1;
+    }
+    
+    public Long getClienteId2() {
+        return clienteId2;
+    }
+    
+    public void setClienteId2(Long clienteId2) {
+        this.clienteId2 = clienteId2;
+    }
+    
+    public String getNombre2() {
+        return nombre2;
+    }
+    
+    public void setNombre2(String nombre2) {
+        this.nombre2 = nombre2;
+    }
+    
+    public String getNif2() {
+        return nif2;
+    }
+    
+    public void setNif2(String nif2) {
+        this.nif2 = nif2;
+    }
+    
+    public Double getSimilitudNombre() {
+        return similitudNombre;
+    }
+    
+    public void setSimilitudNombre(Double similitudNombre) {
+        this.similitudNombre = similitudNombre;
+    }
+    
+    public Double getSimilitudDireccion() {
+        return similitudDireccion;
+    }
+    
+    public void setSimilitudDireccion(Double similitudDireccion) {
+        this.similitudDireccion = similitudDireccion;
+    }
+    
+    public Double getSimilitudEmail() {
+        return similitudEmail;
+    }
+    
+    public void setSimilitudEmail(Double similitudEmail) {
+        this.similitudEmail = similitudEmail;
+    }
+    
+    public Double getSimilitudTelefono() {
+        return similitudTelefono;
+    }
+    
+    public void setSimilitudTelefono(Double similitudTelefono) {
+        this.similitudTelefono = similitudTelefono;
+    }
+}
@@ -0,0 +1,11 @@
+package com.mikeldi.reto.dto;
+
+// Listados que se pueden exportar como trabajo en segundo plano
+public enum EntidadExportacion {
+    // Equivale a GET /api/clientes/export/{formato}
+    CLIENTES,
+    // Equivale a GET /api/pedidos/export/{formato}
+    PEDIDOS,
+    // Equivale a GET /api/facturas/export/{formato}
+    FACTURAS
+}
@@ -0,0 +1,9 @@
+package com.mikeldi.reto.dto;
+
+// Entidades que se pueden sincronizar de forma incremental con GET /api/sincronizacion/{entidad}
+public enum EntidadSincronizable {
+    CLIENTES,
+    PRODUCTOS,
+    PEDIDOS,
+    FACTURAS
+}
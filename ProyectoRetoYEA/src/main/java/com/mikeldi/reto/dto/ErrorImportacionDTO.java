@@ -0,0 +1,50 @@
+package com.mikeldi.reto.dto;
+
+// DTO con el error de una fila rechazada en una importación
+public class ErrorImportacionDTO {
+    
+    // Número de fila en el archivo (la cabecera es la fila 1)
+    private Integer fila;
+    
+    // NIF de la fila, si se pudo leer
+    private String nif;
+    
+    // Motivos del rechazo
+    private String mensaje;
+    
+    // Constructor vacío para deserialización JSON
+    public ErrorImportacionDTO() {
+    }
+    
+    // Constructor completo usado al validar cada fila
+    public ErrorImportacionDTO(Integer fila, String nif, String mensaje) {
+        this.fila = fila;
+        this.nif = nif;
+        this.mensaje = mensaje;
+    }
+    
+    // Getters y Setters para acceso a los datos del error
+    public Integer getFila() {
+        return fila;
+    }
+    
+    public void setFila(Integer fila) {
+        this.fila = fila;
+    }
+    
+    public String getNif() {
+        return nif;
+    }
+    
+    public void setNif(String nif) {
+        this.nif = nif;
+    }
+    
+    public String getMensaje() {
+        return mensaje;
+    }
+    
+    public void setMensaje(String mensaje) {
+        this.mensaje = mensaje;
+    }
+}
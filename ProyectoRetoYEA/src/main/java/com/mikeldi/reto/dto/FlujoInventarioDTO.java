@@ -0,0 +1,112 @@
+package com.mikeldi.reto.dto;
+
+import java.time.LocalDate;
+
+// DTO con las unidades que entran y salen de un producto o categoría en un periodo
+public class FlujoInventarioDTO {
+    
+    // Primer día del periodo (día, lunes de la semana o día 1 del mes)
+    private LocalDate periodo;
+    
+    // Id del producto o nombre de la categoría
+    private String clave;
+    
+    // Nombre del producto o de la categoría
+    private String nombre;
+    
+    // Unidades por tipo de movimiento
+    private Long entradas = 0L;
+    private Long salidas = 0L;
+    private Long ventas = 0L;
+    private Long ajustes = 0L;
+    
+    // Número total de movimientos del periodo
+    private Long movimientos = 0L;
+    
+    // Variación neta de stock: entradas y ajustes suman, salidas y ventas restan
+    private Long saldo = 0L;
+    
+    // Constructor vacío para deserialización JSON
+    public FlujoInventarioDTO() {
+    }
+    
+    // Constructor con la identificación del grupo; las cantidades empiezan a cero
+    public FlujoInventarioDTO(LocalDate periodo, String clave, String nombre) {
+        this.periodo = periodo;
+        this.clave = clave;
+        this.nombre = nombre;
+    }
+    
+    // Getters y Setters
+    public LocalDate getPeriodo() {
+        return periodo;
+    }
+    
+    public void setPeriodo(LocalDate periodo) {
+        this.periodo = periodo;
+    }
+    
+    public String getClave() {
+        return clave;
+    }
+    
+    public void setClave(String clave) {
+        this.clave = clave;
+    }
+    
+    public String getNombre() {
+        return nombre;
+    }
+    
+    public void setNombre(String nombre) {
+        this.nombre = nombre;
+    }
+    
+    public Long getEntradas() {
+        return entradas;
+    }
+    
+    public void setEntradas(Long entradas) {
+        this.entradas = entradas;
+    }
+    
+    public Long getSalidas() {
+        return salidas;
+    }
+    
+    public void setSalidas(Long salidas) {
+        this.salidas = salidas;
+    }
+    
+    public Long getVentas() {
+        return ventas;
+    }
+    
+    public void setVentas(Long ventas) {
+        this.ventas = ventas;
+    }
+    
+    public Long getAjustes() {
+        return ajustes;
+    }
+    
+    public void setAjustes(Long ajustes) {
+        this.ajustes = ajustes;
+    }
+    
+    public Long getMovimientos() {
+        return movimientos;
+    }
+    
+    public void setMovimientos(Long movimientos) {
+        this.movimientos = movimientos;
+    }
+    
+    public Long getSaldo() {
+        return saldo;
+    }
+    
+    public void setSaldo(Long saldo) {
+        this.saldo = saldo;
+    }
+}
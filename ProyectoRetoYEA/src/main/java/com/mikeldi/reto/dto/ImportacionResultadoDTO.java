@@ -0,0 +1,64 @@
+package com.mikeldi.reto.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// DTO con el resultado de una importación masiva: contadores e informe de filas rechazadas
+public class ImportacionResultadoDTO {
+    
+    // Filas de datos leídas del archivo (sin la cabecera)
+    private int filasLeidas;
+    
+    // Registros nuevos creados
+    private int creados;
+    
+    // Registros existentes actualizados
+    private int actualizados;
+    
+    // Filas rechazadas en total
+    private int totalErrores;
+    
+    // Detalle de las filas rechazadas, limitado para no generar respuestas enormes
+    private List<ErrorImportacionDTO> errores = new ArrayList<>();
+    
+    // Getters y Setters para acceso a los datos del resultado
+    public int getFilasLeidas() {
+        return filasLeidas;
+    }
+    
+    public void setFilasLeidas(int filasLeidas) {
+        this.filasLeidas = filasLeidas;
+    }
+    
+    public int getCreados() {
+        return creados;
+    }
+    
+    public void setCreados(int creados) {
+        this.creados = creados;
+    }
+    
+    public int getActualizados() {
+        return actualizados;
+    }
+    
+    public void setActualizados(int actualizados) {
+        this.actualizados = actualizados;
+    }
+    
+    public int getTotalErrores() {
+        return totalErrores;
+    }
+    
+    public void setTotalErrores(int totalErrores) {
+        this.totalErrores = totalErrores;
+    }
+    
+    public List<ErrorImportacionDTO> getErrores() {
+        return errores;
+    }
+    
+    public void setErrores(List<ErrorImportacionDTO> errores) {
+        this.errores = errores;
+    }
+}
@@ -0,0 +1,52 @@
+package com.mikeldi.reto.dto;
+
+import java.util.List;
+
+// DTO con el top N de una métrica, opcionalmente restringido a un grupo (categoría o provincia)
+public class RankingDTO {
+    
+    // Métrica por la que se ordena el ranking (UNIDADES, FACTURACION, FACTURAS)
+    private String metrica;
+    
+    // Grupo del desglose, o null si el ranking es global
+    private String grupo;
+    
+    // Posiciones ordenadas de mayor a menor valor de la métrica
+    private List<RankingItemDTO> posiciones;
+    
+    // Constructor vacío para deserialización JSON
+    public RankingDTO() {
+    }
+    
+    // Constructor completo
+    public RankingDTO(String metrica, String grupo, List<RankingItemDTO> posiciones) {
+        this.metrica = metrica;
+        this.grupo = grupo;
+        this.posiciones = posiciones;
+    }
+    
+    // Getters y Setters
+    public String getMetrica() {
+        return metrica;
+    }
+    
+    public void setMetrica(String metrica) {
+        this.metrica = metrica;
+    }
+    
+    public String getGrupo() {
+        return grupo;
+    }
+    
+    public void setGrupo(String grupo) {
+        this.grupo = grupo;
+    }
+    
+    public List<RankingItemDTO> getPosiciones() {
+        return posiciones;
+    }
+    
+    public void setPosiciones(List<RankingItemDTO> posiciones) {
+        this.posiciones = posiciones;
+    }
+}
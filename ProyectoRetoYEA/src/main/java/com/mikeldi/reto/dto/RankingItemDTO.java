@@ -0,0 +1,88 @@
+package com.mikeldi.reto.dto;
+
+import java.math.BigDecimal;
+
+// DTO con una posición de un ranking de productos o clientes
+public class RankingItemDTO {
+    
+    // Identificador del producto o cliente
+    private Long id;
+    
+    // Nombre del producto o cliente
+    private String nombre;
+    
+    // Categoría del producto o provincia del cliente
+    private String grupo;
+    
+    // Unidades vendidas (solo productos)
+    private Long unidades;
+    
+    // Número de facturas (solo clientes)
+    private Long facturas;
+    
+    // Importe facturado sin IVA
+    private BigDecimal facturacion;
+    
+    // Constructor vacío para deserialización JSON
+    public RankingItemDTO() {
+    }
+    
+    // Constructor completo usado al acumular el ranking
+    public RankingItemDTO(Long id, String nombre, String grupo, Long unidades, Long facturas, BigDecimal facturacion) {
+        this.id = id;
+        this.nombre = nombre;
+        this.grupo = grupo;
+        this.unidades = unidades;
+        this.facturas = facturas;
+        this.facturacion = facturacion;
+    }
+    
+    // Getters y Setters para acceso a los datos del ranking
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getNombre() {
+        return nombre;
+    }
+    
+    public void setNombre(String nombre) {
+        this.nombre = nombre;
+    }
+    
+    public String getGrupo() {
+        return grupo;
+    }
+    
+    public void setGrupo(String grupo) {
+        this.grupo = grupo;
+    }
+    
+    public Long getUnidades() {
+        return unidades;
+    }
+    
+    public void setUnidades(Long unidades) {
+        this.unidades = unidades;
+    }
+    
+    public Long getFacturas() {
+        return facturas;
+    }
+    
+    public void setFacturas(Long facturas) {
+        this.facturas = facturas;
+    }
+    
+    public BigDecimal getFacturacion() {
+        return facturacion;
+    }
+    
+    public void setFacturacion(BigDecimal facturacion) {
+        this.facturacion = facturacion;
+    }
+}
@@ -0,0 +1,76 @@
+package com.mikeldi.reto.dto;
+
+import java.math.BigDecimal;
+
+// DTO con la base imponible y la cuota de IVA de un tipo impositivo en un mes o en todo el periodo
+public class ReporteIvaDTO {
+    
+    // Mes en formato AAAA-MM, o "TOTAL" para la suma del periodo completo
+    private String periodo;
+    
+    // Porcentaje de IVA (21.00, 10.00, 4.00...)
+    private BigDecimal tipoIva;
+    
+    // Número de facturas con líneas de este tipo
+    private Long facturas;
+    
+    // Suma de bases imponibles
+    private BigDecimal base;
+    
+    // Suma de cuotas de IVA
+    private BigDecimal cuota;
+    
+    // Constructor vacío para deserialización JSON
+    public ReporteIvaDTO() {
+    }
+    
+    // Constructor completo
+    public ReporteIvaDTO(String periodo, BigDecimal tipoIva, Long facturas, BigDecimal base, BigDecimal cuota) {
+        this.periodo = periodo;
+        this.tipoIva = tipoIva;
+        this.facturas = facturas;
+        this.base = base;
+        this.cuota = cuota;
+    }
+    
+    // Getters y Setters
+    public String getPeriodo() {
+        return periodo;
+    }
+    
+    public void setPeriodo(String periodo) {
+        this.periodo = periodo;
+    }
+    
+    public BigDecimal getTipoIva() {
+        return tipoIva;
+    }
+    
+    public void setTipoIva(BigDecimal tipoIva) {
+        this.tipoIva = tipoIva;
+    }
+    
+    public Long getFacturas() {
+        return facturas;
+    }
+    
+    public void setFacturas(Long facturas) {
+        this.facturas = facturas;
+    }
+    
+    public BigDecimal getBase() {
+        return base;
+    }
+    
+    public void setBase(BigDecimal base) {
+        this.base = base;
+    }
+    
+    public BigDecimal getCuota() {
+        return cuota;
+    }
+    
+    public void setCuota(BigDecimal cuota) {
+        this.cuota = cuota;
+    }
+}
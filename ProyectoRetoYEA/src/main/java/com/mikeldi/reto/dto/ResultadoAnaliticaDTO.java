@@ -0,0 +1,76 @@
+package com.mikeldi.reto.dto;
+
+import java.math.BigDecimal;
+
+// DTO con el resultado de una agrupación del análisis de ventas
+public class ResultadoAnaliticaDTO {
+    
+    // Valor de la dimensión agrupada (id, nombre de categoría/provincia o AAAA-MM)
+    private String clave;
+    
+    // Texto legible del grupo (nombre del producto, del cliente...)
+    private String etiqueta;
+    
+    // Número de líneas facturadas del grupo
+    private Long lineas;
+    
+    // Unidades vendidas del grupo
+    private Long unidades;
+    
+    // Importe vendido sin IVA
+    private BigDecimal importe;
+    
+    // Constructor vacío para deserialización JSON
+    public ResultadoAnaliticaDTO() {
+    }
+    
+    // Constructor completo usado al construir el resultado de la agregación
+    public ResultadoAnaliticaDTO(String clave, String etiqueta, Long lineas, Long unidades, BigDecimal importe) {
+        this.clave = clave;
+        this.etiqueta = etiqueta;
+        this.lineas = lineas;
+        this.unidades = unidades;
+        this.importe = importe;
+    }
+    
+    // Getters y Setters para acceso a los datos del resultado
+    public String getClave() {
+        return clave;
+    }
+    
+    public void setClave(String clave) {
+        this.clave = clave;
+    }
+    
+    public String getEtiqueta() {
+        return etiqueta;
+    }
+    
+    public void setEtiqueta(String etiqueta) {
+        this.etiqueta = etiqueta;
+    }
+    
+    public Long getLineas() {
+        return lineas;
+    }
+    
+    public void setLineas(Long lineas) {
+        this.lineas = lineas;
+    }
+    
+    public Long getUnidades() {
+        return unidades;
+    }
+    
+    public void setUnidades(Long unidades) {
+        this.unidades = unidades;
+    }
+    
+    public BigDecimal getImporte() {
+        return importe;
+    }
+    
+    public void setImporte(BigDecimal importe) {
+        this.importe = importe;
+    }
+}
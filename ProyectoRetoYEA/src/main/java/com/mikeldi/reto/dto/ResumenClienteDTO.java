@@ -0,0 +1,145 @@
+package com.mikeldi.reto.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// DTO con la vista completa de un cliente para su ficha: datos, actividad de pedidos,
+// facturación, saldo pendiente y últimas facturas, en una sola respuesta
+public class ResumenClienteDTO {
+    
+    // Datos básicos del cliente
+    private Long clienteId;
+    private String nombre;
+    private String nif;
+    private Boolean activo;
+    
+    // Número de pedidos y fecha del más reciente (null si no tiene)
+    private Long numeroPedidos;
+    private LocalDateTime ultimoPedido;
+    
+    // Número de facturas y fecha de emisión de la más reciente (null si no tiene)
+    private Long numeroFacturas;
+    private LocalDate ultimaFactura;
+    
+    // Importe de todas las facturas no canceladas
+    private BigDecimal totalFacturado;
+    
+    // Facturas pendientes de cobro (PENDIENTES o VENCIDAS), su importe y la parte ya vencida
+    private Long facturasPendientes;
+    private BigDecimal saldoPendiente;
+    private BigDecimal saldoVencido;
+    
+    // Últimas facturas emitidas, más recientes primero
+    private List<FacturaDTO> facturasRecientes;
+    
+    // Constructor vacío para deserialización JSON
+    public ResumenClienteDTO() {
+    }
+    
+    // Getters y Setters
+    public Long getClienteId() {
+        return clienteId;
+    }
+    
+    public void setClienteId(Long clienteId) {
+        this.clienteId = clienteId;
+    }
+    
+    public String getNombre() {
+        return nombre;
+    }
+    
+    public void setNombre(String nombre) {
+        this.nombre = nombre;
+    }
+    
+    public String getNif() {
+        return nif;
+    }
+    
+    public void setNif(String nif) {
+        this.nif = nif;
+    }
+    
+    public Boolean getActivo() {
+        return activo;
+    }
+    
+    public void setActivo(Boolean activo) {
+        this.activo = activo;
+    }
+    
+    public Long getNumeroPedidos() {
+        return numeroPedidos;
+    }
+    
+    public void setNumeroPedidos(Long numeroPedidos) {
+        this.numeroPedidos = numeroPedidos;
+    }
+    
+    public LocalDateTime getUltimoPedido() {
+        return ultimoPedido;
+    }
+    
+    public void setUltimoPedido(LocalDateTime ultimoPedido) {
+        this.ultimoPedido = ultimoPedido;
+    }
+    
+    public Long getNumeroFacturas() {
+        return numeroFacturas;
+    }
+    
+    public void setNumeroFacturas(Long numeroFacturas) {
+        this.numeroFacturas = numeroFacturas;
+    }
+    
+    public LocalDate getUltimaFactura() {
+        return ultimaFactura;
+    }
+    
+    public void setUltimaFactura(LocalDate ultimaFactura) {
+        this.ultimaFactura = ultimaFactura;
+    }
+    
+    public BigDecimal getTotalFacturado() {
+        return totalFacturado;
+    }
+    
+    public void setTotalFacturado(BigDecimal totalFacturado) {
+        this.totalFacturado = totalFacturado;
+    }
+    
+    public Long getFacturasPendientes() {
+        return facturasPendientes;
+    }
+    
+    public void setFacturasPendientes(Long facturasPendientes) {
+        this.facturasPendientes = facturasPendientes;
+    }
+    
+    public BigDecimal getSaldoPendiente() {
+        return saldoPendiente;
+    }
+    
+    public void setSaldoPendiente(BigDecimal saldoPendiente) {
+        this.saldoPendiente = saldoPendiente;
+    }
+    
+    public BigDecimal getSaldoVencido() {
+        return saldoVencido;
+    }
+    
+    public void setSaldoVencido(BigDecimal saldoVencido) {
+        this.saldoVencido = saldoVencido;
+    }
+    
+    public List<FacturaDTO> getFacturasRecientes() {
+        return facturasRecientes;
+    }
+    
+    public void setFacturasRecientes(List<FacturaDTO> facturasRecientes) {
+        this.facturasRecientes = facturasRecientes;
+    }
+}
@@ -0,0 +1,70 @@
+package com.mikeldi.reto.dto;
+
+import java.math.BigDecimal;
+
+// DTO con los clientes y la facturación de una provincia o, al desglosarla, de una de sus ciudades
+// provincia y ciudad son null cuando los clientes no la tienen indicada; ciudad es null en el nivel de provincia
+public class ResumenGeograficoDTO {
+    
+    private String provincia;
+    private String ciudad;
+    private Long clientes;
+    private Long clientesActivos;
+    private Long facturas;
+    
+    // Suma de las facturas no canceladas
+    private BigDecimal facturacion;
+    
+    // Constructor vacío necesario para deserialización JSON
+    public ResumenGeograficoDTO() {
+    }
+    
+    // Getters y Setters
+    public String getProvincia() {
+        return provincia;
+    }
+    
+    public void setProvincia(String provincia) {
+        this.provincia = provincia;
+    }
+    
+    public String getCiudad() {
+        return ciudad;
+    }
+    
+    public void setCiudad(String ciudad) {
+        this.ciudad = ciudad;
+    }
+    
+    public Long getClientes() {
+        return clientes;
+    }
+    
+    public void setClientes(Long clientes) {
+        this.clientes = clientes;
+    }
+    
+    public Long getClientesActivos() {
+        return clientesActivos;
+    }
+    
+    public void setClientesActivos(Long clientesActivos) {
+        this.clientesActivos = clientesActivos;
+    }
+    
+    public Long getFacturas() {
+        return facturas;
+    }
+    
+    public void setFacturas(Long facturas) {
+        this.facturas = facturas;
+    }
+    
+    public BigDecimal getFacturacion() {
+        return facturacion;
+    }
+    
+    public void setFacturacion(BigDecimal facturacion) {
+        this.facturacion = facturacion;
+    }
+}
@@ -0,0 +1,75 @@
+package com.mikeldi.reto.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.LocalDate;
+
+// DTO con los parámetros de un reporte que se genera en segundo plano
+public class SolicitudReporteDTO {
+    
+    // Reporte a generar
+    @NotNull(message = "El tipo de reporte es obligatorio")
+    private TipoReporte tipo;
+    
+    // Periodo del reporte (ambos días incluidos)
+    @NotNull(message = "La fecha de inicio es obligatoria")
+    private LocalDate inicio;
+    
+    @NotNull(message = "La fecha de fin es obligatoria")
+    private LocalDate fin;
+    
+    // Número de posiciones de los rankings (ignorado en VENTAS)
+    @Min(value = 1, message = "El número de posiciones debe ser al menos 1")
+    @Max(value = 100, message = "El número de posiciones no puede superar 100")
+    private Integer n = 10;
+    
+    // Desglose de los rankings por categoría o provincia (ignorado en VENTAS)
+    private Boolean desglose = false;
+    
+    // Constructor vacío para deserialización JSON
+    public SolicitudReporteDTO() {
+    }
+    
+    // Getters y Setters
+    public TipoReporte getTipo() {
+        return tipo;
+    }
+    
+    public void setTipo(TipoReporte tipo) {
+        this.tipo = tipo;
+    }
+    
+    public LocalDate getInicio() {
+        return inicio;
+    }
+    
+    public void setInicio(LocalDate inicio) {
+        this.inicio = inicio;
+    }
+    
+    public LocalDate getFin() {
+        return fin;
+    }
+    
+    public void setFin(LocalDate fin) {
+        this.fin = fin;
+    }
+    
+    public Integer getN() {
+        return n;
+    }
+    
+    public void setN(Integer n) {
+        this.n = n;
+    }
+    
+    public Boolean getDesglose() {
+        return desglose;
+    }
+    
+    public void setDesglose(Boolean desglose) {
+        this.desglose = desglose;
+    }
+}
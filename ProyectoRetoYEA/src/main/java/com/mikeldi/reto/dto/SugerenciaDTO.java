@@ -0,0 +1,62 @@
+package com.mikeldi.reto.dto;
+
+// DTO con una sugerencia de autocompletado de cliente o producto
+public class SugerenciaDTO {
+    
+    // Identificador del cliente o producto
+    private Long id;
+    
+    // Nombre del cliente o producto
+    private String nombre;
+    
+    // NIF del cliente o categoría del producto
+    private String detalle;
+    
+    // Pedidos del cliente o unidades pedidas del producto, determina el orden
+    private Long popularidad;
+    
+    // Constructor vacío para deserialización JSON
+    public SugerenciaDTO() {
+    }
+    
+    // Constructor completo usado al generar las sugerencias
+    public SugerenciaDTO(Long id, String nombre, String detalle, Long popularidad) {
+        this.id = id;
+        this.nombre = nombre;
+        this.detalle = detalle;
+        this.popularidad = popularidad;
+    }
+    
+    // Getters y Setters para acceso a los datos de la sugerencia
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getNombre() {
+        return nombre;
+    }
+    
+    public void setNombre(String nombre) {
+        this.nombre = nombre;
+    }
+    
+    public String getDetalle() {
+        return detalle;
+    }
+    
+    public void setDetalle(String detalle) {
+        this.detalle = detalle;
+    }
+    
+    public Long getPopularidad() {
+        return popularidad;
+    }
+    
+    public void setPopularidad(Long popularidad) {
+        this.popularidad = popularidad;
+    }
+}
@@ -0,0 +1,11 @@
+package com.mikeldi.reto.dto;
+
+// Reportes que se pueden generar como trabajo en segundo plano
+public enum TipoReporte {
+    // Ventas agrupadas por día (equivale a GET /api/reportes/ventas)
+    VENTAS,
+    // Productos más vendidos (equivale a GET /api/reportes/top-productos)
+    TOP_PRODUCTOS,
+    // Mejores clientes (equivale a GET /api/reportes/top-clientes)
+    TOP_CLIENTES
+}
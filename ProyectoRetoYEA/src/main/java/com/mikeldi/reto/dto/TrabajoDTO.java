@@ -0,0 +1,125 @@
+package com.mikeldi.reto.dto;
+
+import com.mikeldi.reto.trabajo.EstadoTrabajo;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+// DTO con el estado de un trabajo en segundo plano para consultarlo por sondeo
+public class TrabajoDTO {
+    
+    // Identificador del trabajo, usado para consultar su estado y descargar el resultado
+    private String id;
+    
+    // Tipo de trabajo (por ejemplo el tipo de reporte)
+    private String tipo;
+    
+    // Estado actual del trabajo
+    private EstadoTrabajo estado;
+    
+    // Porcentaje completado (0-100)
+    private Integer progreso;
+    
+    // Fecha de envío del trabajo
+    private LocalDateTime fechaCreacion;
+    
+    // Fecha en la que terminó, null mientras está en cola o en curso
+    private LocalDateTime fechaFinalizacion;
+    
+    // Fecha a partir de la cual el resultado se elimina, null mientras no ha terminado
+    private LocalDateTime fechaExpiracion;
+    
+    // Formatos en los que se puede descargar el resultado (json, csv...)
+    private Set<String> formatos;
+    
+    // Mensaje de error si el trabajo ha fallado
+    private String error;
+    
+    // Aviso si el resultado está incompleto (por ejemplo, por un límite de tamaño)
+    private String aviso;
+    
+    // Constructor vacío para instanciación
+    public TrabajoDTO() {
+    }
+    
+    // Getters y Setters
+    public String getId() {
+        return id;
+    }
+    
+    public void setId(String id) {
+        this.id = id;
+    }
+    
+    public String getTipo() {
+        return tipo;
+    }
+    
+    public void setTipo(String tipo) {
+        this.tipo = tipo;
+    }
+    
+    public EstadoTrabajo getEstado() {
+        return estado;
+    }
+    
+    public void setEstado(EstadoTrabajo estado) {
+        this.estado = estado;
+    }
+    
+    public Integer getProgreso() {
+        return progreso;
+    }
+    
+    public void setProgreso(Integer progreso) {
+        this.progreso = progreso;
+    }
+    
+    public LocalDateTime getFechaCreacion() {
+        return fechaCreacion;
+    }
+    
+    public void setFechaCreacion(LocalDateTime fechaCreacion) {
+        this.fechaCreacion = fechaCreacion;
+    }
+    
+    public LocalDateTime getFechaFinalizacion() {
+        return fechaFinalizacion;
+    }
+    
+    public void setFechaFinalizacion(LocalDateTime fechaFinalizacion) {
+        this.fechaFinalizacion = fechaFinalizacion;
+    }
+    
+    public LocalDateTime getFechaExpiracion() {
+        return fechaExpiracion;
+    }
+    
+    public void setFechaExpiracion(LocalDateTime fechaExpiracion) {
+        this.fechaExpiracion = fechaExpiracion;
+    }
+    
+    public Set<String> getFormatos() {
+        return formatos;
+    }
+    
+    public void setFormatos(Set<String> formatos) {
+        this.formatos = formatos;
+    }
+    
+    public String getError() {
+        return error;
+    }
+    
+    public void setError(String error) {
+        this.error = error;
+    }
+    
+    public String getAviso() {
+        return aviso;
+    }
+    
+    public void setAviso(String aviso) {
+        this.aviso = aviso;
+    }
+}
@@ -0,0 +1,314 @@
+package com.mikeldi.reto.duplicados;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mikeldi.reto.dto.DuplicadoClienteDTO;
+import com.mikeldi.reto.dto.TrabajoDTO;
+import com.mikeldi.reto.entity.Cliente;
+import com.mikeldi.reto.event.EntidadModificadaEvent;
+import com.mikeldi.reto.exception.BadRequestException;
+import com.mikeldi.reto.repository.ClienteRepository;
+import com.mikeldi.reto.repository.projection.ClienteDuplicadoView;
+import com.mikeldi.reto.trabajo.ContextoTrabajo;
+import com.mikeldi.reto.trabajo.GestorTrabajos;
+import com.opencsv.CSVWriter;
+import com.opencsv.ICSVWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+// Detección de clientes duplicados (misma empresa con NIF, nombre o dirección algo distintos)
+// Se ejecuta como trabajo en segundo plano en tres fases:
+// 1. recorre los clientes con un cursor y calcula la firma MinHash de nombre, dirección, email y
+//    teléfono normalizados, guardando solo los hashes de sus bandas LSH;
+// 2. obtiene los pares candidatos ordenando cada banda, en tiempo O(n log n) en lugar de comparar
+//    todos los pares;
+// 3. relee solo los clientes candidatos y puntúa cada par con la similitud exacta de sus campos.
+// El resultado es un informe de pares a fusionar en JSON y CSV, agrupados por componentes conexas
+@Service
+public class DuplicadosService {
+    
+    // Logger para registrar el resumen de cada detección
+    private static final Logger logger = LoggerFactory.getLogger(DuplicadosService.class);
+    
+    // Tipo de trabajo en el gestor
+    static final String TIPO_TRABAJO = "DUPLICADOS_CLIENTES";
+    
+    // Clientes cuyas firmas se calculan en paralelo de una vez, y clientes releídos por consulta
+    private static final int TAMANO_LOTE = 10_000;
+    private static final int TAMANO_RELECTURA = 1_000;
+    
+    // Inyecta el repositorio para recorrer y releer los clientes
+    @Autowired
+    private ClienteRepository clienteRepository;
+    
+    // Gestor del pool de trabajos y de los resultados en disco
+    @Autowired
+    private GestorTrabajos gestorTrabajos;
+    
+    // Gestor de transacciones para mantener abierto el cursor en el hilo del trabajo
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    // Serializador JSON configurado por Spring
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    // Máximo de clientes con la misma banda que se comparan entre sí
+    @Value("${app.duplicados.max-cubo:200}")
+    private int maxCubo;
+    
+    // Máximo de pares candidatos en memoria
+    @Value("${app.duplicados.max-pares:5000000}")
+    private int maxPares;
+    
+    // Versión de los datos de clientes; un informe ya generado se reutiliza mientras no cambie
+    private final AtomicLong version = new AtomicLong();
+    
+    // Envía la detección con la similitud mínima indicada; devuelve la que está en curso o ya
+    // generada si los clientes no han cambiado. El informe incluye NIF: solo lo consultan quienes lo piden
+    public TrabajoDTO enviar(double similitudMinima, String emailUsuario) {
+        if (!(similitudMinima > 0 && similitudMinima <= 1)) {
+            throw new BadRequestException("La similitud mínima debe ser mayor que 0 y como máximo 1");
+        }
+        String clave = similitudMinima + "|v" + version.get();
+        return gestorTrabajos.enviarReutilizable(TIPO_TRABAJO, clave, emailUsuario,
+                                                contexto -> detectar(contexto, similitudMinima));
+    }
+    
+    // Cambia la versión cuando confirma un alta, cambio o baja de clientes
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alModificarEntidad(EntidadModificadaEvent evento) {
+        if (evento.esDeTipo(Cliente.class)) {
+            version.incrementAndGet();
+        }
+    }
+    
+    // Ejecuta las tres fases; el progreso se reparte 50 % firmas, 20 % candidatos y 30 % puntuación
+    private void detectar(ContextoTrabajo contexto, double similitudMinima) throws IOException {
+        long inicio = System.currentTimeMillis();
+        IndiceLsh indice = calcularFirmas(contexto);
+        long[] pares = indice.candidatos(maxCubo, maxPares,
+                                         banda -> contexto.progreso(50 + 20 * (banda + 1) / FirmaMinHash.BANDAS));
+        List<DuplicadoClienteDTO> duplicados = puntuar(contexto, indice, pares, similitudMinima);
+        
+        logger.info("Detección de duplicados: {} clientes, {} pares candidatos, {} duplicados, {} cubos descartados{} en {} ms",
+                    indice.tamano(), pares.length, duplicados.size(), indice.cubosDescartados(),
+                    indice.incompleto() ? " (límite de pares alcanzado)" : "", System.currentTimeMillis() - inicio);
+        avisarSiIncompleto(contexto, indice);
+        guardar(contexto, duplicados);
+    }
+    
+    // El informe no distingue los pares omitidos: se avisa en el estado del trabajo para que no parezca completo
+    private void avisarSiIncompleto(ContextoTrabajo contexto, IndiceLsh indice) {
+        List<String> motivos = new ArrayList<>();
+        if (indice.incompleto()) {
+            motivos.add("se alcanzó el máximo de " + maxPares + " pares candidatos y no se revisaron las bandas restantes");
+        }
+        if (indice.cubosDescartados() > 0) {
+            motivos.add(indice.cubosDescartados() + " cubos descartados por tener más de " + maxCubo + " clientes");
+        }
+        if (!motivos.isEmpty()) {
+            contexto.aviso("Informe incompleto, pueden faltar duplicados: " + String.join("; ", motivos));
+        }
+    }
+    
+    // Fase 1: recorre los clientes por lotes y calcula en paralelo las bandas de cada uno
+    private IndiceLsh calcularFirmas(ContextoTrabajo contexto) {
+        long total = clienteRepository.count();
+        IndiceLsh indice = new IndiceLsh();
+        TransactionTemplate plantilla = new TransactionTemplate(transactionManager);
+        plantilla.setReadOnly(true);
+        plantilla.executeWithoutResult(estado -> {
+            try (Stream<ClienteDuplicadoView> filas = clienteRepository.streamParaDuplicados()) {
+                List<ClienteDuplicadoView> lote = new ArrayList<>(TAMANO_LOTE);
+                long leidos = 0;
+                Iterator<ClienteDuplicadoView> iterador = filas.iterator();
+                while (iterador.hasNext()) {
+                    lote.add(iterador.next());
+                    if (lote.size() == TAMANO_LOTE || !iterador.hasNext()) {
+                        List<int[]> bandas = lote.parallelStream()
+                                .map(c -> FirmaMinHash.bandas(rasgos(c)))
+                                .toList();
+                        for (int i = 0; i < lote.size(); i++) {
+                            // Un cliente sin ningún campo comparable no puede parecerse a otro
+                            if (bandas.get(i) != null) {
+                                indice.anadir(lote.get(i).getId(), bandas.get(i));
+                            }
+                        }
+                        leidos += lote.size();
+                        lote.clear();
+                        contexto.progreso((int) (50 * leidos / Math.max(total, leidos)));
+                    }
+                }
+            }
+        });
+        return indice;
+    }
+    
+    // Fase 3: puntúa los pares candidatos con la similitud de los campos de cada cliente
+    private List<DuplicadoClienteDTO> puntuar(ContextoTrabajo contexto, IndiceLsh indice, long[] pares, double similitudMinima) {
+        Map<Long, Perfil> perfiles = releer(indice, pares);
+        int[] padres = new int[indice.tamano()];
+        for (int i = 0; i < padres.length; i++) {
+            padres[i] = i;
+        }
+        
+        List<DuplicadoClienteDTO> duplicados = new ArrayList<>();
+        List<Integer> posiciones = new ArrayList<>();
+        for (int p = 0; p < pares.length; p++) {
+            int a = (int) (pares[p] >>> 32);
+            int b = (int) pares[p];
+            Perfil primero = perfiles.get(indice.id(a));
+            Perfil segundo = perfiles.get(indice.id(b));
+            // Un cliente eliminado mientras se ejecutaba el trabajo ya no se relee
+            if (primero == null || segundo == null) {
+                continue;
+            }
+            double[] similitud = FirmaMinHash.similitud(primero.rasgos, segundo.rasgos);
+            if (similitud[FirmaMinHash.NUM_CAMPOS] >= similitudMinima) {
+                duplicados.add(crearDTO(primero, segundo, similitud));
+                posiciones.add(a);
+                unir(padres, a, b);
+            }
+            if (p % 10_000 == 0) {
+                contexto.progreso((int) (70 + 30L * p / pares.length));
+            }
+        }
+        
+        // Cada grupo se identifica con el menor id de sus clientes (las posiciones siguen el orden de id)
+        Map<Integer, Long> grupos = new HashMap<>();
+        for (int i = 0; i < duplicados.size(); i++) {
+            int raiz = raiz(padres, posiciones.get(i));
+            grupos.merge(raiz, duplicados.get(i).getClienteId1(), Math::min);
+        }
+        for (int i = 0; i < duplicados.size(); i++) {
+            duplicados.get(i).setGrupo(grupos.get(raiz(padres, posiciones.get(i))));
+        }
+        duplicados.sort(Comparator.comparing(DuplicadoClienteDTO::getSimilitud).reversed()
+                                  .thenComparing(DuplicadoClienteDTO::getGrupo)
+                                  .thenComparing(DuplicadoClienteDTO::getClienteId2));
+        return duplicados;
+    }
+    
+    // Relee nombre, NIF y campos comparables de los clientes que aparecen en algún par
+    private Map<Long, Perfil> releer(IndiceLsh indice, long[] pares) {
+        BitSet candidatos = new BitSet(indice.tamano());
+        for (long par : pares) {
+            candidatos.set((int) (par >>> 32));
+            candidatos.set((int) par);
+        }
+        Map<Long, Perfil> perfiles = new HashMap<>();
+        TransactionTemplate plantilla = new TransactionTemplate(transactionManager);
+        plantilla.setReadOnly(true);
+        List<Long> ids = new ArrayList<>(TAMANO_RELECTURA);
+        for (int i = candidatos.nextSetBit(0); i >= 0; i = candidatos.nextSetBit(i + 1)) {
+            ids.add(indice.id(i));
+            if (ids.size() == TAMANO_RELECTURA || candidatos.nextSetBit(i + 1) < 0) {
+                for (ClienteDuplicadoView c : plantilla.execute(estado -> clienteRepository.findParaDuplicados(ids))) {
+                    perfiles.put(c.getId(), new Perfil(c.getId(), c.getNombre(), c.getNif(), rasgos(c)));
+                }
+                ids.clear();
+            }
+        }
+        return perfiles;
+    }
+    
+    private static int[][] rasgos(ClienteDuplicadoView cliente) {
+        return FirmaMinHash.rasgos(cliente.getNombre(), cliente.getDireccion(), cliente.getEmail(), cliente.getTelefono());
+    }
+    
+    // Unión por componentes conexas con compresión de caminos
+    private static void unir(int[] padres, int a, int b) {
+        int raizA = raiz(padres, a);
+        int raizB = raiz(padres, b);
+        if (raizA != raizB) {
+            padres[Math.max(raizA, raizB)] = Math.min(raizA, raizB);
+        }
+    }
+    
+    private static int raiz(int[] padres, int posicion) {
+        while (padres[posicion] != posicion) {
+            padres[posicion] = padres[padres[posicion]];
+            posicion = padres[posicion];
+        }
+        return posicion;
+    }
+    
+    private static DuplicadoClienteDTO crearDTO(Perfil primero, Perfil segundo, double[] similitud) {
+        DuplicadoClienteDTO dto = new DuplicadoClienteDTO();
+        dto.setSimilitud(redondear(similitud[FirmaMinHash.NUM_CAMPOS]));
+        dto.setClienteId1(primero.id);
+        dto.setNombre1(primero.nombre);
+        dto.setNif1(primero.nif);
+        dto.setClienteId2(segundo.id);
+        dto.setNombre2(segundo.nombre);
+        dto.setNif2(segundo.nif);
+        dto.setSimilitudNombre(redondear(similitud[FirmaMinHash.NOMBRE]));
+        dto.setSimilitudDireccion(redondear(similitud[FirmaMinHash.DIRECCION]));
+        dto.setSimilitudEmail(redondear(similitud[FirmaMinHash.EMAIL]));
+        dto.setSimilitudTelefono(redondear(similitud[FirmaMinHash.TELEFONO]));
+        return dto;
+    }
+    
+    // Tres decimales; null para los campos que no se pudieron comparar
+    private static Double redondear(double valor) {
+        return Double.isNaN(valor) ? null : Math.round(valor * 1000) / 1000.0;
+    }
+    
+    // Guarda el informe en JSON y en CSV (punto y coma, como las exportaciones)
+    private void guardar(ContextoTrabajo contexto, List<DuplicadoClienteDTO> duplicados) throws IOException {
+        objectMapper.writeValue(contexto.archivoResultado("json").toFile(), duplicados);
+        Writer writer = Files.newBufferedWriter(contexto.archivoResultado("csv"), StandardCharsets.UTF_8);
+        try (ICSVWriter csv = new CSVWriter(writer, ';',
+                                            ICSVWriter.DEFAULT_QUOTE_CHARACTER,
+                                            ICSVWriter.DEFAULT_ESCAPE_CHARACTER,
+                                            ICSVWriter.DEFAULT_LINE_END)) {
+            csv.writeNext(new String[]{"Grupo", "Similitud", "ID 1", "Nombre 1", "NIF 1", "ID 2", "Nombre 2", "NIF 2",
+                                       "Sim. nombre", "Sim. dirección", "Sim. email", "Sim. teléfono"});
+            for (DuplicadoClienteDTO d : duplicados) {
+                csv.writeNext(new String[]{
+                    d.getGrupo().toString(),
+                    d.getSimilitud().toString(),
+                    d.getClienteId1().toString(),
+                    d.getNombre1(),
+                    d.getNif1(),
+                    d.getClienteId2().toString(),
+                    d.getNombre2(),
+                    d.getNif2(),
+                    texto(d.getSimilitudNombre()),
+                    texto(d.getSimilitudDireccion()),
+                    texto(d.getSimilitudEmail()),
+                    texto(d.getSimilitudTelefono())
+                });
+            }
+        }
+    }
+    
+    private static String texto(Double valor) {
+        return valor != null ? valor.toString() : "";
+    }
+    
+    // Datos de un cliente candidato necesarios para puntuar sus pares
+    private record Perfil(Long id, String nombre, String nif, int[][] rasgos) {
+    }
+}
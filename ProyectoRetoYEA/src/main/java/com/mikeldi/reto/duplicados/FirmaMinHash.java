@@ -0,0 +1,248 @@
+package com.mikeldi.reto.duplicados;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+// Rasgos comparables de un cliente y su firma MinHash
+// Cada campo (nombre, dirección, email, teléfono) se normaliza y se divide en trigramas de caracteres;
+// cada trigrama se codifica en un entero junto con su campo, así "acm" del nombre y de la dirección
+// son rasgos distintos. La firma MinHash resume el conjunto de rasgos en NUM_HASHES mínimos: la
+// fracción de mínimos iguales entre dos clientes estima la similitud de Jaccard de sus conjuntos.
+// La firma se agrupa en BANDAS de FILAS_POR_BANDA mínimos; dos clientes con alguna banda idéntica
+// son candidatos a duplicado (LSH). Con 16 bandas de 5 filas, un par con Jaccard 0,8 coincide en
+// alguna banda con probabilidad 0,998, uno con 0,7 con 0,95, uno con 0,5 con 0,40 y uno con 0,3
+// solo con 0,04: los pares poco parecidos apenas llegan a la fase de puntuación
+final class FirmaMinHash {
+    
+    // Dimensiones de la firma
+    static final int NUM_HASHES = 80;
+    static final int BANDAS = 16;
+    static final int FILAS_POR_BANDA = NUM_HASHES / BANDAS;
+    
+    // Campos comparados, en el orden de los arrays de rasgos, y su peso en la puntuación final
+    static final int NOMBRE = 0;
+    static final int DIRECCION = 1;
+    static final int EMAIL = 2;
+    static final int TELEFONO = 3;
+    static final int NUM_CAMPOS = 4;
+    static final double[] PESOS = {0.40, 0.25, 0.20, 0.15};
+    
+    // Formas societarias y artículos que no distinguen a una empresa de otra
+    private static final Set<String> VACIAS_NOMBRE = Set.of(
+        "sl", "sa", "slu", "sau", "sll", "slne", "scoop", "coop", "sc", "cb", "scp",
+        "sociedad", "limitada", "anonima", "cooperativa", "de", "del", "la", "el", "los", "las", "y", "e");
+    
+    // Tipos de vía, abreviaturas y partículas habituales en las direcciones
+    private static final Set<String> VACIAS_DIRECCION = Set.of(
+        "c", "cl", "calle", "av", "avd", "avda", "avenida", "pl", "pza", "plaza", "ps", "po", "pso", "paseo",
+        "ctra", "carretera", "cm", "camino", "ronda", "rda", "trav", "travesia", "bo", "barrio", "pol", "poligono",
+        "n", "no", "num", "numero", "sn", "s", "bajo", "bj", "piso", "pta", "puerta", "esc", "de", "del", "la", "el", "y");
+    
+    // Multiplicadores (impares) y sumandos de las funciones hash de la firma, fijos para que dos
+    // ejecuciones produzcan las mismas firmas
+    private static final long[] MULTIPLICADORES = new long[NUM_HASHES];
+    private static final long[] SUMANDOS = new long[NUM_HASHES];
+    
+    static {
+        SplittableRandom aleatorio = new SplittableRandom(0x5DEECE66DL);
+        for (int i = 0; i < NUM_HASHES; i++) {
+            MULTIPLICADORES[i] = aleatorio.nextLong() | 1;
+            SUMANDOS[i] = aleatorio.nextLong();
+        }
+    }
+    
+    private FirmaMinHash() {
+    }
+    
+    // Trigramas ordenados y sin repetir de cada campo; un campo vacío da un array vacío
+    static int[][] rasgos(String nombre, String direccion, String email, String telefono) {
+        int[][] rasgos = new int[NUM_CAMPOS][];
+        rasgos[NOMBRE] = trigramas(NOMBRE, palabras(nombre, VACIAS_NOMBRE, 2));
+        rasgos[DIRECCION] = trigramas(DIRECCION, palabras(direccion, VACIAS_DIRECCION, 1));
+        rasgos[EMAIL] = trigramas(EMAIL, normalizarEmail(email));
+        rasgos[TELEFONO] = trigramas(TELEFONO, normalizarTelefono(telefono));
+        return rasgos;
+    }
+    
+    // Hash de cada banda de la firma MinHash del conjunto de rasgos, o null si no tiene ninguno
+    static int[] bandas(int[][] rasgos) {
+        long[] minimos = new long[NUM_HASHES];
+        Arrays.fill(minimos, Long.MAX_VALUE);
+        boolean vacio = true;
+        for (int[] campo : rasgos) {
+            for (int rasgo : campo) {
+                vacio = false;
+                long x = mezclar(rasgo);
+                for (int i = 0; i < NUM_HASHES; i++) {
+                    // Hash multiplicativo: los 32 bits altos son uniformes para cada función
+                    long h = (MULTIPLICADORES[i] * x + SUMANDOS[i]) >>> 32;
+                    if (h < minimos[i]) {
+                        minimos[i] = h;
+                    }
+                }
+            }
+        }
+        if (vacio) {
+            return null;
+        }
+        int[] bandas = new int[BANDAS];
+        for (int b = 0; b < BANDAS; b++) {
+            long h = b;
+            for (int f = 0; f < FILAS_POR_BANDA; f++) {
+                h = h * 0x100000001B3L + minimos[b * FILAS_POR_BANDA + f];
+            }
+            bandas[b] = (int) mezclar(h);
+        }
+        return bandas;
+    }
+    
+    // Similitud de Jaccard de cada campo presente en los dos clientes (NaN si falta en alguno)
+    // y, en la última posición, la media ponderada de los campos presentes
+    static double[] similitud(int[][] a, int[][] b) {
+        double[] resultado = new double[NUM_CAMPOS + 1];
+        double suma = 0;
+        double pesos = 0;
+        for (int c = 0; c < NUM_CAMPOS; c++) {
+            if (a[c].length == 0 || b[c].length == 0) {
+                resultado[c] = Double.NaN;
+                continue;
+            }
+            resultado[c] = jaccard(a[c], b[c]);
+            suma += PESOS[c] * resultado[c];
+            pesos += PESOS[c];
+        }
+        resultado[NUM_CAMPOS] = pesos > 0 ? suma / pesos : 0;
+        return resultado;
+    }
+    
+    // |A ∩ B| / |A ∪ B| de dos arrays ordenados sin repetidos
+    private static double jaccard(int[] a, int[] b) {
+        int i = 0;
+        int j = 0;
+        int comunes = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                comunes++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return (double) comunes / (a.length + b.length - comunes);
+    }
+    
+    // Minúsculas sin acentos, solo letras y dígitos, sin palabras vacías ni palabras más cortas que el mínimo
+    // Los números se conservan siempre: "Talleres 2" y "Talleres 3" son empresas distintas
+    static String palabras(String texto, Set<String> vacias, int longitudMinima) {
+        if (texto == null || texto.isBlank()) {
+            return "";
+        }
+        StringBuilder resultado = new StringBuilder(texto.length());
+        for (String palabra : simplificar(texto).split(" ")) {
+            boolean numero = !palabra.isEmpty() && Character.isDigit(palabra.charAt(0));
+            if (numero || (palabra.length() >= longitudMinima && !vacias.contains(palabra))) {
+                if (!resultado.isEmpty()) {
+                    resultado.append(' ');
+                }
+                resultado.append(palabra);
+            }
+        }
+        return resultado.toString();
+    }
+    
+    // Parte local y nombre del dominio sin el sufijo: info@acme-sl.es -> "info acme sl"
+    static String normalizarEmail(String email) {
+        if (email == null || email.isBlank()) {
+            return "";
+        }
+        String texto = email.strip().toLowerCase(Locale.ROOT);
+        int arroba = texto.lastIndexOf('@');
+        if (arroba >= 0) {
+            int punto = texto.lastIndexOf('.');
+            String dominio = punto > arroba ? texto.substring(arroba + 1, punto) : texto.substring(arroba + 1);
+            texto = texto.substring(0, arroba) + " " + dominio;
+        }
+        return simplificar(texto).strip();
+    }
+    
+    // Solo los dígitos, sin el prefijo internacional de España
+    static String normalizarTelefono(String telefono) {
+        if (telefono == null) {
+            return "";
+        }
+        StringBuilder digitos = new StringBuilder(telefono.length());
+        for (int i = 0; i < telefono.length(); i++) {
+            char c = telefono.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digitos.append(c);
+            }
+        }
+        String resultado = digitos.toString();
+        if (resultado.startsWith("0034")) {
+            return resultado.substring(4);
+        }
+        if (resultado.startsWith("34") && resultado.length() == 11) {
+            return resultado.substring(2);
+        }
+        return resultado;
+    }
+    
+    // Minúsculas ASCII sin acentos; cualquier otro carácter se convierte en un espacio
+    private static String simplificar(String texto) {
+        String sinAcentos = Normalizer.normalize(texto.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        StringBuilder resultado = new StringBuilder(sinAcentos.length());
+        boolean espacio = true;
+        for (int i = 0; i < sinAcentos.length(); i++) {
+            char c = sinAcentos.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                resultado.append(c);
+                espacio = false;
+            } else if (!espacio) {
+                resultado.append(' ');
+                espacio = true;
+            }
+        }
+        return resultado.toString();
+    }
+    
+    // Trigramas del texto con un espacio de relleno a cada lado, codificados como
+    // campo << 24 | c1 << 16 | c2 << 8 | c3 (el texto ya solo contiene ASCII). Un trigrama repetido
+    // se numera en los bits altos (111 y 1111 no dan el mismo conjunto), así el resultado no tiene repetidos
+    private static int[] trigramas(int campo, String texto) {
+        if (texto.isEmpty()) {
+            return new int[0];
+        }
+        String relleno = " " + texto + " ";
+        int[] resultado = new int[relleno.length() - 2];
+        for (int i = 0; i < resultado.length; i++) {
+            resultado[i] = campo << 24 | relleno.charAt(i) << 16 | relleno.charAt(i + 1) << 8 | relleno.charAt(i + 2);
+        }
+        Arrays.sort(resultado);
+        int repeticion = 0;
+        for (int i = 1; i < resultado.length; i++) {
+            repeticion = (resultado[i] & 0x03FFFFFF) == (resultado[i - 1] & 0x03FFFFFF) ? repeticion + 1 : 0;
+            resultado[i] |= Math.min(repeticion, 31) << 26;
+        }
+        Arrays.sort(resultado);
+        return resultado;
+    }
+    
+    // Finalizador de MurmurHash3
+    private static long mezclar(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
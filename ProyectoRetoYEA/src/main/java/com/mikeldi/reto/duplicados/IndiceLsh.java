@@ -0,0 +1,141 @@
+package com.mikeldi.reto.duplicados;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+// Bandas LSH de todos los clientes y búsqueda de pares candidatos
+// Cada cliente ocupa una posición; por cada banda se guarda un array con el hash de esa banda de
+// cada cliente (16 enteros por cliente, unos 64 MB con un millón). Los candidatos de una banda se
+// obtienen ordenando las claves (hash, posición): los clientes con el mismo hash quedan contiguos,
+// sin comparar todos con todos
+final class IndiceLsh {
+    
+    // Id del cliente de cada posición
+    private long[] ids = new long[1024];
+    
+    // Hash de cada banda por posición
+    private final int[][] bandas = new int[FirmaMinHash.BANDAS][1024];
+    
+    // Posiciones ocupadas
+    private int tamano;
+    
+    // Cubos con más clientes que el máximo permitido, descartados por poco selectivos
+    private long cubosDescartados;
+    
+    // Indica si se alcanzó el máximo de pares y se dejaron de anotar candidatos
+    private boolean incompleto;
+    
+    // Añade un cliente con los hashes de sus bandas
+    void anadir(long id, int[] bandasCliente) {
+        if (tamano == ids.length) {
+            int capacidad = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacidad);
+            for (int b = 0; b < bandas.length; b++) {
+                bandas[b] = Arrays.copyOf(bandas[b], capacidad);
+            }
+        }
+        ids[tamano] = id;
+        for (int b = 0; b < bandas.length; b++) {
+            bandas[b][tamano] = bandasCliente[b];
+        }
+        tamano++;
+    }
+    
+    int tamano() {
+        return tamano;
+    }
+    
+    long id(int posicion) {
+        return ids[posicion];
+    }
+    
+    long cubosDescartados() {
+        return cubosDescartados;
+    }
+    
+    boolean incompleto() {
+        return incompleto;
+    }
+    
+    // Pares de posiciones (a < b) que coinciden en alguna banda, ordenados y sin repetir, codificados
+    // como a << 32 | b. Un cubo con más de maxCubo clientes generaría demasiados pares poco útiles
+    // (nombres genéricos, campos vacíos) y se descarta; tras maxPares pares distintos se deja de buscar
+    long[] candidatos(int maxCubo, int maxPares, IntConsumer alTerminarBanda) {
+        Pares pares = new Pares(maxPares);
+        long[] claves = new long[tamano];
+        for (int banda = 0; banda < bandas.length; banda++) {
+            for (int i = 0; i < tamano; i++) {
+                claves[i] = (long) bandas[banda][i] << 32 | i;
+            }
+            Arrays.parallelSort(claves);
+            int inicio = 0;
+            for (int i = 1; i <= tamano && !pares.lleno; i++) {
+                if (i < tamano && claves[i] >> 32 == claves[inicio] >> 32) {
+                    continue;
+                }
+                int enCubo = i - inicio;
+                if (enCubo > maxCubo) {
+                    cubosDescartados++;
+                } else {
+                    for (int a = inicio; a < i - 1; a++) {
+                        for (int b = a + 1; b < i; b++) {
+                            pares.anadir((int) claves[a], (int) claves[b]);
+                        }
+                    }
+                }
+                inicio = i;
+            }
+            alTerminarBanda.accept(banda);
+            if (pares.lleno) {
+                break;
+            }
+        }
+        incompleto = pares.lleno;
+        return pares.terminar();
+    }
+    
+    // Lista creciente de pares que elimina repetidos al llenarse
+    private static final class Pares {
+        
+        private final int maximo;
+        private long[] datos = new long[1024];
+        private int tamano;
+        private boolean lleno;
+        
+        private Pares(int maximo) {
+            this.maximo = maximo;
+        }
+        
+        private void anadir(int a, int b) {
+            if (tamano == datos.length) {
+                if (datos.length < maximo) {
+                    datos = Arrays.copyOf(datos, (int) Math.min((long) datos.length * 2, maximo));
+                } else {
+                    // Los pares repetidos entre bandas se eliminan; si apenas libera sitio se da por lleno
+                    compactar();
+                    if (tamano > maximo * 0.9) {
+                        lleno = true;
+                        return;
+                    }
+                }
+            }
+            datos[tamano++] = (long) a << 32 | b;
+        }
+        
+        private void compactar() {
+            Arrays.parallelSort(datos, 0, tamano);
+            int distintos = 0;
+            for (int i = 0; i < tamano; i++) {
+                if (i == 0 || datos[i] != datos[i - 1]) {
+                    datos[distintos++] = datos[i];
+                }
+            }
+            tamano = distintos;
+        }
+        
+        private long[] terminar() {
+            compactar();
+            return Arrays.copyOf(datos, tamano);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.mikeldi.reto.entity;
 
+import com.mikeldi.reto.event.EntidadModificadaListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
@@ -10,7 +11,11 @@ import java.time.LocalDateTime;
 
 // Define esta clase como entidad JPA que se mapea a la tabla "clientes"
 @Entity
-@Table(name = "clientes")
+// idx_clientes_sync sirve a la sincronización incremental, que recorre los cambios por fecha de actualización
+@Table(name = "clientes",
+       indexes = @Index(name = "idx_clientes_sync", columnList = "fecha_actualizacion, id"))
+// Publica eventos de alta, modificación y baja para cachés e índices en memoria
+@EntityListeners(EntidadModificadaListener.class)
 public class Cliente {
     
     // Clave primaria con autoincremento gestionado por la base de datos
@@ -0,0 +1,83 @@
+package com.mikeldi.reto.entity;
+
+import com.mikeldi.reto.dto.EntidadSincronizable;
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// Define esta clase como entidad JPA que se mapea a la tabla "eliminaciones"
+// Marca de borrado (tombstone): guarda el id de cada registro eliminado físicamente para que
+// la sincronización incremental pueda comunicar la baja a quien ya lo tenía descargado
+// El índice sigue el orden en que se recorren las marcas al sincronizar
+@Entity
+@Table(name = "eliminaciones",
+       indexes = @Index(name = "idx_eliminaciones_sync", columnList = "entidad, fecha_eliminacion, id"))
+public class Eliminacion {
+    
+    // Clave primaria con autoincremento gestionado por la base de datos
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    // Tipo de entidad eliminada
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private EntidadSincronizable entidad;
+    
+    // Id que tenía el registro eliminado
+    @Column(name = "entidad_id", nullable = false)
+    private Long entidadId;
+    
+    // Momento de la eliminación, usado como marca de agua de la sincronización
+    @Column(name = "fecha_eliminacion", nullable = false, updatable = false)
+    private LocalDateTime fechaEliminacion;
+    
+    // Callback ejecutado antes de persistir por primera vez
+    @PrePersist
+    protected void onCreate() {
+        fechaEliminacion = LocalDateTime.now();
+    }
+    
+    // Constructor vacío requerido por JPA
+    public Eliminacion() {
+    }
+    
+    // Constructor con la entidad y el id eliminado
+    public Eliminacion(EntidadSincronizable entidad, Long entidadId) {
+        this.entidad = entidad;
+        this.entidadId = entidadId;
+    }
+    
+    // Getters y Setters para acceso controlado a los atributos
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public EntidadSincronizable getEntidad() {
+        return entidad;
+    }
+    
+    public void setEntidad(EntidadSincronizable entidad) {
+        this.entidad = entidad;
+    }
+    
+    public Long getEntidadId() {
+        return entidadId;
+    }
+    
+    public void setEntidadId(Long entidadId) {
+        this.entidadId = entidadId;
+    }
+    
+    public LocalDateTime getFechaEliminacion() {
+        return fechaEliminacion;
+    }
+    
+    public void setFechaEliminacion(LocalDateTime fechaEliminacion) {
+        this.fechaEliminacion = fechaEliminacion;
+    }
+}
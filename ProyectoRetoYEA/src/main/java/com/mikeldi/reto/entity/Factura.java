@@ -1,5 +1,6 @@
 package com.mikeldi.reto.entity;
 
+import com.mikeldi.reto.event.EntidadModificadaListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 
@@ -9,7 +10,21 @@ import java.time.LocalDateTime;
 
 // Define esta clase como entidad JPA que se mapea a la tabla "facturas"
 @Entity
-@Table(name = "facturas")
+// idx_facturas_cobro es de cobertura para el informe de antigüedad de deuda: filtra por estado y
+// contiene todas las columnas que agrega, así la consulta se resuelve sin leer las filas de la tabla
+// idx_facturas_emision sirve a los informes por periodo de emisión
+// idx_facturas_sync sirve a la sincronización incremental, que recorre los cambios por fecha de actualización
+// idx_facturas_cliente sirve al historial y al resumen de un cliente: ordena por fecha y contiene estado e importe
+@Table(name = "facturas",
+       indexes = {
+           @Index(name = "idx_facturas_cobro",
+                  columnList = "estado, cliente_id, fecha_vencimiento, fecha_emision, total_final"),
+           @Index(name = "idx_facturas_emision", columnList = "fecha_emision, estado, pedido_id"),
+           @Index(name = "idx_facturas_sync", columnList = "fecha_actualizacion, id"),
+           @Index(name = "idx_facturas_cliente", columnList = "cliente_id, fecha_emision, estado, total_final")
+       })
+// Publica eventos de alta, modificación y baja para cachés e índices en memoria
+@EntityListeners(EntidadModificadaListener.class)
 public class Factura {
     
     // Clave primaria con autoincremento gestionado por la base de datos
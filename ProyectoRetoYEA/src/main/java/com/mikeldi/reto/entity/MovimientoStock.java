@@ -7,7 +7,10 @@ import java.time.LocalDateTime;
 
 // Define esta clase como entidad JPA que se mapea a la tabla "movimientos_stock"
 @Entity
-@Table(name = "movimientos_stock")
+// Índice de cobertura para el informe de flujo de inventario: el rango de fechas se resuelve
+// sobre el índice y producto, tipo y cantidad se leen de él sin acceder a las filas
+@Table(name = "movimientos_stock",
+       indexes = @Index(name = "idx_movimientos_flujo", columnList = "fecha_movimiento, producto_id, tipo, cantidad"))
 public class MovimientoStock {
     
     // Clave primaria con autoincremento gestionado por la base de datos
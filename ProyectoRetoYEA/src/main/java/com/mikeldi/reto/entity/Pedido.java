@@ -1,5 +1,6 @@
 package com.mikeldi.reto.entity;
 
+import com.mikeldi.reto.event.EntidadModificadaListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 
@@ -10,7 +11,15 @@ import java.util.List;
 
 // Define esta clase como entidad JPA que se mapea a la tabla "pedidos"
 @Entity
-@Table(name = "pedidos")
+// idx_pedidos_sync sirve a la sincronización incremental, que recorre los cambios por fecha de actualización
+// idx_pedidos_cliente sirve al historial y al resumen de un cliente: cuenta y fecha del último pedido sin leer filas
+@Table(name = "pedidos",
+       indexes = {
+           @Index(name = "idx_pedidos_sync", columnList = "fecha_actualizacion, id"),
+           @Index(name = "idx_pedidos_cliente", columnList = "cliente_id, fecha_pedido")
+       })
+// Publica eventos de alta, modificación y baja para cachés e índices en memoria
+@EntityListeners(EntidadModificadaListener.class)
 public class Pedido {
     
     // Clave primaria con autoincremento gestionado por la base de datos
@@ -1,5 +1,6 @@
 package com.mikeldi.reto.entity;
 
+import com.mikeldi.reto.event.EntidadModificadaListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 
@@ -8,7 +9,11 @@ import java.time.LocalDateTime;
 
 // Define esta clase como entidad JPA que se mapea a la tabla "productos"
 @Entity
-@Table(name = "productos")
+// idx_productos_sync sirve a la sincronización incremental, que recorre los cambios por fecha de actualización
+@Table(name = "productos",
+       indexes = @Index(name = "idx_productos_sync", columnList = "fecha_actualizacion, id"))
+// Publica eventos de alta, modificación y baja para cachés e índices en memoria
+@EntityListeners(EntidadModificadaListener.class)
 public class Producto {
     
     // Clave primaria con autoincremento gestionado por la base de datos
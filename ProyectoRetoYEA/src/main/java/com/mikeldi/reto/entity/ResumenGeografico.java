@@ -0,0 +1,99 @@
+package com.mikeldi.reto.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+
+// Define esta clase como entidad JPA que se mapea a la tabla "resumen_geografico"
+// Tabla de resumen: una fila por provincia y ciudad con los clientes y la facturación acumulados
+// La facturación se asigna a la ubicación actual del cliente: si se muda, sus facturas se trasladan con él
+// Se mantiene en la misma transacción que da de alta, modifica o elimina el cliente y que emite o cancela la factura
+@Entity
+@Table(name = "resumen_geografico",
+       uniqueConstraints = @UniqueConstraint(name = "uk_resumen_geografico_ubicacion", columnNames = {"provincia", "ciudad"}))
+public class ResumenGeografico {
+    
+    // Clave primaria con autoincremento gestionado por la base de datos
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    // Provincia y ciudad de los clientes acumulados (cadena vacía si el cliente no la indica)
+    @Column(nullable = false, length = 100)
+    private String provincia;
+    
+    @Column(nullable = false, length = 100)
+    private String ciudad;
+    
+    // Número de clientes y cuántos de ellos están activos
+    @Column(name = "num_clientes", nullable = false)
+    private Long numClientes = 0L;
+    
+    @Column(name = "clientes_activos", nullable = false)
+    private Long clientesActivos = 0L;
+    
+    // Número de facturas de esos clientes, en cualquier estado
+    @Column(name = "num_facturas", nullable = false)
+    private Long numFacturas = 0L;
+    
+    // Suma de totales finales de las facturas no canceladas
+    @Column(nullable = false, precision = 16, scale = 2)
+    private BigDecimal facturacion = BigDecimal.ZERO;
+    
+    // Constructor vacío requerido por JPA
+    public ResumenGeografico() {
+    }
+    
+    // Getters y Setters para acceso controlado a los atributos
+    public Long getId() {
+        return id;
+    }
+    
+    public String getProvincia() {
+        return provincia;
+    }
+    
+    public void setProvincia(String provincia) {
+        this.provincia = provincia;
+    }
+    
+    public String getCiudad() {
+        return ciudad;
+    }
+    
+    public void setCiudad(String ciudad) {
+        this.ciudad = ciudad;
+    }
+    
+    public Long getNumClientes() {
+        return numClientes;
+    }
+    
+    public void setNumClientes(Long numClientes) {
+        this.numClientes = numClientes;
+    }
+    
+    public Long getClientesActivos() {
+        return clientesActivos;
+    }
+    
+    public void setClientesActivos(Long clientesActivos) {
+        this.clientesActivos = clientesActivos;
+    }
+    
+    public Long getNumFacturas() {
+        return numFacturas;
+    }
+    
+    public void setNumFacturas(Long numFacturas) {
+        this.numFacturas = numFacturas;
+    }
+    
+    public BigDecimal getFacturacion() {
+        return facturacion;
+    }
+    
+    public void setFacturacion(BigDecimal facturacion) {
+        this.facturacion = facturacion;
+    }
+}
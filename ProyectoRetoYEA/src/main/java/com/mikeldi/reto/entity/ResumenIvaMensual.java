@@ -0,0 +1,99 @@
+package com.mikeldi.reto.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+
+// Define esta clase como entidad JPA que se mapea a la tabla "resumen_iva_mensual"
+// Tabla de resumen: una fila por mes de emisión y tipo de IVA con la base y la cuota facturadas
+// Las facturas CANCELADAS no se incluyen; se mantiene en la misma transacción que emite o cancela la factura
+@Entity
+@Table(name = "resumen_iva_mensual",
+       uniqueConstraints = @UniqueConstraint(name = "uk_resumen_iva_mes_tipo", columnNames = {"anio", "mes", "tipo_iva"}))
+public class ResumenIvaMensual {
+    
+    // Clave primaria con autoincremento gestionado por la base de datos
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    // Año y mes de emisión de las facturas acumuladas
+    @Column(nullable = false)
+    private Integer anio;
+    
+    @Column(nullable = false)
+    private Integer mes;
+    
+    // Porcentaje de IVA de las líneas acumuladas (21.00, 10.00, 4.00...)
+    @Column(name = "tipo_iva", nullable = false, precision = 5, scale = 2)
+    private BigDecimal tipoIva;
+    
+    // Número de facturas con alguna línea de este tipo en el mes
+    @Column(name = "num_facturas", nullable = false)
+    private Long numFacturas = 0L;
+    
+    // Suma de bases imponibles (subtotal de las líneas)
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal base = BigDecimal.ZERO;
+    
+    // Suma de cuotas de IVA
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal cuota = BigDecimal.ZERO;
+    
+    // Constructor vacío requerido por JPA
+    public ResumenIvaMensual() {
+    }
+    
+    // Getters y Setters para acceso controlado a los atributos
+    public Long getId() {
+        return id;
+    }
+    
+    public Integer getAnio() {
+        return anio;
+    }
+    
+    public void setAnio(Integer anio) {
+        this.anio = anio;
+    }
+    
+    public Integer getMes() {
+        return mes;
+    }
+    
+    public void setMes(Integer mes) {
+        this.mes = mes;
+    }
+    
+    public BigDecimal getTipoIva() {
+        return tipoIva;
+    }
+    
+    public void setTipoIva(BigDecimal tipoIva) {
+        this.tipoIva = tipoIva;
+    }
+    
+    public Long getNumFacturas() {
+        return numFacturas;
+    }
+    
+    public void setNumFacturas(Long numFacturas) {
+        this.numFacturas = numFacturas;
+    }
+    
+    public BigDecimal getBase() {
+        return base;
+    }
+    
+    public void setBase(BigDecimal base) {
+        this.base = base;
+    }
+    
+    public BigDecimal getCuota() {
+        return cuota;
+    }
+    
+    public void setCuota(BigDecimal cuota) {
+        this.cuota = cuota;
+    }
+}
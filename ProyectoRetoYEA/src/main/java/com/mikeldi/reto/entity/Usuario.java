@@ -1,5 +1,6 @@
 package com.mikeldi.reto.entity;
 
+import com.mikeldi.reto.event.EntidadModificadaListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
@@ -16,6 +17,8 @@ import java.util.stream.Collectors;
 // Define esta clase como entidad JPA que implementa UserDetails de Spring Security
 @Entity
 @Table(name = "usuarios")
+// Publica eventos de alta, modificación y baja para mantener al día el índice de emails
+@EntityListeners(EntidadModificadaListener.class)
 public class Usuario implements UserDetails {
     
     // Clave primaria con autoincremento gestionado por la base de datos
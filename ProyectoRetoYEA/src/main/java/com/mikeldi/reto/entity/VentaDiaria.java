@@ -0,0 +1,102 @@
+package com.mikeldi.reto.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Define esta clase como entidad JPA que se mapea a la tabla "ventas_diarias"
+// Tabla de resumen: una fila por día y estado de factura con los importes acumulados
+// Se mantiene con incrementos en la misma transacción que emite o modifica la factura
+@Entity
+@Table(name = "ventas_diarias",
+       uniqueConstraints = @UniqueConstraint(name = "uk_ventas_diarias_fecha_estado", columnNames = {"fecha", "estado"}))
+public class VentaDiaria {
+    
+    // Clave primaria con autoincremento gestionado por la base de datos
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    // Día de emisión de las facturas acumuladas
+    @Column(nullable = false)
+    private LocalDate fecha;
+    
+    // Estado de las facturas acumuladas en esta fila
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private EstadoFactura estado;
+    
+    // Número de facturas del día en este estado
+    @Column(name = "num_facturas", nullable = false)
+    private Long numFacturas = 0L;
+    
+    // Suma de importes sin IVA
+    @Column(name = "total_base", nullable = false, precision = 14, scale = 2)
+    private BigDecimal totalBase = BigDecimal.ZERO;
+    
+    // Suma de importes de IVA
+    @Column(name = "total_iva", nullable = false, precision = 14, scale = 2)
+    private BigDecimal totalIva = BigDecimal.ZERO;
+    
+    // Suma de totales finales (base + IVA)
+    @Column(name = "total_final", nullable = false, precision = 14, scale = 2)
+    private BigDecimal totalFinal = BigDecimal.ZERO;
+    
+    // Constructor vacío requerido por JPA
+    public VentaDiaria() {
+    }
+    
+    // Getters y Setters para acceso controlado a los atributos
+    public Long getId() {
+        return id;
+    }
+    
+    public LocalDate getFecha() {
+        return fecha;
+    }
+    
+    public void setFecha(LocalDate fecha) {
+        this.fecha = fecha;
+    }
+    
+    public EstadoFactura getEstado() {
+        return estado;
+    }
+    
+    public void setEstado(EstadoFactura estado) {
+        this.estado = estado;
+    }
+    
+    public Long getNumFacturas() {
+        return numFacturas;
+    }
+    
+    public void setNumFacturas(Long numFacturas) {
+        this.numFacturas = numFacturas;
+    }
+    
+    public BigDecimal getTotalBase() {
+        return totalBase;
+    }
+    
+    public void setTotalBase(BigDecimal totalBase) {
+        this.totalBase = totalBase;
+    }
+    
+    public BigDecimal getTotalIva() {
+        return totalIva;
+    }
+    
+    public void setTotalIva(BigDecimal totalIva) {
+        this.totalIva = totalIva;
+    }
+    
+    public BigDecimal getTotalFinal() {
+        return totalFinal;
+    }
+    
+    public void setTotalFinal(BigDecimal totalFinal) {
+        this.totalFinal = totalFinal;
+    }
+}
@@ -0,0 +1,40 @@
+package com.mikeldi.reto.event;
+
+// Evento de aplicación que notifica el alta, modificación o baja de una entidad
+// Los componentes que mantienen cachés o índices en memoria lo escuchan con
+// @TransactionalEventListener para reaccionar solo cuando la transacción confirma
+public class EntidadModificadaEvent {
+    
+    // Tipo de operación realizada sobre la entidad
+    public enum Operacion {
+        CREADA,
+        ACTUALIZADA,
+        ELIMINADA
+    }
+    
+    // Entidad afectada (Cliente, Producto, Pedido, Factura...)
+    private final Object entidad;
+    
+    // Operación que originó el evento
+    private final Operacion operacion;
+    
+    // Constructor que captura la entidad y la operación
+    public EntidadModificadaEvent(Object entidad, Operacion operacion) {
+        this.entidad = entidad;
+        this.operacion = operacion;
+    }
+    
+    // Getters para consultar los datos del evento
+    public Object getEntidad() {
+        return entidad;
+    }
+    
+    public Operacion getOperacion() {
+        return operacion;
+    }
+    
+    // Indica si la entidad afectada es del tipo indicado
+    public boolean esDeTipo(Class<?> tipo) {
+        return tipo.isInstance(entidad);
+    }
+}
@@ -0,0 +1,72 @@
+package com.mikeldi.reto.event;
+
+import com.mikeldi.reto.dto.EntidadSincronizable;
+import com.mikeldi.reto.entity.Cliente;
+import com.mikeldi.reto.entity.Factura;
+import com.mikeldi.reto.entity.Pedido;
+import com.mikeldi.reto.entity.Producto;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+
+// Listener JPA que traduce los callbacks de persistencia en eventos de Spring
+// Se registra en las entidades con @EntityListeners; Hibernate lo instancia a través
+// del contenedor de Spring, por lo que admite inyección de dependencias
+// Además registra la marca de borrado de las entidades sincronizables, así cualquier
+// eliminación (también en cascada o desde otro servicio) llega a la sincronización incremental
+public class EntidadModificadaListener {
+    
+    // Inserta la marca de borrado en la misma transacción que elimina la entidad
+    private static final String INSERTAR_ELIMINACION =
+        "INSERT INTO eliminaciones (entidad, entidad_id, fecha_eliminacion) VALUES (?, ?, ?)";
+    
+    // Publicador de eventos de la aplicación
+    @Autowired
+    private ApplicationEventPublisher publisher;
+    
+    // JDBC directo: dentro de un callback de Hibernate no se puede persistir a través del EntityManager
+    // que se está volcando; JdbcTemplate usa la conexión de la transacción en curso
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    // Se ejecuta tras insertar la entidad en la base de datos
+    @PostPersist
+    public void alCrear(Object entidad) {
+        publisher.publishEvent(new EntidadModificadaEvent(entidad, EntidadModificadaEvent.Operacion.CREADA));
+    }
+    
+    // Se ejecuta tras actualizar la entidad en la base de datos
+    @PostUpdate
+    public void alActualizar(Object entidad) {
+        publisher.publishEvent(new EntidadModificadaEvent(entidad, EntidadModificadaEvent.Operacion.ACTUALIZADA));
+    }
+    
+    // Se ejecuta tras eliminar la entidad de la base de datos
+    @PostRemove
+    public void alEliminar(Object entidad) {
+        registrarEliminacion(entidad);
+        publisher.publishEvent(new EntidadModificadaEvent(entidad, EntidadModificadaEvent.Operacion.ELIMINADA));
+    }
+    
+    // Deja constancia de la baja para que la sincronización la comunique a quien ya tenía el registro
+    private void registrarEliminacion(Object entidad) {
+        if (entidad instanceof Cliente cliente) {
+            insertarEliminacion(EntidadSincronizable.CLIENTES, cliente.getId());
+        } else if (entidad instanceof Producto producto) {
+            insertarEliminacion(EntidadSincronizable.PRODUCTOS, producto.getId());
+        } else if (entidad instanceof Pedido pedido) {
+            insertarEliminacion(EntidadSincronizable.PEDIDOS, pedido.getId());
+        } else if (entidad instanceof Factura factura) {
+            insertarEliminacion(EntidadSincronizable.FACTURAS, factura.getId());
+        }
+    }
+    
+    private void insertarEliminacion(EntidadSincronizable tipo, Long id) {
+        jdbcTemplate.update(INSERTAR_ELIMINACION, tipo.name(), id, LocalDateTime.now());
+    }
+}
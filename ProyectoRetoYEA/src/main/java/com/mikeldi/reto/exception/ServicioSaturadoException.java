@@ -0,0 +1,19 @@
+package com.mikeldi.reto.exception;
+
+// Excepción para peticiones válidas que el servidor no puede atender por falta de capacidad (HTTP 503)
+// Indica al cliente cuántos segundos esperar antes de reintentar (cabecera Retry-After)
+public class ServicioSaturadoException extends RuntimeException {
+    
+    // Segundos recomendados antes de reintentar
+    private final long segundosReintento;
+    
+    // Constructor que recibe un mensaje descriptivo y la espera recomendada
+    public ServicioSaturadoException(String message, long segundosReintento) {
+        super(message);
+        this.segundosReintento = segundosReintento;
+    }
+    
+    public long getSegundosReintento() {
+        return segundosReintento;
+    }
+}
@@ -0,0 +1,83 @@
+package com.mikeldi.reto.parquet;
+
+import com.github.luben.zstd.Zstd;
+import org.apache.parquet.bytes.BytesInput;
+import org.apache.parquet.compression.CompressionCodecFactory;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+// Compresión zstd de las páginas Parquet usando zstd-jni directamente
+// Evita los códecs de Hadoop, que arrastrarían buena parte de sus dependencias
+class CodecZstd implements CompressionCodecFactory {
+    
+    // Nivel de compresión: equilibrio entre tamaño y CPU para exportar al vuelo
+    private static final int NIVEL = 3;
+    
+    private final BytesInputCompressor compresor = new BytesInputCompressor() {
+        @Override
+        public BytesInput compress(BytesInput bytes) throws IOException {
+            return BytesInput.from(Zstd.compress(bytes.toInputStream().readAllBytes(), NIVEL));
+        }
+        
+        @Override
+        public CompressionCodecName getCodecName() {
+            return CompressionCodecName.ZSTD;
+        }
+        
+        @Override
+        public void release() {
+        }
+    };
+    
+    // Las páginas zstd guardan su tamaño original, que Parquet pasa al descomprimir
+    private final BytesInputDecompressor descompresor = new BytesInputDecompressor() {
+        @Override
+        public BytesInput decompress(BytesInput bytes, int tamanoOriginal) throws IOException {
+            return BytesInput.from(descomprimir(bytes.toInputStream().readAllBytes(), tamanoOriginal));
+        }
+        
+        @Override
+        public void decompress(ByteBuffer entrada, int tamanoComprimido, ByteBuffer salida, int tamanoOriginal) throws IOException {
+            byte[] comprimido = new byte[tamanoComprimido];
+            entrada.get(comprimido);
+            salida.put(descomprimir(comprimido, tamanoOriginal));
+        }
+        
+        @Override
+        public void release() {
+        }
+    };
+    
+    @Override
+    public BytesInputCompressor getCompressor(CompressionCodecName codec) {
+        comprobarCodec(codec);
+        return compresor;
+    }
+    
+    @Override
+    public BytesInputDecompressor getDecompressor(CompressionCodecName codec) {
+        comprobarCodec(codec);
+        return descompresor;
+    }
+    
+    @Override
+    public void release() {
+    }
+    
+    private static void comprobarCodec(CompressionCodecName codec) {
+        if (codec != CompressionCodecName.ZSTD) {
+            throw new IllegalArgumentException("Solo se admite compresión ZSTD: " + codec);
+        }
+    }
+    
+    // Descomprime una página comprobando que ocupa lo que indica el archivo
+    private static byte[] descomprimir(byte[] comprimido, int tamanoOriginal) throws IOException {
+        byte[] datos = Zstd.decompress(comprimido, tamanoOriginal);
+        if (datos.length != tamanoOriginal) {
+            throw new IOException("Página zstd de " + datos.length + " bytes, se esperaban " + tamanoOriginal);
+        }
+        return datos;
+    }
+}
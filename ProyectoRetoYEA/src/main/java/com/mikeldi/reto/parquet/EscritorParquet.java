@@ -0,0 +1,179 @@
+package com.mikeldi.reto.parquet;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.conf.ParquetConfiguration;
+import org.apache.parquet.conf.PlainParquetConfiguration;
+import org.apache.parquet.hadoop.ParquetFileWriter;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.api.WriteSupport;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.io.OutputFile;
+import org.apache.parquet.io.PositionOutputStream;
+import org.apache.parquet.io.api.RecordConsumer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// Escribe filas en formato Parquet sobre un stream de salida secuencial (respuesta HTTP o archivo)
+// Las filas se acumulan por columnas hasta completar un grupo de filas, que se comprime y se envía;
+// la memoria depende del tamaño del grupo, no del número total de filas.
+// Las columnas de texto usan codificación por diccionario mientras el diccionario no crece demasiado
+public final class EscritorParquet {
+    
+    // Tamaño de página de datos y de diccionario
+    private static final int TAMANO_PAGINA = 1024 * 1024;
+    
+    private EscritorParquet() {
+    }
+    
+    // Escribe todas las filas y el pie del archivo; devuelve el número de filas escritas
+    // La salida no se cierra: pertenece a quien la abrió
+    public static <T> long escribir(Stream<T> filas, EsquemaParquet<T> esquema, OutputStream salida,
+                                    long tamanoGrupoFilas) throws IOException {
+        long escritas = 0;
+        try (ParquetWriter<T> writer = new Constructor<>(new SalidaSecuencial(salida), esquema)
+                .withConf(new PlainParquetConfiguration())
+                .withCodecFactory(new CodecZstd())
+                .withCompressionCodec(CompressionCodecName.ZSTD)
+                .withDictionaryEncoding(true)
+                .withRowGroupSize(tamanoGrupoFilas)
+                .withPageSize(TAMANO_PAGINA)
+                .withDictionaryPageSize(TAMANO_PAGINA)
+                .withWriteMode(ParquetFileWriter.Mode.OVERWRITE)
+                .build()) {
+            for (T fila : (Iterable<T>) filas::iterator) {
+                writer.write(fila);
+                escritas++;
+            }
+        }
+        salida.flush();
+        return escritas;
+    }
+    
+    // Constructor de ParquetWriter con el soporte de escritura del esquema
+    private static class Constructor<T> extends ParquetWriter.Builder<T, Constructor<T>> {
+        
+        private final EsquemaParquet<T> esquema;
+        
+        Constructor(OutputFile archivo, EsquemaParquet<T> esquema) {
+            super(archivo);
+            this.esquema = esquema;
+        }
+        
+        @Override
+        protected Constructor<T> self() {
+            return this;
+        }
+        
+        @Override
+        protected WriteSupport<T> getWriteSupport(ParquetConfiguration conf) {
+            return new SoporteEscritura<>(esquema);
+        }
+        
+        // Variante de Hadoop, abstracta en la API; el escritor se configura con PlainParquetConfiguration
+        @Override
+        @Deprecated
+        protected WriteSupport<T> getWriteSupport(Configuration conf) {
+            return new SoporteEscritura<>(esquema);
+        }
+    }
+    
+    // Traduce cada fila a llamadas del RecordConsumer según el esquema
+    private static class SoporteEscritura<T> extends WriteSupport<T> {
+        
+        private final EsquemaParquet<T> esquema;
+        private RecordConsumer consumidor;
+        
+        SoporteEscritura(EsquemaParquet<T> esquema) {
+            this.esquema = esquema;
+        }
+        
+        @Override
+        public WriteContext init(ParquetConfiguration configuration) {
+            return new WriteContext(esquema.tipoMensaje(), Map.of());
+        }
+        
+        // Variante de Hadoop, abstracta en la API
+        @Override
+        @Deprecated
+        public WriteContext init(Configuration configuration) {
+            return new WriteContext(esquema.tipoMensaje(), Map.of());
+        }
+        
+        @Override
+        public void prepareForWrite(RecordConsumer recordConsumer) {
+            this.consumidor = recordConsumer;
+        }
+        
+        @Override
+        public void write(T fila) {
+            esquema.escribir(consumidor, fila);
+        }
+    }
+    
+    // Archivo de salida secuencial: Parquet solo necesita conocer la posición actual
+    private static class SalidaSecuencial implements OutputFile {
+        
+        private final OutputStream salida;
+        
+        SalidaSecuencial(OutputStream salida) {
+            this.salida = salida;
+        }
+        
+        @Override
+        public PositionOutputStream create(long tamanoBloque) {
+            return crear();
+        }
+        
+        @Override
+        public PositionOutputStream createOrOverwrite(long tamanoBloque) {
+            return crear();
+        }
+        
+        @Override
+        public boolean supportsBlockSize() {
+            return false;
+        }
+        
+        @Override
+        public long defaultBlockSize() {
+            return 0;
+        }
+        
+        private PositionOutputStream crear() {
+            return new PositionOutputStream() {
+                private long posicion;
+                
+                @Override
+                public long getPos() {
+                    return posicion;
+                }
+                
+                @Override
+                public void write(int b) throws IOException {
+                    salida.write(b);
+                    posicion++;
+                }
+                
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    salida.write(b, off, len);
+                    posicion += len;
+                }
+                
+                @Override
+                public void flush() throws IOException {
+                    salida.flush();
+                }
+                
+                // Cerrar el archivo Parquet no cierra la salida original
+                @Override
+                public void close() throws IOException {
+                    salida.flush();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.mikeldi.reto.parquet;
+
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.io.api.RecordConsumer;
+import org.apache.parquet.schema.LogicalTypeAnnotation;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.apache.parquet.schema.Type;
+import org.apache.parquet.schema.Types;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+// Esquema de un archivo Parquet: columnas tipadas y cómo se obtiene cada valor de una fila
+// Todas las columnas son opcionales; un valor nulo simplemente no se escribe
+public class EsquemaParquet<T> {
+    
+    // Precisión de los decimales guardados como INT64 (máximo que cabe en 64 bits)
+    private static final int PRECISION_DECIMAL = 18;
+    
+    // Nombre del mensaje raíz del esquema (normalmente el nombre de la tabla)
+    private final String nombre;
+    
+    // Columnas en el orden en que se escriben
+    private final List<Columna<T>> columnas = new ArrayList<>();
+    
+    public EsquemaParquet(String nombre) {
+        this.nombre = nombre;
+    }
+    
+    // Entero de 64 bits (identificadores)
+    public EsquemaParquet<T> entero64(String columna, Function<T, Long> valor) {
+        return agregar(Types.optional(PrimitiveTypeName.INT64).named(columna), valor,
+                       (consumidor, v) -> consumidor.addLong(v));
+    }
+    
+    // Entero de 32 bits (cantidades, stock)
+    public EsquemaParquet<T> entero32(String columna, Function<T, Integer> valor) {
+        return agregar(Types.optional(PrimitiveTypeName.INT32).named(columna), valor,
+                       (consumidor, v) -> consumidor.addInteger(v));
+    }
+    
+    // Texto UTF-8; las columnas de pocos valores distintos (estados, categorías) quedan en diccionario
+    public EsquemaParquet<T> texto(String columna, Function<T, String> valor) {
+        return agregar(Types.optional(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType()).named(columna), valor,
+                       (consumidor, v) -> consumidor.addBinary(Binary.fromString(v)));
+    }
+    
+    // Importe decimal con la escala indicada, guardado como entero sin escala
+    public EsquemaParquet<T> decimal(String columna, int escala, Function<T, BigDecimal> valor) {
+        return agregar(Types.optional(PrimitiveTypeName.INT64)
+                           .as(LogicalTypeAnnotation.decimalType(escala, PRECISION_DECIMAL)).named(columna), valor,
+                       (consumidor, v) -> consumidor.addLong(v.setScale(escala, RoundingMode.HALF_UP).unscaledValue().longValueExact()));
+    }
+    
+    // Fecha sin hora (días desde 1970-01-01)
+    public EsquemaParquet<T> fecha(String columna, Function<T, LocalDate> valor) {
+        return agregar(Types.optional(PrimitiveTypeName.INT32).as(LogicalTypeAnnotation.dateType()).named(columna), valor,
+                       (consumidor, v) -> consumidor.addInteger((int) v.toEpochDay()));
+    }
+    
+    // Fecha y hora local en milisegundos (sin zona, igual que en la base de datos)
+    public EsquemaParquet<T> marcaTiempo(String columna, Function<T, LocalDateTime> valor) {
+        return agregar(Types.optional(PrimitiveTypeName.INT64)
+                           .as(LogicalTypeAnnotation.timestampType(false, LogicalTypeAnnotation.TimeUnit.MILLIS)).named(columna), valor,
+                       (consumidor, v) -> consumidor.addLong(v.toInstant(ZoneOffset.UTC).toEpochMilli()));
+    }
+    
+    // Esquema Parquet equivalente
+    MessageType tipoMensaje() {
+        List<Type> campos = new ArrayList<>();
+        for (Columna<T> columna : columnas) {
+            campos.add(columna.tipo);
+        }
+        return new MessageType(nombre, campos);
+    }
+    
+    // Escribe una fila como un mensaje Parquet
+    void escribir(RecordConsumer consumidor, T fila) {
+        consumidor.startMessage();
+        for (int i = 0; i < columnas.size(); i++) {
+            columnas.get(i).escribir(consumidor, fila, i);
+        }
+        consumidor.endMessage();
+    }
+    
+    private <V> EsquemaParquet<T> agregar(PrimitiveType tipo, Function<T, V> valor, EscritorValor<V> escritor) {
+        columnas.add(new Columna<>(tipo, valor, escritor));
+        return this;
+    }
+    
+    // Escribe un valor no nulo con el método del RecordConsumer adecuado al tipo
+    @FunctionalInterface
+    private interface EscritorValor<V> {
+        void escribir(RecordConsumer consumidor, V valor);
+    }
+    
+    // Columna del esquema con su extractor de valor
+    private static class Columna<T> {
+        
+        private final PrimitiveType tipo;
+        private final Function<T, ?> valor;
+        private final EscritorValor<Object> escritor;
+        
+        @SuppressWarnings("unchecked")
+        <V> Columna(PrimitiveType tipo, Function<T, V> valor, EscritorValor<V> escritor) {
+            this.tipo = tipo;
+            this.valor = valor;
+            this.escritor = (EscritorValor<Object>) escritor;
+        }
+        
+        void escribir(RecordConsumer consumidor, T fila, int indice) {
+            Object v = valor.apply(fila);
+            if (v == null) {
+                return;
+            }
+            consumidor.startField(tipo.getName(), indice);
+            escritor.escribir(consumidor, v);
+            consumidor.endField(tipo.getName(), indice);
+        }
+    }
+}
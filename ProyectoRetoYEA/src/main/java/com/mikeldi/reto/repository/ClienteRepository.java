@@ -1,16 +1,43 @@
 package com.mikeldi.reto.repository;
 
 import com.mikeldi.reto.entity.Cliente;
+import com.mikeldi.reto.repository.projection.ClienteDuplicadoView;
+import com.mikeldi.reto.repository.projection.ClienteExportView;
+import com.mikeldi.reto.repository.projection.SugerenciaView;
+import com.mikeldi.reto.repository.projection.UbicacionClienteView;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 // Marca esta interfaz como componente de repositorio para Spring
 @Repository
 public interface ClienteRepository extends JpaRepository<Cliente, Long> {
     
+    // Consulta base del autocompletado: datos del cliente y su número de pedidos como popularidad
+    String SUGERENCIAS = "SELECT c.id AS id, c.nombre AS nombre, c.nif AS detalle, c.activo AS activo, " +
+            "(SELECT COUNT(p) FROM Pedido p WHERE p.cliente = c) AS popularidad FROM Cliente c ";
+    
+    // Carga el cliente bloqueando su fila hasta el final de la transacción (SELECT ... FOR UPDATE)
+    // Los cambios de ubicación o estado del cliente y la emisión o el cambio de estado de sus facturas
+    // se ejecutan uno detrás de otro, y cada uno aplica sus incrementos al resumen geográfico sobre
+    // la ubicación y las facturas que dejó confirmadas el anterior
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Cliente c WHERE c.id = :id")
+    Optional<Cliente> findByIdParaActualizar(@Param("id") Long id);
+    
     // Busca un cliente por su NIF/CIF único
     // Retorna Optional para manejar casos donde no existe
     Optional<Cliente> findByNif(String nif);
@@ -19,6 +46,23 @@ public interface ClienteRepository extends JpaRepository<Cliente, Long> {
     // Útil para validaciones antes de crear nuevos clientes
     Boolean existsByNif(String nif);
     
+    // Id del cliente con el NIF indicado, sin cargar la entidad
+    @Query("SELECT c.id FROM Cliente c WHERE c.nif = :nif")
+    Optional<Long> findIdByNif(@Param("nif") String nif);
+    
+    // Recorre con un cursor los NIF registrados para cargar el índice de identificadores
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT c.nif FROM Cliente c")
+    Stream<String> streamNifs();
+    
+    // Ubicación y estado de los NIF de la lista que ya están registrados, con una sola consulta (importación por lotes)
+    @Query("SELECT c.nif AS nif, c.provincia AS provincia, c.ciudad AS ciudad, c.activo AS activo " +
+           "FROM Cliente c WHERE c.nif IN :nifs")
+    List<UbicacionClienteView> findUbicacionesByNifIn(@Param("nifs") Collection<String> nifs);
+    
+    // Clientes con alguno de los NIF indicados
+    List<Cliente> findByNifIn(Collection<String> nifs);
+    
     // Busca clientes cuyo nombre contenga el texto especificado (búsqueda parcial)
     // IgnoreCase hace la búsqueda insensible a mayúsculas/minúsculas
     List<Cliente> findByNombreContainingIgnoreCase(String nombre);
@@ -31,4 +75,45 @@ public interface ClienteRepository extends JpaRepository<Cliente, Long> {
     
     // Filtra clientes por provincia para análisis regional
     List<Cliente> findByProvincia(String provincia);
+    
+    // Recorre con un cursor todos los clientes para exportarlos sin cargarlos en memoria
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT c.id AS id, c.nombre AS nombre, c.nif AS nif, c.email AS email, c.telefono AS telefono, " +
+           "c.direccion AS direccion, c.ciudad AS ciudad, c.provincia AS provincia, c.codigoPostal AS codigoPostal " +
+           "FROM Cliente c ORDER BY c.id")
+    Stream<ClienteExportView> streamParaExportar();
+    
+    // Clientes modificados después de la posición (fecha, id) y hasta la fecha límite, para la sincronización
+    // El orden por fecha de actualización e id permite continuar por donde se quedó la página anterior
+    @Query("SELECT c FROM Cliente c " +
+           "WHERE (c.fechaActualizacion > :fecha OR (c.fechaActualizacion = :fecha AND c.id > :id)) " +
+           "AND c.fechaActualizacion <= :hasta " +
+           "ORDER BY c.fechaActualizacion, c.id")
+    List<Cliente> cambiosDesde(@Param("fecha") LocalDateTime fecha, @Param("id") Long id,
+                               @Param("hasta") LocalDateTime hasta, Limit limite);
+    
+    // Consulta base de la detección de duplicados
+    String DUPLICADOS = "SELECT c.id AS id, c.nombre AS nombre, c.nif AS nif, c.direccion AS direccion, " +
+            "c.email AS email, c.telefono AS telefono FROM Cliente c ";
+    
+    // Recorre con un cursor todos los clientes para calcular sus firmas de duplicados
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(DUPLICADOS + "ORDER BY c.id")
+    Stream<ClienteDuplicadoView> streamParaDuplicados();
+    
+    // Campos de duplicados de los clientes indicados, para puntuar los pares candidatos
+    @Query(DUPLICADOS + "WHERE c.id IN :ids")
+    List<ClienteDuplicadoView> findParaDuplicados(@Param("ids") Collection<Long> ids);
+    
+    // Recorre con un cursor todos los clientes para cargar el autocompletado
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(SUGERENCIAS)
+    Stream<SugerenciaView> streamParaAutocompletar();
+    
+    // Datos de autocompletado de los clientes indicados, para releer los modificados durante la carga
+    @Query(SUGERENCIAS + "WHERE c.id IN :ids")
+    List<SugerenciaView> findSugerencias(@Param("ids") Collection<Long> ids);
+    
+    // Clientes activos cuyo nombre empieza por el texto, mientras el autocompletado no está cargado
+    List<Cliente> findByActivoTrueAndNombreStartingWithIgnoreCaseOrderByNombre(String prefijo, Limit limite);
 }
@@ -0,0 +1,29 @@
+package com.mikeldi.reto.repository;
+
+import com.mikeldi.reto.dto.EntidadSincronizable;
+import com.mikeldi.reto.entity.Eliminacion;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Marca esta interfaz como componente de repositorio para Spring
+@Repository
+public interface EliminacionRepository extends JpaRepository<Eliminacion, Long> {
+    
+    // Marcas de borrado posteriores a la posición (fecha, id) y anteriores a la fecha límite
+    // Recorre el índice idx_eliminaciones_sync en orden; el tamaño de página lo fija Limit
+    @Query("SELECT e FROM Eliminacion e WHERE e.entidad = :entidad " +
+           "AND (e.fechaEliminacion > :fecha OR (e.fechaEliminacion = :fecha AND e.id > :id)) " +
+           "AND e.fechaEliminacion <= :hasta " +
+           "ORDER BY e.fechaEliminacion, e.id")
+    List<Eliminacion> eliminacionesDesde(@Param("entidad") EntidadSincronizable entidad,
+                                         @Param("fecha") LocalDateTime fecha,
+                                         @Param("id") Long id,
+                                         @Param("hasta") LocalDateTime hasta,
+                                         Limit limite);
+}
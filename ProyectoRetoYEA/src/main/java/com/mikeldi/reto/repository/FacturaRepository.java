@@ -3,17 +3,42 @@ package com.mikeldi.reto.repository;
 import com.mikeldi.reto.entity.Cliente;
 import com.mikeldi.reto.entity.EstadoFactura;
 import com.mikeldi.reto.entity.Factura;
+import com.mikeldi.reto.repository.projection.AntiguedadDeudaView;
+import com.mikeldi.reto.repository.projection.EstadisticasView;
+import com.mikeldi.reto.repository.projection.FacturaAnaliticaView;
+import com.mikeldi.reto.repository.projection.FacturaExportView;
+import com.mikeldi.reto.repository.projection.IvaMensualView;
+import com.mikeldi.reto.repository.projection.ResumenFacturasClienteView;
+import com.mikeldi.reto.repository.projection.VentaClienteView;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 // Marca esta interfaz como componente de repositorio para Spring
 @Repository
 public interface FacturaRepository extends JpaRepository<Factura, Long> {
     
+    // Carga la factura bloqueando su fila hasta el final de la transacción (SELECT ... FOR UPDATE)
+    // Dos cambios de estado simultáneos de la misma factura se ejecutan uno detrás de otro, de modo que
+    // cada uno ve el estado que dejó el anterior y los resúmenes no aplican dos veces el mismo traslado
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT f FROM Factura f WHERE f.id = :id")
+    Optional<Factura> findByIdParaActualizar(@Param("id") Long id);
+    
     // Busca una factura por su número único generado automáticamente
     // Útil para consultas directas con el número de factura visible al usuario
     Optional<Factura> findByNumeroFactura(String numeroFactura);
@@ -22,6 +47,24 @@ public interface FacturaRepository extends JpaRepository<Factura, Long> {
     // Muestra el historial de facturación más reciente primero
     List<Factura> findByClienteOrderByFechaEmisionDesc(Cliente cliente);
     
+    // Últimas facturas de un cliente, para el resumen de su ficha
+    List<Factura> findByClienteIdOrderByFechaEmisionDescIdDesc(Long clienteId, Limit limite);
+    
+    // Totales de facturación de un cliente en una única consulta
+    // El índice (cliente_id, fecha_emision, estado, total_final) localiza sus facturas
+    // El saldo vencido sigue el mismo criterio de fechas que la antigüedad de deuda: facturas sin cobrar
+    // cuyo vencimiento (o emisión, si no tienen) ya ha pasado, aunque sigan en estado PENDIENTE
+    @Query("SELECT COUNT(f) AS facturas, MAX(f.fechaEmision) AS ultimaFactura, " +
+           "SUM(CASE WHEN f.estado <> com.mikeldi.reto.entity.EstadoFactura.CANCELADA THEN f.totalFinal END) AS totalFacturado, " +
+           "SUM(CASE WHEN f.estado IN (com.mikeldi.reto.entity.EstadoFactura.PENDIENTE, com.mikeldi.reto.entity.EstadoFactura.VENCIDA) " +
+           "THEN 1 ELSE 0 END) AS facturasPendientes, " +
+           "SUM(CASE WHEN f.estado IN (com.mikeldi.reto.entity.EstadoFactura.PENDIENTE, com.mikeldi.reto.entity.EstadoFactura.VENCIDA) " +
+           "THEN f.totalFinal END) AS saldoPendiente, " +
+           "SUM(CASE WHEN f.estado IN (com.mikeldi.reto.entity.EstadoFactura.PENDIENTE, com.mikeldi.reto.entity.EstadoFactura.VENCIDA) " +
+           "AND COALESCE(f.fechaVencimiento, f.fechaEmision) < CURRENT_DATE THEN f.totalFinal END) AS saldoVencido " +
+           "FROM Factura f WHERE f.cliente.id = :clienteId")
+    ResumenFacturasClienteView resumirPorCliente(@Param("clienteId") Long clienteId);
+    
     // Filtra facturas por estado (PENDIENTE, PAGADA, VENCIDA, CANCELADA)
     // Ordenadas por fecha descendente para priorizar las más recientes
     List<Factura> findByEstadoOrderByFechaEmisionDesc(EstadoFactura estado);
@@ -38,4 +81,96 @@ public interface FacturaRepository extends JpaRepository<Factura, Long> {
     // Cuenta cuántas facturas hay en un estado específico
     // Retorna solo el número sin cargar entidades, optimizando rendimiento
     Long countByEstado(EstadoFactura estado);
+    
+    // Calcula todos los KPIs del panel en un único viaje a la base de datos
+    // Cada subconsulta escalar devuelve un contador o una suma sin cargar entidades
+    @Query(value = "SELECT " +
+                   "(SELECT COUNT(*) FROM clientes) AS totalClientes, " +
+                   "(SELECT COUNT(*) FROM productos) AS totalProductos, " +
+                   "(SELECT COUNT(*) FROM pedidos) AS totalPedidos, " +
+                   "(SELECT COUNT(*) FROM facturas) AS totalFacturas, " +
+                   "(SELECT COUNT(*) FROM productos WHERE activo = TRUE AND stock_actual < :umbralStock) AS productosStockBajo, " +
+                   "(SELECT COUNT(*) FROM facturas WHERE estado = 'PENDIENTE') AS facturasPendientes, " +
+                   "(SELECT COALESCE(SUM(total_final), 0) FROM facturas WHERE fecha_emision BETWEEN :inicioMes AND :finMes) AS ventasTotalesMes, " +
+                   "(SELECT COALESCE(SUM(total_final), 0) FROM facturas WHERE estado = 'PENDIENTE') AS ventasPendientesCobro",
+           nativeQuery = true)
+    EstadisticasView calcularEstadisticas(@Param("umbralStock") int umbralStock,
+                                          @Param("inicioMes") LocalDate inicioMes,
+                                          @Param("finMes") LocalDate finMes);
+    
+    // Identificador de la última factura emitida (null si no hay ninguna)
+    @Query("SELECT MAX(f.id) FROM Factura f")
+    Long findMaxId();
+    
+    // Recorre con un cursor las facturas de un periodo ordenadas por cliente
+    // Las facturas CANCELADAS no cuentan como venta
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT c.id AS clienteId, c.nombre AS nombre, c.provincia AS provincia, f.totalBase AS totalBase " +
+           "FROM Factura f JOIN f.cliente c " +
+           "WHERE f.fechaEmision BETWEEN :inicio AND :fin " +
+           "AND f.estado <> com.mikeldi.reto.entity.EstadoFactura.CANCELADA " +
+           "ORDER BY c.id")
+    Stream<VentaClienteView> streamVentasPorCliente(@Param("inicio") LocalDate inicio, @Param("fin") LocalDate fin);
+    
+    // Deuda pendiente (PENDIENTE y VENCIDA) por cliente repartida en tramos de retraso
+    // Los límites son las fechas de vencimiento que separan los tramos (corte - 30, - 60, - 90 días)
+    // Se agrupa primero solo sobre idx_facturas_cobro y después se añade el nombre del cliente
+    @Query(value = "SELECT d.cliente_id AS clienteId, c.nombre AS nombre, d.facturas AS facturas, " +
+                   "d.tramo0a30 AS tramo0a30, d.tramo31a60 AS tramo31a60, " +
+                   "d.tramo61a90 AS tramo61a90, d.tramoMas90 AS tramoMas90 " +
+                   "FROM (SELECT f.cliente_id, COUNT(*) AS facturas, " +
+                   "  SUM(CASE WHEN COALESCE(f.fecha_vencimiento, f.fecha_emision) >= :limite30 " +
+                   "      THEN f.total_final END) AS tramo0a30, " +
+                   "  SUM(CASE WHEN COALESCE(f.fecha_vencimiento, f.fecha_emision) < :limite30 " +
+                   "       AND COALESCE(f.fecha_vencimiento, f.fecha_emision) >= :limite60 THEN f.total_final END) AS tramo31a60, " +
+                   "  SUM(CASE WHEN COALESCE(f.fecha_vencimiento, f.fecha_emision) < :limite60 " +
+                   "       AND COALESCE(f.fecha_vencimiento, f.fecha_emision) >= :limite90 THEN f.total_final END) AS tramo61a90, " +
+                   "  SUM(CASE WHEN COALESCE(f.fecha_vencimiento, f.fecha_emision) < :limite90 " +
+                   "      THEN f.total_final END) AS tramoMas90 " +
+                   "  FROM facturas f WHERE f.estado IN ('PENDIENTE', 'VENCIDA') " +
+                   "  GROUP BY f.cliente_id) d " +
+                   "JOIN clientes c ON c.id = d.cliente_id",
+           nativeQuery = true)
+    List<AntiguedadDeudaView> calcularAntiguedadDeuda(@Param("limite30") LocalDate limite30,
+                                                      @Param("limite60") LocalDate limite60,
+                                                      @Param("limite90") LocalDate limite90);
+    
+    // Base y cuota de IVA por mes de emisión y tipo impositivo sobre las líneas de los pedidos facturados
+    // Se usa para periodos que no son meses completos; el resto se lee de resumen_iva_mensual
+    @Query("SELECT YEAR(f.fechaEmision) AS anio, MONTH(f.fechaEmision) AS mes, l.iva AS tipoIva, " +
+           "COUNT(DISTINCT f.id) AS facturas, SUM(l.subtotal) AS base, SUM(l.importeIva) AS cuota " +
+           "FROM Factura f JOIN f.pedido p JOIN p.lineas l " +
+           "WHERE f.estado <> com.mikeldi.reto.entity.EstadoFactura.CANCELADA " +
+           "AND f.fechaEmision BETWEEN :inicio AND :fin " +
+           "GROUP BY YEAR(f.fechaEmision), MONTH(f.fechaEmision), l.iva " +
+           "ORDER BY YEAR(f.fechaEmision), MONTH(f.fechaEmision), l.iva")
+    List<IvaMensualView> resumirIvaPorMes(@Param("inicio") LocalDate inicio, @Param("fin") LocalDate fin);
+    
+    // Recorre con un cursor todas las facturas para exportarlas, más recientes primero
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT f.id AS id, f.numeroFactura AS numeroFactura, c.nombre AS clienteNombre, " +
+           "f.fechaEmision AS fechaEmision, f.fechaVencimiento AS fechaVencimiento, f.estado AS estado, " +
+           "f.totalBase AS totalBase, f.totalIva AS totalIva, f.totalFinal AS totalFinal, " +
+           "f.observaciones AS observaciones " +
+           "FROM Factura f JOIN f.cliente c ORDER BY f.fechaEmision DESC, f.id DESC")
+    Stream<FacturaExportView> streamParaExportar();
+    
+    // Recorre con un cursor las facturas de un periodo para la exportación analítica, en orden de id
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT f.id AS id, f.numeroFactura AS numeroFactura, f.pedido.id AS pedidoId, c.id AS clienteId, " +
+           "c.nombre AS clienteNombre, f.fechaEmision AS fechaEmision, f.fechaVencimiento AS fechaVencimiento, " +
+           "f.estado AS estado, f.totalBase AS totalBase, f.totalIva AS totalIva, f.totalFinal AS totalFinal " +
+           "FROM Factura f JOIN f.cliente c " +
+           "WHERE f.fechaEmision BETWEEN :desde AND :hasta ORDER BY f.id")
+    Stream<FacturaAnaliticaView> streamAnalitico(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+    
+    // Facturas (con su cliente) modificadas después de la posición (fecha, id) y hasta la fecha límite, para la sincronización
+    // El orden por fecha de actualización e id permite continuar por donde se quedó la página anterior
+    @EntityGraph(attributePaths = {"cliente"})
+    @Query("SELECT f FROM Factura f " +
+           "WHERE (f.fechaActualizacion > :fecha OR (f.fechaActualizacion = :fecha AND f.id > :id)) " +
+           "AND f.fechaActualizacion <= :hasta " +
+           "ORDER BY f.fechaActualizacion, f.id")
+    List<Factura> cambiosDesde(@Param("fecha") LocalDateTime fecha, @Param("id") Long id,
+                               @Param("hasta") LocalDateTime hasta, Limit limite);
 }
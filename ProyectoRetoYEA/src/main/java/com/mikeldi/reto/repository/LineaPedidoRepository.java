@@ -2,16 +2,70 @@ package com.mikeldi.reto.repository;
 
 import com.mikeldi.reto.entity.LineaPedido;
 import com.mikeldi.reto.entity.Pedido;
+import com.mikeldi.reto.repository.projection.LineaAnaliticaView;
+import com.mikeldi.reto.repository.projection.LineaVentaView;
+import com.mikeldi.reto.repository.projection.VentaProductoView;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 // Marca esta interfaz como componente de repositorio para Spring
 @Repository
 public interface LineaPedidoRepository extends JpaRepository<LineaPedido, Long> {
     
+    // Consulta base compartida: une factura, pedido, líneas, producto, cliente y usuario
+    String LINEAS_FACTURADAS = "SELECT f.id AS facturaId, f.fechaEmision AS fechaEmision, f.estado AS estado, " +
+            "l.cantidad AS cantidad, l.subtotal AS subtotal, " +
+            "pr.id AS productoId, pr.nombre AS productoNombre, pr.categoria AS categoria, " +
+            "c.id AS clienteId, c.nombre AS clienteNombre, c.provincia AS provincia, " +
+            "u.id AS usuarioId, u.nombre AS usuarioNombre " +
+            "FROM Factura f JOIN f.pedido p JOIN p.lineas l JOIN l.producto pr " +
+            "JOIN f.cliente c JOIN p.usuario u ";
+    
     // Busca todas las líneas de un pedido específico
     // Retorna la lista completa de productos incluidos en el pedido
     List<LineaPedido> findByPedido(Pedido pedido);
+    
+    // Recorre con un cursor todas las líneas facturadas hasta la factura indicada
+    // Proyección plana con las dimensiones de análisis (producto, cliente, usuario...)
+    // Con useCursorFetch=true en la URL, el fetch size hace que MySQL entregue las filas por lotes
+    // Debe consumirse dentro de una transacción y cerrarse al terminar
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(LINEAS_FACTURADAS + "WHERE f.id <= :maxFacturaId ORDER BY f.id")
+    Stream<LineaVentaView> streamLineasFacturadas(@Param("maxFacturaId") Long maxFacturaId);
+    
+    // Obtiene las líneas de una factura concreta con la misma proyección plana
+    @Query(LINEAS_FACTURADAS + "WHERE f.id = :facturaId")
+    List<LineaVentaView> findLineasFacturadas(@Param("facturaId") Long facturaId);
+    
+    // Recorre con un cursor las líneas facturadas de un periodo ordenadas por producto
+    // El orden permite cerrar los totales de cada producto en cuanto cambia el id,
+    // sin mantener un mapa con todos los productos en memoria
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT pr.id AS productoId, pr.nombre AS nombre, pr.categoria AS categoria, " +
+           "l.cantidad AS cantidad, l.subtotal AS subtotal " +
+           "FROM Factura f JOIN f.pedido p JOIN p.lineas l JOIN l.producto pr " +
+           "WHERE f.fechaEmision BETWEEN :inicio AND :fin " +
+           "AND f.estado <> com.mikeldi.reto.entity.EstadoFactura.CANCELADA " +
+           "ORDER BY pr.id")
+    Stream<VentaProductoView> streamVentasPorProducto(@Param("inicio") LocalDate inicio, @Param("fin") LocalDate fin);
+    
+    // Recorre con un cursor las líneas de los pedidos de un periodo para la exportación analítica
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT l.id AS id, p.id AS pedidoId, p.fechaPedido AS fechaPedido, pr.id AS productoId, " +
+           "pr.nombre AS productoNombre, pr.categoria AS categoria, l.cantidad AS cantidad, " +
+           "l.precioUnitario AS precioUnitario, l.iva AS iva, l.subtotal AS subtotal, " +
+           "l.importeIva AS importeIva, l.total AS total " +
+           "FROM LineaPedido l JOIN l.pedido p JOIN l.producto pr " +
+           "WHERE p.fechaPedido >= :desde AND p.fechaPedido < :hasta ORDER BY l.id")
+    Stream<LineaAnaliticaView> streamAnalitico(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
 }
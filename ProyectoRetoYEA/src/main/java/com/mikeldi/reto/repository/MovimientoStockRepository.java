@@ -2,16 +2,38 @@ package com.mikeldi.reto.repository;
 
 import com.mikeldi.reto.entity.MovimientoStock;
 import com.mikeldi.reto.entity.Producto;
+import com.mikeldi.reto.repository.projection.FlujoInventarioView;
+import com.mikeldi.reto.repository.projection.MovimientoAnaliticoView;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 // Marca esta interfaz como componente de repositorio para Spring
 @Repository
 public interface MovimientoStockRepository extends JpaRepository<MovimientoStock, Long> {
     
+    // Agregación interna común a los informes de flujo: solo lee idx_movimientos_flujo
+    // Agrupa por inicio de periodo (día, lunes de la semana o día 1 del mes), producto y tipo
+    // DAYOFWEEK cuenta desde el domingo (1), así (DAYOFWEEK + 5) % 7 son los días desde el lunes
+    String FLUJO_POR_PRODUCTO =
+        "SELECT CASE :agrupacion " +
+        "  WHEN 'SEMANA' THEN TIMESTAMPADD(DAY, -((DAYOFWEEK(m.fecha_movimiento) + 5) % 7), DATE(m.fecha_movimiento)) " +
+        "  WHEN 'MES' THEN TIMESTAMPADD(DAY, 1 - DAYOFMONTH(m.fecha_movimiento), DATE(m.fecha_movimiento)) " +
+        "  ELSE DATE(m.fecha_movimiento) END AS periodo, " +
+        "m.producto_id AS producto_id, m.tipo AS tipo, COUNT(*) AS movimientos, SUM(m.cantidad) AS unidades " +
+        "FROM movimientos_stock m " +
+        "WHERE m.fecha_movimiento >= :desde AND m.fecha_movimiento < :hasta " +
+        "AND (:productoId IS NULL OR m.producto_id = :productoId) " +
+        "GROUP BY periodo, m.producto_id, m.tipo";
+    
     // Busca todos los movimientos de un producto específico ordenados por fecha descendente
     // Muestra el historial completo de entradas, salidas y ajustes del producto
     List<MovimientoStock> findByProductoOrderByFechaMovimientoDesc(Producto producto);
@@ -26,4 +48,42 @@ public interface MovimientoStockRepository extends JpaRepository<MovimientoStock
     // Top20 limita el resultado sin necesidad de paginación manual
     // Útil para dashboards que muestran actividad reciente del almacén
     List<MovimientoStock> findTop20ByOrderByFechaMovimientoDesc();
+    
+    // Flujo de inventario por periodo, producto y tipo de movimiento
+    @Query(value = "SELECT d.periodo AS periodo, CAST(d.producto_id AS CHAR) AS clave, p.nombre AS nombre, " +
+                   "d.tipo AS tipo, d.movimientos AS movimientos, d.unidades AS unidades " +
+                   "FROM (" + FLUJO_POR_PRODUCTO + ") d JOIN productos p ON p.id = d.producto_id " +
+                   "WHERE (:categoria IS NULL OR p.categoria = :categoria) " +
+                   "ORDER BY d.periodo, d.producto_id, d.tipo",
+           nativeQuery = true)
+    List<FlujoInventarioView> flujoPorProducto(@Param("agrupacion") String agrupacion,
+                                               @Param("desde") LocalDateTime desde,
+                                               @Param("hasta") LocalDateTime hasta,
+                                               @Param("productoId") Long productoId,
+                                               @Param("categoria") String categoria);
+    
+    // Flujo de inventario por periodo, categoría y tipo de movimiento
+    // La categoría se resuelve sobre el resultado ya agrupado por producto, no sobre cada movimiento
+    @Query(value = "SELECT d.periodo AS periodo, COALESCE(p.categoria, '') AS clave, " +
+                   "COALESCE(p.categoria, '(sin categoría)') AS nombre, d.tipo AS tipo, " +
+                   "SUM(d.movimientos) AS movimientos, SUM(d.unidades) AS unidades " +
+                   "FROM (" + FLUJO_POR_PRODUCTO + ") d JOIN productos p ON p.id = d.producto_id " +
+                   "WHERE (:categoria IS NULL OR p.categoria = :categoria) " +
+                   "GROUP BY d.periodo, p.categoria, d.tipo " +
+                   "ORDER BY d.periodo, p.categoria, d.tipo",
+           nativeQuery = true)
+    List<FlujoInventarioView> flujoPorCategoria(@Param("agrupacion") String agrupacion,
+                                                @Param("desde") LocalDateTime desde,
+                                                @Param("hasta") LocalDateTime hasta,
+                                                @Param("productoId") Long productoId,
+                                                @Param("categoria") String categoria);
+    
+    // Recorre con un cursor los movimientos de un periodo para la exportación analítica, en orden de id
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT m.id AS id, pr.id AS productoId, pr.nombre AS productoNombre, m.tipo AS tipo, " +
+           "m.cantidad AS cantidad, m.stockAnterior AS stockAnterior, m.stockNuevo AS stockNuevo, " +
+           "u.id AS usuarioId, pe.id AS pedidoId, m.fechaMovimiento AS fechaMovimiento, m.motivo AS motivo " +
+           "FROM MovimientoStock m JOIN m.producto pr LEFT JOIN m.usuario u LEFT JOIN m.pedido pe " +
+           "WHERE m.fechaMovimiento >= :desde AND m.fechaMovimiento < :hasta ORDER BY m.id")
+    Stream<MovimientoAnaliticoView> streamAnalitico(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
 }
@@ -3,12 +3,23 @@ package com.mikeldi.reto.repository;
 import com.mikeldi.reto.entity.Cliente;
 import com.mikeldi.reto.entity.EstadoPedido;
 import com.mikeldi.reto.entity.Pedido;
+import com.mikeldi.reto.repository.projection.ConteoDiarioView;
+import com.mikeldi.reto.repository.projection.PedidoAnaliticoView;
+import com.mikeldi.reto.repository.projection.PedidoExportView;
+import com.mikeldi.reto.repository.projection.ResumenPedidosClienteView;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 // Marca esta interfaz como componente de repositorio para Spring
 @Repository
@@ -18,6 +29,10 @@ public interface PedidoRepository extends JpaRepository<Pedido, Long> {
     // Muestra el historial de compras más reciente primero
     List<Pedido> findByClienteOrderByFechaPedidoDesc(Cliente cliente);
     
+    // Número de pedidos y fecha del último de un cliente, resuelto con el índice (cliente_id, fecha_pedido)
+    @Query("SELECT COUNT(p) AS pedidos, MAX(p.fechaPedido) AS ultimoPedido FROM Pedido p WHERE p.cliente.id = :clienteId")
+    ResumenPedidosClienteView resumirPorCliente(@Param("clienteId") Long clienteId);
+    
     // Filtra pedidos por estado (PENDIENTE, PAGADO, ENVIADO, CANCELADO)
     // Ordenados por fecha descendente para priorizar los más recientes
     List<Pedido> findByEstadoOrderByFechaPedidoDesc(EstadoPedido estado);
@@ -35,4 +50,43 @@ public interface PedidoRepository extends JpaRepository<Pedido, Long> {
     // Cuenta cuántos pedidos hay en un estado específico
     // Retorna solo el número sin cargar entidades, optimizando rendimiento
     Long countByEstado(EstadoPedido estado);
+    
+    // Cuenta los pedidos realizados cada día dentro de un rango [desde, hasta)
+    // CAST a LocalDate agrupa por día ignorando la hora del pedido
+    @Query("SELECT CAST(p.fechaPedido AS LocalDate) AS fecha, COUNT(p) AS total FROM Pedido p " +
+           "WHERE p.fechaPedido >= :desde AND p.fechaPedido < :hasta " +
+           "GROUP BY CAST(p.fechaPedido AS LocalDate)")
+    List<ConteoDiarioView> contarPedidosPorDia(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
+    
+    // Recorre con un cursor todos los pedidos para exportarlos, más recientes primero
+    // Los nombres de cliente y usuario llegan en la misma fila, sin consultas adicionales por pedido
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT p.id AS id, c.nombre AS clienteNombre, u.nombre AS usuarioNombre, p.fechaPedido AS fechaPedido, " +
+           "p.estado AS estado, p.totalBase AS totalBase, p.totalIva AS totalIva, p.totalFinal AS totalFinal, " +
+           "p.observaciones AS observaciones " +
+           "FROM Pedido p JOIN p.cliente c JOIN p.usuario u ORDER BY p.fechaPedido DESC, p.id DESC")
+    Stream<PedidoExportView> streamParaExportar();
+    
+    // Recorre con un cursor los pedidos de un periodo para la exportación analítica, en orden de id
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT p.id AS id, c.id AS clienteId, c.nombre AS clienteNombre, u.id AS usuarioId, " +
+           "p.fechaPedido AS fechaPedido, p.estado AS estado, p.totalBase AS totalBase, " +
+           "p.totalIva AS totalIva, p.totalFinal AS totalFinal " +
+           "FROM Pedido p JOIN p.cliente c JOIN p.usuario u " +
+           "WHERE p.fechaPedido >= :desde AND p.fechaPedido < :hasta ORDER BY p.id")
+    Stream<PedidoAnaliticoView> streamAnalitico(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
+    
+    // Pedidos (con cliente y usuario) modificados después de la posición (fecha, id) y hasta la fecha límite, para la sincronización
+    // El orden por fecha de actualización e id permite continuar por donde se quedó la página anterior
+    @EntityGraph(attributePaths = {"cliente", "usuario"})
+    @Query("SELECT p FROM Pedido p " +
+           "WHERE (p.fechaActualizacion > :fecha OR (p.fechaActualizacion = :fecha AND p.id > :id)) " +
+           "AND p.fechaActualizacion <= :hasta " +
+           "ORDER BY p.fechaActualizacion, p.id")
+    List<Pedido> cambiosDesde(@Param("fecha") LocalDateTime fecha, @Param("id") Long id,
+                              @Param("hasta") LocalDateTime hasta, Limit limite);
+    
+    // Carga de una vez las líneas y sus productos de los pedidos indicados (evita una consulta por pedido)
+    @Query("SELECT DISTINCT p FROM Pedido p LEFT JOIN FETCH p.lineas l LEFT JOIN FETCH l.producto WHERE p IN :pedidos")
+    List<Pedido> cargarLineas(@Param("pedidos") List<Pedido> pedidos);
 }
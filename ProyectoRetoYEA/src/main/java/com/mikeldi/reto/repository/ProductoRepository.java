@@ -1,16 +1,30 @@
 package com.mikeldi.reto.repository;
 
 import com.mikeldi.reto.entity.Producto;
+import com.mikeldi.reto.repository.projection.ProductoBusquedaView;
+import com.mikeldi.reto.repository.projection.SugerenciaView;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 // Marca esta interfaz como componente de repositorio para Spring
 @Repository
 public interface ProductoRepository extends JpaRepository<Producto, Long> {
     
+    // Consulta base del autocompletado: datos del producto y sus unidades pedidas como popularidad
+    String SUGERENCIAS = "SELECT p.id AS id, p.nombre AS nombre, p.categoria AS detalle, p.activo AS activo, " +
+            "(SELECT COALESCE(SUM(l.cantidad), 0) FROM LineaPedido l WHERE l.producto = p) AS popularidad FROM Producto p ";
+    
     // Busca productos cuyo nombre contenga el texto especificado (búsqueda parcial)
     // IgnoreCase hace la búsqueda insensible a mayúsculas/minúsculas
     // Útil para implementar buscadores con autocompletado
@@ -42,4 +56,31 @@ public interface ProductoRepository extends JpaRepository<Producto, Long> {
     // Busca productos activos con stock menor al mínimo especificado
     // Alternativa más flexible que permite definir el umbral dinámicamente
     List<Producto> findByStockActualLessThanAndActivoTrue(Integer stockMinimo);
+    
+    // Productos modificados después de la posición (fecha, id) y hasta la fecha límite, para la sincronización
+    // El orden por fecha de actualización e id permite continuar por donde se quedó la página anterior
+    @Query("SELECT p FROM Producto p " +
+           "WHERE (p.fechaActualizacion > :fecha OR (p.fechaActualizacion = :fecha AND p.id > :id)) " +
+           "AND p.fechaActualizacion <= :hasta " +
+           "ORDER BY p.fechaActualizacion, p.id")
+    List<Producto> cambiosDesde(@Param("fecha") LocalDateTime fecha, @Param("id") Long id,
+                                @Param("hasta") LocalDateTime hasta, Limit limite);
+    
+    // Recorre con un cursor los campos de texto de todos los productos para cargar el índice de búsqueda
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT p.id AS id, p.nombre AS nombre, p.descripcion AS descripcion, p.categoria AS categoria " +
+           "FROM Producto p ORDER BY p.id")
+    Stream<ProductoBusquedaView> streamParaIndexar();
+    
+    // Recorre con un cursor todos los productos para cargar el autocompletado
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(SUGERENCIAS)
+    Stream<SugerenciaView> streamParaAutocompletar();
+    
+    // Datos de autocompletado de los productos indicados, para releer los modificados durante la carga
+    @Query(SUGERENCIAS + "WHERE p.id IN :ids")
+    List<SugerenciaView> findSugerencias(@Param("ids") Collection<Long> ids);
+    
+    // Productos activos cuyo nombre empieza por el texto, mientras el autocompletado no está cargado
+    List<Producto> findByActivoTrueAndNombreStartingWithIgnoreCaseOrderByNombre(String prefijo, Limit limite);
 }
@@ -0,0 +1,70 @@
+package com.mikeldi.reto.repository;
+
+import com.mikeldi.reto.entity.ResumenGeografico;
+import com.mikeldi.reto.repository.projection.ResumenGeograficoView;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// Marca esta interfaz como componente de repositorio para Spring
+@Repository
+public interface ResumenGeograficoRepository extends JpaRepository<ResumenGeografico, Long> {
+    
+    // Suma un incremento (positivo o negativo) a la fila de la provincia y ciudad indicadas
+    // ON DUPLICATE KEY UPDATE crea la fila si no existe o acumula sobre la existente
+    @Modifying
+    @Query(value = "INSERT INTO resumen_geografico (provincia, ciudad, num_clientes, clientes_activos, num_facturas, facturacion) " +
+                   "VALUES (:provincia, :ciudad, :numClientes, :clientesActivos, :numFacturas, :facturacion) " +
+                   "ON DUPLICATE KEY UPDATE num_clientes = num_clientes + VALUES(num_clientes), " +
+                   "clientes_activos = clientes_activos + VALUES(clientes_activos), " +
+                   "num_facturas = num_facturas + VALUES(num_facturas), " +
+                   "facturacion = facturacion + VALUES(facturacion)",
+           nativeQuery = true)
+    void acumular(@Param("provincia") String provincia, @Param("ciudad") String ciudad,
+                  @Param("numClientes") long numClientes, @Param("clientesActivos") long clientesActivos,
+                  @Param("numFacturas") long numFacturas, @Param("facturacion") BigDecimal facturacion);
+    
+    // Vacía la tabla de resumen antes de reconstruirla
+    @Modifying
+    @Query(value = "DELETE FROM resumen_geografico", nativeQuery = true)
+    void vaciar();
+    
+    // Recalcula el resumen completo agrupando los clientes por ubicación con los totales de sus facturas
+    // Tras vaciar la tabla, un alta confirmada en ese momento puede haber creado ya la fila de su ubicación:
+    // ON DUPLICATE KEY UPDATE la sobrescribe con los valores absolutos en lugar de fallar por clave duplicada
+    @Modifying
+    @Query(value = "INSERT INTO resumen_geografico (provincia, ciudad, num_clientes, clientes_activos, num_facturas, facturacion) " +
+                   "SELECT TRIM(COALESCE(c.provincia, '')), TRIM(COALESCE(c.ciudad, '')), COUNT(*), " +
+                   "SUM(CASE WHEN c.activo THEN 1 ELSE 0 END), COALESCE(SUM(f.facturas), 0), COALESCE(SUM(f.facturacion), 0) " +
+                   "FROM clientes c LEFT JOIN (" +
+                   "SELECT cliente_id, COUNT(*) AS facturas, " +
+                   "SUM(CASE WHEN estado <> 'CANCELADA' THEN total_final ELSE 0 END) AS facturacion " +
+                   "FROM facturas GROUP BY cliente_id) f ON f.cliente_id = c.id " +
+                   "GROUP BY TRIM(COALESCE(c.provincia, '')), TRIM(COALESCE(c.ciudad, '')) " +
+                   "ON DUPLICATE KEY UPDATE num_clientes = VALUES(num_clientes), " +
+                   "clientes_activos = VALUES(clientes_activos), " +
+                   "num_facturas = VALUES(num_facturas), " +
+                   "facturacion = VALUES(facturacion)",
+           nativeQuery = true)
+    int reconstruirDesdeClientes();
+    
+    // Totales por provincia sumando sus ciudades; la tabla tiene una fila por ciudad, no por cliente
+    @Query("SELECT r.provincia AS zona, SUM(r.numClientes) AS clientes, SUM(r.clientesActivos) AS clientesActivos, " +
+           "SUM(r.numFacturas) AS facturas, SUM(r.facturacion) AS facturacion " +
+           "FROM ResumenGeografico r GROUP BY r.provincia " +
+           "HAVING SUM(r.numClientes) > 0 OR SUM(r.numFacturas) > 0 " +
+           "ORDER BY SUM(r.numClientes) DESC, r.provincia")
+    List<ResumenGeograficoView> resumirPorProvincia();
+    
+    // Ciudades de una provincia, por la clave única (provincia, ciudad)
+    @Query("SELECT r.ciudad AS zona, r.numClientes AS clientes, r.clientesActivos AS clientesActivos, " +
+           "r.numFacturas AS facturas, r.facturacion AS facturacion " +
+           "FROM ResumenGeografico r WHERE r.provincia = :provincia AND (r.numClientes > 0 OR r.numFacturas > 0) " +
+           "ORDER BY r.numClientes DESC, r.ciudad")
+    List<ResumenGeograficoView> resumirPorCiudad(@Param("provincia") String provincia);
+}
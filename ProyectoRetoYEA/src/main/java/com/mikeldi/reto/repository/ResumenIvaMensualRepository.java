@@ -0,0 +1,58 @@
+package com.mikeldi.reto.repository;
+
+import com.mikeldi.reto.entity.ResumenIvaMensual;
+import com.mikeldi.reto.repository.projection.IvaMensualView;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// Marca esta interfaz como componente de repositorio para Spring
+@Repository
+public interface ResumenIvaMensualRepository extends JpaRepository<ResumenIvaMensual, Long> {
+    
+    // Suma un incremento (positivo o negativo) a la fila del mes y tipo de IVA indicados
+    // ON DUPLICATE KEY UPDATE crea la fila si no existe o acumula sobre la existente
+    @Modifying
+    @Query(value = "INSERT INTO resumen_iva_mensual (anio, mes, tipo_iva, num_facturas, base, cuota) " +
+                   "VALUES (:anio, :mes, :tipoIva, :numFacturas, :base, :cuota) " +
+                   "ON DUPLICATE KEY UPDATE num_facturas = num_facturas + VALUES(num_facturas), " +
+                   "base = base + VALUES(base), " +
+                   "cuota = cuota + VALUES(cuota)",
+           nativeQuery = true)
+    void acumular(@Param("anio") int anio, @Param("mes") int mes, @Param("tipoIva") BigDecimal tipoIva,
+                  @Param("numFacturas") long numFacturas, @Param("base") BigDecimal base,
+                  @Param("cuota") BigDecimal cuota);
+    
+    // Vacía la tabla de resumen antes de reconstruirla
+    @Modifying
+    @Query(value = "DELETE FROM resumen_iva_mensual", nativeQuery = true)
+    void vaciar();
+    
+    // Recalcula el resumen completo desde las líneas de los pedidos facturados y no cancelados
+    // Tras vaciar la tabla, una factura confirmada en ese momento puede haber creado ya la fila de su mes:
+    // ON DUPLICATE KEY UPDATE la sobrescribe con los valores absolutos en lugar de fallar por clave duplicada
+    @Modifying
+    @Query(value = "INSERT INTO resumen_iva_mensual (anio, mes, tipo_iva, num_facturas, base, cuota) " +
+                   "SELECT YEAR(f.fecha_emision), MONTH(f.fecha_emision), l.iva, " +
+                   "COUNT(DISTINCT f.id), SUM(l.subtotal), SUM(l.importe_iva) " +
+                   "FROM facturas f JOIN lineas_pedido l ON l.pedido_id = f.pedido_id " +
+                   "WHERE f.estado <> 'CANCELADA' " +
+                   "GROUP BY YEAR(f.fecha_emision), MONTH(f.fecha_emision), l.iva " +
+                   "ON DUPLICATE KEY UPDATE num_facturas = VALUES(num_facturas), " +
+                   "base = VALUES(base), " +
+                   "cuota = VALUES(cuota)",
+           nativeQuery = true)
+    int reconstruirDesdeFacturas();
+    
+    // Lee los meses completos entre dos índices de mes (año * 12 + mes - 1), ambos incluidos
+    @Query("SELECT r.anio AS anio, r.mes AS mes, r.tipoIva AS tipoIva, r.numFacturas AS facturas, " +
+           "r.base AS base, r.cuota AS cuota FROM ResumenIvaMensual r " +
+           "WHERE r.anio * 12 + r.mes - 1 BETWEEN :desde AND :hasta AND r.numFacturas > 0 " +
+           "ORDER BY r.anio, r.mes, r.tipoIva")
+    List<IvaMensualView> resumirPorMes(@Param("desde") int desde, @Param("hasta") int hasta);
+}
@@ -1,10 +1,16 @@
 package com.mikeldi.reto.repository;
 
 import com.mikeldi.reto.entity.Usuario;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
+import java.util.stream.Stream;
 
 // Marca esta interfaz como componente de repositorio para Spring
 @Repository
@@ -19,4 +25,13 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
     // Útil para validaciones durante el registro de nuevos usuarios
     // Evita duplicados sin cargar la entidad completa
     Boolean existsByEmail(String email);
+    
+    // Id del usuario con el email indicado, sin cargar la entidad
+    @Query("SELECT u.id FROM Usuario u WHERE u.email = :email")
+    Optional<Long> findIdByEmail(@Param("email") String email);
+    
+    // Recorre con un cursor los emails registrados para cargar el índice de identificadores
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT u.email FROM Usuario u")
+    Stream<String> streamEmails();
 }
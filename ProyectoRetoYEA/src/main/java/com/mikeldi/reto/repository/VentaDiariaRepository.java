@@ -0,0 +1,64 @@
+package com.mikeldi.reto.repository;
+
+import com.mikeldi.reto.entity.VentaDiaria;
+import com.mikeldi.reto.repository.projection.VentasDiariasView;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+// Marca esta interfaz como componente de repositorio para Spring
+@Repository
+public interface VentaDiariaRepository extends JpaRepository<VentaDiaria, Long> {
+    
+    // Suma un incremento (positivo o negativo) a la fila del día y estado indicados
+    // ON DUPLICATE KEY UPDATE crea la fila si no existe o acumula sobre la existente
+    // en una única sentencia atómica, sin leer la fila previamente
+    @Modifying
+    @Query(value = "INSERT INTO ventas_diarias (fecha, estado, num_facturas, total_base, total_iva, total_final) " +
+                   "VALUES (:fecha, :estado, :numFacturas, :totalBase, :totalIva, :totalFinal) " +
+                   "ON DUPLICATE KEY UPDATE num_facturas = num_facturas + VALUES(num_facturas), " +
+                   "total_base = total_base + VALUES(total_base), " +
+                   "total_iva = total_iva + VALUES(total_iva), " +
+                   "total_final = total_final + VALUES(total_final)",
+           nativeQuery = true)
+    void acumular(@Param("fecha") LocalDate fecha, @Param("estado") String estado,
+                  @Param("numFacturas") long numFacturas, @Param("totalBase") BigDecimal totalBase,
+                  @Param("totalIva") BigDecimal totalIva, @Param("totalFinal") BigDecimal totalFinal);
+    
+    // Vacía la tabla de resumen antes de reconstruirla
+    @Modifying
+    @Query(value = "DELETE FROM ventas_diarias", nativeQuery = true)
+    void vaciar();
+    
+    // Recalcula el resumen completo agregando la tabla facturas por día y estado
+    // Tras vaciar la tabla, una factura confirmada en ese momento puede haber creado ya la fila de su día:
+    // ON DUPLICATE KEY UPDATE la sobrescribe con los valores absolutos en lugar de fallar por clave duplicada
+    @Modifying
+    @Query(value = "INSERT INTO ventas_diarias (fecha, estado, num_facturas, total_base, total_iva, total_final) " +
+                   "SELECT fecha_emision, estado, COUNT(*), SUM(total_base), SUM(total_iva), SUM(total_final) " +
+                   "FROM facturas GROUP BY fecha_emision, estado " +
+                   "ON DUPLICATE KEY UPDATE num_facturas = VALUES(num_facturas), " +
+                   "total_base = VALUES(total_base), " +
+                   "total_iva = VALUES(total_iva), " +
+                   "total_final = VALUES(total_final)",
+           nativeQuery = true)
+    int reconstruirDesdeFacturas();
+    
+    // Lee el resumen de ventas por día directamente de la tabla agregada
+    // El coste depende del número de días del periodo, no del número de facturas
+    @Query("SELECT v.fecha AS fecha, SUM(v.numFacturas) AS totalFacturas, " +
+           "SUM(v.totalFinal) AS ventasTotales, " +
+           "SUM(CASE WHEN v.estado = com.mikeldi.reto.entity.EstadoFactura.PAGADA THEN v.totalFinal END) AS ventasPagadas, " +
+           "SUM(CASE WHEN v.estado = com.mikeldi.reto.entity.EstadoFactura.PENDIENTE THEN v.totalFinal END) AS ventasPendientes, " +
+           "SUM(CASE WHEN v.estado IN (com.mikeldi.reto.entity.EstadoFactura.PENDIENTE, com.mikeldi.reto.entity.EstadoFactura.VENCIDA) " +
+           "THEN v.numFacturas ELSE 0 END) AS facturasAbiertas " +
+           "FROM VentaDiaria v WHERE v.fecha BETWEEN :inicio AND :fin " +
+           "GROUP BY v.fecha HAVING SUM(v.numFacturas) > 0 ORDER BY v.fecha DESC")
+    List<VentasDiariasView> resumirVentasPorDia(@Param("inicio") LocalDate inicio, @Param("fin") LocalDate fin);
+}
@@ -0,0 +1,23 @@
+package com.mikeldi.reto.repository.projection;
+
+import java.math.BigDecimal;
+
+// Proyección con la deuda pendiente de un cliente repartida por días de retraso
+public interface AntiguedadDeudaView {
+    
+    Long getClienteId();
+    
+    String getNombre();
+    
+    // Número de facturas pendientes de cobro
+    Long getFacturas();
+    
+    // Importes por tramo de días transcurridos desde el vencimiento
+    BigDecimal getTramo0a30();
+    
+    BigDecimal getTramo31a60();
+    
+    BigDecimal getTramo61a90();
+    
+    BigDecimal getTramoMas90();
+}
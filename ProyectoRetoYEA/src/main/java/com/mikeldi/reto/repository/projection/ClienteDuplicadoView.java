@@ -0,0 +1,17 @@
+package com.mikeldi.reto.repository.projection;
+
+// Proyección con los campos de un cliente que intervienen en la detección de duplicados
+public interface ClienteDuplicadoView {
+    
+    Long getId();
+    
+    String getNombre();
+    
+    String getNif();
+    
+    String getDireccion();
+    
+    String getEmail();
+    
+    String getTelefono();
+}
@@ -0,0 +1,23 @@
+package com.mikeldi.reto.repository.projection;
+
+// Proyección plana de un cliente para exportaciones recorridas con cursor
+public interface ClienteExportView {
+    
+    Long getId();
+    
+    String getNombre();
+    
+    String getNif();
+    
+    String getEmail();
+    
+    String getTelefono();
+    
+    String getDireccion();
+    
+    String getCiudad();
+    
+    String getProvincia();
+    
+    String getCodigoPostal();
+}
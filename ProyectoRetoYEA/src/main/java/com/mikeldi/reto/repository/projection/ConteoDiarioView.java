@@ -0,0 +1,13 @@
+package com.mikeldi.reto.repository.projection;
+
+import java.time.LocalDate;
+
+// Proyección genérica con un recuento agrupado por día
+public interface ConteoDiarioView {
+    
+    // Día al que corresponde el recuento
+    LocalDate getFecha();
+    
+    // Número de registros de ese día
+    Long getTotal();
+}
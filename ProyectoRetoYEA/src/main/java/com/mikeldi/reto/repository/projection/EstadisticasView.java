@@ -0,0 +1,23 @@
+package com.mikeldi.reto.repository.projection;
+
+import java.math.BigDecimal;
+
+// Proyección con todos los KPIs del panel calculados en una única consulta
+public interface EstadisticasView {
+    
+    Long getTotalClientes();
+    
+    Long getTotalProductos();
+    
+    Long getTotalPedidos();
+    
+    Long getTotalFacturas();
+    
+    Long getProductosStockBajo();
+    
+    Long getFacturasPendientes();
+    
+    BigDecimal getVentasTotalesMes();
+    
+    BigDecimal getVentasPendientesCobro();
+}
@@ -0,0 +1,32 @@
+package com.mikeldi.reto.repository.projection;
+
+import com.mikeldi.reto.entity.EstadoFactura;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Proyección plana de una factura para la exportación analítica (Parquet)
+public interface FacturaAnaliticaView {
+    
+    Long getId();
+    
+    String getNumeroFactura();
+    
+    Long getPedidoId();
+    
+    Long getClienteId();
+    
+    String getClienteNombre();
+    
+    LocalDate getFechaEmision();
+    
+    LocalDate getFechaVencimiento();
+    
+    EstadoFactura getEstado();
+    
+    BigDecimal getTotalBase();
+    
+    BigDecimal getTotalIva();
+    
+    BigDecimal getTotalFinal();
+}
@@ -0,0 +1,30 @@
+package com.mikeldi.reto.repository.projection;
+
+import com.mikeldi.reto.entity.EstadoFactura;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Proyección plana de una factura con el nombre del cliente ya resuelto
+public interface FacturaExportView {
+    
+    Long getId();
+    
+    String getNumeroFactura();
+    
+    String getClienteNombre();
+    
+    LocalDate getFechaEmision();
+    
+    LocalDate getFechaVencimiento();
+    
+    EstadoFactura getEstado();
+    
+    BigDecimal getTotalBase();
+    
+    BigDecimal getTotalIva();
+    
+    BigDecimal getTotalFinal();
+    
+    String getObservaciones();
+}
@@ -0,0 +1,25 @@
+package com.mikeldi.reto.repository.projection;
+
+import java.time.LocalDate;
+
+// Proyección con los movimientos de stock agregados por periodo, producto o categoría y tipo
+public interface FlujoInventarioView {
+    
+    // Primer día del periodo (día, lunes de la semana o día 1 del mes)
+    LocalDate getPeriodo();
+    
+    // Id del producto o nombre de la categoría
+    String getClave();
+    
+    // Nombre del producto o de la categoría
+    String getNombre();
+    
+    // Tipo de movimiento (ENTRADA, SALIDA, VENTA, AJUSTE)
+    String getTipo();
+    
+    // Número de movimientos
+    Long getMovimientos();
+    
+    // Suma de unidades movidas
+    Long getUnidades();
+}
@@ -0,0 +1,23 @@
+package com.mikeldi.reto.repository.projection;
+
+import java.math.BigDecimal;
+
+// Proyección de solo lectura con la base y la cuota de IVA de un mes y tipo impositivo
+public interface IvaMensualView {
+    
+    Integer getAnio();
+    
+    Integer getMes();
+    
+    // Porcentaje de IVA
+    BigDecimal getTipoIva();
+    
+    // Número de facturas con líneas de este tipo en el mes
+    Long getFacturas();
+    
+    // Suma de bases imponibles
+    BigDecimal getBase();
+    
+    // Suma de cuotas de IVA
+    BigDecimal getCuota();
+}
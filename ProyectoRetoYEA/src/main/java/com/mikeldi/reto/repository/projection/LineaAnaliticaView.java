@@ -0,0 +1,33 @@
+package com.mikeldi.reto.repository.projection;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Proyección plana de una línea de pedido para la exportación analítica (Parquet)
+// Lleva la fecha del pedido y la categoría del producto para filtrar sin cruces posteriores
+public interface LineaAnaliticaView {
+    
+    Long getId();
+    
+    Long getPedidoId();
+    
+    LocalDateTime getFechaPedido();
+    
+    Long getProductoId();
+    
+    String getProductoNombre();
+    
+    String getCategoria();
+    
+    Integer getCantidad();
+    
+    BigDecimal getPrecioUnitario();
+    
+    BigDecimal getIva();
+    
+    BigDecimal getSubtotal();
+    
+    BigDecimal getImporteIva();
+    
+    BigDecimal getTotal();
+}
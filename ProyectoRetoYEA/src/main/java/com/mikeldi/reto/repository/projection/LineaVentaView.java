@@ -0,0 +1,38 @@
+package com.mikeldi.reto.repository.projection;
+
+import com.mikeldi.reto.entity.EstadoFactura;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Proyección plana de una línea facturada con todas sus dimensiones de análisis
+// Una fila por línea de pedido de un pedido facturado
+public interface LineaVentaView {
+    
+    Long getFacturaId();
+    
+    LocalDate getFechaEmision();
+    
+    EstadoFactura getEstado();
+    
+    Integer getCantidad();
+    
+    // Importe sin IVA de la línea
+    BigDecimal getSubtotal();
+    
+    Long getProductoId();
+    
+    String getProductoNombre();
+    
+    String getCategoria();
+    
+    Long getClienteId();
+    
+    String getClienteNombre();
+    
+    String getProvincia();
+    
+    Long getUsuarioId();
+    
+    String getUsuarioNombre();
+}
@@ -0,0 +1,31 @@
+package com.mikeldi.reto.repository.projection;
+
+import com.mikeldi.reto.entity.TipoMovimiento;
+
+import java.time.LocalDateTime;
+
+// Proyección plana de un movimiento de stock para la exportación analítica (Parquet)
+public interface MovimientoAnaliticoView {
+    
+    Long getId();
+    
+    Long getProductoId();
+    
+    String getProductoNombre();
+    
+    TipoMovimiento getTipo();
+    
+    Integer getCantidad();
+    
+    Integer getStockAnterior();
+    
+    Integer getStockNuevo();
+    
+    Long getUsuarioId();
+    
+    Long getPedidoId();
+    
+    LocalDateTime getFechaMovimiento();
+    
+    String getMotivo();
+}
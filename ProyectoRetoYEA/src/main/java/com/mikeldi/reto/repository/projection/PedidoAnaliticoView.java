@@ -0,0 +1,29 @@
+package com.mikeldi.reto.repository.projection;
+
+import com.mikeldi.reto.entity.EstadoPedido;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Proyección plana de un pedido para la exportación analítica (Parquet)
+// Incluye los identificadores de cliente y usuario para cruzarlos en el destino
+public interface PedidoAnaliticoView {
+    
+    Long getId();
+    
+    Long getClienteId();
+    
+    String getClienteNombre();
+    
+    Long getUsuarioId();
+    
+    LocalDateTime getFechaPedido();
+    
+    EstadoPedido getEstado();
+    
+    BigDecimal getTotalBase();
+    
+    BigDecimal getTotalIva();
+    
+    BigDecimal getTotalFinal();
+}
@@ -0,0 +1,29 @@
+package com.mikeldi.reto.repository.projection;
+
+import com.mikeldi.reto.entity.EstadoPedido;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Proyección plana de un pedido con los nombres de cliente y usuario ya resueltos
+// Evita cargar las entidades relacionadas fila a fila durante una exportación
+public interface PedidoExportView {
+    
+    Long getId();
+    
+    String getClienteNombre();
+    
+    String getUsuarioNombre();
+    
+    LocalDateTime getFechaPedido();
+    
+    EstadoPedido getEstado();
+    
+    BigDecimal getTotalBase();
+    
+    BigDecimal getTotalIva();
+    
+    BigDecimal getTotalFinal();
+    
+    String getObservaciones();
+}
@@ -0,0 +1,13 @@
+package com.mikeldi.reto.repository.projection;
+
+// Proyección con los campos de texto de un producto para cargar el índice de búsqueda
+public interface ProductoBusquedaView {
+    
+    Long getId();
+    
+    String getNombre();
+    
+    String getDescripcion();
+    
+    String getCategoria();
+}
@@ -0,0 +1,24 @@
+package com.mikeldi.reto.repository.projection;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Proyección con los totales de facturación de un cliente calculados en una única consulta
+// Las sumas son null si el cliente no tiene facturas en ese estado
+public interface ResumenFacturasClienteView {
+    
+    Long getFacturas();
+    
+    LocalDate getUltimaFactura();
+    
+    // Suma de las facturas no canceladas
+    BigDecimal getTotalFacturado();
+    
+    // Número y suma de las facturas pendientes de cobro (PENDIENTES o VENCIDAS)
+    Long getFacturasPendientes();
+    
+    BigDecimal getSaldoPendiente();
+    
+    // Suma de las facturas VENCIDAS
+    BigDecimal getSaldoVencido();
+}
@@ -0,0 +1,19 @@
+package com.mikeldi.reto.repository.projection;
+
+import java.math.BigDecimal;
+
+// Proyección con los totales de una zona (provincia o ciudad) leídos de la tabla resumen_geografico
+public interface ResumenGeograficoView {
+    
+    // Nombre de la provincia o de la ciudad, según el nivel consultado
+    String getZona();
+    
+    Long getClientes();
+    
+    Long getClientesActivos();
+    
+    Long getFacturas();
+    
+    // Suma de las facturas no canceladas
+    BigDecimal getFacturacion();
+}
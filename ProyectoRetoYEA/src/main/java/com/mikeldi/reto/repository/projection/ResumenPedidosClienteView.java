@@ -0,0 +1,11 @@
+package com.mikeldi.reto.repository.projection;
+
+import java.time.LocalDateTime;
+
+// Proyección con los totales de pedidos de un cliente calculados en una única consulta
+public interface ResumenPedidosClienteView {
+    
+    Long getPedidos();
+    
+    LocalDateTime getUltimoPedido();
+}
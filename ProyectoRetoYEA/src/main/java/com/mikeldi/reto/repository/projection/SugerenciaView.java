@@ -0,0 +1,17 @@
+package com.mikeldi.reto.repository.projection;
+
+// Proyección de un cliente o producto para cargar el autocompletado
+// El detalle es el NIF del cliente o la categoría del producto; la popularidad es el número
+// de pedidos del cliente o las unidades pedidas del producto
+public interface SugerenciaView {
+    
+    Long getId();
+    
+    String getNombre();
+    
+    String getDetalle();
+    
+    Boolean getActivo();
+    
+    Long getPopularidad();
+}
@@ -0,0 +1,13 @@
+package com.mikeldi.reto.repository.projection;
+
+// Proyección con la ubicación y el estado de un cliente antes de modificarlo (importación por lotes)
+public interface UbicacionClienteView {
+    
+    String getNif();
+    
+    String getProvincia();
+    
+    String getCiudad();
+    
+    Boolean getActivo();
+}
@@ -0,0 +1,16 @@
+package com.mikeldi.reto.repository.projection;
+
+import java.math.BigDecimal;
+
+// Proyección de una factura vista desde el cliente facturado
+public interface VentaClienteView {
+    
+    Long getClienteId();
+    
+    String getNombre();
+    
+    String getProvincia();
+    
+    // Importe sin IVA de la factura
+    BigDecimal getTotalBase();
+}
@@ -0,0 +1,18 @@
+package com.mikeldi.reto.repository.projection;
+
+import java.math.BigDecimal;
+
+// Proyección de una línea facturada vista desde el producto vendido
+public interface VentaProductoView {
+    
+    Long getProductoId();
+    
+    String getNombre();
+    
+    String getCategoria();
+    
+    Integer getCantidad();
+    
+    // Importe sin IVA de la línea
+    BigDecimal getSubtotal();
+}
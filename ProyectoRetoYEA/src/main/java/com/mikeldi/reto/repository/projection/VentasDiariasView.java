@@ -0,0 +1,27 @@
+package com.mikeldi.reto.repository.projection;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Proyección de solo lectura con las ventas agregadas de un día
+// Spring Data la rellena directamente desde la consulta agregada sin cargar entidades Factura
+public interface VentasDiariasView {
+    
+    // Día de emisión de las facturas agregadas
+    LocalDate getFecha();
+    
+    // Número de facturas emitidas ese día
+    Long getTotalFacturas();
+    
+    // Suma del total final de todas las facturas del día
+    BigDecimal getVentasTotales();
+    
+    // Suma del total final de las facturas PAGADAS
+    BigDecimal getVentasPagadas();
+    
+    // Suma del total final de las facturas PENDIENTES
+    BigDecimal getVentasPendientes();
+    
+    // Número de facturas aún sin liquidar (PENDIENTES o VENCIDAS); con 0 el día ya no cambia
+    Long getFacturasAbiertas();
+}
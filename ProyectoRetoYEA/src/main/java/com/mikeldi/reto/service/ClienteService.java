@@ -1,15 +1,29 @@
 package com.mikeldi.reto.service;
 
+import com.mikeldi.reto.busqueda.BusquedaService;
 import com.mikeldi.reto.dto.ClienteDTO;
+import com.mikeldi.reto.dto.ResumenClienteDTO;
 import com.mikeldi.reto.entity.Cliente;
 import com.mikeldi.reto.exception.BadRequestException;
 import com.mikeldi.reto.exception.ResourceNotFoundException;
 import com.mikeldi.reto.repository.ClienteRepository;
+import com.mikeldi.reto.repository.FacturaRepository;
+import com.mikeldi.reto.repository.PedidoRepository;
+import com.mikeldi.reto.repository.projection.ResumenFacturasClienteView;
+import com.mikeldi.reto.repository.projection.ResumenPedidosClienteView;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 // Marca esta clase como servicio de Spring con lógica de negocio
@@ -20,12 +34,46 @@ public class ClienteService {
     @Autowired
     private ClienteRepository clienteRepository;
     
+    // Índice de búsqueda aproximada en memoria
+    @Autowired
+    private BusquedaService busquedaService;
+    
+    // Filtro de Bloom y caché LRU de NIF para validar altas y resolver búsquedas por NIF
+    @Autowired
+    private IdentificadoresCache identificadoresCache;
+    
+    // Repositorios y servicio de facturas para el resumen de la ficha del cliente
+    @Autowired
+    private PedidoRepository pedidoRepository;
+    
+    @Autowired
+    private FacturaRepository facturaRepository;
+    
+    @Autowired
+    private FacturaService facturaService;
+    
+    // Tabla de resumen por provincia y ciudad, actualizada en la misma transacción
+    @Autowired
+    private ResumenGeograficoService resumenGeograficoService;
+    
+    // Caché de resúmenes, invalidada al cambiar los pedidos o facturas de cada cliente
+    @Autowired
+    private ResumenClienteCache resumenClienteCache;
+    
+    // Gestor de transacciones para calcular el resumen solo cuando no está en caché
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    // Número de facturas recientes incluidas en el resumen
+    @Value("${app.resumen-cliente.facturas-recientes:5}")
+    private int facturasRecientes;
+    
     // Crea un nuevo cliente con validación de NIF único
     // @Transactional asegura que toda la operación se ejecute en una transacción
     @Transactional
     public ClienteDTO crearCliente(ClienteDTO clienteDTO) {
         // Valida que el NIF no esté ya registrado en el sistema
-        if (clienteRepository.existsByNif(clienteDTO.getNif())) {
+        if (identificadoresCache.existeNif(clienteDTO.getNif())) {
             throw new BadRequestException("Ya existe un cliente con el NIF: " + clienteDTO.getNif());
         }
         
@@ -35,6 +83,7 @@ public class ClienteService {
         
         // Persiste en la base de datos y retorna el cliente con ID generado
         Cliente clienteGuardado = clienteRepository.save(cliente);
+        resumenGeograficoService.registrarAlta(clienteGuardado);
         return convertirADTO(clienteGuardado);
     }
     
@@ -65,10 +114,55 @@ public class ClienteService {
         return convertirADTO(cliente);
     }
     
+    // Resumen de la ficha del cliente: pedidos, facturación, saldo pendiente y últimas facturas
+    // Sin @Transactional: si está en caché se responde sin abrir conexión con la base de datos
+    public ResumenClienteDTO obtenerResumen(Long id) {
+        ResumenClienteDTO resumen = resumenClienteCache.buscar(id);
+        if (resumen != null) {
+            return resumen;
+        }
+        long version = resumenClienteCache.version();
+        TransactionTemplate plantilla = new TransactionTemplate(transactionManager);
+        plantilla.setReadOnly(true);
+        resumen = plantilla.execute(estado -> calcularResumen(id));
+        resumenClienteCache.guardar(id, resumen, version);
+        return resumen;
+    }
+    
+    // Calcula el resumen con una consulta agregada por tabla y la lista de facturas recientes
+    private ResumenClienteDTO calcularResumen(Long id) {
+        Cliente cliente = clienteRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Cliente", "id", id));
+        ResumenPedidosClienteView pedidos = pedidoRepository.resumirPorCliente(id);
+        ResumenFacturasClienteView facturas = facturaRepository.resumirPorCliente(id);
+        
+        ResumenClienteDTO resumen = new ResumenClienteDTO();
+        resumen.setClienteId(cliente.getId());
+        resumen.setNombre(cliente.getNombre());
+        resumen.setNif(cliente.getNif());
+        resumen.setActivo(cliente.getActivo());
+        resumen.setNumeroPedidos(pedidos.getPedidos());
+        resumen.setUltimoPedido(pedidos.getUltimoPedido());
+        resumen.setNumeroFacturas(facturas.getFacturas());
+        resumen.setUltimaFactura(facturas.getUltimaFactura());
+        // Sin facturas en un estado la suma es null: se devuelve cero
+        resumen.setTotalFacturado(Objects.requireNonNullElse(facturas.getTotalFacturado(), BigDecimal.ZERO));
+        resumen.setFacturasPendientes(Objects.requireNonNullElse(facturas.getFacturasPendientes(), 0L));
+        resumen.setSaldoPendiente(Objects.requireNonNullElse(facturas.getSaldoPendiente(), BigDecimal.ZERO));
+        resumen.setSaldoVencido(Objects.requireNonNullElse(facturas.getSaldoVencido(), BigDecimal.ZERO));
+        resumen.setFacturasRecientes(facturaRepository
+                .findByClienteIdOrderByFechaEmisionDescIdDesc(id, Limit.of(facturasRecientes)).stream()
+                .map(facturaService::convertirADTO)
+                .toList());
+        return resumen;
+    }
+    
     // Busca un cliente por su NIF/CIF único
+    // El id se resuelve con la caché de NIF; un NIF que el filtro descarta no llega a consultarse
     @Transactional(readOnly = true)
     public ClienteDTO obtenerPorNif(String nif) {
-        Cliente cliente = clienteRepository.findByNif(nif)
+        Cliente cliente = identificadoresCache.idPorNif(nif)
+                .flatMap(clienteRepository::findById)
                 .orElseThrow(() -> new ResourceNotFoundException("Cliente", "NIF", nif));
         return convertirADTO(cliente);
     }
@@ -81,21 +175,45 @@ public class ClienteService {
                 .collect(Collectors.toList());
     }
     
+    // Busca clientes por nombre, NIF, email o ciudad tolerando errores de escritura
+    // Usa el índice de trigramas en memoria, ordena por parecido y limita a app.busqueda.max-resultados;
+    // mientras el índice se carga al arrancar recurre a la búsqueda por nombre en base de datos
+    @Transactional(readOnly = true)
+    public List<ClienteDTO> buscarAproximado(String texto) {
+        if (!busquedaService.isDisponible()) {
+            return buscarPorNombre(texto);
+        }
+        List<Long> ids = busquedaService.buscarClientes(texto);
+        Map<Long, Cliente> porId = clienteRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Cliente::getId, Function.identity()));
+        // Conserva el orden de relevancia del índice
+        return ids.stream()
+                .map(porId::get)
+                .filter(Objects::nonNull)
+                .map(this::convertirADTO)
+                .collect(Collectors.toList());
+    }
+    
     // Actualiza los datos de un cliente existente
     @Transactional
     public ClienteDTO actualizarCliente(Long id, ClienteDTO clienteDTO) {
-        // Verifica que el cliente existe
-        Cliente cliente = clienteRepository.findById(id)
+        // Verifica que el cliente existe y bloquea su fila: la ubicación anterior y las facturas
+        // que se trasladan en el resumen geográfico no pueden cambiar hasta confirmar
+        Cliente cliente = clienteRepository.findByIdParaActualizar(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Cliente", "id", id));
         
         // Valida NIF solo si se está cambiando a uno diferente
         if (!cliente.getNif().equals(clienteDTO.getNif())) {
-            if (clienteRepository.existsByNif(clienteDTO.getNif())) {
+            if (identificadoresCache.existeNif(clienteDTO.getNif())) {
                 throw new BadRequestException("Ya existe un cliente con el NIF: " + clienteDTO.getNif());
             }
             cliente.setNif(clienteDTO.getNif());
         }
         
+        // Ubicación anterior, para trasladar el cliente en el resumen geográfico si se muda
+        String provinciaAnterior = cliente.getProvincia();
+        String ciudadAnterior = cliente.getCiudad();
+        
         // Actualiza todos los campos del cliente
         cliente.setNombre(clienteDTO.getNombre());
         cliente.setEmail(clienteDTO.getEmail());
@@ -107,32 +225,39 @@ public class ClienteService {
         
         // Persiste los cambios y retorna el cliente actualizado
         Cliente clienteActualizado = clienteRepository.save(cliente);
+        resumenGeograficoService.registrarCambio(clienteActualizado, provinciaAnterior, ciudadAnterior,
+                                                 Boolean.TRUE.equals(clienteActualizado.getActivo()));
         return convertirADTO(clienteActualizado);
     }
     
     // Elimina un cliente permanentemente del sistema
     @Transactional
     public void eliminarCliente(Long id) {
-        // Verifica que el cliente existe antes de eliminar
-        Cliente cliente = clienteRepository.findById(id)
+        // Verifica que el cliente existe antes de eliminar, con su fila bloqueada como al actualizarlo
+        Cliente cliente = clienteRepository.findByIdParaActualizar(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Cliente", "id", id));
+        resumenGeograficoService.registrarBaja(cliente);
         clienteRepository.delete(cliente);
     }
     
     // Activa o desactiva un cliente sin eliminarlo
     @Transactional
     public ClienteDTO cambiarEstado(Long id, boolean activo) {
-        Cliente cliente = clienteRepository.findById(id)
+        // Fila bloqueada: dos cambios simultáneos no restan dos veces el mismo cliente activo
+        Cliente cliente = clienteRepository.findByIdParaActualizar(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Cliente", "id", id));
         // Cambia el estado sin modificar otros campos
+        boolean activoAnterior = Boolean.TRUE.equals(cliente.getActivo());
         cliente.setActivo(activo);
         Cliente clienteActualizado = clienteRepository.save(cliente);
+        resumenGeograficoService.registrarCambio(clienteActualizado, cliente.getProvincia(), cliente.getCiudad(), activoAnterior);
         return convertirADTO(clienteActualizado);
     }
     
     // Convierte una entidad Cliente a DTO para transferencia segura
     // Los DTOs evitan exponer la estructura interna de la base de datos
-    private ClienteDTO convertirADTO(Cliente cliente) {
+    // Visible en el paquete para que la sincronización devuelva el mismo formato
+    ClienteDTO convertirADTO(Cliente cliente) {
         return new ClienteDTO(
                 cliente.getId(),
                 cliente.getNombre(),
@@ -0,0 +1,129 @@
+package com.mikeldi.reto.service;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import com.mikeldi.reto.exception.BadRequestException;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+// Compresión en streaming de las exportaciones
+// Se negocia con la cabecera Accept-Encoding o se elige al pedir un archivo ya comprimido
+public enum Compresion {
+    
+    // Sin compresión
+    NINGUNA("identity", ""),
+    // zstd: comprime más y más rápido que gzip; se prefiere si el cliente acepta ambas
+    ZSTD("zstd", ".zst"),
+    // gzip: soportado por cualquier navegador o cliente HTTP
+    GZIP("gzip", ".gz");
+    
+    // Tamaño del buffer de gzip; los volcados del exportador vacían también el compresor
+    private static final int BUFFER_GZIP = 64 * 1024;
+    
+    // Nivel de zstd: equilibrio entre ratio y CPU para comprimir al vuelo
+    private static final int NIVEL_ZSTD = 3;
+    
+    // Valor para las cabeceras Content-Encoding / Accept-Encoding
+    private final String codificacion;
+    
+    // Extensión que se añade al nombre de un archivo comprimido
+    private final String extension;
+    
+    Compresion(String codificacion, String extension) {
+        this.codificacion = codificacion;
+        this.extension = extension;
+    }
+    
+    public String getCodificacion() {
+        return codificacion;
+    }
+    
+    public String getExtension() {
+        return extension;
+    }
+    
+    // Envuelve la salida con el compresor
+    // Cerrar el stream devuelto termina la compresión pero no cierra la salida original,
+    // que pertenece a quien la abrió (la respuesta HTTP o un archivo)
+    public OutputStream comprimir(OutputStream salida) throws IOException {
+        OutputStream protegida = new SalidaNoCerrable(salida);
+        return switch (this) {
+            case NINGUNA -> protegida;
+            // syncFlush: cada flush envía al cliente lo comprimido hasta ese momento
+            case GZIP -> new GZIPOutputStream(protegida, BUFFER_GZIP, true);
+            case ZSTD -> new ZstdOutputStream(protegida, NIVEL_ZSTD);
+        };
+    }
+    
+    // Elige la compresión según Accept-Encoding respetando los pesos q (q=0 la rechaza)
+    // A igual peso se prefiere zstd; "*" cubre las codificaciones no nombradas
+    public static Compresion negociar(String aceptadas) {
+        if (aceptadas == null || aceptadas.isBlank()) {
+            return NINGUNA;
+        }
+        Map<String, Double> pesos = new HashMap<>();
+        for (String parte : aceptadas.split(",")) {
+            String[] trozos = parte.split(";");
+            double peso = 1.0;
+            for (int i = 1; i < trozos.length; i++) {
+                String parametro = trozos[i].trim();
+                if (parametro.startsWith("q=")) {
+                    try {
+                        peso = Double.parseDouble(parametro.substring(2));
+                    } catch (NumberFormatException e) {
+                        peso = 0;
+                    }
+                }
+            }
+            pesos.put(trozos[0].trim().toLowerCase(Locale.ROOT), peso);
+        }
+        
+        Compresion elegida = NINGUNA;
+        double mejorPeso = 0;
+        for (Compresion compresion : new Compresion[]{ZSTD, GZIP}) {
+            double peso = pesos.getOrDefault(compresion.codificacion, pesos.getOrDefault("*", 0.0));
+            if (peso > mejorPeso) {
+                elegida = compresion;
+                mejorPeso = peso;
+            }
+        }
+        return elegida;
+    }
+    
+    // Compresión pedida por nombre (gzip, zstd o ninguna)
+    public static Compresion desdeNombre(String nombre) {
+        if (nombre == null || nombre.isBlank()) {
+            return NINGUNA;
+        }
+        for (Compresion compresion : values()) {
+            if (compresion.codificacion.equalsIgnoreCase(nombre) || compresion.name().equalsIgnoreCase(nombre)) {
+                return compresion;
+            }
+        }
+        throw new BadRequestException("Compresión no soportada: " + nombre + " (gzip o zstd)");
+    }
+    
+    // Salida que al cerrarse solo vacía su buffer
+    private static class SalidaNoCerrable extends FilterOutputStream {
+        
+        SalidaNoCerrable(OutputStream salida) {
+            super(salida);
+        }
+        
+        // FilterOutputStream escribe byte a byte por defecto; se delega el bloque completo
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+        
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.mikeldi.reto.service;
+
+import com.mikeldi.reto.dto.EstadisticasDTO;
+import com.mikeldi.reto.entity.Cliente;
+import com.mikeldi.reto.entity.Factura;
+import com.mikeldi.reto.entity.Pedido;
+import com.mikeldi.reto.entity.Producto;
+import com.mikeldi.reto.event.EntidadModificadaEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.YearMonth;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+// Caché en memoria de las estadísticas del panel principal
+// Se invalida cuando confirma una transacción que modifica pedidos, facturas, productos o clientes
+// Las peticiones concurrentes sin valor en caché comparten un único cálculo
+@Component
+public class EstadisticasCache {
+    
+    // Valor actual: mes de cálculo y resultado (posiblemente aún en curso)
+    private final AtomicReference<Entrada> actual = new AtomicReference<>();
+    
+    // Retorna las estadísticas en caché o las calcula una sola vez con el proveedor indicado
+    public EstadisticasDTO obtener(Supplier<EstadisticasDTO> calculo) {
+        YearMonth mes = YearMonth.now();
+        while (true) {
+            Entrada entrada = actual.get();
+            // Reutiliza el valor si es del mes en curso (las ventas del mes dependen de la fecha)
+            if (entrada != null && entrada.mes.equals(mes)) {
+                try {
+                    return entrada.valor.join();
+                } catch (CompletionException e) {
+                    // El cálculo compartido falló: se descarta y se reintenta
+                    actual.compareAndSet(entrada, null);
+                    continue;
+                }
+            }
+            
+            // Solo el hilo que consigue instalar la nueva entrada ejecuta el cálculo
+            Entrada nueva = new Entrada(mes);
+            if (actual.compareAndSet(entrada, nueva)) {
+                try {
+                    nueva.valor.complete(calculo.get());
+                } catch (Throwable e) {
+                    // Cualquier fallo (también errores de la JVM) completa la entrada para no dejar
+                    // esperando a los demás hilos, y la retira para que la siguiente llamada reintente
+                    nueva.valor.completeExceptionally(e);
+                    actual.compareAndSet(nueva, null);
+                    throw e;
+                }
+                return nueva.valor.join();
+            }
+        }
+    }
+    
+    // Descarta el valor en caché; el siguiente acceso recalcula
+    public void invalidar() {
+        actual.set(null);
+    }
+    
+    // Invalida tras confirmar cambios en las entidades que alimentan los KPIs
+    // fallbackExecution permite reaccionar también a cambios fuera de transacción
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alModificarEntidad(EntidadModificadaEvent evento) {
+        if (evento.esDeTipo(Pedido.class) || evento.esDeTipo(Factura.class)
+                || evento.esDeTipo(Producto.class) || evento.esDeTipo(Cliente.class)) {
+            invalidar();
+        }
+    }
+    
+    // Entrada de caché asociada al mes en que se calculó
+    private static class Entrada {
+        private final YearMonth mes;
+        private final CompletableFuture<EstadisticasDTO> valor = new CompletableFuture<>();
+        
+        private Entrada(YearMonth mes) {
+            this.mes = mes;
+        }
+    }
+}
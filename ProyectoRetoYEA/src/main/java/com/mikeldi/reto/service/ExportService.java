@@ -1,250 +1,361 @@
 package com.mikeldi.reto.service;
 
 import com.itextpdf.text.*;
+import com.itextpdf.text.pdf.BadPdfFormatException;
+import com.itextpdf.text.pdf.ColumnText;
+import com.itextpdf.text.pdf.PdfContentByte;
+import com.itextpdf.text.pdf.PdfCopy;
+import com.itextpdf.text.pdf.PdfImportedPage;
 import com.itextpdf.text.pdf.PdfPCell;
 import com.itextpdf.text.pdf.PdfPTable;
+import com.itextpdf.text.pdf.PdfPageEventHelper;
+import com.itextpdf.text.pdf.PdfReader;
 import com.itextpdf.text.pdf.PdfWriter;
-import com.mikeldi.reto.dto.ClienteDTO;
-import com.mikeldi.reto.dto.FacturaDTO;
-import com.mikeldi.reto.dto.PedidoDTO;
+import com.mikeldi.reto.repository.ClienteRepository;
+import com.mikeldi.reto.repository.FacturaRepository;
+import com.mikeldi.reto.repository.PedidoRepository;
+import com.mikeldi.reto.repository.projection.ClienteExportView;
+import com.mikeldi.reto.repository.projection.FacturaExportView;
+import com.mikeldi.reto.repository.projection.PedidoExportView;
 import com.opencsv.CSVWriter;
 import com.opencsv.ICSVWriter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DataFormat;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.BufferedWriter;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.StringWriter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
-// Servicio especializado en exportar datos a formatos PDF y CSV
+// Servicio especializado en exportar datos a formatos PDF, CSV y XLSX
 @Service
 public class ExportService {
     
+    // Filas escritas entre cada volcado del buffer al cliente
+    private static final int FILAS_POR_VOLCADO = 1000;
+    
+    // Repositorios que recorren los datos con cursores para las exportaciones en streaming
+    @Autowired
+    private ClienteRepository clienteRepository;
+    
+    @Autowired
+    private PedidoRepository pedidoRepository;
+    
+    @Autowired
+    private FacturaRepository facturaRepository;
+    
+    // Gestor de transacciones para mantener abierto el cursor durante la escritura
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    // Hilos para renderizar partes de PDF en paralelo (0 = uno por núcleo)
+    @Value("${app.exportacion.pdf-hilos:0}")
+    private int hilosPdf;
+    
+    // Filas de cada parte del PDF en modo paralelo
+    @Value("${app.exportacion.pdf-filas-por-parte:5000}")
+    private int filasPorPartePdf;
+    
+    // Filas de la hoja XLSX que se mantienen en memoria antes de volcarlas al temporal
+    @Value("${app.exportacion.xlsx-ventana-filas:100}")
+    private int ventanaFilasXlsx;
+    
+    // Pool compartido por todas las exportaciones PDF en paralelo
+    private ForkJoinPool poolPdf;
+    
+    // Crea el pool de renderizado de PDF
+    @PostConstruct
+    void iniciar() {
+        poolPdf = new ForkJoinPool(hilosPdf > 0 ? hilosPdf : Runtime.getRuntime().availableProcessors());
+    }
+    
+    // Detiene el pool al cerrar la aplicación
+    @PreDestroy
+    void detener() {
+        poolPdf.shutdownNow();
+    }
+    
     // ============== EXPORTAR CLIENTES ==============
     
-    // Genera un PDF con la lista de clientes en formato tabla
-    public byte[] exportarClientesPDF(List<ClienteDTO> clientes) throws DocumentException {
-        // Crea documento en formato A4 horizontal para tablas anchas
-        Document document = new Document(PageSize.A4.rotate());
-        // ByteArrayOutputStream permite retornar el PDF como array de bytes
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        
-        // Asocia el writer con el documento y el stream de salida
-        PdfWriter.getInstance(document, baos);
-        document.open();
-        
-        // Añade título del documento centrado con fuente grande y negrita
-        Font titleFont = new Font(Font.FontFamily.HELVETICA, 18, Font.BOLD);
-        Paragraph title = new Paragraph("Listado de Clientes", titleFont);
-        title.setAlignment(Element.ALIGN_CENTER);
-        title.setSpacingAfter(20);  // Espacio después del título
-        document.add(title);
-        
-        // Crea tabla con 6 columnas para los datos de clientes
-        PdfPTable table = new PdfPTable(6);
-        table.setWidthPercentage(100);  // Ocupa el 100% del ancho de página
-        
-        // Añade encabezados de tabla con estilo
-        addTableHeader(table, new String[]{"ID", "Nombre", "NIF", "Email", "Teléfono", "Ciudad"});
-        
-        // Itera sobre cada cliente y añade sus datos como fila
-        for (ClienteDTO cliente : clientes) {
-            table.addCell(cliente.getId().toString());
-            table.addCell(cliente.getNombre());
-            table.addCell(cliente.getNif());
+    // Escribe el PDF de clientes directamente en el stream de salida
+    // En modo paralelo el listado se divide en partes que se renderizan a la vez y se unen en orden
+    public void escribirClientesPDF(OutputStream salida, boolean paralelo) throws IOException {
+        // Tabla con 6 columnas para los datos de clientes
+        escribirPDF(salida, paralelo, "Listado de Clientes",
+                    new String[]{"ID", "Nombre", "NIF", "Email", "Teléfono", "Ciudad"},
+                    clienteRepository::streamParaExportar, (ClienteExportView cliente) -> new String[]{
+            cliente.getId().toString(),
+            cliente.getNombre(),
+            cliente.getNif(),
             // Usa "-" para valores nulos en lugar de mostrar "null"
-            table.addCell(cliente.getEmail() != null ? cliente.getEmail() : "-");
-            table.addCell(cliente.getTelefono() != null ? cliente.getTelefono() : "-");
-            table.addCell(cliente.getCiudad() != null ? cliente.getCiudad() : "-");
-        }
-        
-        document.add(table);
-        document.close();
-        
-        // Retorna el PDF como array de bytes para descarga
-        return baos.toByteArray();
+            cliente.getEmail() != null ? cliente.getEmail() : "-",
+            cliente.getTelefono() != null ? cliente.getTelefono() : "-",
+            cliente.getCiudad() != null ? cliente.getCiudad() : "-"
+        });
     }
     
-    // Genera un CSV con la lista de clientes usando punto y coma como separador
-    public String exportarClientesCSV(List<ClienteDTO> clientes) throws IOException {
-        // StringWriter acumula el contenido CSV en memoria
-        StringWriter sw = new StringWriter();
-        // Configura CSVWriter con punto y coma (estándar en Excel europeo)
-        ICSVWriter csvWriter = new CSVWriter(sw, 
-                                             ';',  // Separador de campos
-                                             ICSVWriter.DEFAULT_QUOTE_CHARACTER,
-                                             ICSVWriter.DEFAULT_ESCAPE_CHARACTER,
-                                             ICSVWriter.DEFAULT_LINE_END);
-        
+    // Escribe el CSV de clientes directamente en el stream de salida (punto y coma como separador)
+    // Las filas se leen con un cursor y se vuelcan periódicamente: la memoria no depende del número de clientes
+    public void escribirClientesCSV(OutputStream salida) throws IOException {
         // Escribe la fila de encabezados
         String[] header = {"ID", "Nombre", "NIF", "Email", "Teléfono", "Dirección", "Ciudad", "Provincia", "CP"};
-        csvWriter.writeNext(header);
+        SalidaTabular<String[]> csv = abrirCSV(salida, header);
         
         // Escribe cada cliente como fila de datos
-        for (ClienteDTO cliente : clientes) {
-            String[] data = {
-                cliente.getId().toString(),
-                cliente.getNombre(),
-                cliente.getNif(),
-                // Convierte nulls a strings vacíos para CSV limpio
-                cliente.getEmail() != null ? cliente.getEmail() : "",
-                cliente.getTelefono() != null ? cliente.getTelefono() : "",
-                cliente.getDireccion() != null ? cliente.getDireccion() : "",
-                cliente.getCiudad() != null ? cliente.getCiudad() : "",
-                cliente.getProvincia() != null ? cliente.getProvincia() : "",
-                cliente.getCodigoPostal() != null ? cliente.getCodigoPostal() : ""
-            };
-            csvWriter.writeNext(data);
-        }
-        
-        csvWriter.close();
-        // Retorna el CSV como string completo
-        return sw.toString();
+        volcar(clienteRepository::streamParaExportar, csv, (ClienteExportView cliente) -> new String[]{
+            cliente.getId().toString(),
+            cliente.getNombre(),
+            cliente.getNif(),
+            // Convierte nulls a strings vacíos para CSV limpio
+            cliente.getEmail() != null ? cliente.getEmail() : "",
+            cliente.getTelefono() != null ? cliente.getTelefono() : "",
+            cliente.getDireccion() != null ? cliente.getDireccion() : "",
+            cliente.getCiudad() != null ? cliente.getCiudad() : "",
+            cliente.getProvincia() != null ? cliente.getProvincia() : "",
+            cliente.getCodigoPostal() != null ? cliente.getCodigoPostal() : ""
+        });
+    }
+    
+    // Escribe el XLSX de clientes con las mismas columnas que el CSV
+    public void escribirClientesXLSX(OutputStream salida) throws IOException {
+        escribirXLSX(salida, "Clientes",
+                     new String[]{"ID", "Nombre", "NIF", "Email", "Teléfono", "Dirección", "Ciudad", "Provincia", "CP"},
+                     clienteRepository::streamParaExportar, (ClienteExportView cliente) -> new Object[]{
+            cliente.getId(),
+            cliente.getNombre(),
+            cliente.getNif(),
+            cliente.getEmail(),
+            cliente.getTelefono(),
+            cliente.getDireccion(),
+            cliente.getCiudad(),
+            cliente.getProvincia(),
+            cliente.getCodigoPostal()
+        });
     }
     
     // ============== EXPORTAR PEDIDOS ==============
     
-    // Genera un PDF con la lista de pedidos en formato tabla
-    public byte[] exportarPedidosPDF(List<PedidoDTO> pedidos) throws DocumentException {
-        Document document = new Document(PageSize.A4.rotate());
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        
-        PdfWriter.getInstance(document, baos);
-        document.open();
-        
-        // Título del reporte de pedidos
-        Font titleFont = new Font(Font.FontFamily.HELVETICA, 18, Font.BOLD);
-        Paragraph title = new Paragraph("Listado de Pedidos", titleFont);
-        title.setAlignment(Element.ALIGN_CENTER);
-        title.setSpacingAfter(20);
-        document.add(title);
-        
-        // Tabla con 6 columnas para información resumida de pedidos
-        PdfPTable table = new PdfPTable(6);
-        table.setWidthPercentage(100);
-        
-        addTableHeader(table, new String[]{"ID", "Cliente", "Fecha", "Estado", "Total Base", "Total Final"});
-        
-        // Añade cada pedido con sus datos principales y totales con símbolo €
-        for (PedidoDTO pedido : pedidos) {
-            table.addCell(pedido.getId().toString());
-            table.addCell(pedido.getClienteNombre());
-            table.addCell(pedido.getFechaPedido().toString());
-            table.addCell(pedido.getEstado().toString());
-            table.addCell(pedido.getTotalBase().toString() + " €");
-            table.addCell(pedido.getTotalFinal().toString() + " €");
-        }
-        
-        document.add(table);
-        document.close();
-        
-        return baos.toByteArray();
+    // Escribe el PDF de pedidos directamente en el stream de salida
+    public void escribirPedidosPDF(OutputStream salida, boolean paralelo) throws IOException {
+        // Tabla con 6 columnas para información resumida de pedidos, totales con símbolo €
+        escribirPDF(salida, paralelo, "Listado de Pedidos",
+                    new String[]{"ID", "Cliente", "Fecha", "Estado", "Total Base", "Total Final"},
+                    pedidoRepository::streamParaExportar, (PedidoExportView pedido) -> new String[]{
+            pedido.getId().toString(),
+            pedido.getClienteNombre(),
+            pedido.getFechaPedido().toString(),
+            pedido.getEstado().toString(),
+            pedido.getTotalBase().toString() + " €",
+            pedido.getTotalFinal().toString() + " €"
+        });
     }
     
-    // Genera un CSV con la lista de pedidos incluyendo más detalles
-    public String exportarPedidosCSV(List<PedidoDTO> pedidos) throws IOException {
-        StringWriter sw = new StringWriter();
-        ICSVWriter csvWriter = new CSVWriter(sw, 
-                                             ';', 
-                                             ICSVWriter.DEFAULT_QUOTE_CHARACTER,
-                                             ICSVWriter.DEFAULT_ESCAPE_CHARACTER,
-                                             ICSVWriter.DEFAULT_LINE_END);
-        
+    // Escribe el CSV de pedidos incluyendo más detalles que el PDF
+    public void escribirPedidosCSV(OutputStream salida) throws IOException {
         // CSV incluye más campos que el PDF para análisis detallado
         String[] header = {"ID", "Cliente", "Usuario", "Fecha", "Estado", "Total Base", "IVA", "Total Final", "Observaciones"};
-        csvWriter.writeNext(header);
-        
-        for (PedidoDTO pedido : pedidos) {
-            String[] data = {
-                pedido.getId().toString(),
-                pedido.getClienteNombre(),
-                pedido.getUsuarioNombre(),
-                pedido.getFechaPedido().toString(),
-                pedido.getEstado().toString(),
-                pedido.getTotalBase().toString(),
-                pedido.getTotalIva().toString(),
-                pedido.getTotalFinal().toString(),
-                pedido.getObservaciones() != null ? pedido.getObservaciones() : ""
-            };
-            csvWriter.writeNext(data);
-        }
+        SalidaTabular<String[]> csv = abrirCSV(salida, header);
         
-        csvWriter.close();
-        return sw.toString();
+        volcar(pedidoRepository::streamParaExportar, csv, (PedidoExportView pedido) -> new String[]{
+            pedido.getId().toString(),
+            pedido.getClienteNombre(),
+            pedido.getUsuarioNombre(),
+            pedido.getFechaPedido().toString(),
+            pedido.getEstado().toString(),
+            pedido.getTotalBase().toString(),
+            pedido.getTotalIva().toString(),
+            pedido.getTotalFinal().toString(),
+            pedido.getObservaciones() != null ? pedido.getObservaciones() : ""
+        });
+    }
+    
+    // Escribe el XLSX de pedidos: fechas e importes como celdas tipadas para operar en Excel
+    public void escribirPedidosXLSX(OutputStream salida) throws IOException {
+        escribirXLSX(salida, "Pedidos",
+                     new String[]{"ID", "Cliente", "Usuario", "Fecha", "Estado", "Total Base", "IVA", "Total Final", "Observaciones"},
+                     pedidoRepository::streamParaExportar, (PedidoExportView pedido) -> new Object[]{
+            pedido.getId(),
+            pedido.getClienteNombre(),
+            pedido.getUsuarioNombre(),
+            pedido.getFechaPedido(),
+            pedido.getEstado().toString(),
+            pedido.getTotalBase(),
+            pedido.getTotalIva(),
+            pedido.getTotalFinal(),
+            pedido.getObservaciones()
+        });
     }
     
     // ============== EXPORTAR FACTURAS ==============
     
-    // Genera un PDF con la lista de facturas en formato tabla
-    public byte[] exportarFacturasPDF(List<FacturaDTO> facturas) throws DocumentException {
-        Document document = new Document(PageSize.A4.rotate());
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        
-        PdfWriter.getInstance(document, baos);
-        document.open();
-        
-        // Título del reporte de facturas
-        Font titleFont = new Font(Font.FontFamily.HELVETICA, 18, Font.BOLD);
-        Paragraph title = new Paragraph("Listado de Facturas", titleFont);
-        title.setAlignment(Element.ALIGN_CENTER);
-        title.setSpacingAfter(20);
-        document.add(title);
-        
+    // Escribe el PDF de facturas directamente en el stream de salida
+    public void escribirFacturasPDF(OutputStream salida, boolean paralelo) throws IOException {
         // Tabla con 7 columnas incluyendo número de factura y fechas
-        PdfPTable table = new PdfPTable(7);
-        table.setWidthPercentage(100);
-        
-        addTableHeader(table, new String[]{"Nº Factura", "Cliente", "Fecha Emisión", "Vencimiento", "Estado", "Base", "Total"});
+        escribirPDF(salida, paralelo, "Listado de Facturas",
+                    new String[]{"Nº Factura", "Cliente", "Fecha Emisión", "Vencimiento", "Estado", "Base", "Total"},
+                    facturaRepository::streamParaExportar, (FacturaExportView factura) -> new String[]{
+            factura.getNumeroFactura(),
+            factura.getClienteNombre(),
+            factura.getFechaEmision().toString(),
+            factura.getFechaVencimiento() != null ? factura.getFechaVencimiento().toString() : "-",
+            factura.getEstado().toString(),
+            factura.getTotalBase().toString() + " €",
+            factura.getTotalFinal().toString() + " €"
+        });
+    }
+    
+    // Escribe el CSV de facturas para análisis en Excel
+    public void escribirFacturasCSV(OutputStream salida) throws IOException {
+        String[] header = {"Nº Factura", "Cliente", "Fecha Emisión", "Vencimiento", "Estado", "Total Base", "IVA", "Total Final", "Observaciones"};
+        SalidaTabular<String[]> csv = abrirCSV(salida, header);
         
-        // Añade cada factura con información fiscal completa
-        for (FacturaDTO factura : facturas) {
-            table.addCell(factura.getNumeroFactura());
-            table.addCell(factura.getClienteNombre());
-            table.addCell(factura.getFechaEmision().toString());
-            table.addCell(factura.getFechaVencimiento().toString());
-            table.addCell(factura.getEstado().toString());
-            table.addCell(factura.getTotalBase().toString() + " €");
-            table.addCell(factura.getTotalFinal().toString() + " €");
+        volcar(facturaRepository::streamParaExportar, csv, (FacturaExportView factura) -> new String[]{
+            factura.getNumeroFactura(),
+            factura.getClienteNombre(),
+            factura.getFechaEmision().toString(),
+            factura.getFechaVencimiento() != null ? factura.getFechaVencimiento().toString() : "",
+            factura.getEstado().toString(),
+            factura.getTotalBase().toString(),
+            factura.getTotalIva().toString(),
+            factura.getTotalFinal().toString(),
+            factura.getObservaciones() != null ? factura.getObservaciones() : ""
+        });
+    }
+    
+    // Escribe el XLSX de facturas con las mismas columnas que el CSV
+    public void escribirFacturasXLSX(OutputStream salida) throws IOException {
+        escribirXLSX(salida, "Facturas",
+                     new String[]{"Nº Factura", "Cliente", "Fecha Emisión", "Vencimiento", "Estado", "Total Base", "IVA", "Total Final", "Observaciones"},
+                     facturaRepository::streamParaExportar, (FacturaExportView factura) -> new Object[]{
+            factura.getNumeroFactura(),
+            factura.getClienteNombre(),
+            factura.getFechaEmision(),
+            factura.getFechaVencimiento(),
+            factura.getEstado().toString(),
+            factura.getTotalBase(),
+            factura.getTotalIva(),
+            factura.getTotalFinal(),
+            factura.getObservaciones()
+        });
+    }
+    
+    // ============== MÉTODOS AUXILIARES ==============
+    
+    // Escribe un listado PDF en una sola tabla incremental o, en modo paralelo, por partes
+    private <T> void escribirPDF(OutputStream salida, boolean paralelo, String titulo, String[] encabezados,
+                                 Supplier<Stream<T>> consulta, Function<T, String[]> fila) throws IOException {
+        if (!paralelo) {
+            TablaPDF tabla = new TablaPDF(salida, titulo, encabezados, true);
+            volcar(consulta, tabla, fila);
+            tabla.cerrar();
+            return;
+        }
+        PdfPorPartes partes = new PdfPorPartes(salida, titulo, encabezados);
+        try {
+            volcar(consulta, partes, fila);
+            partes.cerrar();
+        } catch (IOException | RuntimeException e) {
+            partes.cancelar();
+            throw e;
+        }
+    }
+    
+    // Escribe un listado en una hoja XLSX en streaming
+    // Solo las últimas ventanaFilasXlsx filas están en memoria; las anteriores se vuelcan a un temporal
+    // comprimido que se copia a la salida al cerrar, así la memoria no depende del número de filas
+    private <T> void escribirXLSX(OutputStream salida, String hoja, String[] encabezados,
+                                  Supplier<Stream<T>> consulta, Function<T, Object[]> fila) throws IOException {
+        try (HojaXLSX xlsx = new HojaXLSX(hoja, encabezados)) {
+            volcar(consulta, xlsx, fila);
+            xlsx.escribir(salida);
         }
-        
-        document.add(table);
-        document.close();
-        
-        return baos.toByteArray();
     }
     
-    // Genera un CSV con la lista de facturas para análisis en Excel
-    public String exportarFacturasCSV(List<FacturaDTO> facturas) throws IOException {
-        StringWriter sw = new StringWriter();
-        ICSVWriter csvWriter = new CSVWriter(sw, 
-                                             ';', 
+    // Crea un CSVWriter con punto y coma (estándar en Excel europeo) sobre el stream de salida
+    // No se cierra al terminar: el stream pertenece a quien lo abrió (la respuesta HTTP o un archivo)
+    private SalidaTabular<String[]> abrirCSV(OutputStream salida, String[] encabezados) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+        ICSVWriter csvWriter = new CSVWriter(writer,
+                                             ';',  // Separador de campos
                                              ICSVWriter.DEFAULT_QUOTE_CHARACTER,
                                              ICSVWriter.DEFAULT_ESCAPE_CHARACTER,
                                              ICSVWriter.DEFAULT_LINE_END);
-        
-        String[] header = {"Nº Factura", "Cliente", "Fecha Emisión", "Vencimiento", "Estado", "Total Base", "IVA", "Total Final", "Observaciones"};
-        csvWriter.writeNext(header);
-        
-        for (FacturaDTO factura : facturas) {
-            String[] data = {
-                factura.getNumeroFactura(),
-                factura.getClienteNombre(),
-                factura.getFechaEmision().toString(),
-                factura.getFechaVencimiento().toString(),
-                factura.getEstado().toString(),
-                factura.getTotalBase().toString(),
-                factura.getTotalIva().toString(),
-                factura.getTotalFinal().toString(),
-                factura.getObservaciones() != null ? factura.getObservaciones() : ""
-            };
-            csvWriter.writeNext(data);
+        csvWriter.writeNext(encabezados);
+        return new SalidaTabular<>() {
+            @Override
+            public void fila(String[] celdas) {
+                csvWriter.writeNext(celdas);
+            }
+            
+            @Override
+            public void volcar() throws IOException {
+                csvWriter.flush();
+            }
+        };
+    }
+    
+    // Recorre el cursor dentro de una transacción de solo lectura escribiendo cada fila
+    // Cada FILAS_POR_VOLCADO filas se vacía la salida para que el cliente reciba datos de forma continua
+    private <T, F> void volcar(Supplier<Stream<T>> consulta, SalidaTabular<F> destino, Function<T, F> fila) throws IOException {
+        try {
+            transaccionLectura().executeWithoutResult(estado -> {
+                try (Stream<T> filas = consulta.get()) {
+                    int escritas = 0;
+                    for (T elemento : (Iterable<T>) filas::iterator) {
+                        destino.fila(fila.apply(elemento));
+                        if (++escritas % FILAS_POR_VOLCADO == 0) {
+                            destino.volcar();
+                        }
+                    }
+                    destino.volcar();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // Normalmente el cliente ha cerrado la conexión a mitad de descarga
+            throw e.getCause();
         }
-        
-        csvWriter.close();
-        return sw.toString();
     }
     
-    // ============== MÉTODO AUXILIAR ==============
+    // Transacción de solo lectura que mantiene abierto el cursor mientras se escribe
+    private TransactionTemplate transaccionLectura() {
+        TransactionTemplate plantilla = new TransactionTemplate(transactionManager);
+        plantilla.setReadOnly(true);
+        return plantilla;
+    }
+    
     
     // Añade fila de encabezado con estilo consistente a tablas PDF
     private void addTableHeader(PdfPTable table, String[] headers) {
@@ -259,4 +370,313 @@ public class ExportService {
             table.addCell(cell);
         }
     }
+    
+    // Escribe el número de página centrado en el margen inferior
+    private static void numerarPagina(PdfContentByte contenido, Rectangle pagina, int numero) {
+        Font font = new Font(Font.FontFamily.HELVETICA, 8, Font.NORMAL, BaseColor.GRAY);
+        ColumnText.showTextAligned(contenido, Element.ALIGN_CENTER, new Phrase("Página " + numero, font),
+                                   (pagina.getLeft() + pagina.getRight()) / 2, pagina.getBottom() + 20, 0);
+    }
+    
+    // Destino de una exportación tabular: recibe filas y vacía lo acumulado cuando se le pide
+    // Las filas son String[] para CSV y PDF, y Object[] con valores tipados para XLSX
+    private interface SalidaTabular<F> {
+        void fila(F celdas) throws IOException;
+        
+        void volcar() throws IOException;
+    }
+    
+    // Tabla PDF que se escribe por bloques sobre el stream de salida
+    // Usa el modo de tabla incompleta de iText: cada volcado renderiza las filas acumuladas
+    // y las descarta, y el encabezado se repite en cada página
+    private class TablaPDF implements SalidaTabular<String[]> {
+        
+        private final OutputStream salida;
+        private final Document document;
+        private final PdfPTable table;
+        
+        // El título es opcional (las partes intermedias no lo llevan) y la numeración de páginas
+        // puede omitirse cuando la añade después quien une las partes
+        TablaPDF(OutputStream salida, String titulo, String[] encabezados, boolean numerarPaginas) throws IOException {
+            this.salida = salida;
+            // Documento en formato A4 horizontal para tablas anchas
+            this.document = new Document(PageSize.A4.rotate());
+            try {
+                // El stream pertenece a quien lo abrió: cerrar el documento no debe cerrarlo
+                PdfWriter writer = PdfWriter.getInstance(document, salida);
+                writer.setCloseStream(false);
+                if (numerarPaginas) {
+                    writer.setPageEvent(new PdfPageEventHelper() {
+                        @Override
+                        public void onEndPage(PdfWriter writer, Document document) {
+                            numerarPagina(writer.getDirectContent(), document.getPageSize(), writer.getPageNumber());
+                        }
+                    });
+                }
+                document.open();
+                
+                // Añade título del documento centrado con fuente grande y negrita
+                if (titulo != null) {
+                    Font titleFont = new Font(Font.FontFamily.HELVETICA, 18, Font.BOLD);
+                    Paragraph title = new Paragraph(titulo, titleFont);
+                    title.setAlignment(Element.ALIGN_CENTER);
+                    title.setSpacingAfter(20);  // Espacio después del título
+                    document.add(title);
+                }
+            } catch (DocumentException e) {
+                throw new IOException("No se pudo iniciar el PDF", e);
+            }
+            
+            this.table = new PdfPTable(encabezados.length);
+            table.setWidthPercentage(100);  // Ocupa el 100% del ancho de página
+            addTableHeader(table, encabezados);
+            table.setHeaderRows(1);
+            table.setComplete(false);
+        }
+        
+        @Override
+        public void fila(String[] celdas) {
+            for (String celda : celdas) {
+                table.addCell(celda);
+            }
+        }
+        
+        // Renderiza las filas acumuladas; iText las elimina de la tabla al escribirlas
+        @Override
+        public void volcar() throws IOException {
+            try {
+                document.add(table);
+            } catch (DocumentException e) {
+                throw new IOException("No se pudo escribir la tabla del PDF", e);
+            }
+            salida.flush();
+        }
+        
+        // Marca la tabla como completa, escribe las últimas filas y cierra el documento
+        void cerrar() throws IOException {
+            table.setComplete(true);
+            volcar();
+            document.close();
+            salida.flush();
+        }
+    }
+    
+    // Hoja XLSX con ventana de filas (SXSSF) y celdas tipadas según el valor:
+    // números e importes como numéricos, fechas con formato de fecha y el resto como texto
+    private class HojaXLSX implements SalidaTabular<Object[]>, AutoCloseable {
+        
+        private final SXSSFWorkbook libro;
+        private final SXSSFSheet hoja;
+        private final CellStyle estiloImporte;
+        private final CellStyle estiloFecha;
+        private final CellStyle estiloFechaHora;
+        private int siguienteFila;
+        
+        HojaXLSX(String nombre, String[] encabezados) {
+            this.libro = new SXSSFWorkbook(ventanaFilasXlsx);
+            // Comprime el temporal de filas volcadas: con cientos de miles de filas ocupa mucho menos
+            libro.setCompressTempFiles(true);
+            this.hoja = libro.createSheet(nombre);
+            
+            DataFormat formatos = libro.createDataFormat();
+            this.estiloImporte = libro.createCellStyle();
+            estiloImporte.setDataFormat(formatos.getFormat("#,##0.00"));
+            this.estiloFecha = libro.createCellStyle();
+            estiloFecha.setDataFormat(formatos.getFormat("dd/mm/yyyy"));
+            this.estiloFechaHora = libro.createCellStyle();
+            estiloFechaHora.setDataFormat(formatos.getFormat("dd/mm/yyyy hh:mm"));
+            
+            // Encabezado en negrita con fondo gris, fijo al desplazarse por la hoja
+            org.apache.poi.ss.usermodel.Font fuente = libro.createFont();
+            fuente.setBold(true);
+            CellStyle estiloEncabezado = libro.createCellStyle();
+            estiloEncabezado.setFont(fuente);
+            estiloEncabezado.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
+            estiloEncabezado.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+            estiloEncabezado.setBorderBottom(BorderStyle.THIN);
+            Row encabezado = hoja.createRow(siguienteFila++);
+            for (int i = 0; i < encabezados.length; i++) {
+                Cell celda = encabezado.createCell(i);
+                celda.setCellValue(encabezados[i]);
+                celda.setCellStyle(estiloEncabezado);
+                // Ancho fijo: autoajustar obligaría a guardar todas las filas en memoria
+                hoja.setColumnWidth(i, 18 * 256);
+            }
+            hoja.createFreezePane(0, 1);
+        }
+        
+        @Override
+        public void fila(Object[] celdas) {
+            Row row = hoja.createRow(siguienteFila++);
+            for (int i = 0; i < celdas.length; i++) {
+                Object valor = celdas[i];
+                // Las celdas nulas no se crean y quedan vacías
+                if (valor == null) {
+                    continue;
+                }
+                Cell celda = row.createCell(i);
+                if (valor instanceof BigDecimal importe) {
+                    celda.setCellValue(importe.doubleValue());
+                    celda.setCellStyle(estiloImporte);
+                } else if (valor instanceof Number numero) {
+                    celda.setCellValue(numero.doubleValue());
+                } else if (valor instanceof LocalDateTime fechaHora) {
+                    celda.setCellValue(fechaHora);
+                    celda.setCellStyle(estiloFechaHora);
+                } else if (valor instanceof LocalDate fecha) {
+                    celda.setCellValue(fecha);
+                    celda.setCellStyle(estiloFecha);
+                } else {
+                    celda.setCellValue(valor.toString());
+                }
+            }
+        }
+        
+        // SXSSF vuelca las filas que salen de la ventana por sí mismo; el libro solo se puede
+        // escribir completo al final, por lo que aquí no hay nada que enviar todavía
+        @Override
+        public void volcar() {
+        }
+        
+        // Copia el libro a la salida sin cerrarla: pertenece a quien la abrió
+        void escribir(OutputStream salida) throws IOException {
+            libro.write(salida);
+            salida.flush();
+        }
+        
+        // Cerrar el libro borra el temporal de filas volcadas, también si la exportación ha fallado
+        @Override
+        public void close() throws IOException {
+            libro.close();
+        }
+    }
+    
+    // PDF generado por partes en paralelo y unido en orden sobre el stream de salida
+    // Las filas se agrupan en partes de filasPorPartePdf que se renderizan en el pool; este hilo
+    // sigue leyendo el cursor y copia cada parte terminada a la salida respetando el orden.
+    // Todas las partes usan la misma tabla (anchos y encabezado repetido en cada página) y la
+    // numeración de páginas se estampa al unir, así es continua en todo el documento.
+    // Cada parte empieza en una página nueva
+    private class PdfPorPartes implements SalidaTabular<String[]> {
+        
+        private final OutputStream salida;
+        private final String titulo;
+        private final String[] encabezados;
+        private final Document document;
+        private final PdfCopy copia;
+        
+        // Partes enviadas al pool en orden de documento, pendientes de unir
+        private final Deque<Future<byte[]>> enCurso = new ArrayDeque<>();
+        
+        // Partes en vuelo como máximo: acota la memoria a unas pocas partes por hilo
+        private final int maxEnCurso = poolPdf.getParallelism() * 2;
+        
+        private List<String[]> pendientes = new ArrayList<>();
+        private int partesEnviadas;
+        private int pagina;
+        
+        PdfPorPartes(OutputStream salida, String titulo, String[] encabezados) throws IOException {
+            this.salida = salida;
+            this.titulo = titulo;
+            this.encabezados = encabezados;
+            this.document = new Document(PageSize.A4.rotate());
+            try {
+                this.copia = new PdfCopy(document, salida);
+                copia.setCloseStream(false);
+                document.open();
+            } catch (DocumentException e) {
+                throw new IOException("No se pudo iniciar el PDF", e);
+            }
+        }
+        
+        @Override
+        public void fila(String[] celdas) throws IOException {
+            pendientes.add(celdas);
+            if (pendientes.size() >= filasPorPartePdf) {
+                enviarParte();
+            }
+        }
+        
+        // Copia a la salida las partes ya terminadas sin esperar a las demás
+        @Override
+        public void volcar() throws IOException {
+            while (!enCurso.isEmpty() && enCurso.peekFirst().isDone()) {
+                unirParte(enCurso.pollFirst());
+            }
+        }
+        
+        // Envía la última parte, espera a todas y cierra el documento
+        void cerrar() throws IOException {
+            // Un listado vacío genera igualmente una parte con título y encabezado
+            if (!pendientes.isEmpty() || partesEnviadas == 0) {
+                enviarParte();
+            }
+            while (!enCurso.isEmpty()) {
+                unirParte(enCurso.pollFirst());
+            }
+            document.close();
+            salida.flush();
+        }
+        
+        // Cancela las partes pendientes si la exportación falla o el cliente se desconecta
+        void cancelar() {
+            enCurso.forEach(parte -> parte.cancel(true));
+            enCurso.clear();
+        }
+        
+        private void enviarParte() throws IOException {
+            List<String[]> filas = pendientes;
+            pendientes = new ArrayList<>();
+            String tituloParte = partesEnviadas++ == 0 ? titulo : null;
+            enCurso.addLast(poolPdf.submit(() -> renderizarParte(tituloParte, filas)));
+            // Con el pool saturado se espera a la parte más antigua antes de seguir leyendo
+            while (enCurso.size() > maxEnCurso) {
+                unirParte(enCurso.pollFirst());
+            }
+        }
+        
+        // Renderiza una parte en memoria sin numeración de páginas
+        private byte[] renderizarParte(String tituloParte, List<String[]> filas) throws IOException {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            TablaPDF tabla = new TablaPDF(baos, tituloParte, encabezados, false);
+            int escritas = 0;
+            for (String[] fila : filas) {
+                tabla.fila(fila);
+                if (++escritas % FILAS_POR_VOLCADO == 0) {
+                    tabla.volcar();
+                }
+            }
+            tabla.cerrar();
+            return baos.toByteArray();
+        }
+        
+        // Copia las páginas de una parte estampando el número de página global
+        private void unirParte(Future<byte[]> parte) throws IOException {
+            byte[] pdf;
+            try {
+                pdf = parte.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Exportación PDF interrumpida", e);
+            } catch (ExecutionException e) {
+                throw new IOException("No se pudo generar una parte del PDF", e.getCause());
+            }
+            PdfReader reader = new PdfReader(pdf);
+            try {
+                for (int i = 1; i <= reader.getNumberOfPages(); i++) {
+                    PdfImportedPage pagina = copia.getImportedPage(reader, i);
+                    PdfCopy.PageStamp sello = copia.createPageStamp(pagina);
+                    numerarPagina(sello.getOverContent(), reader.getPageSize(i), ++this.pagina);
+                    sello.alterContents();
+                    copia.addPage(pagina);
+                }
+                copia.freeReader(reader);
+            } catch (BadPdfFormatException e) {
+                throw new IOException("Parte del PDF no válida", e);
+            } finally {
+                reader.close();
+            }
+            salida.flush();
+        }
+    }
 }
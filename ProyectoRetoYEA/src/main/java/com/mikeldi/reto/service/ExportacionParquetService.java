@@ -0,0 +1,165 @@
+package com.mikeldi.reto.service;
+
+import com.mikeldi.reto.dto.ConjuntoAnalitico;
+import com.mikeldi.reto.exception.BadRequestException;
+import com.mikeldi.reto.parquet.EscritorParquet;
+import com.mikeldi.reto.parquet.EsquemaParquet;
+import com.mikeldi.reto.repository.FacturaRepository;
+import com.mikeldi.reto.repository.LineaPedidoRepository;
+import com.mikeldi.reto.repository.MovimientoStockRepository;
+import com.mikeldi.reto.repository.PedidoRepository;
+import com.mikeldi.reto.repository.projection.FacturaAnaliticaView;
+import com.mikeldi.reto.repository.projection.LineaAnaliticaView;
+import com.mikeldi.reto.repository.projection.MovimientoAnaliticoView;
+import com.mikeldi.reto.repository.projection.PedidoAnaliticoView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+// Servicio que exporta pedidos, líneas, facturas y movimientos de stock en formato Parquet
+// Pensado para el equipo de BI: columnas tipadas (importes decimales, fechas) en vez de texto CSV,
+// comprimidas con zstd y con diccionario en las columnas repetitivas.
+// Las filas se leen con un cursor y se escriben por grupos de filas, con memoria acotada
+@Service
+public class ExportacionParquetService {
+    
+    // Logger para registrar el volumen y duración de las exportaciones
+    private static final Logger logger = LoggerFactory.getLogger(ExportacionParquetService.class);
+    
+    // Límites usados cuando no se indica periodo (rango de DATETIME en MySQL)
+    private static final LocalDate FECHA_MINIMA = LocalDate.of(1000, 1, 1);
+    private static final LocalDate FECHA_MAXIMA = LocalDate.of(9999, 12, 30);
+    
+    // Escala de los importes monetarios
+    private static final int ESCALA_IMPORTES = 2;
+    
+    // Esquemas de cada conjunto; el nombre de columna sigue al de la tabla de origen
+    private static final EsquemaParquet<PedidoAnaliticoView> ESQUEMA_PEDIDOS = new EsquemaParquet<PedidoAnaliticoView>("pedidos")
+        .entero64("id", PedidoAnaliticoView::getId)
+        .entero64("cliente_id", PedidoAnaliticoView::getClienteId)
+        .texto("cliente_nombre", PedidoAnaliticoView::getClienteNombre)
+        .entero64("usuario_id", PedidoAnaliticoView::getUsuarioId)
+        .marcaTiempo("fecha_pedido", PedidoAnaliticoView::getFechaPedido)
+        .texto("estado", p -> p.getEstado().name())
+        .decimal("total_base", ESCALA_IMPORTES, PedidoAnaliticoView::getTotalBase)
+        .decimal("total_iva", ESCALA_IMPORTES, PedidoAnaliticoView::getTotalIva)
+        .decimal("total_final", ESCALA_IMPORTES, PedidoAnaliticoView::getTotalFinal);
+    
+    private static final EsquemaParquet<LineaAnaliticaView> ESQUEMA_LINEAS = new EsquemaParquet<LineaAnaliticaView>("lineas_pedido")
+        .entero64("id", LineaAnaliticaView::getId)
+        .entero64("pedido_id", LineaAnaliticaView::getPedidoId)
+        .marcaTiempo("fecha_pedido", LineaAnaliticaView::getFechaPedido)
+        .entero64("producto_id", LineaAnaliticaView::getProductoId)
+        .texto("producto_nombre", LineaAnaliticaView::getProductoNombre)
+        .texto("categoria", LineaAnaliticaView::getCategoria)
+        .entero32("cantidad", LineaAnaliticaView::getCantidad)
+        .decimal("precio_unitario", ESCALA_IMPORTES, LineaAnaliticaView::getPrecioUnitario)
+        .decimal("iva", ESCALA_IMPORTES, LineaAnaliticaView::getIva)
+        .decimal("subtotal", ESCALA_IMPORTES, LineaAnaliticaView::getSubtotal)
+        .decimal("importe_iva", ESCALA_IMPORTES, LineaAnaliticaView::getImporteIva)
+        .decimal("total", ESCALA_IMPORTES, LineaAnaliticaView::getTotal);
+    
+    private static final EsquemaParquet<FacturaAnaliticaView> ESQUEMA_FACTURAS = new EsquemaParquet<FacturaAnaliticaView>("facturas")
+        .entero64("id", FacturaAnaliticaView::getId)
+        .texto("numero_factura", FacturaAnaliticaView::getNumeroFactura)
+        .entero64("pedido_id", FacturaAnaliticaView::getPedidoId)
+        .entero64("cliente_id", FacturaAnaliticaView::getClienteId)
+        .texto("cliente_nombre", FacturaAnaliticaView::getClienteNombre)
+        .fecha("fecha_emision", FacturaAnaliticaView::getFechaEmision)
+        .fecha("fecha_vencimiento", FacturaAnaliticaView::getFechaVencimiento)
+        .texto("estado", f -> f.getEstado().name())
+        .decimal("total_base", ESCALA_IMPORTES, FacturaAnaliticaView::getTotalBase)
+        .decimal("total_iva", ESCALA_IMPORTES, FacturaAnaliticaView::getTotalIva)
+        .decimal("total_final", ESCALA_IMPORTES, FacturaAnaliticaView::getTotalFinal);
+    
+    private static final EsquemaParquet<MovimientoAnaliticoView> ESQUEMA_MOVIMIENTOS = new EsquemaParquet<MovimientoAnaliticoView>("movimientos_stock")
+        .entero64("id", MovimientoAnaliticoView::getId)
+        .entero64("producto_id", MovimientoAnaliticoView::getProductoId)
+        .texto("producto_nombre", MovimientoAnaliticoView::getProductoNombre)
+        .texto("tipo", m -> m.getTipo().name())
+        .entero32("cantidad", MovimientoAnaliticoView::getCantidad)
+        .entero32("stock_anterior", MovimientoAnaliticoView::getStockAnterior)
+        .entero32("stock_nuevo", MovimientoAnaliticoView::getStockNuevo)
+        .entero64("usuario_id", MovimientoAnaliticoView::getUsuarioId)
+        .entero64("pedido_id", MovimientoAnaliticoView::getPedidoId)
+        .marcaTiempo("fecha_movimiento", MovimientoAnaliticoView::getFechaMovimiento)
+        .texto("motivo", MovimientoAnaliticoView::getMotivo);
+    
+    // Repositorios con las consultas de cursor de cada conjunto
+    @Autowired
+    private PedidoRepository pedidoRepository;
+    
+    @Autowired
+    private LineaPedidoRepository lineaPedidoRepository;
+    
+    @Autowired
+    private FacturaRepository facturaRepository;
+    
+    @Autowired
+    private MovimientoStockRepository movimientoStockRepository;
+    
+    // Gestor de transacciones para mantener abierto el cursor durante la escritura
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    // Tamaño de cada grupo de filas: es la memoria que usa cada exportación en curso
+    @Value("${app.exportacion.parquet-grupo-filas-mb:32}")
+    private long grupoFilasMb;
+    
+    // Comprueba el periodo antes de empezar a enviar el archivo: dentro del cuerpo de la respuesta
+    // la cabecera 200 ya se ha enviado y el cliente solo vería un archivo truncado en lugar de un 400
+    public void validarPeriodo(LocalDate inicio, LocalDate fin) {
+        if (inicio != null && fin != null && inicio.isAfter(fin)) {
+            throw new BadRequestException("La fecha de inicio no puede ser posterior a la de fin");
+        }
+    }
+    
+    // Escribe el conjunto en Parquet en la salida; las fechas del periodo son opcionales e inclusivas
+    public void escribir(ConjuntoAnalitico conjunto, LocalDate inicio, LocalDate fin, OutputStream salida) throws IOException {
+        validarPeriodo(inicio, fin);
+        LocalDate desde = inicio != null ? inicio : FECHA_MINIMA;
+        LocalDate hasta = fin != null ? fin : FECHA_MAXIMA;
+        LocalDateTime desdeHora = desde.atStartOfDay();
+        LocalDateTime hastaHora = hasta.plusDays(1).atStartOfDay();
+        
+        long comienzo = System.currentTimeMillis();
+        long filas = switch (conjunto) {
+            case PEDIDOS -> volcar(() -> pedidoRepository.streamAnalitico(desdeHora, hastaHora), ESQUEMA_PEDIDOS, salida);
+            case LINEAS_PEDIDO -> volcar(() -> lineaPedidoRepository.streamAnalitico(desdeHora, hastaHora), ESQUEMA_LINEAS, salida);
+            case FACTURAS -> volcar(() -> facturaRepository.streamAnalitico(desde, hasta), ESQUEMA_FACTURAS, salida);
+            case MOVIMIENTOS_STOCK -> volcar(() -> movimientoStockRepository.streamAnalitico(desdeHora, hastaHora), ESQUEMA_MOVIMIENTOS, salida);
+        };
+        logger.info("Exportación Parquet de {}: {} filas en {} ms", conjunto, filas, System.currentTimeMillis() - comienzo);
+    }
+    
+    // Recorre el cursor dentro de una transacción de solo lectura escribiendo el archivo Parquet
+    private <T> long volcar(Supplier<Stream<T>> consulta, EsquemaParquet<T> esquema, OutputStream salida) throws IOException {
+        TransactionTemplate plantilla = new TransactionTemplate(transactionManager);
+        plantilla.setReadOnly(true);
+        try {
+            Long filas = plantilla.execute(estado -> {
+                try (Stream<T> cursor = consulta.get()) {
+                    return EscritorParquet.escribir(cursor, esquema, salida, grupoFilasMb * 1024 * 1024);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            return filas != null ? filas : 0;
+        } catch (UncheckedIOException e) {
+            // Normalmente el cliente ha cerrado la conexión a mitad de descarga
+            throw e.getCause();
+        }
+    }
+}
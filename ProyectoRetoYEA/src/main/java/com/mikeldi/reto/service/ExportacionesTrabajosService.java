@@ -0,0 +1,128 @@
+package com.mikeldi.reto.service;
+
+import com.mikeldi.reto.dto.EntidadExportacion;
+import com.mikeldi.reto.dto.TrabajoDTO;
+import com.mikeldi.reto.entity.Cliente;
+import com.mikeldi.reto.entity.Factura;
+import com.mikeldi.reto.entity.Pedido;
+import com.mikeldi.reto.entity.Usuario;
+import com.mikeldi.reto.event.EntidadModificadaEvent;
+import com.mikeldi.reto.exception.BadRequestException;
+import com.mikeldi.reto.trabajo.GestorTrabajos;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Servicio que genera las exportaciones de listados como trabajos en segundo plano
+// El archivo se escribe en el directorio de trabajos y se descarga después con soporte de rangos.
+// Cada listado tiene una versión de datos que cambia al confirmar cualquier modificación que le afecte;
+// mientras no cambie, una petición idéntica reutiliza el archivo ya generado
+@Service
+public class ExportacionesTrabajosService {
+    
+    // Formatos de exportación admitidos
+    private static final Set<String> FORMATOS = Set.of("csv", "pdf", "xlsx");
+    
+    // Gestor del pool de trabajos y de los resultados en disco
+    @Autowired
+    private GestorTrabajos gestorTrabajos;
+    
+    // Servicio que escribe los listados en streaming
+    @Autowired
+    private ExportService exportService;
+    
+    // Versión de datos de cada listado
+    private final Map<EntidadExportacion, AtomicLong> versiones = new EnumMap<>(EntidadExportacion.class);
+    
+    public ExportacionesTrabajosService() {
+        for (EntidadExportacion entidad : EntidadExportacion.values()) {
+            versiones.put(entidad, new AtomicLong());
+        }
+    }
+    
+    // Envía una exportación; devuelve la que está en curso o ya generada si los datos no han cambiado
+    // Con compresión el resultado es un artefacto ya comprimido (.gz o .zst) listo para descargar
+    // El usuario queda registrado como solicitante: solo él (y quien pida la misma) puede descargarla
+    public TrabajoDTO enviar(EntidadExportacion entidad, String formato, Compresion compresion, String emailUsuario) {
+        String formatoNormalizado = formato.toLowerCase();
+        if (!FORMATOS.contains(formatoNormalizado)) {
+            throw new BadRequestException("Formato de exportación no soportado: " + formato + " (csv, pdf o xlsx)");
+        }
+        String formatoArchivo = formatoNormalizado + compresion.getExtension();
+        
+        // La versión forma parte de la clave: tras un cambio se genera un archivo nuevo
+        String clave = formatoArchivo + "|v" + versiones.get(entidad).get();
+        return gestorTrabajos.enviarReutilizable("EXPORTACION_" + entidad.name(), clave, emailUsuario, contexto -> {
+            Path archivo = contexto.archivoResultado(formatoArchivo);
+            try (OutputStream salida = new BufferedOutputStream(Files.newOutputStream(archivo));
+                 OutputStream comprimida = compresion.comprimir(salida)) {
+                escribir(entidad, formatoNormalizado, comprimida);
+            }
+        });
+    }
+    
+    // Estado de una exportación enviada por el usuario
+    public TrabajoDTO obtenerEstado(String id, String emailUsuario) {
+        TrabajoDTO trabajo = gestorTrabajos.obtenerEstado(id, emailUsuario);
+        if (!trabajo.getTipo().startsWith("EXPORTACION_")) {
+            throw new BadRequestException("El trabajo " + id + " no es una exportación");
+        }
+        return trabajo;
+    }
+    
+    // Archivo generado por una exportación completada que el usuario ha enviado
+    public Path obtenerArchivo(String id, String emailUsuario) {
+        TrabajoDTO trabajo = obtenerEstado(id, emailUsuario);
+        String formato = trabajo.getFormatos() != null && !trabajo.getFormatos().isEmpty()
+            ? trabajo.getFormatos().iterator().next() : "csv";
+        return gestorTrabajos.obtenerResultado(id, formato, emailUsuario);
+    }
+    
+    // Cambia la versión de los listados afectados cuando confirma una modificación
+    // Los pedidos y facturas muestran el nombre del cliente, por eso un cliente afecta a los tres;
+    // los pedidos muestran además el nombre del usuario que los creó
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alModificarEntidad(EntidadModificadaEvent evento) {
+        if (evento.esDeTipo(Cliente.class)) {
+            versiones.values().forEach(AtomicLong::incrementAndGet);
+        } else if (evento.esDeTipo(Pedido.class) || evento.esDeTipo(Usuario.class)) {
+            versiones.get(EntidadExportacion.PEDIDOS).incrementAndGet();
+        } else if (evento.esDeTipo(Factura.class)) {
+            versiones.get(EntidadExportacion.FACTURAS).incrementAndGet();
+        }
+    }
+    
+    // Los PDF en segundo plano usan el modo por partes: no hay nadie esperando la primera página
+    private void escribir(EntidadExportacion entidad, String formato, OutputStream salida) throws IOException {
+        if ("pdf".equals(formato)) {
+            switch (entidad) {
+                case CLIENTES -> exportService.escribirClientesPDF(salida, true);
+                case PEDIDOS -> exportService.escribirPedidosPDF(salida, true);
+                case FACTURAS -> exportService.escribirFacturasPDF(salida, true);
+            }
+        } else if ("xlsx".equals(formato)) {
+            switch (entidad) {
+                case CLIENTES -> exportService.escribirClientesXLSX(salida);
+                case PEDIDOS -> exportService.escribirPedidosXLSX(salida);
+                case FACTURAS -> exportService.escribirFacturasXLSX(salida);
+            }
+        } else {
+            switch (entidad) {
+                case CLIENTES -> exportService.escribirClientesCSV(salida);
+                case PEDIDOS -> exportService.escribirPedidosCSV(salida);
+                case FACTURAS -> exportService.escribirFacturasCSV(salida);
+            }
+        }
+    }
+}
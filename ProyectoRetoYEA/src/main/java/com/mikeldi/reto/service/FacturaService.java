@@ -34,6 +34,18 @@ public class FacturaService {
     @Autowired
     private StockService stockService;
     
+    // Inyecta servicio que mantiene el resumen diario de ventas
+    @Autowired
+    private ResumenVentasService resumenVentasService;
+    
+    // Inyecta servicio que mantiene el resumen mensual de IVA
+    @Autowired
+    private ResumenIvaService resumenIvaService;
+    
+    // Inyecta servicio que mantiene el resumen por provincia y ciudad
+    @Autowired
+    private ResumenGeograficoService resumenGeograficoService;
+    
     // Emite una nueva factura desde un pedido pagado, descontando stock automáticamente
     @Transactional
     public FacturaDTO emitirFactura(FacturaDTO facturaDTO, String emailUsuario) {
@@ -47,6 +59,10 @@ public class FacturaService {
             throw new BadRequestException("Solo se pueden facturar pedidos en estado PAGADO");
         }
         
+        // Bloquea la fila del cliente: si se está mudando, la factura se suma a la ubicación que deje
+        // confirmada el cambio, y el traslado de sus facturas no deja fuera a esta
+        clienteRepository.findByIdParaActualizar(pedido.getCliente().getId());
+        
         // Crea la factura usando el constructor que copia datos del pedido
         // Esto incluye cliente, totales y fecha de emisión automáticos
         Factura factura = new Factura(pedido);
@@ -62,6 +78,11 @@ public class FacturaService {
         // Persiste la factura en la base de datos con número generado
         Factura facturaGuardada = facturaRepository.save(factura);
         
+        // Acumula la factura en los resúmenes diario, de IVA y geográfico dentro de la misma transacción
+        resumenVentasService.registrarFactura(facturaGuardada);
+        resumenIvaService.registrarFactura(facturaGuardada);
+        resumenGeograficoService.registrarFactura(facturaGuardada);
+        
         return convertirADTO(facturaGuardada);
     }
     
@@ -107,20 +128,34 @@ public class FacturaService {
     // Cambia el estado de una factura (ej: de PENDIENTE a PAGADA)
     @Transactional
     public FacturaDTO cambiarEstado(Long id, EstadoFactura nuevoEstado) {
-        // Obtiene la factura a modificar
-        Factura factura = facturaRepository.findById(id)
+        // Obtiene la factura a modificar con su fila bloqueada: el estado anterior no puede cambiar
+        // hasta que se confirmen los traslados de los resúmenes
+        Factura factura = facturaRepository.findByIdParaActualizar(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Factura", "id", id));
         
+        // Bloquea también al cliente: el importe se suma o resta en su ubicación actual y no en una
+        // que un cambio de datos simultáneo esté dejando
+        clienteRepository.findByIdParaActualizar(factura.getCliente().getId());
+        
         // Actualiza el estado (PENDIENTE → PAGADA, PENDIENTE → VENCIDA, etc.)
+        EstadoFactura estadoAnterior = factura.getEstado();
         factura.setEstado(nuevoEstado);
         Factura facturaActualizada = facturaRepository.save(factura);
         
+        // Traslada los importes del estado anterior al nuevo en el resumen diario
+        resumenVentasService.registrarCambioEstado(facturaActualizada, estadoAnterior);
+        // Resta o vuelve a sumar el IVA si la factura se cancela o se reactiva
+        resumenIvaService.registrarCambioEstado(facturaActualizada, estadoAnterior);
+        // Igual con la facturación de la ubicación del cliente
+        resumenGeograficoService.registrarCambioEstado(facturaActualizada, estadoAnterior);
+        
         return convertirADTO(facturaActualizada);
     }
     
     // Convierte una entidad Factura a DTO para transferencia segura
     // Extrae solo los campos necesarios sin exponer estructura interna
-    private FacturaDTO convertirADTO(Factura factura) {
+    // Visible en el paquete para que la sincronización devuelva el mismo formato
+    FacturaDTO convertirADTO(Factura factura) {
         FacturaDTO dto = new FacturaDTO();
         dto.setId(factura.getId());
         dto.setNumeroFactura(factura.getNumeroFactura());
@@ -0,0 +1,95 @@
+package com.mikeldi.reto.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Filtro de Bloom sobre cadenas: responde "seguro que no está" sin falsos negativos
+// y "puede que esté" con la probabilidad de falso positivo elegida al crearlo.
+// No admite borrados; admite altas concurrentes sin bloqueos
+final class FiltroBloom {
+    
+    // Bits del filtro agrupados en palabras de 64
+    private final AtomicLongArray bits;
+    
+    // Número de bits y de funciones hash
+    private final long numBits;
+    private final int numHashes;
+    
+    // Elementos para los que se dimensionó el filtro y elementos añadidos
+    private final long capacidad;
+    private final AtomicLong anadidos = new AtomicLong();
+    
+    // Dimensiona el filtro para la capacidad y probabilidad de falso positivo indicadas
+    FiltroBloom(long capacidad, double probabilidadFalsoPositivo) {
+        this.capacidad = Math.max(capacidad, 1);
+        double ln2 = Math.log(2);
+        long m = (long) Math.ceil(-this.capacidad * Math.log(probabilidadFalsoPositivo) / (ln2 * ln2));
+        int palabras = (int) Math.min((m + 63) / 64, Integer.MAX_VALUE - 8);
+        this.bits = new AtomicLongArray(Math.max(palabras, 1));
+        this.numBits = bits.length() * 64L;
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / this.capacidad * ln2));
+    }
+    
+    // Marca la clave como presente
+    // Solo cuenta como añadida si cambia algún bit, para que volver a anotar claves conocidas no sature el filtro
+    void anadir(String clave) {
+        long h1 = hash(clave);
+        long h2 = mezclar(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        boolean nueva = false;
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, numBits);
+            long mascara = 1L << bit;
+            int palabra = (int) (bit >>> 6);
+            if ((bits.get(palabra) & mascara) == 0) {
+                bits.getAndAccumulate(palabra, mascara, (actual, m) -> actual | m);
+                nueva = true;
+            }
+        }
+        if (nueva) {
+            anadidos.incrementAndGet();
+        }
+    }
+    
+    // false si la clave seguro que no se ha añadido; true si puede haberse añadido
+    boolean puedeContener(String clave) {
+        long h1 = hash(clave);
+        long h2 = mezclar(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, numBits);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    // Indica si se han añadido más claves de las previstas y los falsos positivos ya superan la tasa elegida
+    boolean saturado() {
+        return anadidos.get() > capacidad;
+    }
+    
+    // Memoria ocupada por los bits, en bytes
+    long tamanoBytes() {
+        return numBits / 8;
+    }
+    
+    // Hash de 64 bits de la cadena (FNV-1a sobre los caracteres y mezcla final)
+    private static long hash(String clave) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < clave.length(); i++) {
+            h ^= clave.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        return mezclar(h);
+    }
+    
+    // Finalizador de MurmurHash3: reparte los bits para que h1 y h2 sean independientes
+    private static long mezclar(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,333 @@
+package com.mikeldi.reto.service;
+
+import com.mikeldi.reto.entity.Cliente;
+import com.mikeldi.reto.entity.Usuario;
+import com.mikeldi.reto.event.EntidadModificadaEvent;
+import com.mikeldi.reto.repository.ClienteRepository;
+import com.mikeldi.reto.repository.UsuarioRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Caché en memoria de los identificadores únicos: NIF de clientes y emails de usuarios
+// Un filtro de Bloom con todas las claves registradas responde "seguro que no existe" sin consultar
+// la base de datos, que es el caso habitual al validar altas. Para las claves que sí existen se
+// recuerda su id en una caché LRU acotada. Las claves se anotan en el filtro en cuanto se escriben,
+// antes de confirmar, y la caché LRU se actualiza al confirmar. La restricción UNIQUE de la base de
+// datos sigue siendo la garantía final
+@Component
+public class IdentificadoresCache {
+    
+    // Logger para registrar las cargas del índice
+    private static final Logger logger = LoggerFactory.getLogger(IdentificadoresCache.class);
+    
+    // Marcas diacríticas que se eliminan al normalizar (la colación de MySQL ignora acentos)
+    private static final Pattern DIACRITICOS = Pattern.compile("\\p{M}");
+    
+    // Inyecta repositorios para recorrer las claves con un cursor y resolver las dudosas
+    @Autowired
+    private ClienteRepository clienteRepository;
+    
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+    
+    // Gestor de transacciones para abrir los cursores fuera de un método @Transactional
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    // Probabilidad de falso positivo de los filtros de Bloom
+    @Value("${app.identificadores.falsos-positivos:0.01}")
+    private double probabilidadFalsoPositivo;
+    
+    // Índices de cada tipo de clave; la capacidad de la caché LRU se fija en el constructor
+    private final Indice nifs;
+    private final Indice emails;
+    
+    public IdentificadoresCache(@Value("${app.identificadores.capacidad-cache:10000}") int capacidadCache) {
+        this.nifs = new Indice("NIF", capacidadCache,
+                               () -> clienteRepository.count(), () -> clienteRepository.streamNifs());
+        this.emails = new Indice("emails", capacidadCache,
+                                 () -> usuarioRepository.count(), () -> usuarioRepository.streamEmails());
+    }
+    
+    // Carga los filtros en segundo plano al arrancar; hasta entonces se consulta la base de datos
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarAlArrancar() {
+        lanzarCarga(this::cargar, "carga-identificadores");
+    }
+    
+    // Carga completa de ambos filtros
+    void cargar() {
+        cargar(nifs);
+        cargar(emails);
+    }
+    
+    // Construye un filtro nuevo con holgura para crecer y lo pone en uso al terminar
+    // Las claves escritas durante la carga se anotan también en el filtro en construcción
+    private void cargar(Indice indice) {
+        long inicio = System.currentTimeMillis();
+        FiltroBloom nuevo = new FiltroBloom(Math.max(2 * indice.contar.get(), 1024), probabilidadFalsoPositivo);
+        if (!indice.empezarCarga(nuevo)) {
+            return;
+        }
+        try {
+            TransactionTemplate plantilla = new TransactionTemplate(transactionManager);
+            plantilla.setReadOnly(true);
+            plantilla.executeWithoutResult(estado -> {
+                try (Stream<String> filas = indice.claves.get()) {
+                    filas.forEach(clave -> nuevo.anadir(normalizar(clave)));
+                }
+            });
+            indice.terminarCarga(nuevo);
+            logger.info("Filtro de {} cargado ({} KB) en {} ms",
+                        indice.nombre, nuevo.tamanoBytes() / 1024, System.currentTimeMillis() - inicio);
+        } catch (RuntimeException e) {
+            indice.cancelarCarga(nuevo);
+            logger.error("Error al cargar el filtro de {}, se seguirá consultando la base de datos", indice.nombre, e);
+        }
+    }
+    
+    private static void lanzarCarga(Runnable carga, String nombreHilo) {
+        Thread hilo = new Thread(carga, nombreHilo);
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+    
+    // Indica si existe un cliente con el NIF; solo consulta la base de datos si el filtro no lo descarta
+    public boolean existeNif(String nif) {
+        return idPorNif(nif).isPresent();
+    }
+    
+    // Id del cliente con el NIF, desde la caché LRU o la base de datos
+    public Optional<Long> idPorNif(String nif) {
+        return buscar(nifs, nif, clienteRepository::findIdByNif);
+    }
+    
+    // Indica si existe un usuario con el email; solo consulta la base de datos si el filtro no lo descarta
+    public boolean existeEmail(String email) {
+        return buscar(emails, email, usuarioRepository::findIdByEmail).isPresent();
+    }
+    
+    private static Optional<Long> buscar(Indice indice, String valor, Function<String, Optional<Long>> consulta) {
+        if (valor == null) {
+            return Optional.empty();
+        }
+        String clave = normalizar(valor);
+        if (indice.descartada(clave)) {
+            return Optional.empty();
+        }
+        Long enCache = indice.id(clave);
+        if (enCache != null) {
+            return Optional.of(enCache);
+        }
+        // La versión evita guardar un id que un cambio confirmado durante la consulta ya ha dejado obsoleto
+        long version = indice.version();
+        Optional<Long> id = consulta.apply(valor);
+        id.ifPresent(v -> indice.guardar(clave, v, version));
+        return id;
+    }
+    
+    // Anota las claves en el filtro en cuanto se escriben, dentro de la transacción
+    // Así una validación concurrente no las da por libres mientras la transacción confirma;
+    // si se deshace, la clave queda como falso positivo y se resuelve en la base de datos
+    @EventListener
+    public void alEscribirEntidad(EntidadModificadaEvent evento) {
+        if (evento.getOperacion() == EntidadModificadaEvent.Operacion.ELIMINADA) {
+            return;
+        }
+        if (evento.esDeTipo(Cliente.class)) {
+            anotar(nifs, ((Cliente) evento.getEntidad()).getNif());
+        } else if (evento.esDeTipo(Usuario.class)) {
+            anotar(emails, ((Usuario) evento.getEntidad()).getEmail());
+        }
+    }
+    
+    // Mantiene la caché LRU al día cuando confirman altas, cambios de clave y bajas
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alModificarEntidad(EntidadModificadaEvent evento) {
+        if (evento.esDeTipo(Cliente.class)) {
+            Cliente cliente = (Cliente) evento.getEntidad();
+            confirmar(nifs, cliente.getId(), cliente.getNif(), evento.getOperacion());
+        } else if (evento.esDeTipo(Usuario.class)) {
+            Usuario usuario = (Usuario) evento.getEntidad();
+            confirmar(emails, usuario.getId(), usuario.getEmail(), evento.getOperacion());
+        }
+    }
+    
+    private void confirmar(Indice indice, Long id, String valor, EntidadModificadaEvent.Operacion operacion) {
+        if (operacion == EntidadModificadaEvent.Operacion.ELIMINADA || valor == null) {
+            indice.eliminar(id);
+            return;
+        }
+        // Se anota de nuevo por si una carga empezó después de escribir y antes de confirmar
+        anotar(indice, valor);
+        indice.actualizar(id, normalizar(valor));
+    }
+    
+    // Añade la clave al filtro y lo reconstruye en segundo plano si ya tiene más claves de las previstas
+    private void anotar(Indice indice, String valor) {
+        if (valor == null) {
+            return;
+        }
+        indice.anotar(normalizar(valor));
+        if (indice.pedirReconstruccion()) {
+            lanzarCarga(() -> cargar(indice), "recarga-identificadores");
+        }
+    }
+    
+    // Forma comparable de la clave: sin espacios exteriores, en minúsculas y sin acentos,
+    // como la comparación de la colación por defecto de MySQL
+    static String normalizar(String valor) {
+        String clave = valor.strip().toLowerCase(Locale.ROOT);
+        for (int i = 0; i < clave.length(); i++) {
+            if (clave.charAt(i) > 0x7F) {
+                return DIACRITICOS.matcher(Normalizer.normalize(clave, Normalizer.Form.NFD)).replaceAll("");
+            }
+        }
+        return clave;
+    }
+    
+    // Filtro de Bloom y caché LRU clave → id de un tipo de identificador
+    private static final class Indice {
+        
+        // Nombre para los registros, número de claves registradas y cursor que las recorre
+        private final String nombre;
+        private final Supplier<Long> contar;
+        private final Supplier<Stream<String>> claves;
+        
+        // Filtro en uso (null hasta terminar la primera carga) y filtro que se está construyendo
+        private volatile FiltroBloom filtro;
+        private FiltroBloom enConstruccion;
+        
+        // Indica que ya se ha lanzado la reconstrucción de un filtro saturado
+        private boolean reconstruccionPedida;
+        
+        // Claves existentes recordadas con su id, en orden de acceso, y relación inversa para
+        // localizar la clave anterior de un id cuando cambia o se elimina
+        private final Map<Long, String> clavesPorId = new HashMap<>();
+        private final LinkedHashMap<String, Long> idsPorClave;
+        
+        // Se incrementa con cada cambio confirmado
+        private long version;
+        
+        private Indice(String nombre, int capacidad, Supplier<Long> contar, Supplier<Stream<String>> claves) {
+            this.nombre = nombre;
+            this.contar = contar;
+            this.claves = claves;
+            this.idsPorClave = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Long> mayor) {
+                    if (size() > capacidad) {
+                        clavesPorId.remove(mayor.getValue());
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+        
+        // true si el filtro en uso asegura que la clave no existe
+        boolean descartada(String clave) {
+            FiltroBloom actual = filtro;
+            return actual != null && !actual.puedeContener(clave);
+        }
+        
+        synchronized void anotar(String clave) {
+            if (filtro != null) {
+                filtro.anadir(clave);
+            }
+            if (enConstruccion != null) {
+                enConstruccion.anadir(clave);
+            }
+        }
+        
+        synchronized boolean empezarCarga(FiltroBloom nuevo) {
+            if (enConstruccion != null) {
+                return false;
+            }
+            enConstruccion = nuevo;
+            return true;
+        }
+        
+        synchronized void terminarCarga(FiltroBloom nuevo) {
+            filtro = nuevo;
+            enConstruccion = null;
+            reconstruccionPedida = false;
+        }
+        
+        synchronized void cancelarCarga(FiltroBloom nuevo) {
+            if (enConstruccion == nuevo) {
+                enConstruccion = null;
+            }
+            reconstruccionPedida = false;
+        }
+        
+        // Devuelve true una sola vez cuando el filtro en uso se satura y no hay otra carga en curso
+        synchronized boolean pedirReconstruccion() {
+            if (filtro == null || enConstruccion != null || reconstruccionPedida || !filtro.saturado()) {
+                return false;
+            }
+            reconstruccionPedida = true;
+            return true;
+        }
+        
+        synchronized Long id(String clave) {
+            return idsPorClave.get(clave);
+        }
+        
+        synchronized long version() {
+            return version;
+        }
+        
+        // Guarda un id leído de la base de datos si no ha confirmado ningún cambio desde la lectura
+        synchronized void guardar(String clave, Long id, long versionLeida) {
+            if (version == versionLeida) {
+                poner(clave, id);
+            }
+        }
+        
+        // La entidad tiene ahora esta clave: se olvida la anterior y se recuerda la nueva
+        synchronized void actualizar(Long id, String clave) {
+            version++;
+            poner(clave, id);
+        }
+        
+        synchronized void eliminar(Long id) {
+            version++;
+            String anterior = clavesPorId.remove(id);
+            if (anterior != null) {
+                idsPorClave.remove(anterior);
+            }
+        }
+        
+        private void poner(String clave, Long id) {
+            String anterior = clavesPorId.put(id, clave);
+            if (anterior != null && !anterior.equals(clave)) {
+                idsPorClave.remove(anterior);
+            }
+            Long previo = idsPorClave.put(clave, id);
+            if (previo != null && !previo.equals(id)) {
+                clavesPorId.remove(previo);
+            }
+        }
+    }
+}
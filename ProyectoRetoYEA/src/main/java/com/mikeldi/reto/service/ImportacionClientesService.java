@@ -0,0 +1,373 @@
+package com.mikeldi.reto.service;
+
+import com.mikeldi.reto.dto.ClienteDTO;
+import com.mikeldi.reto.dto.ErrorImportacionDTO;
+import com.mikeldi.reto.dto.ImportacionResultadoDTO;
+import com.mikeldi.reto.entity.Cliente;
+import com.mikeldi.reto.event.EntidadModificadaEvent;
+import com.mikeldi.reto.exception.BadRequestException;
+import com.mikeldi.reto.repository.ClienteRepository;
+import com.mikeldi.reto.repository.projection.UbicacionClienteView;
+import com.opencsv.CSVParserBuilder;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import com.opencsv.exceptions.CsvValidationException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Servicio de importación masiva de clientes desde CSV
+// Lee el archivo en streaming por lotes: valida las filas de cada lote en paralelo, detecta los NIF
+// repetidos en el archivo con un conjunto en memoria y los ya registrados con una sola consulta por
+// lote, y guarda el lote con una sentencia INSERT ... ON DUPLICATE KEY UPDATE en batch.
+// Cada lote se confirma por separado: una fila errónea no impide importar el resto
+@Service
+public class ImportacionClientesService {
+    
+    // Logger para registrar el resultado de cada importación
+    private static final Logger logger = LoggerFactory.getLogger(ImportacionClientesService.class);
+    
+    // Alta o actualización por NIF (clave única) en una sola sentencia
+    // Las columnas opcionales vacías en el archivo no borran el dato que ya tuviera el cliente
+    private static final String UPSERT_CLIENTE =
+            "INSERT INTO clientes (nombre, nif, email, telefono, direccion, codigo_postal, ciudad, provincia, " +
+            "activo, fecha_creacion, fecha_actualizacion) VALUES (?, ?, ?, ?, ?, ?, ?, ?, TRUE, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE nombre = VALUES(nombre), " +
+            "email = COALESCE(VALUES(email), email), " +
+            "telefono = COALESCE(VALUES(telefono), telefono), " +
+            "direccion = COALESCE(VALUES(direccion), direccion), " +
+            "codigo_postal = COALESCE(VALUES(codigo_postal), codigo_postal), " +
+            "ciudad = COALESCE(VALUES(ciudad), ciudad), " +
+            "provincia = COALESCE(VALUES(provincia), provincia), " +
+            "fecha_actualizacion = VALUES(fecha_actualizacion)";
+    
+    // Letras de control del DNI/NIE (por resto de 23) y del CIF (por dígito de control)
+    private static final String LETRAS_DNI = "TRWAGMYFPDXBNJZSQVHLCKE";
+    private static final String LETRAS_CIF = "JABCDEFGHI";
+    
+    // Columnas reconocidas en la cabecera, normalizada sin tildes ni mayúsculas
+    // Coinciden con las de la exportación CSV, así un archivo exportado se puede volver a importar
+    private static final Map<String, String> COLUMNAS = Map.of(
+        "nombre", "nombre",
+        "nif", "nif",
+        "email", "email",
+        "telefono", "telefono",
+        "direccion", "direccion",
+        "ciudad", "ciudad",
+        "provincia", "provincia",
+        "cp", "codigoPostal",
+        "codigo postal", "codigoPostal"
+    );
+    
+    // Inyecta el repositorio para la consulta de NIF existentes por lote
+    @Autowired
+    private ClienteRepository clienteRepository;
+    
+    // Ejecuta las sentencias en batch sin pasar por el contexto de persistencia
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    // Validador de Bean Validation, aplica las mismas reglas que el alta por la API
+    @Autowired
+    private Validator validator;
+    
+    // Gestor de transacciones para confirmar cada lote por separado
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    // Mantiene la tabla de resumen por provincia y ciudad de los clientes importados
+    @Autowired
+    private ResumenGeograficoService resumenGeograficoService;
+    
+    // Publica los eventos de alta y modificación que mantienen al día índices y cachés
+    @Autowired
+    private ApplicationEventPublisher publisher;
+    
+    // Filas que se validan y guardan juntas
+    @Value("${app.importacion.tamano-lote:1000}")
+    private int tamanoLote;
+    
+    // Máximo de errores detallados en el informe (el total se cuenta siempre)
+    @Value("${app.importacion.max-errores:1000}")
+    private int maxErrores;
+    
+    // Importa los clientes del CSV (UTF-8, separado por punto y coma) y retorna el informe
+    // La cabecera debe incluir al menos las columnas Nombre y NIF
+    public ImportacionResultadoDTO importarCSV(InputStream entrada) throws IOException {
+        long inicio = System.currentTimeMillis();
+        ImportacionResultadoDTO resultado = new ImportacionResultadoDTO();
+        Reader lector = new InputStreamReader(entrada, StandardCharsets.UTF_8);
+        try (CSVReader csv = new CSVReaderBuilder(lector)
+                .withCSVParser(new CSVParserBuilder().withSeparator(';').build())
+                .build()) {
+            String[] cabecera = csv.readNext();
+            if (cabecera == null) {
+                throw new BadRequestException("El archivo está vacío");
+            }
+            Map<String, Integer> posiciones = posicionesColumnas(cabecera);
+            
+            // NIF ya vistos en el archivo con la fila en que aparecieron
+            Map<String, Integer> nifsVistos = new HashMap<>();
+            List<Fila> lote = new ArrayList<>(tamanoLote);
+            int numeroFila = 1;
+            String[] valores;
+            while ((valores = csv.readNext()) != null) {
+                numeroFila++;
+                // Ignora las líneas en blanco (por ejemplo, al final del archivo)
+                if (valores.length == 1 && valores[0].isBlank()) {
+                    continue;
+                }
+                resultado.setFilasLeidas(resultado.getFilasLeidas() + 1);
+                lote.add(new Fila(numeroFila, leerCliente(valores, posiciones)));
+                if (lote.size() == tamanoLote) {
+                    procesarLote(lote, nifsVistos, resultado);
+                    lote.clear();
+                }
+            }
+            if (!lote.isEmpty()) {
+                procesarLote(lote, nifsVistos, resultado);
+            }
+        } catch (CsvValidationException e) {
+            throw new BadRequestException("CSV mal formado: " + e.getMessage());
+        }
+        
+        logger.info("Importación de clientes: {} filas, {} creados, {} actualizados, {} errores en {} ms",
+                    resultado.getFilasLeidas(), resultado.getCreados(), resultado.getActualizados(),
+                    resultado.getTotalErrores(), System.currentTimeMillis() - inicio);
+        return resultado;
+    }
+    
+    // Valida, descarta repetidos y guarda un lote de filas
+    private void procesarLote(List<Fila> lote, Map<String, Integer> nifsVistos, ImportacionResultadoDTO resultado) {
+        // La validación no depende de las demás filas: se reparte entre varios hilos
+        lote.parallelStream().forEach(fila -> fila.error = validar(fila.cliente));
+        
+        // Los repetidos se comprueban en orden: la primera aparición de cada NIF es la que se importa
+        List<Fila> validas = new ArrayList<>(lote.size());
+        for (Fila fila : lote) {
+            if (fila.error == null) {
+                Integer anterior = nifsVistos.putIfAbsent(fila.cliente.getNif(), fila.numero);
+                if (anterior != null) {
+                    fila.error = "NIF repetido en el archivo (fila " + anterior + ")";
+                }
+            }
+            if (fila.error != null) {
+                anotarError(resultado, fila.numero, fila.cliente.getNif(), fila.error);
+            } else {
+                validas.add(fila);
+            }
+        }
+        if (validas.isEmpty()) {
+            return;
+        }
+        
+        try {
+            guardar(validas, resultado);
+        } catch (DataAccessException e) {
+            // Si falla el lote se guarda fila a fila para aislar las que provocan el error
+            logger.warn("Error al guardar un lote de la importación, se reintenta fila a fila: {}", e.getMessage());
+            for (Fila fila : validas) {
+                try {
+                    guardar(List.of(fila), resultado);
+                } catch (DataAccessException errorFila) {
+                    anotarError(resultado, fila.numero, fila.cliente.getNif(),
+                                "No se pudo guardar: " + errorFila.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+    }
+    
+    // Guarda las filas en una transacción con una única consulta de NIF existentes y una sentencia en batch
+    // Los contadores se actualizan tras confirmar: un lote que falla y se reintenta fila a fila no cuenta dos veces
+    private void guardar(List<Fila> filas, ImportacionResultadoDTO resultado) {
+        TransactionTemplate plantilla = new TransactionTemplate(transactionManager);
+        int[] creadosYActualizados = plantilla.execute(estado -> {
+            // Un NIF repetido en el lote es un único cliente: la segunda fila actualiza la primera
+            List<String> nifs = filas.stream().map(f -> f.cliente.getNif()).distinct().toList();
+            Map<String, UbicacionClienteView> existentes = clienteRepository.findUbicacionesByNifIn(nifs).stream()
+                    .collect(Collectors.toMap(UbicacionClienteView::getNif, Function.identity()));
+            
+            LocalDateTime ahora = LocalDateTime.now();
+            jdbcTemplate.batchUpdate(UPSERT_CLIENTE, filas, filas.size(), (PreparedStatement ps, Fila fila) -> {
+                ClienteDTO c = fila.cliente;
+                ps.setString(1, c.getNombre());
+                ps.setString(2, c.getNif());
+                ps.setString(3, c.getEmail());
+                ps.setString(4, c.getTelefono());
+                ps.setString(5, c.getDireccion());
+                ps.setString(6, c.getCodigoPostal());
+                ps.setString(7, c.getCiudad());
+                ps.setString(8, c.getProvincia());
+                ps.setObject(9, ahora);
+                ps.setObject(10, ahora);
+            });
+            
+            // Las sentencias no pasan por JPA: se publican los eventos que los listeners de la
+            // entidad habrían generado, para que búsquedas, autocompletado y cachés los vean al confirmar
+            // El resumen geográfico se actualiza en la transacción del lote, con la ubicación anterior
+            for (Cliente cliente : clienteRepository.findByNifIn(nifs)) {
+                UbicacionClienteView anterior = existentes.get(cliente.getNif());
+                if (anterior != null) {
+                    resumenGeograficoService.registrarCambio(cliente, anterior.getProvincia(), anterior.getCiudad(),
+                                                             Boolean.TRUE.equals(anterior.getActivo()));
+                } else {
+                    resumenGeograficoService.registrarAlta(cliente);
+                }
+                EntidadModificadaEvent.Operacion operacion = anterior != null
+                        ? EntidadModificadaEvent.Operacion.ACTUALIZADA
+                        : EntidadModificadaEvent.Operacion.CREADA;
+                publisher.publishEvent(new EntidadModificadaEvent(cliente, operacion));
+            }
+            
+            return new int[] {nifs.size() - existentes.size(), existentes.size()};
+        });
+        resultado.setCreados(resultado.getCreados() + creadosYActualizados[0]);
+        resultado.setActualizados(resultado.getActualizados() + creadosYActualizados[1]);
+    }
+    
+    // Errores de una fila separados por "; " o null si es válida
+    private String validar(ClienteDTO cliente) {
+        List<String> errores = new ArrayList<>();
+        for (ConstraintViolation<ClienteDTO> violacion : validator.validate(cliente)) {
+            errores.add(violacion.getMessage());
+        }
+        if (errores.isEmpty() && !controlNifValido(cliente.getNif())) {
+            errores.add("Letra de control del NIF/CIF incorrecta");
+        }
+        // Longitudes de las columnas que la validación del DTO no limita
+        comprobarLongitud(errores, "email", cliente.getEmail(), 100);
+        comprobarLongitud(errores, "teléfono", cliente.getTelefono(), 20);
+        comprobarLongitud(errores, "dirección", cliente.getDireccion(), 200);
+        comprobarLongitud(errores, "código postal", cliente.getCodigoPostal(), 10);
+        comprobarLongitud(errores, "ciudad", cliente.getCiudad(), 100);
+        comprobarLongitud(errores, "provincia", cliente.getProvincia(), 100);
+        return errores.isEmpty() ? null : errores.stream().sorted().collect(Collectors.joining("; "));
+    }
+    
+    private static void comprobarLongitud(List<String> errores, String campo, String valor, int maximo) {
+        if (valor != null && valor.length() > maximo) {
+            errores.add("El campo " + campo + " admite como máximo " + maximo + " caracteres");
+        }
+    }
+    
+    // Comprueba el carácter de control de un DNI (8 dígitos y letra), NIE (X, Y o Z, 7 dígitos
+    // y letra), NIF especial de persona física (K, L o M, 7 dígitos y letra) o CIF (letra, 7 dígitos
+    // y letra de control)
+    static boolean controlNifValido(String nif) {
+        if (nif.matches("[0-9]{8}[A-Z]")) {
+            return LETRAS_DNI.charAt(Integer.parseInt(nif.substring(0, 8)) % 23) == nif.charAt(8);
+        }
+        if (nif.matches("[XYZ][0-9]{7}[A-Z]")) {
+            int numero = Integer.parseInt("XYZ".indexOf(nif.charAt(0)) + nif.substring(1, 8));
+            return LETRAS_DNI.charAt(numero % 23) == nif.charAt(8);
+        }
+        if (nif.matches("[KLM][0-9]{7}[A-Z]")) {
+            // La letra inicial no cuenta: el control es el de los 7 dígitos, como en un DNI
+            return LETRAS_DNI.charAt(Integer.parseInt(nif.substring(1, 8)) % 23) == nif.charAt(8);
+        }
+        if (nif.matches("[A-Z][0-9]{7}[A-Z]")) {
+            // Los dígitos en posición impar se doblan sumando sus cifras; los pares se suman tal cual
+            int suma = 0;
+            for (int i = 0; i < 7; i++) {
+                int digito = nif.charAt(i + 1) - '0';
+                if (i % 2 == 0) {
+                    digito *= 2;
+                    suma += digito / 10 + digito % 10;
+                } else {
+                    suma += digito;
+                }
+            }
+            return LETRAS_CIF.charAt((10 - suma % 10) % 10) == nif.charAt(8);
+        }
+        return false;
+    }
+    
+    // Convierte los valores de una fila en un DTO; las celdas vacías quedan a null
+    private static ClienteDTO leerCliente(String[] valores, Map<String, Integer> posiciones) {
+        ClienteDTO cliente = new ClienteDTO();
+        cliente.setNombre(valor(valores, posiciones.get("nombre")));
+        String nif = valor(valores, posiciones.get("nif"));
+        cliente.setNif(nif != null ? nif.toUpperCase(Locale.ROOT) : null);
+        cliente.setEmail(valor(valores, posiciones.get("email")));
+        cliente.setTelefono(valor(valores, posiciones.get("telefono")));
+        cliente.setDireccion(valor(valores, posiciones.get("direccion")));
+        cliente.setCodigoPostal(valor(valores, posiciones.get("codigoPostal")));
+        cliente.setCiudad(valor(valores, posiciones.get("ciudad")));
+        cliente.setProvincia(valor(valores, posiciones.get("provincia")));
+        return cliente;
+    }
+    
+    private static String valor(String[] valores, Integer posicion) {
+        if (posicion == null || posicion >= valores.length) {
+            return null;
+        }
+        String valor = valores[posicion].trim();
+        return valor.isEmpty() ? null : valor;
+    }
+    
+    // Posición de cada columna reconocida; las desconocidas (como ID) se ignoran
+    private static Map<String, Integer> posicionesColumnas(String[] cabecera) {
+        Map<String, Integer> posiciones = new HashMap<>();
+        for (int i = 0; i < cabecera.length; i++) {
+            // Quita la marca BOM que Excel añade al principio de los CSV en UTF-8
+            String nombre = Normalizer.normalize(cabecera[i].replace("\uFEFF", ""), Normalizer.Form.NFD)
+                    .replaceAll("\\p{M}", "")
+                    .toLowerCase(Locale.ROOT)
+                    .trim();
+            String campo = COLUMNAS.get(nombre);
+            if (campo != null) {
+                posiciones.putIfAbsent(campo, i);
+            }
+        }
+        if (!posiciones.containsKey("nombre") || !posiciones.containsKey("nif")) {
+            throw new BadRequestException("La cabecera del CSV debe incluir las columnas Nombre y NIF");
+        }
+        return posiciones;
+    }
+    
+    // Añade un error al informe respetando el máximo de errores detallados
+    private void anotarError(ImportacionResultadoDTO resultado, int fila, String nif, String mensaje) {
+        resultado.setTotalErrores(resultado.getTotalErrores() + 1);
+        if (resultado.getErrores().size() < maxErrores) {
+            resultado.getErrores().add(new ErrorImportacionDTO(fila, nif, mensaje));
+        }
+    }
+    
+    // Fila leída del archivo con su número y el error de validación, si lo tiene
+    private static class Fila {
+        
+        private final int numero;
+        private final ClienteDTO cliente;
+        private String error;
+        
+        private Fila(int numero, ClienteDTO cliente) {
+            this.numero = numero;
+            this.cliente = cliente;
+        }
+    }
+}
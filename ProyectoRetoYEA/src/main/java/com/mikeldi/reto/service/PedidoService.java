@@ -156,7 +156,8 @@ public class PedidoService {
     }
     
     // Convierte una entidad Pedido a DTO incluyendo todas sus líneas
-    private PedidoDTO convertirADTO(Pedido pedido) {
+    // Visible en el paquete para que la sincronización devuelva el mismo formato
+    PedidoDTO convertirADTO(Pedido pedido) {
         PedidoDTO dto = new PedidoDTO();
         dto.setId(pedido.getId());
         dto.setClienteId(pedido.getCliente().getId());
@@ -1,5 +1,6 @@
 package com.mikeldi.reto.service;
 
+import com.mikeldi.reto.busqueda.BusquedaService;
 import com.mikeldi.reto.dto.ProductoDTO;
 import com.mikeldi.reto.entity.Producto;
 import com.mikeldi.reto.exception.BadRequestException;
@@ -10,6 +11,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 // Servicio que encapsula la lógica de negocio para gestión de productos
@@ -20,6 +24,10 @@ public class ProductoService {
     @Autowired
     private ProductoRepository productoRepository;
     
+    // Índice de búsqueda aproximada en memoria
+    @Autowired
+    private BusquedaService busquedaService;
+    
     // Crea un nuevo producto en el catálogo
     @Transactional
     public ProductoDTO crearProducto(ProductoDTO productoDTO) {
@@ -67,6 +75,25 @@ public class ProductoService {
                 .collect(Collectors.toList());
     }
     
+    // Busca productos por nombre, descripción o categoría tolerando errores de escritura
+    // Usa el índice de trigramas en memoria, ordena por parecido y limita a app.busqueda.max-resultados;
+    // mientras el índice se carga al arrancar recurre a la búsqueda por nombre en base de datos
+    @Transactional(readOnly = true)
+    public List<ProductoDTO> buscarAproximado(String texto) {
+        if (!busquedaService.isDisponible()) {
+            return buscarPorNombre(texto);
+        }
+        List<Long> ids = busquedaService.buscarProductos(texto);
+        Map<Long, Producto> porId = productoRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Producto::getId, Function.identity()));
+        // Conserva el orden de relevancia del índice
+        return ids.stream()
+                .map(porId::get)
+                .filter(Objects::nonNull)
+                .map(this::convertirADTO)
+                .collect(Collectors.toList());
+    }
+    
     // Filtra productos activos por categoría específica
     @Transactional(readOnly = true)
     public List<ProductoDTO> buscarPorCategoria(String categoria) {
@@ -156,7 +183,8 @@ public class ProductoService {
     
     // Convierte una entidad Producto a DTO para transferencia segura
     // Incluye el campo calculado isStockBajo() del método @Transient
-    private ProductoDTO convertirADTO(Producto producto) {
+    // Visible en el paquete para que la sincronización devuelva el mismo formato
+    ProductoDTO convertirADTO(Producto producto) {
         return new ProductoDTO(
                 producto.getId(),
                 producto.getNombre(),
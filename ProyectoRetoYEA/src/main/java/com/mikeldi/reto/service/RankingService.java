@@ -0,0 +1,141 @@
+package com.mikeldi.reto.service;
+
+import com.mikeldi.reto.dto.RankingDTO;
+import com.mikeldi.reto.dto.RankingItemDTO;
+import com.mikeldi.reto.exception.BadRequestException;
+import com.mikeldi.reto.repository.FacturaRepository;
+import com.mikeldi.reto.repository.LineaPedidoRepository;
+import com.mikeldi.reto.repository.projection.VentaClienteView;
+import com.mikeldi.reto.repository.projection.VentaProductoView;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+// Servicio que genera rankings de los mejores productos y clientes de un periodo
+// Recorre las ventas con un cursor ordenado por producto/cliente y conserva solo el top N
+// de cada métrica en montículos acotados: la memoria no depende de la longitud del periodo
+@Service
+public class RankingService {
+    
+    // Límite máximo de posiciones por ranking
+    private static final int MAX_POSICIONES = 100;
+    
+    // Inyecta repositorio de líneas para el ranking de productos
+    @Autowired
+    private LineaPedidoRepository lineaPedidoRepository;
+    
+    // Inyecta repositorio de facturas para el ranking de clientes
+    @Autowired
+    private FacturaRepository facturaRepository;
+    
+    // Top N productos por unidades vendidas y por facturación sin IVA
+    // Con porCategoria=true añade además un ranking por cada categoría en la misma pasada
+    @Transactional(readOnly = true)
+    public List<RankingDTO> topProductos(LocalDate inicio, LocalDate fin, int n, boolean porCategoria) {
+        Clasificacion clasificacion = new Clasificacion(validarLimite(n), porCategoria, Map.of(
+            "UNIDADES", Comparator.comparingLong(RankingItemDTO::getUnidades),
+            "FACTURACION", Comparator.comparing(RankingItemDTO::getFacturacion)
+        ));
+        
+        try (Stream<VentaProductoView> ventas = lineaPedidoRepository.streamVentasPorProducto(inicio, fin)) {
+            RankingItemDTO actual = null;
+            for (VentaProductoView venta : (Iterable<VentaProductoView>) ventas::iterator) {
+                // Al cambiar de producto, sus totales están completos y se ofrecen al ranking
+                if (actual == null || !actual.getId().equals(venta.getProductoId())) {
+                    clasificacion.ofrecer(actual);
+                    actual = new RankingItemDTO(venta.getProductoId(), venta.getNombre(), venta.getCategoria(),
+                                                0L, null, BigDecimal.ZERO);
+                }
+                actual.setUnidades(actual.getUnidades() + venta.getCantidad());
+                actual.setFacturacion(actual.getFacturacion().add(venta.getSubtotal()));
+            }
+            clasificacion.ofrecer(actual);
+        }
+        return clasificacion.resultado();
+    }
+    
+    // Top N clientes por facturación sin IVA y por número de facturas
+    // Con porProvincia=true añade además un ranking por cada provincia en la misma pasada
+    @Transactional(readOnly = true)
+    public List<RankingDTO> topClientes(LocalDate inicio, LocalDate fin, int n, boolean porProvincia) {
+        Clasificacion clasificacion = new Clasificacion(validarLimite(n), porProvincia, Map.of(
+            "FACTURACION", Comparator.comparing(RankingItemDTO::getFacturacion),
+            "FACTURAS", Comparator.comparingLong(RankingItemDTO::getFacturas)
+        ));
+        
+        try (Stream<VentaClienteView> ventas = facturaRepository.streamVentasPorCliente(inicio, fin)) {
+            RankingItemDTO actual = null;
+            for (VentaClienteView venta : (Iterable<VentaClienteView>) ventas::iterator) {
+                // Al cambiar de cliente, sus totales están completos y se ofrecen al ranking
+                if (actual == null || !actual.getId().equals(venta.getClienteId())) {
+                    clasificacion.ofrecer(actual);
+                    actual = new RankingItemDTO(venta.getClienteId(), venta.getNombre(), venta.getProvincia(),
+                                                null, 0L, BigDecimal.ZERO);
+                }
+                actual.setFacturas(actual.getFacturas() + 1);
+                actual.setFacturacion(actual.getFacturacion().add(venta.getTotalBase()));
+            }
+            clasificacion.ofrecer(actual);
+        }
+        return clasificacion.resultado();
+    }
+    
+    // Valida el número de posiciones solicitado
+    private int validarLimite(int n) {
+        if (n < 1 || n > MAX_POSICIONES) {
+            throw new BadRequestException("El número de posiciones debe estar entre 1 y " + MAX_POSICIONES);
+        }
+        return n;
+    }
+    
+    // Conjunto de montículos top N: uno por métrica global y, si hay desglose, uno por métrica y grupo
+    private static class Clasificacion {
+        private final int limite;
+        private final boolean desglosar;
+        private final Map<String, Comparator<RankingItemDTO>> metricas;
+        private final Map<String, TopN<RankingItemDTO>> globales = new LinkedHashMap<>();
+        private final Map<String, Map<String, TopN<RankingItemDTO>>> porGrupo = new TreeMap<>();
+        
+        Clasificacion(int limite, boolean desglosar, Map<String, Comparator<RankingItemDTO>> metricas) {
+            this.limite = limite;
+            this.desglosar = desglosar;
+            this.metricas = new TreeMap<>(metricas);
+            this.metricas.forEach((metrica, comparador) -> globales.put(metrica, new TopN<>(limite, comparador)));
+        }
+        
+        // Ofrece un elemento con sus totales ya cerrados a todos los rankings aplicables
+        void ofrecer(RankingItemDTO item) {
+            if (item == null) {
+                return;
+            }
+            globales.values().forEach(top -> top.ofrecer(item));
+            if (desglosar) {
+                String grupo = item.getGrupo() != null ? item.getGrupo() : "";
+                porGrupo.computeIfAbsent(grupo, g -> {
+                    Map<String, TopN<RankingItemDTO>> tops = new LinkedHashMap<>();
+                    metricas.forEach((metrica, comparador) -> tops.put(metrica, new TopN<>(limite, comparador)));
+                    return tops;
+                }).values().forEach(top -> top.ofrecer(item));
+            }
+        }
+        
+        // Rankings globales primero y después los de cada grupo
+        List<RankingDTO> resultado() {
+            List<RankingDTO> rankings = new ArrayList<>();
+            globales.forEach((metrica, top) -> rankings.add(new RankingDTO(metrica, null, top.resultado())));
+            porGrupo.forEach((grupo, tops) -> tops.forEach((metrica, top) ->
+                rankings.add(new RankingDTO(metrica, grupo, top.resultado()))));
+            return rankings;
+        }
+    }
+}
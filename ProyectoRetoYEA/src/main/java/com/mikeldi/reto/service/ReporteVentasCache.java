@@ -0,0 +1,82 @@
+package com.mikeldi.reto.service;
+
+import com.mikeldi.reto.dto.ReporteVentasDTO;
+import com.mikeldi.reto.entity.Factura;
+import com.mikeldi.reto.entity.Pedido;
+import com.mikeldi.reto.event.EntidadModificadaEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Caché del reporte de ventas por día para los días cerrados
+// Un día está cerrado cuando ya ha pasado y todas sus facturas están liquidadas (PAGADAS o CANCELADAS):
+// sus cifras solo cambian si se modifica una factura o un pedido de ese día, y entonces se descarta.
+// Guarda los días consultados más recientemente hasta el máximo
+@Component
+public class ReporteVentasCache {
+    
+    // Máximo de días en caché (unos 55 años); evita que un rango absurdo llene la memoria
+    static final int MAX_DIAS = 20_000;
+    
+    // Reporte de cada día cerrado en orden de acceso; el menos usado sale al superar el máximo
+    // Los días sin actividad se guardan con todos los contadores a cero
+    private final Map<LocalDate, ReporteVentasDTO> dias = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<LocalDate, ReporteVentasDTO> mayor) {
+            return size() > MAX_DIAS;
+        }
+    };
+    
+    // Se incrementa con cada invalidación; un cálculo solo se guarda si no ha cambiado desde que empezó
+    private long version;
+    
+    // Versión actual, leída antes de consultar la base de datos
+    public synchronized long version() {
+        return version;
+    }
+    
+    // Reporte en caché de un día cerrado, o null si hay que calcularlo
+    public synchronized ReporteVentasDTO buscar(LocalDate dia) {
+        return dias.get(dia);
+    }
+    
+    // Guarda el reporte de un día cerrado calculado con la versión indicada
+    // Si entretanto se ha invalidado algo, el cálculo puede ser anterior al cambio y se descarta
+    public synchronized void guardar(LocalDate dia, ReporteVentasDTO reporte, long versionCalculo) {
+        if (versionCalculo == version) {
+            dias.put(dia, reporte);
+        }
+    }
+    
+    // Descarta el reporte de un día
+    public synchronized void invalidar(LocalDate dia) {
+        version++;
+        dias.remove(dia);
+    }
+    
+    // Descarta todos los días (tras reconstruir el resumen diario)
+    public synchronized void vaciar() {
+        version++;
+        dias.clear();
+    }
+    
+    // Invalida el día de la factura o pedido modificado una vez confirmada la transacción
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alModificarEntidad(EntidadModificadaEvent evento) {
+        if (evento.esDeTipo(Factura.class)) {
+            LocalDate fecha = ((Factura) evento.getEntidad()).getFechaEmision();
+            if (fecha != null) {
+                invalidar(fecha);
+            }
+        } else if (evento.esDeTipo(Pedido.class)) {
+            Pedido pedido = (Pedido) evento.getEntidad();
+            if (pedido.getFechaPedido() != null) {
+                invalidar(pedido.getFechaPedido().toLocalDate());
+            }
+        }
+    }
+}
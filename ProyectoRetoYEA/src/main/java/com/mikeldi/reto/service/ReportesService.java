@@ -1,30 +1,38 @@
 package com.mikeldi.reto.service;
 
+import com.mikeldi.reto.dto.AntiguedadClienteDTO;
+import com.mikeldi.reto.dto.AntiguedadDeudaDTO;
 import com.mikeldi.reto.dto.EstadisticasDTO;
+import com.mikeldi.reto.dto.ReporteIvaDTO;
 import com.mikeldi.reto.dto.ReporteVentasDTO;
-import com.mikeldi.reto.entity.EstadoFactura;
 import com.mikeldi.reto.repository.*;
+import com.mikeldi.reto.repository.projection.AntiguedadDeudaView;
+import com.mikeldi.reto.repository.projection.ConteoDiarioView;
+import com.mikeldi.reto.repository.projection.EstadisticasView;
+import com.mikeldi.reto.repository.projection.IvaMensualView;
+import com.mikeldi.reto.repository.projection.VentasDiariasView;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
 
 // Servicio especializado en generación de reportes y estadísticas del negocio
 @Service
 public class ReportesService {
     
-    // Inyecta repositorio para contar clientes totales
-    @Autowired
-    private ClienteRepository clienteRepository;
-    
-    // Inyecta repositorio para estadísticas de inventario
-    @Autowired
-    private ProductoRepository productoRepository;
-    
     // Inyecta repositorio para métricas de pedidos
     @Autowired
     private PedidoRepository pedidoRepository;
@@ -33,94 +41,220 @@ public class ReportesService {
     @Autowired
     private FacturaRepository facturaRepository;
     
+    // Inyecta repositorio del resumen diario de ventas precalculado
+    @Autowired
+    private VentaDiariaRepository ventaDiariaRepository;
+    
+    // Inyecta repositorio del resumen mensual de IVA precalculado
+    @Autowired
+    private ResumenIvaMensualRepository resumenIvaMensualRepository;
+    
+    // Caché de estadísticas invalidada por eventos de modificación de entidades
+    @Autowired
+    private EstadisticasCache estadisticasCache;
+    
+    // Caché del reporte de ventas de los días cerrados
+    @Autowired
+    private ReporteVentasCache reporteVentasCache;
+    
     // Genera un resumen ejecutivo con KPIs principales del negocio
-    @Transactional(readOnly = true)
+    // El panel lo consulta en cada carga, por lo que se sirve desde caché
     public EstadisticasDTO obtenerEstadisticas() {
+        return estadisticasCache.obtener(this::calcularEstadisticas);
+    }
+    
+    // Calcula todos los KPIs con una única consulta agregada
+    private EstadisticasDTO calcularEstadisticas() {
+        // Calcula ventas del mes actual desde el día 1 hasta el último día
+        LocalDate hoy = LocalDate.now();
+        LocalDate inicioMes = hoy.withDayOfMonth(1);
+        LocalDate finMes = hoy.withDayOfMonth(hoy.lengthOfMonth());
+        
+        // Umbral de stock bajo configurado en 10 unidades como ejemplo
+        EstadisticasView kpis = facturaRepository.calcularEstadisticas(10, inicioMes, finMes);
+        
         EstadisticasDTO stats = new EstadisticasDTO();
+        stats.setTotalClientes(kpis.getTotalClientes());
+        stats.setTotalProductos(kpis.getTotalProductos());
+        stats.setTotalPedidos(kpis.getTotalPedidos());
+        stats.setTotalFacturas(kpis.getTotalFacturas());
+        stats.setProductosStockBajo(kpis.getProductosStockBajo());
+        stats.setFacturasPendientes(kpis.getFacturasPendientes());
+        stats.setVentasTotalesMes(kpis.getVentasTotalesMes());
+        stats.setVentasPendientesCobro(kpis.getVentasPendientesCobro());
+        return stats;
+    }
+    
+    // Genera reporte detallado de ventas agrupado por día en un rango de fechas
+    // Los días cerrados se toman de la caché y los demás se calculan con una sola consulta por tabla,
+    // sobre el tramo que va del primer al último día sin caché
+    @Transactional(readOnly = true)
+    public List<ReporteVentasDTO> reporteVentasPorPeriodo(LocalDate inicio, LocalDate fin) {
+        // TreeMap en orden inverso deja el reporte ordenado por fecha descendente (más reciente primero)
+        Map<LocalDate, ReporteVentasDTO> reportes = new TreeMap<>(Comparator.reverseOrder());
         
-        // Contadores básicos de entidades principales
-        // Proporcionan vista general del tamaño del negocio
-        stats.setTotalClientes(clienteRepository.count());
-        stats.setTotalProductos(productoRepository.count());
-        stats.setTotalPedidos(pedidoRepository.count());
-        stats.setTotalFacturas(facturaRepository.count());
+        // Un rango mayor que la propia caché se calcula directamente
+        if (ChronoUnit.DAYS.between(inicio, fin) >= ReporteVentasCache.MAX_DIAS) {
+            calcularTramo(inicio, fin, null, reportes);
+            return new ArrayList<>(reportes.values());
+        }
         
-        // Cuenta productos con stock bajo que requieren reposición
-        // Umbral configurado en 10 unidades como ejemplo
-        stats.setProductosStockBajo((long) productoRepository.findByStockActualLessThanAndActivoTrue(10).size());
+        // La versión se lee antes de consultar: si algo se invalida durante el cálculo no se guarda
+        long version = reporteVentasCache.version();
+        Map<LocalDate, ReporteVentasDTO> cacheados = new HashMap<>();
+        LocalDate primeroSinCache = null;
+        LocalDate ultimoSinCache = null;
+        for (LocalDate dia = inicio; !dia.isAfter(fin); dia = dia.plusDays(1)) {
+            ReporteVentasDTO cacheado = reporteVentasCache.buscar(dia);
+            if (cacheado != null) {
+                cacheados.put(dia, cacheado);
+            } else {
+                if (primeroSinCache == null) {
+                    primeroSinCache = dia;
+                }
+                ultimoSinCache = dia;
+            }
+        }
         
-        // Cuenta facturas pendientes de pago para flujo de caja
-        // Métrica crítica para gestión de cuentas por cobrar
-        stats.setFacturasPendientes(facturaRepository.countByEstado(EstadoFactura.PENDIENTE));
+        // Los días con facturas abiertas nunca se guardan y quedan intercalados con los cerrados:
+        // consultar cada hueco por separado multiplicaría las consultas en un rango largo
+        if (primeroSinCache != null) {
+            calcularTramo(primeroSinCache, ultimoSinCache, version, reportes);
+        }
+        // Los días en caché dentro del tramo ya llegan de la consulta
+        for (Map.Entry<LocalDate, ReporteVentasDTO> cacheado : cacheados.entrySet()) {
+            LocalDate dia = cacheado.getKey();
+            boolean enTramo = primeroSinCache != null && !dia.isBefore(primeroSinCache) && !dia.isAfter(ultimoSinCache);
+            if (!enTramo && tieneActividad(cacheado.getValue())) {
+                reportes.put(dia, cacheado.getValue());
+            }
+        }
         
-        // Calcula ventas del mes actual desde el día 1 hasta el último día
-        LocalDate inicioMes = LocalDate.now().withDayOfMonth(1);
-        LocalDate finMes = LocalDate.now().withDayOfMonth(LocalDate.now().lengthOfMonth());
+        return new ArrayList<>(reportes.values());
+    }
+    
+    // Calcula los días de un tramo y guarda en caché los que ya están cerrados (version null = sin caché)
+    private void calcularTramo(LocalDate inicio, LocalDate fin, Long version, Map<LocalDate, ReporteVentasDTO> reportes) {
+        Map<LocalDate, ReporteVentasDTO> tramo = new TreeMap<>();
+        Set<LocalDate> diasAbiertos = new HashSet<>();
         
-        // Obtiene todas las facturas emitidas en el mes actual
-        var facturasDelMes = facturaRepository.findByFechaEmisionBetweenOrderByFechaEmisionDesc(inicioMes, finMes);
-        // Suma el total final de todas las facturas usando reduce
-        BigDecimal ventasMes = facturasDelMes.stream()
-                .map(f -> f.getTotalFinal())
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        stats.setVentasTotalesMes(ventasMes);
+        // Lee la tabla de resumen diario (una fila por día y estado) en lugar de facturas
+        // El coste depende del número de días del periodo, no del número de facturas
+        for (VentasDiariasView dia : ventaDiariaRepository.resumirVentasPorDia(inicio, fin)) {
+            tramo.put(dia.getFecha(), new ReporteVentasDTO(
+                dia.getFecha(),
+                0,
+                dia.getTotalFacturas().intValue(),
+                valorOCero(dia.getVentasTotales()),
+                valorOCero(dia.getVentasPendientes()),
+                valorOCero(dia.getVentasPagadas())
+            ));
+            if (dia.getFacturasAbiertas() > 0) {
+                diasAbiertos.add(dia.getFecha());
+            }
+        }
         
-        // Calcula el importe total de facturas pendientes de cobro
-        // Indicador de liquidez: cuánto dinero está por cobrar
-        var facturasPendientes = facturaRepository.findByEstadoOrderByFechaEmisionDesc(EstadoFactura.PENDIENTE);
-        BigDecimal ventasPendientes = facturasPendientes.stream()
-                .map(f -> f.getTotalFinal())
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        stats.setVentasPendientesCobro(ventasPendientes);
+        // Completa el número de pedidos realizados cada día del periodo
+        // Los días con pedidos pero sin facturas también aparecen en el reporte
+        for (ConteoDiarioView dia : pedidoRepository.contarPedidosPorDia(inicio.atStartOfDay(), fin.plusDays(1).atStartOfDay())) {
+            tramo.computeIfAbsent(dia.getFecha(), fecha -> new ReporteVentasDTO(
+                fecha, 0, 0, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO
+            )).setTotalPedidos(dia.getTotal().intValue());
+        }
+        reportes.putAll(tramo);
         
-        return stats;
+        if (version == null) {
+            return;
+        }
+        // Guarda los días pasados sin facturas por liquidar, incluidos los días sin actividad
+        LocalDate hoy = LocalDate.now();
+        for (LocalDate dia = inicio; !dia.isAfter(fin) && dia.isBefore(hoy); dia = dia.plusDays(1)) {
+            if (!diasAbiertos.contains(dia)) {
+                ReporteVentasDTO reporte = tramo.get(dia);
+                reporteVentasCache.guardar(dia, reporte != null ? reporte : new ReporteVentasDTO(
+                    dia, 0, 0, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO
+                ), version);
+            }
+        }
     }
     
-    // Genera reporte detallado de ventas agrupado por día en un rango de fechas
+    // Los días sin pedidos ni facturas se guardan en caché pero no aparecen en el reporte
+    private boolean tieneActividad(ReporteVentasDTO reporte) {
+        return reporte.getTotalPedidos() > 0 || reporte.getTotalFacturas() > 0;
+    }
+    
+    // Informe de antigüedad de la deuda pendiente a una fecha de corte
+    // Una sola consulta agregada por cliente; las facturas aún no vencidas cuentan en el tramo 0-30
     @Transactional(readOnly = true)
-    public List<ReporteVentasDTO> reporteVentasPorPeriodo(LocalDate inicio, LocalDate fin) {
-        List<ReporteVentasDTO> reportes = new ArrayList<>();
+    public AntiguedadDeudaDTO antiguedadDeuda(LocalDate fechaCorte) {
+        List<AntiguedadClienteDTO> clientes = new ArrayList<>();
+        for (AntiguedadDeudaView fila : facturaRepository.calcularAntiguedadDeuda(
+                fechaCorte.minusDays(30), fechaCorte.minusDays(60), fechaCorte.minusDays(90))) {
+            clientes.add(new AntiguedadClienteDTO(
+                fila.getClienteId(),
+                fila.getNombre(),
+                fila.getFacturas(),
+                valorOCero(fila.getTramo0a30()),
+                valorOCero(fila.getTramo31a60()),
+                valorOCero(fila.getTramo61a90()),
+                valorOCero(fila.getTramoMas90())
+            ));
+        }
+        clientes.sort(Comparator.comparing(AntiguedadClienteDTO::getTotal).reversed());
         
-        // Obtiene todas las facturas del periodo solicitado
-        var facturas = facturaRepository.findByFechaEmisionBetweenOrderByFechaEmisionDesc(inicio, fin);
-        
-        // Agrupa facturas por fecha de emisión para análisis diario
-        // Esto permite identificar tendencias y picos de ventas
-        facturas.stream()
-                .collect(java.util.stream.Collectors.groupingBy(f -> f.getFechaEmision()))
-                .forEach((fecha, facturasDelDia) -> {
-                    // Calcula ventas totales del día sumando todas las facturas
-                    BigDecimal ventasTotales = facturasDelDia.stream()
-                            .map(f -> f.getTotalFinal())
-                            .reduce(BigDecimal.ZERO, BigDecimal::add);
-                    
-                    // Calcula ventas cobradas filtrando solo facturas PAGADAS
-                    BigDecimal ventasPagadas = facturasDelDia.stream()
-                            .filter(f -> f.getEstado() == EstadoFactura.PAGADA)
-                            .map(f -> f.getTotalFinal())
-                            .reduce(BigDecimal.ZERO, BigDecimal::add);
-                    
-                    // Calcula ventas pendientes filtrando facturas PENDIENTES
-                    // Útil para analizar ratio de cobro inmediato vs crédito
-                    BigDecimal ventasPendientes = facturasDelDia.stream()
-                            .filter(f -> f.getEstado() == EstadoFactura.PENDIENTE)
-                            .map(f -> f.getTotalFinal())
-                            .reduce(BigDecimal.ZERO, BigDecimal::add);
-                    
-                    // Crea el DTO con todas las métricas del día
-                    ReporteVentasDTO reporte = new ReporteVentasDTO(
-                        fecha,
-                        0, // totalPedidos (se puede calcular si es necesario)
-                        facturasDelDia.size(),
-                        ventasTotales,
-                        ventasPendientes,
-                        ventasPagadas
-                    );
-                    reportes.add(reporte);
-                });
+        // Los totales generales se suman sobre las filas por cliente ya obtenidas
+        AntiguedadClienteDTO total = new AntiguedadClienteDTO(
+            null,
+            "TOTAL",
+            clientes.stream().mapToLong(AntiguedadClienteDTO::getFacturas).sum(),
+            sumar(clientes, AntiguedadClienteDTO::getTramo0a30),
+            sumar(clientes, AntiguedadClienteDTO::getTramo31a60),
+            sumar(clientes, AntiguedadClienteDTO::getTramo61a90),
+            sumar(clientes, AntiguedadClienteDTO::getTramoMas90)
+        );
+        return new AntiguedadDeudaDTO(fechaCorte, total, clientes);
+    }
+    
+    // Informe de IVA por tipo impositivo y mes de emisión, más el total de cada tipo en el periodo
+    // Los periodos de meses completos (trimestres, años) se leen de resumen_iva_mensual;
+    // el resto se agrega en SQL sobre las líneas de los pedidos facturados
+    @Transactional(readOnly = true)
+    public List<ReporteIvaDTO> reporteIva(LocalDate inicio, LocalDate fin) {
+        boolean mesesCompletos = inicio.getDayOfMonth() == 1 && fin.getDayOfMonth() == fin.lengthOfMonth();
+        List<IvaMensualView> filas = mesesCompletos
+            ? resumenIvaMensualRepository.resumirPorMes(indiceMes(inicio), indiceMes(fin))
+            : facturaRepository.resumirIvaPorMes(inicio, fin);
         
-        // Ordena el reporte por fecha descendente (más reciente primero)
-        reportes.sort((r1, r2) -> r2.getFecha().compareTo(r1.getFecha()));
-        return reportes;
+        List<ReporteIvaDTO> reporte = new ArrayList<>();
+        // compareTo en el TreeMap agrupa 21 y 21.00 como el mismo tipo
+        Map<BigDecimal, ReporteIvaDTO> totales = new TreeMap<>();
+        for (IvaMensualView fila : filas) {
+            String periodo = YearMonth.of(fila.getAnio(), fila.getMes()).toString();
+            reporte.add(new ReporteIvaDTO(periodo, fila.getTipoIva(), fila.getFacturas(),
+                                          valorOCero(fila.getBase()), valorOCero(fila.getCuota())));
+            
+            // Cada factura pertenece a un único mes, así que sumar facturas entre meses es exacto
+            ReporteIvaDTO total = totales.computeIfAbsent(fila.getTipoIva(),
+                tipo -> new ReporteIvaDTO("TOTAL", tipo, 0L, BigDecimal.ZERO, BigDecimal.ZERO));
+            total.setFacturas(total.getFacturas() + fila.getFacturas());
+            total.setBase(total.getBase().add(valorOCero(fila.getBase())));
+            total.setCuota(total.getCuota().add(valorOCero(fila.getCuota())));
+        }
+        reporte.addAll(totales.values());
+        return reporte;
+    }
+    
+    // Índice absoluto de mes (año * 12 + mes - 1) usado por el resumen mensual
+    private int indiceMes(LocalDate fecha) {
+        return fecha.getYear() * 12 + fecha.getMonthValue() - 1;
+    }
+    
+    private BigDecimal sumar(List<AntiguedadClienteDTO> filas, Function<AntiguedadClienteDTO, BigDecimal> importe) {
+        return filas.stream().map(importe).reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+    
+    // Las sumas SQL sin filas coincidentes devuelven null, se normalizan a cero
+    private BigDecimal valorOCero(BigDecimal valor) {
+        return valor != null ? valor : BigDecimal.ZERO;
     }
 }
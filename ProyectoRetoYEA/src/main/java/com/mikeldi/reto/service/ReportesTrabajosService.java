@@ -0,0 +1,137 @@
+package com.mikeldi.reto.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mikeldi.reto.dto.RankingDTO;
+import com.mikeldi.reto.dto.RankingItemDTO;
+import com.mikeldi.reto.dto.ReporteVentasDTO;
+import com.mikeldi.reto.dto.SolicitudReporteDTO;
+import com.mikeldi.reto.dto.TrabajoDTO;
+import com.mikeldi.reto.exception.BadRequestException;
+import com.mikeldi.reto.trabajo.ContextoTrabajo;
+import com.mikeldi.reto.trabajo.GestorTrabajos;
+import com.opencsv.CSVWriter;
+import com.opencsv.ICSVWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+// Servicio que genera los reportes de periodos largos como trabajos en segundo plano
+// Cada resultado se guarda en JSON y en CSV para descargarlo cuando el trabajo termina
+@Service
+public class ReportesTrabajosService {
+    
+    // Gestor del pool de trabajos y de los resultados en disco
+    @Autowired
+    private GestorTrabajos gestorTrabajos;
+    
+    // Inyecta servicio de reportes de ventas
+    @Autowired
+    private ReportesService reportesService;
+    
+    // Inyecta servicio de rankings
+    @Autowired
+    private RankingService rankingService;
+    
+    // Serializador JSON configurado por Spring (fechas ISO)
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    // Envía un reporte a generar; una solicitud idéntica en curso devuelve el mismo trabajo
+    // El usuario queda registrado como solicitante para consultar el estado y descargar el resultado
+    public TrabajoDTO enviar(SolicitudReporteDTO solicitud, String emailUsuario) {
+        LocalDate inicio = solicitud.getInicio();
+        LocalDate fin = solicitud.getFin();
+        if (inicio.isAfter(fin)) {
+            throw new BadRequestException("La fecha de inicio no puede ser posterior a la de fin");
+        }
+        int n = solicitud.getN() != null ? solicitud.getN() : 10;
+        boolean desglose = Boolean.TRUE.equals(solicitud.getDesglose());
+        
+        // Clave con los parámetros que influyen en el resultado
+        String clave = switch (solicitud.getTipo()) {
+            case VENTAS -> inicio + "|" + fin;
+            case TOP_PRODUCTOS, TOP_CLIENTES -> inicio + "|" + fin + "|" + n + "|" + desglose;
+        };
+        
+        return gestorTrabajos.enviar(solicitud.getTipo().name(), clave, emailUsuario, contexto -> {
+            switch (solicitud.getTipo()) {
+                case VENTAS -> generarVentas(contexto, inicio, fin);
+                case TOP_PRODUCTOS -> guardarRankings(contexto, rankingService.topProductos(inicio, fin, n, desglose));
+                case TOP_CLIENTES -> guardarRankings(contexto, rankingService.topClientes(inicio, fin, n, desglose));
+            }
+        });
+    }
+    
+    // Reporte de ventas calculado mes a mes para informar del progreso
+    // Se recorre desde el final para conservar el orden descendente por fecha
+    private void generarVentas(ContextoTrabajo contexto, LocalDate inicio, LocalDate fin) throws IOException {
+        long totalDias = ChronoUnit.DAYS.between(inicio, fin) + 1;
+        List<ReporteVentasDTO> reporte = new ArrayList<>();
+        LocalDate hastaTramo = fin;
+        while (!hastaTramo.isBefore(inicio)) {
+            LocalDate desdeTramo = hastaTramo.withDayOfMonth(1);
+            if (desdeTramo.isBefore(inicio)) {
+                desdeTramo = inicio;
+            }
+            reporte.addAll(reportesService.reporteVentasPorPeriodo(desdeTramo, hastaTramo));
+            contexto.progreso(ChronoUnit.DAYS.between(desdeTramo, fin) + 1, totalDias);
+            hastaTramo = desdeTramo.minusDays(1);
+        }
+        
+        objectMapper.writeValue(contexto.archivoResultado("json").toFile(), reporte);
+        try (ICSVWriter csv = abrirCsv(contexto, new String[]{"Fecha", "Pedidos", "Facturas", "Ventas totales", "Pendiente", "Cobrado"})) {
+            for (ReporteVentasDTO dia : reporte) {
+                csv.writeNext(new String[]{
+                    dia.getFecha().toString(),
+                    dia.getTotalPedidos().toString(),
+                    dia.getTotalFacturas().toString(),
+                    dia.getVentasTotales().toPlainString(),
+                    dia.getVentasPendientes().toPlainString(),
+                    dia.getVentasPagadas().toPlainString()
+                });
+            }
+        }
+    }
+    
+    // Guarda los rankings; en CSV cada posición es una fila con su métrica y grupo
+    private void guardarRankings(ContextoTrabajo contexto, List<RankingDTO> rankings) throws IOException {
+        objectMapper.writeValue(contexto.archivoResultado("json").toFile(), rankings);
+        try (ICSVWriter csv = abrirCsv(contexto, new String[]{"Métrica", "Ranking", "Posición", "ID", "Nombre", "Grupo", "Unidades", "Facturas", "Facturación"})) {
+            for (RankingDTO ranking : rankings) {
+                int posicion = 1;
+                for (RankingItemDTO item : ranking.getPosiciones()) {
+                    csv.writeNext(new String[]{
+                        ranking.getMetrica(),
+                        ranking.getGrupo() != null ? ranking.getGrupo() : "",
+                        String.valueOf(posicion++),
+                        item.getId().toString(),
+                        item.getNombre(),
+                        item.getGrupo() != null ? item.getGrupo() : "",
+                        item.getUnidades() != null ? item.getUnidades().toString() : "",
+                        item.getFacturas() != null ? item.getFacturas().toString() : "",
+                        item.getFacturacion().toPlainString()
+                    });
+                }
+            }
+        }
+    }
+    
+    // Abre el CSV de resultado con el mismo formato que las exportaciones (punto y coma)
+    private ICSVWriter abrirCsv(ContextoTrabajo contexto, String[] cabecera) throws IOException {
+        Writer writer = Files.newBufferedWriter(contexto.archivoResultado("csv"), StandardCharsets.UTF_8);
+        ICSVWriter csv = new CSVWriter(writer, ';',
+                                       ICSVWriter.DEFAULT_QUOTE_CHARACTER,
+                                       ICSVWriter.DEFAULT_ESCAPE_CHARACTER,
+                                       ICSVWriter.DEFAULT_LINE_END);
+        csv.writeNext(cabecera);
+        return csv;
+    }
+}
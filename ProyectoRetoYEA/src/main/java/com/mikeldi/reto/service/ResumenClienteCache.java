@@ -0,0 +1,99 @@
+package com.mikeldi.reto.service;
+
+import com.mikeldi.reto.dto.ResumenClienteDTO;
+import com.mikeldi.reto.entity.Cliente;
+import com.mikeldi.reto.entity.Factura;
+import com.mikeldi.reto.entity.Pedido;
+import com.mikeldi.reto.event.EntidadModificadaEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Caché del resumen de la ficha de cada cliente
+// Un resumen solo cambia cuando se modifican el cliente, sus pedidos o sus facturas: entonces se
+// descarta el de ese cliente y los demás siguen en caché. Guarda los clientes consultados más
+// recientemente hasta la capacidad configurada. El saldo vencido depende de la fecha, por lo que
+// al cambiar de día se descartan todos
+@Component
+public class ResumenClienteCache {
+    
+    // Resúmenes por id de cliente en orden de acceso; el menos usado sale al superar la capacidad
+    private final Map<Long, ResumenClienteDTO> resumenes;
+    
+    // Se incrementa con cada invalidación; un cálculo solo se guarda si no ha cambiado desde que empezó
+    private long version;
+    
+    // Día en que se calcularon los resúmenes guardados
+    private LocalDate dia = LocalDate.now();
+    
+    public ResumenClienteCache(@Value("${app.resumen-cliente.capacidad-cache:5000}") int capacidad) {
+        this.resumenes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, ResumenClienteDTO> mayor) {
+                return size() > capacidad;
+            }
+        };
+    }
+    
+    // Versión actual, leída antes de consultar la base de datos
+    public synchronized long version() {
+        comprobarDia();
+        return version;
+    }
+    
+    // Resumen en caché del cliente, o null si hay que calcularlo
+    public synchronized ResumenClienteDTO buscar(Long clienteId) {
+        comprobarDia();
+        return resumenes.get(clienteId);
+    }
+    
+    // Guarda el resumen calculado con la versión indicada
+    // Si entretanto se ha invalidado algo, el cálculo puede ser anterior al cambio y se descarta
+    public synchronized void guardar(Long clienteId, ResumenClienteDTO resumen, long versionCalculo) {
+        comprobarDia();
+        if (versionCalculo == version) {
+            resumenes.put(clienteId, resumen);
+        }
+    }
+    
+    // Descarta el resumen de un cliente
+    public synchronized void invalidar(Long clienteId) {
+        version++;
+        resumenes.remove(clienteId);
+    }
+    
+    // Al cambiar de día las facturas que vencían ayer pasan a vencidas: se descarta todo
+    // Un cálculo empezado el día anterior tiene otra versión y no se guarda
+    private void comprobarDia() {
+        LocalDate hoy = LocalDate.now();
+        if (!hoy.equals(dia)) {
+            dia = hoy;
+            version++;
+            resumenes.clear();
+        }
+    }
+    
+    // Invalida el cliente afectado una vez confirmada la transacción
+    // El id del cliente de un pedido o factura se lee del proxy sin inicializarlo
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alModificarEntidad(EntidadModificadaEvent evento) {
+        if (evento.esDeTipo(Cliente.class)) {
+            invalidar(((Cliente) evento.getEntidad()).getId());
+        } else if (evento.esDeTipo(Pedido.class)) {
+            Cliente cliente = ((Pedido) evento.getEntidad()).getCliente();
+            if (cliente != null) {
+                invalidar(cliente.getId());
+            }
+        } else if (evento.esDeTipo(Factura.class)) {
+            Cliente cliente = ((Factura) evento.getEntidad()).getCliente();
+            if (cliente != null) {
+                invalidar(cliente.getId());
+            }
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.mikeldi.reto.service;
+
+import com.mikeldi.reto.dto.ResumenGeograficoDTO;
+import com.mikeldi.reto.entity.Cliente;
+import com.mikeldi.reto.entity.EstadoFactura;
+import com.mikeldi.reto.entity.Factura;
+import com.mikeldi.reto.repository.FacturaRepository;
+import com.mikeldi.reto.repository.ResumenGeograficoRepository;
+import com.mikeldi.reto.repository.projection.ResumenFacturasClienteView;
+import com.mikeldi.reto.repository.projection.ResumenGeograficoView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Objects;
+
+// Servicio que mantiene la tabla de resumen por provincia y ciudad (resumen_geografico)
+// Cada alta, cambio de ubicación o de estado y baja de un cliente, y cada factura emitida o cancelada,
+// se traduce en incrementos sobre la fila de su ubicación; las consultas leen una fila por ciudad
+@Service
+public class ResumenGeograficoService {
+    
+    // Logger para registrar las reconstrucciones del resumen
+    private static final Logger logger = LoggerFactory.getLogger(ResumenGeograficoService.class);
+    
+    // Inyecta repositorio de la tabla de resumen geográfico
+    @Autowired
+    private ResumenGeograficoRepository resumenGeograficoRepository;
+    
+    // Repositorio de facturas para trasladar las de un cliente que cambia de ubicación
+    @Autowired
+    private FacturaRepository facturaRepository;
+    
+    // Suma un cliente recién creado a su ubicación
+    // MANDATORY obliga a ejecutarse dentro de la transacción que guarda el cliente
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarAlta(Cliente cliente) {
+        resumenGeograficoRepository.acumular(clave(cliente.getProvincia()), clave(cliente.getCiudad()),
+                                             1, Boolean.TRUE.equals(cliente.getActivo()) ? 1 : 0, 0, BigDecimal.ZERO);
+    }
+    
+    // Aplica un cambio de datos del cliente a partir de su ubicación y estado anteriores
+    // Si cambia de ubicación, el cliente y sus facturas pasan de la fila anterior a la nueva
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarCambio(Cliente cliente, String provinciaAnterior, String ciudadAnterior, boolean activoAnterior) {
+        boolean activo = Boolean.TRUE.equals(cliente.getActivo());
+        boolean mismaUbicacion = clave(provinciaAnterior).equals(clave(cliente.getProvincia()))
+                && clave(ciudadAnterior).equals(clave(cliente.getCiudad()));
+        if (mismaUbicacion) {
+            if (activo != activoAnterior) {
+                resumenGeograficoRepository.acumular(clave(cliente.getProvincia()), clave(cliente.getCiudad()),
+                                                     0, activo ? 1 : -1, 0, BigDecimal.ZERO);
+            }
+            return;
+        }
+        
+        ResumenFacturasClienteView facturas = facturaRepository.resumirPorCliente(cliente.getId());
+        long numFacturas = facturas.getFacturas();
+        BigDecimal facturacion = Objects.requireNonNullElse(facturas.getTotalFacturado(), BigDecimal.ZERO);
+        resumenGeograficoRepository.acumular(clave(provinciaAnterior), clave(ciudadAnterior),
+                                             -1, activoAnterior ? -1 : 0, -numFacturas, facturacion.negate());
+        resumenGeograficoRepository.acumular(clave(cliente.getProvincia()), clave(cliente.getCiudad()),
+                                             1, activo ? 1 : 0, numFacturas, facturacion);
+    }
+    
+    // Resta un cliente que se va a eliminar, junto con sus facturas si las tuviera
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarBaja(Cliente cliente) {
+        ResumenFacturasClienteView facturas = facturaRepository.resumirPorCliente(cliente.getId());
+        BigDecimal facturacion = Objects.requireNonNullElse(facturas.getTotalFacturado(), BigDecimal.ZERO);
+        resumenGeograficoRepository.acumular(clave(cliente.getProvincia()), clave(cliente.getCiudad()),
+                                             -1, Boolean.TRUE.equals(cliente.getActivo()) ? -1 : 0,
+                                             -facturas.getFacturas(), facturacion.negate());
+    }
+    
+    // Suma una factura recién emitida a la ubicación de su cliente
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarFactura(Factura factura) {
+        Cliente cliente = factura.getCliente();
+        resumenGeograficoRepository.acumular(clave(cliente.getProvincia()), clave(cliente.getCiudad()), 0, 0, 1,
+                                             factura.getEstado() != EstadoFactura.CANCELADA ? factura.getTotalFinal() : BigDecimal.ZERO);
+    }
+    
+    // Solo los cambios que entran o salen de CANCELADA alteran la facturación
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarCambioEstado(Factura factura, EstadoFactura estadoAnterior) {
+        boolean cuentaAntes = estadoAnterior != EstadoFactura.CANCELADA;
+        boolean cuentaAhora = factura.getEstado() != EstadoFactura.CANCELADA;
+        if (cuentaAntes != cuentaAhora) {
+            Cliente cliente = factura.getCliente();
+            resumenGeograficoRepository.acumular(clave(cliente.getProvincia()), clave(cliente.getCiudad()), 0, 0, 0,
+                                                 cuentaAhora ? factura.getTotalFinal() : factura.getTotalFinal().negate());
+        }
+    }
+    
+    // Al arrancar, genera el resumen si la tabla está vacía (primer despliegue)
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public void inicializar() {
+        if (resumenGeograficoRepository.count() == 0) {
+            reconstruir();
+        }
+    }
+    
+    // Reconstruye el resumen completo desde clientes y facturas
+    // Corrige cualquier desviación (cargas manuales, errores) y se ejecuta cada noche
+    // En READ COMMITTED el INSERT … SELECT lee clientes y facturas sin bloqueos compartidos; en REPEATABLE READ
+    // esos bloqueos, unidos a los de las altas que acumulan sobre resumen_geografico, podían provocar interbloqueos
+    @Scheduled(cron = "${app.reportes.resumen-geografico-cron:0 0 4 * * *}")
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public void reconstruir() {
+        resumenGeograficoRepository.vaciar();
+        int filas = resumenGeograficoRepository.reconstruirDesdeClientes();
+        logger.info("Resumen geográfico reconstruido: {} filas", filas);
+    }
+    
+    // Totales por provincia, de más a menos clientes
+    @Transactional(readOnly = true)
+    public List<ResumenGeograficoDTO> listarProvincias() {
+        return resumenGeograficoRepository.resumirPorProvincia().stream()
+                .map(zona -> convertirADTO(zona, zona.getZona(), null))
+                .toList();
+    }
+    
+    // Desglose por ciudades de una provincia; una provincia vacía agrupa a los clientes sin provincia
+    @Transactional(readOnly = true)
+    public List<ResumenGeograficoDTO> listarCiudades(String provincia) {
+        return resumenGeograficoRepository.resumirPorCiudad(clave(provincia)).stream()
+                .map(zona -> convertirADTO(zona, clave(provincia), zona.getZona()))
+                .toList();
+    }
+    
+    // La ubicación que falta se guarda como cadena vacía, porque la clave única admite varias filas con NULL
+    private static String clave(String valor) {
+        return valor != null ? valor.strip() : "";
+    }
+    
+    private static ResumenGeograficoDTO convertirADTO(ResumenGeograficoView zona, String provincia, String ciudad) {
+        ResumenGeograficoDTO dto = new ResumenGeograficoDTO();
+        dto.setProvincia(provincia.isEmpty() ? null : provincia);
+        dto.setCiudad(ciudad == null || ciudad.isEmpty() ? null : ciudad);
+        dto.setClientes(zona.getClientes());
+        dto.setClientesActivos(zona.getClientesActivos());
+        dto.setFacturas(zona.getFacturas());
+        dto.setFacturacion(zona.getFacturacion());
+        return dto;
+    }
+}
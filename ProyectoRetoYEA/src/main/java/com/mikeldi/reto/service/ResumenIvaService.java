@@ -0,0 +1,94 @@
+package com.mikeldi.reto.service;
+
+import com.mikeldi.reto.entity.EstadoFactura;
+import com.mikeldi.reto.entity.Factura;
+import com.mikeldi.reto.entity.LineaPedido;
+import com.mikeldi.reto.repository.ResumenIvaMensualRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Servicio que mantiene la tabla de resumen mensual de IVA (resumen_iva_mensual)
+// Una factura suma sus líneas al emitirse y las resta si se cancela (y viceversa)
+@Service
+public class ResumenIvaService {
+    
+    // Logger para registrar las reconstrucciones del resumen
+    private static final Logger logger = LoggerFactory.getLogger(ResumenIvaService.class);
+    
+    // Inyecta repositorio de la tabla de resumen mensual de IVA
+    @Autowired
+    private ResumenIvaMensualRepository resumenIvaMensualRepository;
+    
+    // Suma las líneas de una factura recién emitida al resumen de su mes
+    // MANDATORY obliga a ejecutarse dentro de la transacción que guarda la factura
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarFactura(Factura factura) {
+        if (factura.getEstado() != EstadoFactura.CANCELADA) {
+            aplicar(factura, 1);
+        }
+    }
+    
+    // Solo los cambios que entran o salen de CANCELADA alteran el IVA declarado
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarCambioEstado(Factura factura, EstadoFactura estadoAnterior) {
+        boolean cuentaAntes = estadoAnterior != EstadoFactura.CANCELADA;
+        boolean cuentaAhora = factura.getEstado() != EstadoFactura.CANCELADA;
+        if (cuentaAntes != cuentaAhora) {
+            aplicar(factura, cuentaAhora ? 1 : -1);
+        }
+    }
+    
+    // Al arrancar, genera el resumen si la tabla está vacía (primer despliegue)
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public void inicializar() {
+        if (resumenIvaMensualRepository.count() == 0) {
+            reconstruir();
+        }
+    }
+    
+    // Reconstruye el resumen completo desde facturas y líneas de pedido
+    // En READ COMMITTED el INSERT … SELECT lee facturas y líneas sin bloqueos compartidos; en REPEATABLE READ
+    // esos bloqueos, unidos a los de las facturas que acumulan sobre el resumen, podían provocar interbloqueos
+    @Scheduled(cron = "${app.reportes.resumen-iva-cron:0 45 3 * * *}")
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public void reconstruir() {
+        resumenIvaMensualRepository.vaciar();
+        int filas = resumenIvaMensualRepository.reconstruirDesdeFacturas();
+        logger.info("Resumen mensual de IVA reconstruido: {} filas", filas);
+    }
+    
+    // Agrupa las líneas del pedido facturado por tipo de IVA y aplica el incremento con signo
+    private void aplicar(Factura factura, int signo) {
+        Map<BigDecimal, BigDecimal[]> porTipo = new TreeMap<>();
+        for (LineaPedido linea : factura.getPedido().getLineas()) {
+            // compareTo en el TreeMap agrupa 21 y 21.00 como el mismo tipo
+            BigDecimal[] importes = porTipo.computeIfAbsent(linea.getIva(), tipo -> new BigDecimal[]{BigDecimal.ZERO, BigDecimal.ZERO});
+            importes[0] = importes[0].add(linea.getSubtotal());
+            importes[1] = importes[1].add(linea.getImporteIva());
+        }
+        
+        int anio = factura.getFechaEmision().getYear();
+        int mes = factura.getFechaEmision().getMonthValue();
+        porTipo.forEach((tipo, importes) -> resumenIvaMensualRepository.acumular(
+            anio,
+            mes,
+            tipo,
+            signo,
+            signo > 0 ? importes[0] : importes[0].negate(),
+            signo > 0 ? importes[1] : importes[1].negate()
+        ));
+    }
+}
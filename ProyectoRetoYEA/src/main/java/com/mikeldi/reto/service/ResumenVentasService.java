@@ -0,0 +1,92 @@
+package com.mikeldi.reto.service;
+
+import com.mikeldi.reto.entity.EstadoFactura;
+import com.mikeldi.reto.entity.Factura;
+import com.mikeldi.reto.repository.VentaDiariaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Servicio que mantiene la tabla de resumen diario de ventas (ventas_diarias)
+// Cada cambio en una factura se traduce en incrementos sobre la fila de su día y estado
+@Service
+public class ResumenVentasService {
+    
+    // Logger para registrar las reconstrucciones del resumen
+    private static final Logger logger = LoggerFactory.getLogger(ResumenVentasService.class);
+    
+    // Inyecta repositorio de la tabla de resumen diario
+    @Autowired
+    private VentaDiariaRepository ventaDiariaRepository;
+    
+    // Caché del reporte de ventas, que se vacía cuando el resumen se reconstruye
+    @Autowired
+    private ReporteVentasCache reporteVentasCache;
+    
+    // Suma una factura recién emitida al resumen de su día y estado
+    // MANDATORY obliga a ejecutarse dentro de la transacción que guarda la factura
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarFactura(Factura factura) {
+        aplicar(factura, factura.getEstado(), 1);
+    }
+    
+    // Mueve los importes de una factura del estado anterior al nuevo
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarCambioEstado(Factura factura, EstadoFactura estadoAnterior) {
+        if (estadoAnterior == factura.getEstado()) {
+            return;
+        }
+        aplicar(factura, estadoAnterior, -1);
+        aplicar(factura, factura.getEstado(), 1);
+    }
+    
+    // Al arrancar, genera el resumen si la tabla está vacía (primer despliegue)
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public void inicializar() {
+        if (ventaDiariaRepository.count() == 0) {
+            reconstruir();
+        }
+    }
+    
+    // Reconstruye el resumen completo desde la tabla facturas
+    // Corrige cualquier desviación (cargas manuales, errores) y se ejecuta cada noche
+    // En READ COMMITTED el INSERT … SELECT lee facturas sin bloqueos compartidos; en REPEATABLE READ esos
+    // bloqueos, unidos a los de las facturas que acumulan sobre ventas_diarias, podían provocar interbloqueos
+    @Scheduled(cron = "${app.reportes.resumen-ventas-cron:0 30 3 * * *}")
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public void reconstruir() {
+        ventaDiariaRepository.vaciar();
+        int filas = ventaDiariaRepository.reconstruirDesdeFacturas();
+        logger.info("Resumen de ventas diarias reconstruido: {} filas", filas);
+        
+        // La caché se vacía al confirmar, para que nadie vuelva a guardar cifras del resumen anterior
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                reporteVentasCache.vaciar();
+            }
+        });
+    }
+    
+    // Aplica el incremento con signo (+1 suma, -1 resta) a la fila día/estado
+    private void aplicar(Factura factura, EstadoFactura estado, int signo) {
+        ventaDiariaRepository.acumular(
+            factura.getFechaEmision(),
+            estado.name(),
+            signo,
+            signo > 0 ? factura.getTotalBase() : factura.getTotalBase().negate(),
+            signo > 0 ? factura.getTotalIva() : factura.getTotalIva().negate(),
+            signo > 0 ? factura.getTotalFinal() : factura.getTotalFinal().negate()
+        );
+    }
+}
@@ -0,0 +1,170 @@
+package com.mikeldi.reto.service;
+
+import com.mikeldi.reto.dto.CambiosDTO;
+import com.mikeldi.reto.dto.EntidadSincronizable;
+import com.mikeldi.reto.entity.Cliente;
+import com.mikeldi.reto.entity.Eliminacion;
+import com.mikeldi.reto.entity.Factura;
+import com.mikeldi.reto.entity.Pedido;
+import com.mikeldi.reto.entity.Producto;
+import com.mikeldi.reto.exception.BadRequestException;
+import com.mikeldi.reto.repository.ClienteRepository;
+import com.mikeldi.reto.repository.EliminacionRepository;
+import com.mikeldi.reto.repository.FacturaRepository;
+import com.mikeldi.reto.repository.PedidoRepository;
+import com.mikeldi.reto.repository.ProductoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+// Servicio de sincronización incremental para la app móvil y el almacén de datos
+// Cada petición devuelve los registros modificados (por fecha_actualizacion) y los eliminados
+// (por la tabla de marcas de borrado) desde un cursor, en páginas ordenadas y reanudables.
+// El cursor guarda la última posición (fecha, id) leída de cada una de las dos fuentes
+@Service
+public class SincronizacionService {
+    
+    // Tamaño máximo de página admitido
+    private static final int LIMITE_MAXIMO = 5000;
+    
+    // Posición inicial de una sincronización completa (sin cursor)
+    private static final LocalDateTime ORIGEN = LocalDateTime.of(1970, 1, 1, 0, 0);
+    
+    // Repositorios con las consultas por fecha de actualización
+    @Autowired
+    private ClienteRepository clienteRepository;
+    
+    @Autowired
+    private ProductoRepository productoRepository;
+    
+    @Autowired
+    private PedidoRepository pedidoRepository;
+    
+    @Autowired
+    private FacturaRepository facturaRepository;
+    
+    // Repositorio de marcas de borrado
+    @Autowired
+    private EliminacionRepository eliminacionRepository;
+    
+    // Servicios cuyas conversiones a DTO se reutilizan: la sincronización devuelve lo mismo que la API
+    @Autowired
+    private ClienteService clienteService;
+    
+    @Autowired
+    private ProductoService productoService;
+    
+    @Autowired
+    private PedidoService pedidoService;
+    
+    @Autowired
+    private FacturaService facturaService;
+    
+    // Segundos más recientes que no se sirven todavía: una transacción en curso puede confirmar
+    // un registro con fecha anterior a la de otro ya leído, y el cursor lo saltaría
+    // Límite conocido: las fechas se toman al escribir, no al confirmar, así que un cambio o una marca
+    // de borrado de una transacción que tarda más que el margen en confirmar queda detrás del cursor
+    // y no se envía. Las escrituras que alimentan la sincronización deben confirmar antes del margen;
+    // para procesos largos conviene subirlo o pedir una sincronización completa (sin cursor)
+    @Value("${app.sincronizacion.margen-segundos:5}")
+    private long margenSegundos;
+    
+    // Página de cambios de una entidad desde el cursor (null para empezar desde el principio)
+    @Transactional(readOnly = true)
+    public CambiosDTO<?> cambiosDesde(EntidadSincronizable entidad, String cursor, int limite) {
+        if (limite < 1 || limite > LIMITE_MAXIMO) {
+            throw new BadRequestException("El límite debe estar entre 1 y " + LIMITE_MAXIMO);
+        }
+        Posicion desde = Posicion.decodificar(cursor);
+        LocalDateTime hasta = LocalDateTime.now().minusSeconds(margenSegundos);
+        // Se pide una fila más para saber si quedan cambios sin devolver
+        Limit pagina = Limit.of(limite + 1);
+        
+        return switch (entidad) {
+            case CLIENTES -> pagina(entidad, desde, hasta, limite,
+                clienteRepository.cambiosDesde(desde.fechaCambio(), desde.idCambio(), hasta, pagina),
+                Cliente::getFechaActualizacion, Cliente::getId, clienteService::convertirADTO);
+            case PRODUCTOS -> pagina(entidad, desde, hasta, limite,
+                productoRepository.cambiosDesde(desde.fechaCambio(), desde.idCambio(), hasta, pagina),
+                Producto::getFechaActualizacion, Producto::getId, productoService::convertirADTO);
+            case PEDIDOS -> {
+                List<Pedido> pedidos = pedidoRepository.cambiosDesde(desde.fechaCambio(), desde.idCambio(), hasta, pagina);
+                if (!pedidos.isEmpty()) {
+                    pedidoRepository.cargarLineas(pedidos);
+                }
+                yield pagina(entidad, desde, hasta, limite, pedidos,
+                             Pedido::getFechaActualizacion, Pedido::getId, pedidoService::convertirADTO);
+            }
+            case FACTURAS -> pagina(entidad, desde, hasta, limite,
+                facturaRepository.cambiosDesde(desde.fechaCambio(), desde.idCambio(), hasta, pagina),
+                Factura::getFechaActualizacion, Factura::getId, facturaService::convertirADTO);
+        };
+    }
+    
+    // Completa la página con las eliminaciones y calcula el cursor siguiente
+    private <E, D> CambiosDTO<D> pagina(EntidadSincronizable entidad, Posicion desde, LocalDateTime hasta, int limite,
+                                        List<E> filas, Function<E, LocalDateTime> fecha, Function<E, Long> id,
+                                        Function<E, D> conversion) {
+        List<Eliminacion> eliminaciones = eliminacionRepository.eliminacionesDesde(
+            entidad, desde.fechaEliminacion(), desde.idEliminacion(), hasta, Limit.of(limite + 1));
+        boolean hayMas = filas.size() > limite || eliminaciones.size() > limite;
+        List<E> cambios = filas.size() > limite ? filas.subList(0, limite) : filas;
+        if (eliminaciones.size() > limite) {
+            eliminaciones = eliminaciones.subList(0, limite);
+        }
+        
+        // Cada fuente avanza hasta su último elemento devuelto; si no ha devuelto nada se queda igual
+        Posicion siguiente = desde;
+        if (!cambios.isEmpty()) {
+            E ultimo = cambios.get(cambios.size() - 1);
+            siguiente = new Posicion(fecha.apply(ultimo), id.apply(ultimo),
+                                     siguiente.fechaEliminacion(), siguiente.idEliminacion());
+        }
+        if (!eliminaciones.isEmpty()) {
+            Eliminacion ultima = eliminaciones.get(eliminaciones.size() - 1);
+            siguiente = new Posicion(siguiente.fechaCambio(), siguiente.idCambio(),
+                                     ultima.getFechaEliminacion(), ultima.getId());
+        }
+        
+        return new CambiosDTO<>(entidad,
+                                cambios.stream().map(conversion).toList(),
+                                eliminaciones.stream().map(Eliminacion::getEntidadId).toList(),
+                                siguiente.codificar(),
+                                hayMas);
+    }
+    
+    // Posición de la sincronización en los cambios y en las eliminaciones
+    // Se entrega al cliente como texto opaco en Base64 para que no dependa de su formato
+    private record Posicion(LocalDateTime fechaCambio, long idCambio, LocalDateTime fechaEliminacion, long idEliminacion) {
+        
+        String codificar() {
+            String texto = fechaCambio + "|" + idCambio + "|" + fechaEliminacion + "|" + idEliminacion;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(texto.getBytes(StandardCharsets.UTF_8));
+        }
+        
+        static Posicion decodificar(String cursor) {
+            if (cursor == null || cursor.isBlank()) {
+                return new Posicion(ORIGEN, 0, ORIGEN, 0);
+            }
+            try {
+                String[] partes = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+                if (partes.length != 4) {
+                    throw new IllegalArgumentException();
+                }
+                return new Posicion(LocalDateTime.parse(partes[0]), Long.parseLong(partes[1]),
+                                    LocalDateTime.parse(partes[2]), Long.parseLong(partes[3]));
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                throw new BadRequestException("Cursor de sincronización no válido");
+            }
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.mikeldi.reto.service;
 
+import com.mikeldi.reto.dto.AgrupacionTemporal;
+import com.mikeldi.reto.dto.FlujoInventarioDTO;
 import com.mikeldi.reto.dto.MovimientoStockDTO;
 import com.mikeldi.reto.entity.*;
 import com.mikeldi.reto.exception.BadRequestException;
@@ -7,11 +9,17 @@ import com.mikeldi.reto.exception.ResourceNotFoundException;
 import com.mikeldi.reto.repository.MovimientoStockRepository;
 import com.mikeldi.reto.repository.ProductoRepository;
 import com.mikeldi.reto.repository.UsuarioRepository;
+import com.mikeldi.reto.repository.projection.FlujoInventarioView;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 // Servicio especializado en gestión de inventario y trazabilidad de movimientos de stock
@@ -143,6 +151,41 @@ public class StockService {
                 .collect(Collectors.toList());
     }
     
+    // Informe de flujo de inventario: unidades por tipo de movimiento, periodo y producto o categoría
+    // La agregación se hace en SQL sobre el índice idx_movimientos_flujo; aquí solo se pivotan
+    // los tipos de movimiento a columnas, por lo que el coste no depende del número de movimientos
+    @Transactional(readOnly = true)
+    public List<FlujoInventarioDTO> flujoInventario(LocalDate inicio, LocalDate fin, AgrupacionTemporal agrupacion,
+                                                    boolean porCategoria, Long productoId, String categoria) {
+        if (inicio.isAfter(fin)) {
+            throw new BadRequestException("La fecha de inicio no puede ser posterior a la de fin");
+        }
+        LocalDateTime desde = inicio.atStartOfDay();
+        LocalDateTime hasta = fin.plusDays(1).atStartOfDay();
+        List<FlujoInventarioView> filas = porCategoria
+            ? movimientoRepository.flujoPorCategoria(agrupacion.name(), desde, hasta, productoId, categoria)
+            : movimientoRepository.flujoPorProducto(agrupacion.name(), desde, hasta, productoId, categoria);
+        
+        // Las filas llegan ordenadas por periodo y clave: cada grupo es contiguo
+        Map<String, FlujoInventarioDTO> flujos = new LinkedHashMap<>();
+        for (FlujoInventarioView fila : filas) {
+            FlujoInventarioDTO flujo = flujos.computeIfAbsent(fila.getPeriodo() + "|" + fila.getClave(),
+                k -> new FlujoInventarioDTO(fila.getPeriodo(), fila.getClave(), fila.getNombre()));
+            long unidades = fila.getUnidades();
+            switch (TipoMovimiento.valueOf(fila.getTipo())) {
+                case ENTRADA -> flujo.setEntradas(flujo.getEntradas() + unidades);
+                case SALIDA -> flujo.setSalidas(flujo.getSalidas() + unidades);
+                case VENTA -> flujo.setVentas(flujo.getVentas() + unidades);
+                case AJUSTE -> flujo.setAjustes(flujo.getAjustes() + unidades);
+            }
+            flujo.setMovimientos(flujo.getMovimientos() + fila.getMovimientos());
+        }
+        for (FlujoInventarioDTO flujo : flujos.values()) {
+            flujo.setSaldo(flujo.getEntradas() + flujo.getAjustes() - flujo.getSalidas() - flujo.getVentas());
+        }
+        return new ArrayList<>(flujos.values());
+    }
+    
     // Convierte entidad MovimientoStock a DTO con toda la información de auditoría
     private MovimientoStockDTO convertirADTO(MovimientoStock movimiento) {
         MovimientoStockDTO dto = new MovimientoStockDTO();
@@ -0,0 +1,44 @@
+package com.mikeldi.reto.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+// Montículo mínimo acotado que conserva los N mayores elementos vistos
+// La raíz es el peor de los N actuales: un candidato solo entra si la supera
+// Memoria O(N) independientemente de cuántos elementos se ofrezcan
+class TopN<T> {
+    
+    // Número máximo de elementos conservados
+    private final int limite;
+    
+    // Criterio de ordenación (mayor = mejor)
+    private final Comparator<T> comparador;
+    
+    // Montículo mínimo según el comparador
+    private final PriorityQueue<T> monticulo;
+    
+    TopN(int limite, Comparator<T> comparador) {
+        this.limite = limite;
+        this.comparador = comparador;
+        this.monticulo = new PriorityQueue<>(limite, comparador);
+    }
+    
+    // Ofrece un candidato; sustituye a la raíz si es mejor que el peor conservado
+    void ofrecer(T elemento) {
+        if (monticulo.size() < limite) {
+            monticulo.add(elemento);
+        } else if (comparador.compare(elemento, monticulo.peek()) > 0) {
+            monticulo.poll();
+            monticulo.add(elemento);
+        }
+    }
+    
+    // Retorna los elementos conservados de mejor a peor
+    List<T> resultado() {
+        List<T> ordenados = new ArrayList<>(monticulo);
+        ordenados.sort(comparador.reversed());
+        return ordenados;
+    }
+}
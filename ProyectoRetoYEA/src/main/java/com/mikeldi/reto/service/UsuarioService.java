@@ -28,12 +28,16 @@ public class UsuarioService {
     @Autowired
     private PasswordEncoder passwordEncoder;
     
+    // Comprueba emails ya registrados sin consultar la base de datos en la mayoría de los casos
+    @Autowired
+    private IdentificadoresCache identificadoresCache;
+    
     // Crea un nuevo usuario desde el formulario de registro público
     @Transactional
     public UsuarioDTO crearUsuario(RegistroRequest request) {
         // Valida que el email no esté ya registrado en el sistema
         // Previene duplicados y conflictos en el login
-        if (usuarioRepository.existsByEmail(request.getEmail())) {
+        if (identificadoresCache.existeEmail(request.getEmail())) {
             throw new BadRequestException("El email ya está registrado");
         }
         
@@ -65,7 +69,7 @@ public class UsuarioService {
     @Transactional
     public UsuarioDTO crearNuevoUsuario(UsuarioDTO usuarioDTO) {
         // Valida unicidad del email antes de crear
-        if (usuarioRepository.existsByEmail(usuarioDTO.getEmail())) {
+        if (identificadoresCache.existeEmail(usuarioDTO.getEmail())) {
             throw new BadRequestException("El email ya está registrado");
         }
         
@@ -137,7 +141,7 @@ public class UsuarioService {
         // Solo valida si el email es diferente al actual
         if (usuarioDTO.getEmail() != null && !usuarioDTO.getEmail().isEmpty() && 
             !usuarioDTO.getEmail().equals(usuario.getEmail())) {
-            if (usuarioRepository.existsByEmail(usuarioDTO.getEmail())) {
+            if (identificadoresCache.existeEmail(usuarioDTO.getEmail())) {
                 throw new BadRequestException("El email ya está registrado");
             }
             usuario.setEmail(usuarioDTO.getEmail());
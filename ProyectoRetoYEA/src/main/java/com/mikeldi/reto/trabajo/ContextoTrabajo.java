@@ -0,0 +1,41 @@
+package com.mikeldi.reto.trabajo;
+
+import java.nio.file.Path;
+
+// Vista que recibe una tarea en ejecución sobre su propio trabajo
+public class ContextoTrabajo {
+    
+    // Trabajo al que pertenece la tarea
+    private final Trabajo trabajo;
+    
+    // Directorio donde se guardan los resultados
+    private final Path directorio;
+    
+    ContextoTrabajo(Trabajo trabajo, Path directorio) {
+        this.trabajo = trabajo;
+        this.directorio = directorio;
+    }
+    
+    // Actualiza el porcentaje completado (0-100)
+    public void progreso(int porcentaje) {
+        trabajo.setProgreso(Math.max(0, Math.min(100, porcentaje)));
+    }
+    
+    // Actualiza el progreso a partir de unidades procesadas sobre el total
+    public void progreso(long hechas, long total) {
+        progreso(total > 0 ? (int) (hechas * 100 / total) : 0);
+    }
+    
+    // Deja un aviso visible en el estado del trabajo, por ejemplo si el resultado está incompleto
+    public void aviso(String mensaje) {
+        trabajo.setAviso(mensaje);
+    }
+    
+    // Reserva el archivo donde la tarea escribirá el resultado en un formato (json, csv...)
+    // El archivo queda registrado como descargable cuando el trabajo termina correctamente
+    public Path archivoResultado(String formato) {
+        Path archivo = directorio.resolve(trabajo.getId() + "." + formato);
+        trabajo.getResultados().put(formato, archivo);
+        return archivo;
+    }
+}
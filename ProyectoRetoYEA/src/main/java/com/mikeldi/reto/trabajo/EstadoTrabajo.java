@@ -0,0 +1,13 @@
+package com.mikeldi.reto.trabajo;
+
+// Estados por los que pasa un trabajo en segundo plano
+public enum EstadoTrabajo {
+    // En cola, esperando un hilo libre
+    PENDIENTE,
+    // Ejecutándose
+    EN_CURSO,
+    // Terminado con resultados descargables
+    COMPLETADO,
+    // Terminado con error
+    FALLIDO
+}
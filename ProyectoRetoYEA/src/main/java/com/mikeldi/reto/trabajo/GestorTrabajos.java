@@ -0,0 +1,265 @@
+package com.mikeldi.reto.trabajo;
+
+import com.mikeldi.reto.dto.TrabajoDTO;
+import com.mikeldi.reto.exception.BadRequestException;
+import com.mikeldi.reto.exception.ResourceNotFoundException;
+import com.mikeldi.reto.exception.ServicioSaturadoException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+// Ejecuta trabajos largos fuera de la petición HTTP en un pool de hilos acotado
+// El cliente recibe un id, consulta el estado por sondeo y descarga el resultado del disco local
+// Las peticiones idénticas mientras un trabajo está en cola o en curso reutilizan el mismo trabajo
+// Los trabajos reutilizables se devuelven también una vez completados, hasta que expiran
+@Service
+public class GestorTrabajos {
+    
+    // Logger para registrar la ejecución y limpieza de trabajos
+    private static final Logger logger = LoggerFactory.getLogger(GestorTrabajos.class);
+    
+    // Hilos dedicados a trabajos; limitan la carga que se añade a la base de datos
+    @Value("${app.trabajos.hilos:2}")
+    private int hilos;
+    
+    // Trabajos que pueden esperar en cola; por encima se rechazan los nuevos envíos
+    @Value("${app.trabajos.capacidad-cola:20}")
+    private int capacidadCola;
+    
+    // Segundos que se piden al cliente antes de reintentar un envío rechazado por cola llena
+    @Value("${app.trabajos.reintentar-segundos:30}")
+    private long reintentarSegundos;
+    
+    // Minutos que se conservan los resultados desde que termina el trabajo
+    @Value("${app.trabajos.ttl-minutos:60}")
+    private long ttlMinutos;
+    
+    // Directorio local donde se escriben los resultados
+    @Value("${app.trabajos.directorio:${java.io.tmpdir}/retoyea-trabajos}")
+    private Path directorio;
+    
+    // Trabajos conocidos por id (en cola, en curso o terminados y aún no expirados)
+    private final Map<String, Trabajo> trabajos = new ConcurrentHashMap<>();
+    
+    // Trabajo no terminado para cada clave de parámetros
+    private final Map<String, Trabajo> enCursoPorClave = new ConcurrentHashMap<>();
+    
+    // Trabajo reutilizable completado para cada clave de parámetros
+    private final Map<String, Trabajo> completadosPorClave = new ConcurrentHashMap<>();
+    
+    private ThreadPoolExecutor ejecutor;
+    
+    // Crea el pool y el directorio de resultados, eliminando restos de ejecuciones anteriores
+    @PostConstruct
+    void iniciar() throws IOException {
+        AtomicInteger contador = new AtomicInteger();
+        ejecutor = new ThreadPoolExecutor(hilos, hilos, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(capacidadCola),
+            tarea -> {
+                Thread hilo = new Thread(tarea, "trabajo-" + contador.incrementAndGet());
+                hilo.setDaemon(true);
+                return hilo;
+            });
+        Files.createDirectories(directorio);
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            archivos.forEach(this::borrar);
+        }
+    }
+    
+    // Detiene los trabajos en curso al cerrar la aplicación
+    @PreDestroy
+    void detener() {
+        ejecutor.shutdownNow();
+    }
+    
+    // Envía un trabajo o devuelve el que ya está en cola o en curso con la misma clave
+    // El usuario que lo pide queda registrado: solo quienes lo han enviado pueden consultarlo después
+    // con obtenerEstado y obtenerResultado. Sin solicitante (tareas internas) nadie puede consultarlo
+    public TrabajoDTO enviar(String tipo, String clave, String solicitante, TareaTrabajo tarea) {
+        return enviar(tipo, clave, solicitante, tarea, false);
+    }
+    
+    // Como enviar, pero además devuelve el trabajo completado con la misma clave mientras no expire
+    // La clave debe cambiar cuando cambian los datos de origen (por ejemplo, incluyendo una versión)
+    public TrabajoDTO enviarReutilizable(String tipo, String clave, String solicitante, TareaTrabajo tarea) {
+        return enviar(tipo, clave, solicitante, tarea, true);
+    }
+    
+    private TrabajoDTO enviar(String tipo, String clave, String solicitante, TareaTrabajo tarea, boolean reutilizable) {
+        String claveCompleta = tipo + "|" + clave;
+        if (reutilizable) {
+            Trabajo completado = completadosPorClave.get(claveCompleta);
+            if (completado != null && resultadosDisponibles(completado)) {
+                logger.debug("Trabajo {} reutilizado ({})", completado.getId(), claveCompleta);
+                if (solicitante != null) {
+                    completado.agregarSolicitante(solicitante);
+                }
+                return convertirADTO(completado);
+            }
+        }
+        Trabajo[] creado = new Trabajo[1];
+        Trabajo trabajo = enCursoPorClave.computeIfAbsent(claveCompleta, k -> {
+            creado[0] = new Trabajo(UUID.randomUUID().toString(), tipo, k, reutilizable);
+            return creado[0];
+        });
+        // Quien recibe un trabajo compartido también puede consultarlo y descargarlo
+        if (solicitante != null) {
+            trabajo.agregarSolicitante(solicitante);
+        }
+        
+        if (creado[0] != null) {
+            trabajos.put(trabajo.getId(), trabajo);
+            try {
+                ejecutor.execute(() -> ejecutar(trabajo, tarea));
+            } catch (RejectedExecutionException e) {
+                trabajos.remove(trabajo.getId());
+                enCursoPorClave.remove(claveCompleta, trabajo);
+                throw new ServicioSaturadoException("Hay demasiados trabajos en cola, inténtelo más tarde", reintentarSegundos);
+            }
+            logger.debug("Trabajo {} enviado ({})", trabajo.getId(), claveCompleta);
+        }
+        return convertirADTO(trabajo);
+    }
+    
+    // Estado de un trabajo para uno de sus solicitantes
+    public TrabajoDTO obtenerEstado(String id, String solicitante) {
+        return convertirADTO(buscar(id, solicitante));
+    }
+    
+    // Archivo de resultado de un trabajo completado, en el formato pedido, para uno de sus solicitantes
+    public Path obtenerResultado(String id, String formato, String solicitante) {
+        return resultado(buscar(id, solicitante), formato);
+    }
+    
+    private Path resultado(Trabajo trabajo, String formato) {
+        String id = trabajo.getId();
+        if (trabajo.getEstado() != EstadoTrabajo.COMPLETADO) {
+            throw new BadRequestException("El trabajo " + id + " no ha terminado correctamente (estado " + trabajo.getEstado() + ")");
+        }
+        Path archivo = trabajo.getResultados().get(formato.toLowerCase());
+        if (archivo == null || !Files.exists(archivo)) {
+            throw new ResourceNotFoundException("El trabajo " + id + " no tiene resultado en formato " + formato);
+        }
+        return archivo;
+    }
+    
+    // Elimina de memoria y de disco los trabajos terminados cuyo TTL ha vencido
+    @Scheduled(fixedDelayString = "${app.trabajos.limpieza-ms:300000}")
+    public void limpiarExpirados() {
+        LocalDateTime ahora = LocalDateTime.now();
+        trabajos.values().removeIf(trabajo -> {
+            if (!trabajo.isTerminado() || expiracion(trabajo).isAfter(ahora)) {
+                return false;
+            }
+            completadosPorClave.remove(trabajo.getClave(), trabajo);
+            trabajo.getResultados().values().forEach(this::borrar);
+            logger.debug("Trabajo {} expirado", trabajo.getId());
+            return true;
+        });
+    }
+    
+    // Ejecuta la tarea registrando su estado final
+    private void ejecutar(Trabajo trabajo, TareaTrabajo tarea) {
+        trabajo.setEstado(EstadoTrabajo.EN_CURSO);
+        long inicio = System.currentTimeMillis();
+        EstadoTrabajo estadoFinal;
+        try {
+            tarea.ejecutar(new ContextoTrabajo(trabajo, directorio));
+            trabajo.setProgreso(100);
+            estadoFinal = EstadoTrabajo.COMPLETADO;
+            logger.info("Trabajo {} ({}) completado en {} ms", trabajo.getId(), trabajo.getTipo(), System.currentTimeMillis() - inicio);
+        } catch (Throwable e) {
+            // También los errores de la JVM (OutOfMemoryError en una exportación grande): el trabajo debe
+            // quedar FALLIDO y salir de enCursoPorClave, o su clave no podría volver a ejecutarse
+            trabajo.getResultados().values().forEach(this::borrar);
+            trabajo.getResultados().clear();
+            trabajo.setAviso(null);
+            trabajo.setError(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+            estadoFinal = EstadoTrabajo.FALLIDO;
+            logger.error("Trabajo {} ({}) fallido", trabajo.getId(), trabajo.getTipo(), e);
+        }
+        // La fecha de fin se fija antes que el estado: quien vea el trabajo terminado ya puede calcular su expiración
+        trabajo.setFechaFinalizacion(LocalDateTime.now());
+        trabajo.setEstado(estadoFinal);
+        // Se registra como completado antes de dejar de estar en curso para que una petición
+        // idéntica encuentre siempre uno de los dos
+        if (trabajo.isReutilizable() && estadoFinal == EstadoTrabajo.COMPLETADO) {
+            completadosPorClave.put(trabajo.getClave(), trabajo);
+        }
+        // A partir de aquí una petición idéntica crea un trabajo nuevo (o reutiliza el completado)
+        enCursoPorClave.remove(trabajo.getClave(), trabajo);
+    }
+    
+    private Trabajo buscar(String id) {
+        Trabajo trabajo = trabajos.get(id);
+        if (trabajo == null) {
+            throw new ResourceNotFoundException("Trabajo no encontrado o expirado: " + id);
+        }
+        return trabajo;
+    }
+    
+    // Un trabajo de otro usuario se trata como inexistente para no revelar sus ids
+    private Trabajo buscar(String id, String solicitante) {
+        Trabajo trabajo = buscar(id);
+        if (!trabajo.esSolicitante(solicitante)) {
+            throw new ResourceNotFoundException("Trabajo no encontrado o expirado: " + id);
+        }
+        return trabajo;
+    }
+    
+    // Un trabajo completado se puede reutilizar si no ha vencido y sus archivos siguen en disco
+    private boolean resultadosDisponibles(Trabajo trabajo) {
+        return expiracion(trabajo).isAfter(LocalDateTime.now())
+            && trabajo.getResultados().values().stream().allMatch(Files::exists);
+    }
+    
+    private LocalDateTime expiracion(Trabajo trabajo) {
+        return trabajo.getFechaFinalizacion().plusMinutes(ttlMinutos);
+    }
+    
+    private void borrar(Path archivo) {
+        try {
+            Files.deleteIfExists(archivo);
+        } catch (IOException e) {
+            logger.warn("No se pudo borrar {}", archivo, e);
+        }
+    }
+    
+    private TrabajoDTO convertirADTO(Trabajo trabajo) {
+        TrabajoDTO dto = new TrabajoDTO();
+        dto.setId(trabajo.getId());
+        dto.setTipo(trabajo.getTipo());
+        dto.setEstado(trabajo.getEstado());
+        dto.setProgreso(trabajo.getProgreso());
+        dto.setFechaCreacion(trabajo.getFechaCreacion());
+        if (trabajo.isTerminado()) {
+            dto.setFechaFinalizacion(trabajo.getFechaFinalizacion());
+            dto.setFechaExpiracion(expiracion(trabajo));
+        }
+        if (trabajo.getEstado() == EstadoTrabajo.COMPLETADO) {
+            dto.setFormatos(new TreeSet<>(trabajo.getResultados().keySet()));
+        }
+        dto.setError(trabajo.getError());
+        dto.setAviso(trabajo.getAviso());
+        return dto;
+    }
+}
@@ -0,0 +1,9 @@
+package com.mikeldi.reto.trabajo;
+
+// Trabajo a ejecutar en segundo plano
+// Informa del progreso y escribe sus resultados a través del contexto
+@FunctionalInterface
+public interface TareaTrabajo {
+    
+    void ejecutar(ContextoTrabajo contexto) throws Exception;
+}
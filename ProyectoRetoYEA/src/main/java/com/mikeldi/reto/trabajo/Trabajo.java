@@ -0,0 +1,129 @@
+package com.mikeldi.reto.trabajo;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Estado en memoria de un trabajo en segundo plano
+// Los campos que cambia el hilo de ejecución son volátiles para que las consultas los vean al momento
+class Trabajo {
+    
+    // Identificador público del trabajo
+    private final String id;
+    
+    // Tipo de trabajo (informativo)
+    private final String tipo;
+    
+    // Clave de los parámetros, usada para no duplicar trabajos idénticos en curso
+    private final String clave;
+    
+    // Si el trabajo completado puede devolverse a peticiones idénticas posteriores
+    private final boolean reutilizable;
+    
+    // Fecha de envío
+    private final LocalDateTime fechaCreacion = LocalDateTime.now();
+    
+    private volatile EstadoTrabajo estado = EstadoTrabajo.PENDIENTE;
+    
+    private volatile int progreso;
+    
+    private volatile LocalDateTime fechaFinalizacion;
+    
+    // Mensaje de error si el trabajo ha fallado
+    private volatile String error;
+    
+    // Aviso de un trabajo completado con un resultado parcial o con limitaciones
+    private volatile String aviso;
+    
+    // Archivos de resultado por formato
+    private final Map<String, Path> resultados = new ConcurrentHashMap<>();
+    
+    // Usuarios que han enviado el trabajo (varios si se ha compartido una petición idéntica)
+    private final Set<String> solicitantes = ConcurrentHashMap.newKeySet();
+    
+    Trabajo(String id, String tipo, String clave, boolean reutilizable) {
+        this.id = id;
+        this.tipo = tipo;
+        this.clave = clave;
+        this.reutilizable = reutilizable;
+    }
+    
+    // Un trabajo terminado ya no se comparte con peticiones idénticas, salvo que sea reutilizable
+    boolean isTerminado() {
+        return estado == EstadoTrabajo.COMPLETADO || estado == EstadoTrabajo.FALLIDO;
+    }
+    
+    String getId() {
+        return id;
+    }
+    
+    String getTipo() {
+        return tipo;
+    }
+    
+    String getClave() {
+        return clave;
+    }
+    
+    boolean isReutilizable() {
+        return reutilizable;
+    }
+    
+    LocalDateTime getFechaCreacion() {
+        return fechaCreacion;
+    }
+    
+    EstadoTrabajo getEstado() {
+        return estado;
+    }
+    
+    void setEstado(EstadoTrabajo estado) {
+        this.estado = estado;
+    }
+    
+    int getProgreso() {
+        return progreso;
+    }
+    
+    void setProgreso(int progreso) {
+        this.progreso = progreso;
+    }
+    
+    LocalDateTime getFechaFinalizacion() {
+        return fechaFinalizacion;
+    }
+    
+    void setFechaFinalizacion(LocalDateTime fechaFinalizacion) {
+        this.fechaFinalizacion = fechaFinalizacion;
+    }
+    
+    String getError() {
+        return error;
+    }
+    
+    void setError(String error) {
+        this.error = error;
+    }
+    
+    String getAviso() {
+        return aviso;
+    }
+    
+    void setAviso(String aviso) {
+        this.aviso = aviso;
+    }
+    
+    Map<String, Path> getResultados() {
+        return resultados;
+    }
+    
+    void agregarSolicitante(String solicitante) {
+        solicitantes.add(solicitante);
+    }
+    
+    boolean esSolicitante(String usuario) {
+        return solicitantes.contains(usuario);
+    }
+}
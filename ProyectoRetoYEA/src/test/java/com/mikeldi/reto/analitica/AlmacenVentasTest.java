@@ -0,0 +1,115 @@
+package com.mikeldi.reto.analitica;
+
+import com.mikeldi.reto.entity.EstadoFactura;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AlmacenVentasTest {
+
+	private AlmacenVentas almacen;
+	private int teclado;
+	private int raton;
+	private int bilbao;
+	private int madrid;
+	private int perifericos;
+	private int vizcaya;
+
+	@BeforeEach
+	void cargar() {
+		almacen = new AlmacenVentas();
+		teclado = almacen.productos.codificar(1L, "Teclado");
+		raton = almacen.productos.codificar(2L, "Ratón");
+		perifericos = almacen.categorias.codificar("perifericos", "Periféricos");
+		int accesorios = almacen.categorias.codificar("accesorios", "Accesorios");
+		almacen.asignarCategoria(teclado, perifericos);
+		almacen.asignarCategoria(raton, accesorios);
+		bilbao = almacen.clientes.codificar(10L, "Cliente Bilbao");
+		madrid = almacen.clientes.codificar(11L, "Cliente Madrid");
+		vizcaya = almacen.provincias.codificar("vizcaya", "Vizcaya");
+		int provinciaMadrid = almacen.provincias.codificar("madrid", "Madrid");
+		almacen.asignarProvincia(bilbao, vizcaya);
+		almacen.asignarProvincia(madrid, provinciaMadrid);
+		int usuario = almacen.usuarios.codificar(100L, "comercial");
+
+		// Factura 1 (enero): dos líneas de Bilbao
+		almacen.agregar(1, LocalDate.of(2026, 1, 10), EstadoFactura.PAGADA, 2, 1000, teclado, bilbao, usuario);
+		almacen.agregar(1, LocalDate.of(2026, 1, 10), EstadoFactura.PAGADA, 1, 500, raton, bilbao, usuario);
+		// Factura 2 (febrero): una línea de Madrid
+		almacen.agregar(2, LocalDate.of(2026, 2, 5), EstadoFactura.PENDIENTE, 3, 1500, teclado, madrid, usuario);
+		// Factura 3 (febrero) cancelada: no cuenta
+		almacen.agregar(3, LocalDate.of(2026, 2, 20), EstadoFactura.CANCELADA, 5, 2500, raton, madrid, usuario);
+	}
+
+	@Test
+	void agrupaPorProductoExcluyendoCanceladas() {
+		AlmacenVentas.Agregado agregado = almacen.agrupar(DimensionVentas.PRODUCTO, new AlmacenVentas.FiltroVentas());
+
+		assertEquals(4, almacen.filas());
+		assertArrayEquals(new long[] {2, 1}, agregado.lineas);
+		assertArrayEquals(new long[] {5, 1}, agregado.unidades);
+		assertArrayEquals(new long[] {2500, 500}, agregado.importeCentimos);
+	}
+
+	@Test
+	void filtraPorProvinciaYAgrupaPorCategoria() {
+		AlmacenVentas.FiltroVentas filtro = new AlmacenVentas.FiltroVentas();
+		filtro.provincia = vizcaya;
+
+		AlmacenVentas.Agregado agregado = almacen.agrupar(DimensionVentas.CATEGORIA, filtro);
+
+		assertArrayEquals(new long[] {1000, 500}, agregado.importeCentimos);
+	}
+
+	@Test
+	void filtraPorCategoriaYAgrupaPorCliente() {
+		AlmacenVentas.FiltroVentas filtro = new AlmacenVentas.FiltroVentas();
+		filtro.categoria = perifericos;
+
+		AlmacenVentas.Agregado agregado = almacen.agrupar(DimensionVentas.CLIENTE, filtro);
+
+		assertEquals(1000, agregado.importeCentimos[bilbao]);
+		assertEquals(1500, agregado.importeCentimos[madrid]);
+	}
+
+	@Test
+	void agrupaPorMesDentroDelRango() {
+		AlmacenVentas.FiltroVentas filtro = new AlmacenVentas.FiltroVentas();
+		filtro.diaDesde = (int) LocalDate.of(2026, 2, 1).toEpochDay();
+
+		AlmacenVentas.Agregado agregado = almacen.agrupar(DimensionVentas.MES, filtro);
+
+		assertEquals(YearMonth.of(2026, 2), AlmacenVentas.mesDeIndice(agregado.mesBase));
+		assertEquals(1, agregado.gruposConDatos().size());
+		assertEquals(1500, agregado.importeCentimos[0]);
+	}
+
+	@Test
+	void actualizarEstadoSoloCambiaLasFilasDeLaFactura() {
+		almacen.actualizarEstado(3, EstadoFactura.PAGADA);
+		almacen.actualizarEstado(1, EstadoFactura.CANCELADA);
+
+		AlmacenVentas.Agregado agregado = almacen.agrupar(DimensionVentas.PRODUCTO, new AlmacenVentas.FiltroVentas());
+
+		assertArrayEquals(new long[] {1500, 2500}, agregado.importeCentimos);
+		assertArrayEquals(new long[] {1, 1}, agregado.lineas);
+	}
+
+	@Test
+	void lasLineasDeUnaFacturaDebenSerConsecutivas() {
+		assertTrue(almacen.contieneFactura(2));
+		assertFalse(almacen.contieneFactura(4));
+
+		assertThrows(IllegalStateException.class, () ->
+			almacen.agregar(1, LocalDate.of(2026, 1, 10), EstadoFactura.PAGADA, 1, 100, teclado, bilbao, 0));
+		assertEquals(4, almacen.filas());
+	}
+}
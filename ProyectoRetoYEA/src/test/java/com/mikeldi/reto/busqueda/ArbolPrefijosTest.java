@@ -0,0 +1,82 @@
+package com.mikeldi.reto.busqueda;
+
+import com.mikeldi.reto.dto.SugerenciaDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ArbolPrefijosTest {
+
+	@Test
+	void ordenaPorPopularidadYBuscaPorCualquierPalabra() {
+		ArbolPrefijos arbol = new ArbolPrefijos(true);
+		arbol.indexar(1, "Martínez Hermanos", "12345678Z", true, 5L);
+		arbol.indexar(2, "Marina Sur", "B1234567C", true, 20L);
+		arbol.indexar(3, "Talleres Martín", "X1234567L", true, 10L);
+
+		assertEquals(List.of(2L, 3L, 1L), ids(arbol.sugerir("mar", 10)));
+		assertEquals(List.of(3L), ids(arbol.sugerir("talleres mar", 10)));
+		assertEquals(List.of(1L), ids(arbol.sugerir("MARTINEZ", 10)));
+	}
+
+	@Test
+	void elDetalleSoloEsClaveSiElArbolLoIndica() {
+		ArbolPrefijos clientes = new ArbolPrefijos(true);
+		ArbolPrefijos productos = new ArbolPrefijos(false);
+		clientes.indexar(1, "Cliente Uno", "12345678Z", true, null);
+		productos.indexar(1, "Teclado", "Periféricos", true, null);
+
+		assertEquals(List.of(1L), ids(clientes.sugerir("1234", 10)));
+		assertTrue(productos.sugerir("perif", 10).isEmpty());
+		assertEquals("Periféricos", productos.sugerir("tec", 10).get(0).getDetalle());
+	}
+
+	@Test
+	void lasInactivasYEliminadasNoSeSugieren() {
+		ArbolPrefijos arbol = new ArbolPrefijos(false);
+		arbol.indexar(1, "Alfa", null, true, null);
+		arbol.indexar(2, "Alfombra", null, false, null);
+		arbol.indexar(3, "Alféizar", null, true, null);
+		arbol.eliminar(3);
+
+		assertEquals(List.of(1L), ids(arbol.sugerir("alf", 10)));
+	}
+
+	@Test
+	void mantieneElRankingAlCambiarLaPopularidadEnUnArbolGrande() {
+		// Suficientes entradas para desglosar los cubos y precalcular las mejores de cada nodo
+		ArbolPrefijos arbol = new ArbolPrefijos(false);
+		List<long[]> esperadas = new ArrayList<>();
+		for (int i = 0; i < 500; i++) {
+			long popularidad = (i * 37L) % 101;
+			arbol.cargar(i, "Producto " + i, null, true, popularidad);
+			esperadas.add(new long[] {i, popularidad});
+		}
+		arbol.terminarCarga();
+		arbol.sumarPopularidad(7, 1000);
+		arbol.sumarPopularidad(250, -1000);
+		esperadas.get(7)[1] += 1000;
+		esperadas.get(250)[1] -= 1000;
+
+		List<SugerenciaDTO> sugerencias = arbol.sugerir("producto", ArbolPrefijos.MAX_SUGERENCIAS);
+
+		List<Long> ranking = esperadas.stream()
+			.sorted(Comparator.<long[]>comparingLong(e -> -e[1]).thenComparing(e -> "Producto " + e[0]))
+			.limit(ArbolPrefijos.MAX_SUGERENCIAS)
+			.map(e -> e[0])
+			.toList();
+		assertEquals(ranking, ids(sugerencias));
+		assertEquals(7L, sugerencias.get(0).getId());
+		assertTrue(arbol.sugerir("producto 12", 20).stream().allMatch(s -> s.getNombre().startsWith("Producto 12")));
+		assertEquals(11, arbol.sugerir("producto 12", 20).size());
+	}
+
+	private static List<Long> ids(List<SugerenciaDTO> sugerencias) {
+		return sugerencias.stream().map(SugerenciaDTO::getId).toList();
+	}
+}
@@ -0,0 +1,62 @@
+package com.mikeldi.reto.busqueda;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndiceTrigramasTest {
+
+	private IndiceTrigramas indice;
+
+	@BeforeEach
+	void indexar() {
+		indice = new IndiceTrigramas();
+		indice.indexar(1, "Ferretería Martínez");
+		indice.indexar(2, "Martín Fernández");
+		indice.indexar(3, "Construcciones López");
+		indice.indexar(4, "Suministros Industriales del Norte");
+	}
+
+	@Test
+	void encuentraUnNombreMalEscrito() {
+		List<Long> resultado = indice.buscar("Feretería Martines", 0.5, 10);
+
+		assertFalse(resultado.isEmpty());
+		assertEquals(1L, resultado.get(0));
+	}
+
+	@Test
+	void ignoraTildesMayusculasYOrdenDePalabras() {
+		List<Long> resultado = indice.buscar("LOPEZ construcciones", 0.5, 10);
+
+		assertEquals(List.of(3L), resultado);
+	}
+
+	@Test
+	void noDevuelveTextosPocoParecidos() {
+		assertTrue(indice.buscar("zzzz qqqq", 0.5, 10).isEmpty());
+	}
+
+	@Test
+	void respetaElLimite() {
+		List<Long> resultado = indice.buscar("mar", 0.1, 1);
+
+		assertEquals(1, resultado.size());
+	}
+
+	@Test
+	void lasBajasYModificacionesDejanDeEncontrarseConElTextoAnterior() {
+		indice.eliminar(1);
+		indice.indexar(3, "Talleres Gómez");
+
+		assertFalse(indice.buscar("Ferretería Martínez", 0.5, 10).contains(1L));
+		assertFalse(indice.buscar("Construcciones López", 0.5, 10).contains(3L));
+		assertEquals(3L, indice.buscar("talleres gomez", 0.5, 10).get(0));
+		assertEquals(3, indice.tamano());
+	}
+}
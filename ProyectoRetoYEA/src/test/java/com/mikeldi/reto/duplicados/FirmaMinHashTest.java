@@ -0,0 +1,71 @@
+package com.mikeldi.reto.duplicados;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FirmaMinHashTest {
+
+	@Test
+	void normalizaEmailsYTelefonos() {
+		assertEquals("info acme sl", FirmaMinHash.normalizarEmail(" Info@ACME-sl.es "));
+		assertEquals("", FirmaMinHash.normalizarEmail(null));
+		assertEquals("944123456", FirmaMinHash.normalizarTelefono("+34 944 12 34 56"));
+		assertEquals("944123456", FirmaMinHash.normalizarTelefono("0034-944-123-456"));
+		assertEquals("944123456", FirmaMinHash.normalizarTelefono("944.123.456"));
+	}
+
+	@Test
+	void similitudAltaEntreVariantesDelMismoCliente() {
+		int[][] a = FirmaMinHash.rasgos("Talleres Goikoetxea S.L.", "Calle Mayor 12, Bilbao",
+				"info@talleres-goikoetxea.es", "944 123 456");
+		int[][] b = FirmaMinHash.rasgos("TALLERES GOIKOETXEA SL", "C/ Mayor, 12 - Bilbao",
+				"info@talleresgoikoetxea.es", "+34 944123456");
+		int[][] c = FirmaMinHash.rasgos("Panadería Arrieta", "Avenida Gasteiz 3, Vitoria",
+				"pedidos@arrieta.com", "945 000 111");
+
+		double[] parecidos = FirmaMinHash.similitud(a, b);
+		double[] distintos = FirmaMinHash.similitud(a, c);
+		assertEquals(1.0, parecidos[FirmaMinHash.TELEFONO]);
+		assertTrue(parecidos[FirmaMinHash.NUM_CAMPOS] > 0.7, "Similitud: " + parecidos[FirmaMinHash.NUM_CAMPOS]);
+		assertTrue(distintos[FirmaMinHash.NUM_CAMPOS] < 0.2, "Similitud: " + distintos[FirmaMinHash.NUM_CAMPOS]);
+	}
+
+	@Test
+	void losCamposQueFaltanNoCuentanEnLaMedia() {
+		int[][] a = FirmaMinHash.rasgos("Talleres Goikoetxea", null, null, "944123456");
+		int[][] b = FirmaMinHash.rasgos("Talleres Goikoetxea", "Calle Mayor 12", "", "944123456");
+
+		double[] similitud = FirmaMinHash.similitud(a, b);
+		assertTrue(Double.isNaN(similitud[FirmaMinHash.DIRECCION]));
+		assertTrue(Double.isNaN(similitud[FirmaMinHash.EMAIL]));
+		assertEquals(1.0, similitud[FirmaMinHash.NUM_CAMPOS]);
+	}
+
+	@Test
+	void elIndiceLshEncuentraUnDuplicadoConocido() {
+		IndiceLsh indice = new IndiceLsh();
+		for (int i = 0; i < 2000; i++) {
+			indice.anadir(i, FirmaMinHash.bandas(FirmaMinHash.rasgos("Empresa " + i + " Comercial Ruiz" + i * 7919,
+					"Polígono " + i + " nave " + (i % 37), "contacto" + i + "@dominio" + i + ".es",
+					String.format("9%08d", i * 104729L % 100_000_000))));
+		}
+		indice.anadir(5000, FirmaMinHash.bandas(FirmaMinHash.rasgos("Talleres Goikoetxea S.L.",
+				"Calle Mayor 12, Bilbao", "info@talleres-goikoetxea.es", "944 123 456")));
+		indice.anadir(5001, FirmaMinHash.bandas(FirmaMinHash.rasgos("TALLERES GOIKOETXEA SL",
+				"C/ Mayor, 12 - Bilbao", "info@talleresgoikoetxea.es", "+34 944123456")));
+
+		List<long[]> pares = new ArrayList<>();
+		for (long par : indice.candidatos(200, 1_000_000, banda -> { })) {
+			pares.add(new long[] {indice.id((int) (par >>> 32)), indice.id((int) par)});
+		}
+
+		assertTrue(pares.stream().anyMatch(p -> p[0] == 5000 && p[1] == 5001));
+		assertFalse(indice.incompleto());
+	}
+}
@@ -0,0 +1,161 @@
+package com.mikeldi.reto.parquet;
+
+import org.apache.parquet.ParquetReadOptions;
+import org.apache.parquet.column.page.PageReadStore;
+import org.apache.parquet.conf.PlainParquetConfiguration;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.convert.GroupRecordConverter;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.io.ColumnIOFactory;
+import org.apache.parquet.io.DelegatingSeekableInputStream;
+import org.apache.parquet.io.InputFile;
+import org.apache.parquet.io.RecordReader;
+import org.apache.parquet.io.SeekableInputStream;
+import org.apache.parquet.schema.MessageType;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EscritorParquetTest {
+
+	private static final LocalDate FECHA_BASE = LocalDate.of(2025, 1, 1);
+
+	private static final EsquemaParquet<Fila> ESQUEMA = new EsquemaParquet<Fila>("facturas")
+			.entero64("id", Fila::id)
+			.texto("estado", Fila::estado)
+			.entero32("cantidad", Fila::cantidad)
+			.decimal("total", 2, Fila::total)
+			.fecha("fecha", Fila::fecha)
+			.marcaTiempo("creado", Fila::creado);
+
+	@Test
+	void elArchivoEscritoSeLeeConLosMismosValores() throws IOException {
+		List<Fila> filas = IntStream.range(0, 20_000).mapToObj(EscritorParquetTest::fila).toList();
+		ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+		// Grupos de filas pequeños para que el archivo tenga varios
+		long escritas = EscritorParquet.escribir(filas.stream(), ESQUEMA, salida, 64 * 1024);
+
+		assertEquals(filas.size(), escritas);
+		try (ParquetFileReader lector = abrir(salida.toByteArray())) {
+			List<BlockMetaData> grupos = lector.getFooter().getBlocks();
+			assertTrue(grupos.size() > 1, "Grupos de filas: " + grupos.size());
+			for (ColumnChunkMetaData columna : grupos.get(0).getColumns()) {
+				assertEquals(CompressionCodecName.ZSTD, columna.getCodec());
+			}
+
+			List<Group> leidas = leer(lector);
+			assertEquals(filas.size(), leidas.size());
+			for (int i = 0; i < filas.size(); i++) {
+				comprobar(filas.get(i), leidas.get(i));
+			}
+		}
+	}
+
+	@Test
+	void sinFilasEscribeUnArchivoValido() throws IOException {
+		ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+		assertEquals(0, EscritorParquet.escribir(Stream.empty(), ESQUEMA, salida, 64 * 1024));
+		try (ParquetFileReader lector = abrir(salida.toByteArray())) {
+			assertEquals(0, lector.getRecordCount());
+			assertEquals(6, lector.getFooter().getFileMetaData().getSchema().getFieldCount());
+		}
+	}
+
+	// Fila de ejemplo con nulos en algunas columnas
+	private static Fila fila(int i) {
+		return new Fila((long) i,
+				i % 10 == 0 ? null : new String[] {"PENDIENTE", "PAGADA", "ANULADA"}[i % 3],
+				i % 7 == 0 ? null : i % 50,
+				BigDecimal.valueOf(i * 137L, 2),
+				FECHA_BASE.plusDays(i % 365),
+				LocalDateTime.of(2025, 1, 1, 8, 0).plusSeconds(i * 61L));
+	}
+
+	private static void comprobar(Fila esperada, Group leida) {
+		assertEquals(esperada.id(), leida.getLong("id", 0));
+		if (esperada.estado() == null) {
+			assertEquals(0, leida.getFieldRepetitionCount("estado"));
+		} else {
+			assertEquals(esperada.estado(), leida.getString("estado", 0));
+		}
+		if (esperada.cantidad() == null) {
+			assertEquals(0, leida.getFieldRepetitionCount("cantidad"));
+		} else {
+			assertEquals(esperada.cantidad(), leida.getInteger("cantidad", 0));
+		}
+		assertEquals(esperada.total().unscaledValue().longValueExact(), leida.getLong("total", 0));
+		assertEquals(esperada.fecha().toEpochDay(), leida.getInteger("fecha", 0));
+		assertEquals(esperada.creado().toInstant(ZoneOffset.UTC).toEpochMilli(), leida.getLong("creado", 0));
+	}
+
+	private static ParquetFileReader abrir(byte[] datos) throws IOException {
+		assertTrue(datos.length > 0);
+		ParquetReadOptions opciones = ParquetReadOptions.builder(new PlainParquetConfiguration())
+				.withCodecFactory(new CodecZstd())
+				.build();
+		return ParquetFileReader.open(new ArchivoEnMemoria(datos), opciones);
+	}
+
+	private static List<Group> leer(ParquetFileReader lector) throws IOException {
+		MessageType esquema = lector.getFooter().getFileMetaData().getSchema();
+		List<Group> filas = new ArrayList<>();
+		PageReadStore paginas;
+		while ((paginas = lector.readNextRowGroup()) != null) {
+			RecordReader<Group> registros = new ColumnIOFactory().getColumnIO(esquema)
+					.getRecordReader(paginas, new GroupRecordConverter(esquema));
+			for (long i = 0; i < paginas.getRowCount(); i++) {
+				filas.add(registros.read());
+			}
+		}
+		return filas;
+	}
+
+	private record Fila(Long id, String estado, Integer cantidad, BigDecimal total, LocalDate fecha,
+			LocalDateTime creado) {
+	}
+
+	// Archivo Parquet leído desde un array de bytes
+	private record ArchivoEnMemoria(byte[] datos) implements InputFile {
+
+		@Override
+		public long getLength() {
+			return datos.length;
+		}
+
+		@Override
+		public SeekableInputStream newStream() {
+			ByteArrayInputStream entrada = new ByteArrayInputStream(datos);
+			return new DelegatingSeekableInputStream(entrada) {
+
+				@Override
+				public long getPos() {
+					return datos.length - entrada.available();
+				}
+
+				@Override
+				public void seek(long posicion) {
+					entrada.reset();
+					entrada.skip(posicion);
+				}
+			};
+		}
+	}
+}
@@ -0,0 +1,89 @@
+package com.mikeldi.reto.service;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.mikeldi.reto.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CompresionTest {
+
+	@Test
+	void sinCabeceraNoComprime() {
+		assertEquals(Compresion.NINGUNA, Compresion.negociar(null));
+		assertEquals(Compresion.NINGUNA, Compresion.negociar(" "));
+		assertEquals(Compresion.NINGUNA, Compresion.negociar("br, deflate"));
+	}
+
+	@Test
+	void aIgualPesoPrefiereZstd() {
+		assertEquals(Compresion.ZSTD, Compresion.negociar("gzip, deflate, br, zstd"));
+		assertEquals(Compresion.GZIP, Compresion.negociar("gzip, deflate, br"));
+	}
+
+	@Test
+	void respetaLosPesosQ() {
+		assertEquals(Compresion.GZIP, Compresion.negociar("zstd;q=0.5, gzip;q=0.8"));
+		assertEquals(Compresion.GZIP, Compresion.negociar("zstd;q=0, gzip"));
+		assertEquals(Compresion.NINGUNA, Compresion.negociar("gzip;q=0, zstd;q=0"));
+		assertEquals(Compresion.NINGUNA, Compresion.negociar("gzip;q=abc"));
+	}
+
+	@Test
+	void elComodinCubreLasCodificacionesNoNombradas() {
+		assertEquals(Compresion.ZSTD, Compresion.negociar("*"));
+		assertEquals(Compresion.GZIP, Compresion.negociar("zstd;q=0, *;q=0.3"));
+		assertEquals(Compresion.ZSTD, Compresion.negociar("gzip;q=0.2, *"));
+	}
+
+	@Test
+	void desdeNombreAceptaCodificacionYNombre() {
+		assertEquals(Compresion.GZIP, Compresion.desdeNombre("GZIP"));
+		assertEquals(Compresion.ZSTD, Compresion.desdeNombre("zstd"));
+		assertEquals(Compresion.NINGUNA, Compresion.desdeNombre("ninguna"));
+		assertEquals(Compresion.NINGUNA, Compresion.desdeNombre(null));
+		assertThrows(BadRequestException.class, () -> Compresion.desdeNombre("br"));
+	}
+
+	@Test
+	void comprimeYSeDescomprimeSinCerrarLaSalidaOriginal() throws IOException {
+		byte[] datos = "id;nombre;total\n".repeat(1000).getBytes(StandardCharsets.UTF_8);
+		for (Compresion compresion : Compresion.values()) {
+			SalidaControlada salida = new SalidaControlada();
+			try (OutputStream comprimida = compresion.comprimir(salida)) {
+				comprimida.write(datos);
+			}
+			assertFalse(salida.cerrada);
+
+			InputStream entrada = new ByteArrayInputStream(salida.toByteArray());
+			InputStream descomprimida = switch (compresion) {
+				case NINGUNA -> entrada;
+				case GZIP -> new GZIPInputStream(entrada);
+				case ZSTD -> new ZstdInputStream(entrada);
+			};
+			assertArrayEquals(datos, descomprimida.readAllBytes(), compresion.name());
+		}
+	}
+
+	// Salida en memoria que recuerda si se ha cerrado
+	private static class SalidaControlada extends ByteArrayOutputStream {
+
+		private boolean cerrada;
+
+		@Override
+		public void close() {
+			cerrada = true;
+		}
+	}
+}
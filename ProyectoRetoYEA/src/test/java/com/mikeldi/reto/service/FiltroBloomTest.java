@@ -0,0 +1,55 @@
+package com.mikeldi.reto.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FiltroBloomTest {
+
+	@Test
+	void nuncaDaFalsosNegativos() {
+		FiltroBloom filtro = new FiltroBloom(10_000, 0.01);
+		for (int i = 0; i < 10_000; i++) {
+			filtro.anadir("cliente" + i + "@empresa.es");
+		}
+
+		for (int i = 0; i < 10_000; i++) {
+			assertTrue(filtro.puedeContener("cliente" + i + "@empresa.es"));
+		}
+		assertFalse(filtro.saturado());
+	}
+
+	@Test
+	void losFalsosPositivosRondanLaTasaElegida() {
+		FiltroBloom filtro = new FiltroBloom(10_000, 0.01);
+		for (int i = 0; i < 10_000; i++) {
+			filtro.anadir("A" + i);
+		}
+
+		int falsosPositivos = 0;
+		for (int i = 0; i < 100_000; i++) {
+			if (filtro.puedeContener("B" + i)) {
+				falsosPositivos++;
+			}
+		}
+		// Margen amplio sobre el 1% para no depender de la distribución concreta del hash
+		assertTrue(falsosPositivos < 2_000, "Falsos positivos: " + falsosPositivos);
+	}
+
+	@Test
+	void repetirClavesNoSaturaElFiltro() {
+		FiltroBloom filtro = new FiltroBloom(100, 0.01);
+		for (int vuelta = 0; vuelta < 5; vuelta++) {
+			for (int i = 0; i < 100; i++) {
+				filtro.anadir("12345678" + i);
+			}
+		}
+		assertFalse(filtro.saturado());
+
+		for (int i = 100; i < 300; i++) {
+			filtro.anadir("12345678" + i);
+		}
+		assertTrue(filtro.saturado());
+	}
+}
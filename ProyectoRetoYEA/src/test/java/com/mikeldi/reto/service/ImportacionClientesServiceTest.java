@@ -0,0 +1,25 @@
+package com.mikeldi.reto.service;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImportacionClientesServiceTest {
+
+	// DNI, NIE (X, Y, Z), NIF especial (K, L, M) y CIF con letra de control
+	@ParameterizedTest
+	@ValueSource(strings = {"12345678Z", "00000000T", "X1234567L", "Y1234567X", "Z1234567R",
+			"K1234567L", "L1234567L", "M1234567L", "Q2826000H", "S2800000H"})
+	void aceptaLosControlesCorrectos(String nif) {
+		assertTrue(ImportacionClientesService.controlNifValido(nif));
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"12345678A", "X1234567A", "Y1234567L", "K1234567A", "Q2826000A",
+			"1234567Z", "123456789", "ABCDEFGHI", ""})
+	void rechazaLosControlesIncorrectosYLosFormatosDesconocidos(String nif) {
+		assertFalse(ImportacionClientesService.controlNifValido(nif));
+	}
+}
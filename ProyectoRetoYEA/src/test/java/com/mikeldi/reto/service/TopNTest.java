@@ -0,0 +1,37 @@
+package com.mikeldi.reto.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TopNTest {
+
+	@Test
+	void conservaLosMayoresDeMejorAPeor() {
+		List<Integer> valores = new Random(42).ints(10_000, 0, 1_000_000).boxed().toList();
+		TopN<Integer> top = new TopN<>(10, Comparator.<Integer>naturalOrder());
+		valores.forEach(top::ofrecer);
+
+		List<Integer> esperado = valores.stream().sorted(Comparator.reverseOrder()).limit(10).toList();
+		assertEquals(esperado, top.resultado());
+	}
+
+	@Test
+	void conMenosElementosQueElLimiteLosDevuelveTodos() {
+		TopN<Integer> top = new TopN<>(10, Comparator.<Integer>naturalOrder());
+		IntStream.of(3, 1, 2).forEach(top::ofrecer);
+
+		assertEquals(List.of(3, 2, 1), top.resultado());
+	}
+
+	@Test
+	void sinElementosDevuelveUnaListaVacia() {
+		assertTrue(new TopN<String>(5, Comparator.naturalOrder()).resultado().isEmpty());
+	}
+}